@@ -0,0 +1,155 @@
+/*
+ * Copyright 2018 EPAM Systems
+ *
+ *
+ * This file is part of EPAM Report Portal.
+ * https://github.com/reportportal/service-authorization
+ *
+ * Report Portal is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Report Portal is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Report Portal.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.epam.reportportal.auth.integration.github;
+
+import com.epam.reportportal.auth.bulkhead.Bulkhead;
+import com.epam.ta.reportportal.database.BinaryData;
+import com.epam.ta.reportportal.database.DataStorage;
+import com.epam.ta.reportportal.database.dao.ProjectRepository;
+import com.epam.ta.reportportal.database.dao.UserRepository;
+import com.epam.ta.reportportal.database.entity.Project;
+import com.epam.ta.reportportal.database.entity.settings.OAuth2LoginDetails;
+import com.epam.ta.reportportal.database.entity.user.User;
+import com.epam.ta.reportportal.database.personal.PersonalProjectService;
+import com.epam.ta.reportportal.database.search.Queryable;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.http.impl.client.HttpClients;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * End-to-end login of new GitHub user restricted by organization. GitHub API is stubbed by local
+ * server answering each request after fixed delay. Unpooled client without concurrent calls
+ * (threads = 0) is how logins were performed before {@link GitHubClients}
+ *
+ * @author Andrei Varabyeu
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class GitHubLoginBenchmark {
+
+    /**
+     * Milliseconds stub server spends on each request
+     */
+    @Param({ "20" })
+    private long latency;
+
+    @Param({ "true", "false" })
+    private boolean pooled;
+
+    @Param({ "8", "0" })
+    private int threads;
+
+    private final AtomicLong users = new AtomicLong();
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private GitHubClients gitHubClients;
+    private GitHubTokenServices tokenServices;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        String baseUrl = "http://localhost:" + server.getAddress().getPort();
+        server.createContext("/user/orgs", exchange -> respond(exchange, "application/json", "[{\"login\":\"reportportal\"}]"));
+        server.createContext("/user/emails", exchange -> respond(exchange, "application/json",
+                "[{\"email\":\"" + exchange.getRequestHeaders().getFirst("Authorization").substring(7)
+                        + "@example.com\",\"verified\":true,\"primary\":true}]"));
+        server.createContext("/avatar", exchange -> respond(exchange, "image/png", "PNG"));
+        server.createContext("/user", exchange -> respond(exchange, "application/json",
+                "{\"login\":\"" + exchange.getRequestHeaders().getFirst("Authorization").substring(7) + "\",\"name\":\"User\","
+                        + "\"avatar_url\":\"" + baseUrl + "/avatar\",\"organizations_url\":\"" + baseUrl + "/user/orgs\"}"));
+        serverExecutor = Executors.newCachedThreadPool();
+        server.setExecutor(serverExecutor);
+        server.start();
+
+        ClientHttpRequestFactory requestFactory = pooled ?
+                new HttpComponentsClientHttpRequestFactory(HttpClients.custom().setMaxConnTotal(200).setMaxConnPerRoute(200).build()) :
+                new SimpleClientHttpRequestFactory();
+        gitHubClients = new GitHubClients(requestFactory, new GitHubApiCache(0, 0, 0, 0), baseUrl, threads, 1000);
+
+        UserRepository userRepository = mock(UserRepository.class);
+        when(userRepository.exists(any(Queryable.class))).thenReturn(false);
+        when(userRepository.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(userRepository.uploadUserPhoto(anyString(), any(BinaryData.class))).thenReturn("photo");
+        ProjectRepository projectRepository = mock(ProjectRepository.class);
+        when(projectRepository.findPersonalProjectName(anyString())).thenReturn(Optional.empty());
+        when(projectRepository.save(any(Project.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        GitHubUserReplicator replicator = new GitHubUserReplicator(userRepository, projectRepository, mock(DataStorage.class),
+                new PersonalProjectService(projectRepository), gitHubClients);
+
+        OAuth2LoginDetails loginDetails = new OAuth2LoginDetails();
+        loginDetails.setClientId("client");
+        loginDetails.setRestrictions(Collections.singletonMap("organizations", "reportportal"));
+        tokenServices = new GitHubTokenServices(replicator, () -> loginDetails, gitHubClients,
+                new Bulkhead("github", 1000, 1000, 1000));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        gitHubClients.destroy();
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Benchmark
+    public void login(Blackhole bh) {
+        bh.consume(tokenServices.loadAuthentication("user" + users.incrementAndGet()));
+    }
+
+    private void respond(HttpExchange exchange, String contentType, String body) throws IOException {
+        try {
+            Thread.sleep(latency);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", contentType);
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
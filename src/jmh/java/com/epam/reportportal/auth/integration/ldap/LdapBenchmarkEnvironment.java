@@ -0,0 +1,145 @@
+/*
+ * Copyright 2018 EPAM Systems
+ *
+ *
+ * This file is part of EPAM Report Portal.
+ * https://github.com/reportportal/service-authorization
+ *
+ * Report Portal is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Report Portal is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Report Portal.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.epam.reportportal.auth.integration.ldap;
+
+import com.epam.reportportal.auth.store.AuthConfigHolder;
+import com.epam.reportportal.auth.store.AuthConfigRepository;
+import com.epam.reportportal.auth.store.AuthConfigRepositoryImpl;
+import com.epam.reportportal.auth.store.entity.ldap.LdapConfig;
+import com.epam.reportportal.auth.store.entity.ldap.SynchronizationAttributes;
+import com.epam.ta.reportportal.database.entity.user.User;
+import com.epam.ta.reportportal.database.entity.user.UserRole;
+import com.mongodb.MongoClient;
+import com.unboundid.ldap.listener.InMemoryDirectoryServer;
+import com.unboundid.ldap.listener.InMemoryDirectoryServerConfig;
+import com.unboundid.ldap.listener.InMemoryListenerConfig;
+import de.flapdoodle.embed.mongo.MongodExecutable;
+import de.flapdoodle.embed.mongo.MongodStarter;
+import de.flapdoodle.embed.mongo.config.MongodConfigBuilder;
+import de.flapdoodle.embed.mongo.config.Net;
+import de.flapdoodle.embed.mongo.distribution.Version;
+import de.flapdoodle.embed.process.runtime.Network;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+import org.springframework.ldap.core.DirContextOperations;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * Embedded MongoDB holding auth settings and in-memory directory with {@link #USERS} users
+ * named 'user0', 'user1' and so on. Password of each user is 'password'
+ *
+ * @author Andrei Varabyeu
+ */
+class LdapBenchmarkEnvironment implements AutoCloseable {
+
+    static final String BASE_DN = "dc=example,dc=com";
+    static final String MANAGER_DN = "cn=admin," + BASE_DN;
+    static final String MANAGER_PASSWORD = "secret";
+    static final int USERS = 100;
+
+    private final MongodExecutable mongodExecutable;
+    private final MongoClient mongoClient;
+    private final MongoTemplate mongoTemplate;
+    private final InMemoryDirectoryServer directoryServer;
+    private final AuthConfigRepository authConfigRepository;
+    private final AuthConfigHolder authConfigHolder;
+
+    LdapBenchmarkEnvironment() throws Exception {
+        int port = Network.getFreeServerPort();
+        mongodExecutable = MongodStarter.getDefaultInstance()
+                .prepare(new MongodConfigBuilder().version(Version.Main.PRODUCTION).net(new Net(port, Network.localhostIsIPv6())).build());
+        mongodExecutable.start();
+        mongoClient = new MongoClient("localhost", port);
+        mongoTemplate = new MongoTemplate(mongoClient, "reportportal");
+        authConfigRepository = new MongoRepositoryFactory(mongoTemplate).getRepository(AuthConfigRepository.class,
+                new AuthConfigRepositoryImpl(mongoTemplate));
+        authConfigHolder = new AuthConfigHolder(mongoTemplate, mock(ApplicationEventPublisher.class));
+
+        InMemoryDirectoryServerConfig config = new InMemoryDirectoryServerConfig(BASE_DN);
+        config.addAdditionalBindCredentials(MANAGER_DN, MANAGER_PASSWORD);
+        config.setListenerConfigs(InMemoryListenerConfig.createLDAPConfig("default", 0));
+        config.setSchema(null);
+        directoryServer = new InMemoryDirectoryServer(config);
+        directoryServer.add("dn: " + BASE_DN, "objectClass: top", "objectClass: domain", "dc: example");
+        directoryServer.add("dn: ou=people," + BASE_DN, "objectClass: top", "objectClass: organizationalUnit", "ou: people");
+        for (int i = 0; i < USERS; i++) {
+            directoryServer.add("dn: uid=user" + i + ",ou=people," + BASE_DN, "objectClass: top", "objectClass: inetOrgPerson",
+                    "uid: user" + i, "cn: User " + i, "sn: User", "mail: user" + i + "@example.com", "userPassword: password");
+        }
+        directoryServer.startListening();
+    }
+
+    MongoTemplate getMongoTemplate() {
+        return mongoTemplate;
+    }
+
+    AuthConfigRepository getAuthConfigRepository() {
+        return authConfigRepository;
+    }
+
+    /**
+     * @return Holder of settings stored through {@link #getAuthConfigRepository()} so far
+     */
+    AuthConfigHolder getAuthConfigHolder() {
+        authConfigHolder.refresh();
+        return authConfigHolder;
+    }
+
+    /**
+     * @return Enabled LDAP settings pointing to in-memory directory
+     */
+    LdapConfig ldapConfig() {
+        SynchronizationAttributes attributes = new SynchronizationAttributes();
+        attributes.setEmail("mail");
+        attributes.setFullName("cn");
+
+        LdapConfig ldap = new LdapConfig();
+        ldap.setEnabled(true);
+        ldap.setUrl("ldap://localhost:" + directoryServer.getListenPort());
+        ldap.setBaseDn(BASE_DN);
+        ldap.setSynchronizationAttributes(attributes);
+        return ldap;
+    }
+
+    /**
+     * @return Replicator which does not touch database
+     */
+    static LdapUserReplicator replicator() {
+        return new LdapUserReplicator(null, null, null, null, null, null) {
+            @Override
+            public User replicateUser(String name, DirContextOperations ctx, SynchronizationAttributes attributes) {
+                User user = new User();
+                user.setLogin(name);
+                user.setRole(UserRole.USER);
+                return user;
+            }
+        };
+    }
+
+    @Override
+    public void close() {
+        directoryServer.shutDown(true);
+        mongoClient.close();
+        mongodExecutable.stop();
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2018 EPAM Systems
+ *
+ *
+ * This file is part of EPAM Report Portal.
+ * https://github.com/reportportal/service-authorization
+ *
+ * Report Portal is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Report Portal is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Report Portal.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.epam.reportportal.auth.integration.ldap;
+
+import com.epam.reportportal.auth.store.entity.ldap.ConnectionPoolConfig;
+import com.epam.reportportal.auth.store.entity.ldap.LdapConfig;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Logins per second of concurrent users when user is searched with manager's credentials before bind.
+ * Compares configurable pool of search connections with previous behaviour when pooling is left to JNDI
+ *
+ * @author Andrei Varabyeu
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+@Threads(8)
+public class LdapConnectionPoolBenchmark {
+
+    @Param({ "true", "false" })
+    private boolean pooled;
+
+    private LdapBenchmarkEnvironment environment;
+    private LdapAuthProvider provider;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        environment = new LdapBenchmarkEnvironment();
+
+        ConnectionPoolConfig pool = new ConnectionPoolConfig();
+        pool.setEnabled(pooled);
+        pool.setMaxActive(8);
+        pool.setMaxIdle(8);
+
+        LdapConfig ldap = environment.ldapConfig();
+        ldap.setUserSearchFilter("(uid={0})");
+        ldap.setManagerDn(LdapBenchmarkEnvironment.MANAGER_DN);
+        ldap.setManagerPassword(LdapBenchmarkEnvironment.MANAGER_PASSWORD);
+        ldap.setConnectionPool(pool);
+        environment.getAuthConfigRepository().updateLdap(ldap);
+
+        provider = new LdapAuthProvider(environment.getAuthConfigHolder(), LdapBenchmarkEnvironment.replicator());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        provider.destroy();
+        environment.close();
+    }
+
+    @Benchmark
+    public void login(Blackhole bh) {
+        String user = "user" + ThreadLocalRandom.current().nextInt(LdapBenchmarkEnvironment.USERS);
+        bh.consume(provider.authenticate(new UsernamePasswordAuthenticationToken(user, "password")));
+    }
+}
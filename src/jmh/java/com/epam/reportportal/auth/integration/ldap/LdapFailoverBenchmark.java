@@ -0,0 +1,78 @@
+/*
+ * Copyright 2018 EPAM Systems
+ *
+ *
+ * This file is part of EPAM Report Portal.
+ * https://github.com/reportportal/service-authorization
+ *
+ * Report Portal is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Report Portal is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Report Portal.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.epam.reportportal.auth.integration.ldap;
+
+import com.epam.reportportal.auth.store.entity.ldap.LdapConfig;
+import de.flapdoodle.embed.process.runtime.Network;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency distribution of logins while the first configured directory server is down.
+ * Compare p99 with {@link LdapLoginBenchmark}
+ *
+ * @author Andrei Varabyeu
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+@Threads(4)
+public class LdapFailoverBenchmark {
+
+    @Param({ "0", "20" })
+    private long hedgeDelay;
+
+    private LdapBenchmarkEnvironment environment;
+    private LdapAuthProvider provider;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        environment = new LdapBenchmarkEnvironment();
+        LdapConfig ldap = environment.ldapConfig();
+        String alive = ldap.getUrl();
+        /* nothing listens there */
+        ldap.setUrl("ldap://localhost:" + Network.getFreeServerPort());
+        ldap.setFailoverUrls(Collections.singletonList(alive));
+        ldap.setHedgeDelay(0 == hedgeDelay ? null : hedgeDelay);
+        ldap.setUserDnPattern("uid={0},ou=people");
+        environment.getAuthConfigRepository().updateLdap(ldap);
+
+        provider = new LdapAuthProvider(environment.getAuthConfigHolder(), LdapBenchmarkEnvironment.replicator());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        provider.destroy();
+        environment.close();
+    }
+
+    @Benchmark
+    public void login(Blackhole bh) {
+        bh.consume(provider.authenticate(new UsernamePasswordAuthenticationToken("user0", "password")));
+    }
+}
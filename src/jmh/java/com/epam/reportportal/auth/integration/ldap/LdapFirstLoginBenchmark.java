@@ -0,0 +1,158 @@
+/*
+ * Copyright 2018 EPAM Systems
+ *
+ *
+ * This file is part of EPAM Report Portal.
+ * https://github.com/reportportal/service-authorization
+ *
+ * Report Portal is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Report Portal is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Report Portal.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.epam.reportportal.auth.integration.ldap;
+
+import com.epam.reportportal.auth.integration.ReplicationQueue;
+import com.epam.reportportal.auth.store.entity.ldap.SynchronizationAttributes;
+import com.epam.ta.reportportal.database.BinaryData;
+import com.epam.ta.reportportal.database.DataStorage;
+import com.epam.ta.reportportal.database.dao.ProjectRepository;
+import com.epam.ta.reportportal.database.dao.UserRepository;
+import com.epam.ta.reportportal.database.entity.Project;
+import com.epam.ta.reportportal.database.entity.user.User;
+import com.epam.ta.reportportal.database.personal.PersonalProjectService;
+import com.epam.ta.reportportal.database.search.Queryable;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.gridfs.GridFsTemplate;
+import org.springframework.ldap.core.DirContextAdapter;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * Latency of first login replication of LDAP user having 'jpegPhoto'. Users, projects and photos
+ * are stored in embedded MongoDB and GridFS. When replication is not async, photo content detection
+ * and upload happen before login returns, which is how replicator behaved before {@link ReplicationQueue}
+ *
+ * @author Andrei Varabyeu
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class LdapFirstLoginBenchmark {
+
+    @Param({ "true", "false" })
+    private boolean async;
+
+    private final AtomicLong users = new AtomicLong();
+
+    private LdapBenchmarkEnvironment environment;
+    private ReplicationQueue replicationQueue;
+    private LdapUserReplicator replicator;
+    private SynchronizationAttributes attributes;
+    private byte[] photo;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        environment = new LdapBenchmarkEnvironment();
+        MongoTemplate mongoTemplate = environment.getMongoTemplate();
+        GridFsTemplate gridFsTemplate = new GridFsTemplate(mongoTemplate.getMongoDbFactory(), mongoTemplate.getConverter());
+
+        UserRepository userRepository = mock(UserRepository.class);
+        when(userRepository.exists(any(Queryable.class))).thenAnswer(
+                invocation -> mongoTemplate.exists(query(where("email").is("nobody@example.com")), User.class));
+        when(userRepository.save(any(User.class))).thenAnswer(invocation -> {
+            mongoTemplate.save(invocation.getArgument(0));
+            return invocation.getArgument(0);
+        });
+        when(userRepository.uploadUserPhoto(anyString(), any(BinaryData.class))).thenAnswer(invocation -> {
+            BinaryData data = invocation.getArgument(1);
+            return gridFsTemplate.store(data.getInputStream(), invocation.getArgument(0), data.getContentType()).getId().toString();
+        });
+
+        ProjectRepository projectRepository = mock(ProjectRepository.class);
+        when(projectRepository.findPersonalProjectName(anyString())).thenReturn(Optional.empty());
+        when(projectRepository.save(any(Project.class))).thenAnswer(invocation -> {
+            mongoTemplate.save(invocation.getArgument(0));
+            return invocation.getArgument(0);
+        });
+
+        replicationQueue = new ReplicationQueue(async, 2, 100_000, 3, 100);
+        replicator = new LdapUserReplicator(userRepository, projectRepository, new PersonalProjectService(projectRepository),
+                mock(DataStorage.class), mongoTemplate, replicationQueue);
+
+        attributes = new SynchronizationAttributes();
+        attributes.setEmail("mail");
+        attributes.setFullName("cn");
+        attributes.setPhoto("jpegPhoto");
+        photo = photo();
+    }
+
+    /**
+     * Lets background replication catch up, so it doesn't pile up between iterations
+     */
+    @TearDown(Level.Iteration)
+    public void drain() throws InterruptedException {
+        while (replicationQueue.getCompleted() + replicationQueue.getFailed() + replicationQueue.getRejected()
+                < replicationQueue.getSubmitted()) {
+            Thread.sleep(10);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        replicationQueue.destroy();
+        environment.close();
+    }
+
+    @Benchmark
+    public void firstLogin(Blackhole bh) {
+        String name = "user" + users.incrementAndGet();
+        DirContextAdapter ctx = new DirContextAdapter();
+        ctx.setAttributeValue("mail", name + "@example.com");
+        ctx.setAttributeValue("cn", "User " + name);
+        ctx.setAttributeValue("jpegPhoto", photo);
+        bh.consume(replicator.replicateUser(name, ctx, attributes));
+    }
+
+    /**
+     * @return Noisy JPEG of typical avatar size
+     */
+    private static byte[] photo() throws Exception {
+        Random random = new Random(42);
+        BufferedImage image = new BufferedImage(256, 256, BufferedImage.TYPE_INT_RGB);
+        for (int x = 0; x < image.getWidth(); x++) {
+            for (int y = 0; y < image.getHeight(); y++) {
+                image.setRGB(x, y, random.nextInt(0xFFFFFF));
+            }
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "jpg", out);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2018 EPAM Systems
+ *
+ *
+ * This file is part of EPAM Report Portal.
+ * https://github.com/reportportal/service-authorization
+ *
+ * Report Portal is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Report Portal is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Report Portal.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.epam.reportportal.auth.integration.ldap;
+
+import com.epam.reportportal.auth.store.entity.ldap.LdapConfig;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures latency of password login through {@link LdapAuthProvider}. Settings are stored in embedded MongoDB,
+ * users are authenticated against in-memory directory. Replication of users is stubbed out.
+ * When delegate is not cached, provider is invalidated before each login, which is how provider
+ * behaved before delegates were built once per settings revision
+ *
+ * @author Andrei Varabyeu
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class LdapLoginBenchmark {
+
+    @Param({ "true", "false" })
+    private boolean cachedDelegate;
+
+    private LdapBenchmarkEnvironment environment;
+    private LdapAuthProvider provider;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        environment = new LdapBenchmarkEnvironment();
+        LdapConfig ldap = environment.ldapConfig();
+        ldap.setUserDnPattern("uid={0},ou=people");
+        environment.getAuthConfigRepository().updateLdap(ldap);
+
+        provider = new LdapAuthProvider(environment.getAuthConfigHolder(), LdapBenchmarkEnvironment.replicator());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        provider.destroy();
+        environment.close();
+    }
+
+    @Benchmark
+    public void login(Blackhole bh) {
+        if (!cachedDelegate) {
+            provider.invalidate();
+        }
+        /* the way ProviderManager calls providers */
+        if (provider.supports(UsernamePasswordAuthenticationToken.class)) {
+            bh.consume(provider.authenticate(new UsernamePasswordAuthenticationToken("user0", "password")));
+        }
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2018 EPAM Systems
+ *
+ *
+ * This file is part of EPAM Report Portal.
+ * https://github.com/reportportal/service-authorization
+ *
+ * Report Portal is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Report Portal is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Report Portal.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.epam.reportportal.auth.store;
+
+import com.epam.reportportal.auth.store.entity.AuthConfigEntity;
+import com.epam.reportportal.auth.store.entity.ldap.LdapConfig;
+import com.epam.reportportal.auth.store.events.AuthAttributesEventListener;
+import com.epam.reportportal.auth.util.Encryptor;
+import com.mongodb.MongoClient;
+import de.flapdoodle.embed.mongo.MongodExecutable;
+import de.flapdoodle.embed.mongo.MongodStarter;
+import de.flapdoodle.embed.mongo.config.MongodConfigBuilder;
+import de.flapdoodle.embed.mongo.config.Net;
+import de.flapdoodle.embed.mongo.distribution.Version;
+import de.flapdoodle.embed.process.runtime.Network;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.context.support.StaticApplicationContext;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load of auth settings with and without encrypted LDAP manager password. Zero cache size
+ * makes each load decrypt the password, which is how settings were loaded before decrypted
+ * secrets were remembered
+ *
+ * @author Andrei Varabyeu
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class AuthConfigLoadBenchmark {
+
+    @Param({ "true", "false" })
+    private boolean managerCredentials;
+
+    @Param({ "0", "100" })
+    private long cacheSize;
+
+    private MongodExecutable mongodExecutable;
+    private MongoClient mongoClient;
+    private MongoTemplate mongoTemplate;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        int port = Network.getFreeServerPort();
+        mongodExecutable = MongodStarter.getDefaultInstance()
+                .prepare(new MongodConfigBuilder().version(Version.Main.PRODUCTION).net(new Net(port, Network.localhostIsIPv6())).build());
+        mongodExecutable.start();
+        mongoClient = new MongoClient("localhost", port);
+        mongoTemplate = new MongoTemplate(mongoClient, "reportportal");
+
+        Encryptor encryptor = new Encryptor("reportportal", cacheSize);
+        StaticApplicationContext context = new StaticApplicationContext();
+        context.addApplicationListener(new AuthAttributesEventListener(encryptor));
+        context.refresh();
+        mongoTemplate.setApplicationContext(context);
+
+        LdapConfig ldap = new LdapConfig();
+        ldap.setEnabled(true);
+        ldap.setUrl("ldap://localhost:389");
+        ldap.setBaseDn("dc=example,dc=com");
+        ldap.setUserDnPattern("uid={0},ou=people");
+        if (managerCredentials) {
+            ldap.setManagerDn("cn=admin,dc=example,dc=com");
+            ldap.setManagerPassword(encryptor.encrypt("secret"));
+        }
+        AuthConfigEntity entity = new AuthConfigEntity();
+        entity.setId(AuthConfigRepository.DEFAULT_PROFILE);
+        entity.setLdap(ldap);
+        mongoTemplate.save(entity);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        mongoClient.close();
+        mongodExecutable.stop();
+    }
+
+    @Benchmark
+    public void load(Blackhole bh) {
+        bh.consume(mongoTemplate.findById(AuthConfigRepository.DEFAULT_PROFILE, AuthConfigEntity.class).getLdap().getManagerPassword());
+    }
+}
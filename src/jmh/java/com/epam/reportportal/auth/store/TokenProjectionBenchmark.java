@@ -0,0 +1,159 @@
+/*
+ * Copyright 2017 EPAM Systems
+ *
+ *
+ * This file is part of EPAM Report Portal.
+ * https://github.com/reportportal/service-authorization
+ *
+ * Report Portal is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Report Portal is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Report Portal.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.epam.reportportal.auth.store;
+
+import com.epam.reportportal.auth.ReportPortalUser;
+import com.epam.reportportal.auth.store.codec.TokenCodec;
+import com.epam.reportportal.auth.store.entity.OAuth2AccessTokenEntity;
+import com.epam.ta.reportportal.database.entity.ProjectRole;
+import com.google.common.collect.ImmutableSet;
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBCollection;
+import com.mongodb.DBObject;
+import com.mongodb.MongoClient;
+import de.flapdoodle.embed.mongo.MongodExecutable;
+import de.flapdoodle.embed.mongo.MongodStarter;
+import de.flapdoodle.embed.mongo.config.MongodConfigBuilder;
+import de.flapdoodle.embed.mongo.config.Net;
+import de.flapdoodle.embed.mongo.distribution.Version;
+import de.flapdoodle.embed.process.runtime.Network;
+import org.bson.BasicBSONEncoder;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.oauth2.common.DefaultOAuth2AccessToken;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+import org.springframework.security.oauth2.provider.OAuth2Request;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Compares listing of user tokens loading whole documents against loading token field only.
+ * Bytes transferred from DB per call are printed once per trial
+ *
+ * @author Andrei Varabyeu
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class TokenProjectionBenchmark {
+
+    private static final String USER = "default";
+    private static final String CLIENT = "api";
+
+    /**
+     * Amount of tokens user has
+     */
+    @Param({ "1", "50" })
+    private int tokens;
+
+    private MongodExecutable mongodExecutable;
+    private MongoClient mongoClient;
+    private MongoTemplate mongoTemplate;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        int port = Network.getFreeServerPort();
+        mongodExecutable = MongodStarter.getDefaultInstance()
+                .prepare(new MongodConfigBuilder().version(Version.Main.PRODUCTION).net(new Net(port, Network.localhostIsIPv6())).build());
+        mongodExecutable.start();
+        mongoClient = new MongoClient("localhost", port);
+        mongoTemplate = new MongoTemplate(mongoClient, "reportportal");
+        new TokenIndexesInitializer(mongoTemplate).afterPropertiesSet();
+
+        OAuth2Authentication authentication = authentication();
+        for (int i = 0; i < tokens; i++) {
+            DefaultOAuth2AccessToken token = new DefaultOAuth2AccessToken(UUID.randomUUID().toString());
+            token.setScope(ImmutableSet.of(CLIENT));
+            OAuth2AccessTokenEntity entity = new OAuth2AccessTokenEntity();
+            entity.setTokenId(token.getValue());
+            entity.setToken(TokenCodec.encodeAccessToken(token));
+            entity.setAuthentication(TokenCodec.encodeAuthentication(authentication));
+            entity.setCodecVersion(TokenCodec.CURRENT_VERSION);
+            entity.setAuthenticationId(UUID.randomUUID().toString());
+            entity.setClientId(CLIENT);
+            entity.setUserName(USER);
+            mongoTemplate.save(entity);
+        }
+
+        DBCollection collection = mongoTemplate.getCollection(mongoTemplate.getCollectionName(OAuth2AccessTokenEntity.class));
+        DBObject query = new BasicDBObject("clientId", CLIENT).append("userName", USER);
+        System.out.printf("%nBytes per call, tokens=%d: full documents=%d, token only=%d%n", tokens, bytes(collection, query, null),
+                bytes(collection, query, new BasicDBObject("token", 1).append("codecVersion", 1)));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        mongoClient.close();
+        mongodExecutable.stop();
+    }
+
+    @Benchmark
+    public void fullDocuments(Blackhole bh) {
+        load(new Query(where("clientId").is(CLIENT).and("userName").is(USER)), bh);
+    }
+
+    @Benchmark
+    public void tokenOnly(Blackhole bh) {
+        Query query = new Query(where("clientId").is(CLIENT).and("userName").is(USER));
+        query.fields().include("token").include("codecVersion");
+        load(query, bh);
+    }
+
+    private void load(Query query, Blackhole bh) {
+        mongoTemplate.find(query, OAuth2AccessTokenEntity.class)
+                .forEach(entity -> bh.consume(TokenCodec.decodeAccessToken(entity.getCodecVersion(), entity.getToken())));
+    }
+
+    private static long bytes(DBCollection collection, DBObject query, DBObject fields) {
+        BasicBSONEncoder encoder = new BasicBSONEncoder();
+        long bytes = 0;
+        for (DBObject document : collection.find(query, fields)) {
+            bytes += encoder.encode(document).length;
+        }
+        return bytes;
+    }
+
+    private static OAuth2Authentication authentication() {
+        Map<String, ProjectRole> projectRoles = new HashMap<>();
+        for (int i = 0; i < 20; i++) {
+            projectRoles.put("project_" + i, ProjectRole.MEMBER);
+        }
+        ReportPortalUser user = new ReportPortalUser(USER, "", AuthorityUtils.createAuthorityList("ROLE_USER"), projectRoles);
+        user.eraseCredentials();
+        OAuth2Request request = new OAuth2Request(Collections.emptyMap(), CLIENT, AuthorityUtils.createAuthorityList("ROLE_USER"), true,
+                ImmutableSet.of(CLIENT), Collections.emptySet(), null, Collections.emptySet(), Collections.<String, Serializable>emptyMap());
+        return new OAuth2Authentication(request, new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+    }
+}
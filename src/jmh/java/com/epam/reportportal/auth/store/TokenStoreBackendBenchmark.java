@@ -0,0 +1,168 @@
+/*
+ * Copyright 2017 EPAM Systems
+ *
+ *
+ * This file is part of EPAM Report Portal.
+ * https://github.com/reportportal/service-authorization
+ *
+ * Report Portal is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Report Portal is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Report Portal.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.epam.reportportal.auth.store;
+
+import com.epam.reportportal.auth.ReportPortalUser;
+import com.epam.reportportal.auth.store.codec.TokenCodec;
+import com.epam.reportportal.auth.store.entity.OAuth2AccessTokenEntity;
+import com.epam.ta.reportportal.database.entity.ProjectRole;
+import com.google.common.collect.ImmutableSet;
+import com.mongodb.MongoClient;
+import de.flapdoodle.embed.mongo.MongodExecutable;
+import de.flapdoodle.embed.mongo.MongodStarter;
+import de.flapdoodle.embed.mongo.config.MongodConfigBuilder;
+import de.flapdoodle.embed.mongo.config.Net;
+import de.flapdoodle.embed.mongo.distribution.Version;
+import de.flapdoodle.embed.process.runtime.Network;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.oauth2.common.DefaultOAuth2AccessToken;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+import org.springframework.security.oauth2.provider.OAuth2Request;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares throughput of {@link TokenStoreBackend} implementations on typical operations.
+ * MongoDB backend runs against embedded MongoDB
+ *
+ * @author Andrei Varabyeu
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+@Threads(4)
+public class TokenStoreBackendBenchmark {
+
+    private static final int USERS = 1000;
+    private static final int TOKENS_PER_USER = 5;
+
+    @Param({ "mongo", "offheap" })
+    private String backendType;
+
+    private MongodExecutable mongodExecutable;
+    private MongoClient mongoClient;
+    private TokenStoreBackend backend;
+
+    private byte[] token;
+    private byte[] authentication;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        if ("mongo".equals(backendType)) {
+            int port = Network.getFreeServerPort();
+            mongodExecutable = MongodStarter.getDefaultInstance()
+                    .prepare(new MongodConfigBuilder().version(Version.Main.PRODUCTION).net(new Net(port, Network.localhostIsIPv6())).build());
+            mongodExecutable.start();
+            mongoClient = new MongoClient("localhost", port);
+            MongoTemplate mongoTemplate = new MongoTemplate(mongoClient, "reportportal");
+            new TokenIndexesInitializer(mongoTemplate).afterPropertiesSet();
+            MongoRepositoryFactory factory = new MongoRepositoryFactory(mongoTemplate);
+            backend = new MongoTokenStoreBackend(
+                    factory.getRepository(OAuth2AccessTokenRepository.class, new OAuth2AccessTokenRepositoryImpl(mongoTemplate)),
+                    factory.getRepository(OAuth2RefreshTokenRepository.class));
+        } else {
+            backend = new OffHeapTokenStoreBackend(Long.MAX_VALUE);
+        }
+
+        DefaultOAuth2AccessToken accessToken = new DefaultOAuth2AccessToken(UUID.randomUUID().toString());
+        accessToken.setScope(ImmutableSet.of("ui"));
+        token = TokenCodec.encodeAccessToken(accessToken);
+        authentication = TokenCodec.encodeAuthentication(authentication());
+
+        for (int user = 0; user < USERS; user++) {
+            for (int i = 0; i < TOKENS_PER_USER; i++) {
+                backend.saveAccessToken(entity(tokenId(user, i), user));
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (null != mongoClient) {
+            mongoClient.close();
+        }
+        if (null != mongodExecutable) {
+            mongodExecutable.stop();
+        }
+    }
+
+    @Benchmark
+    public void findAccessToken(Blackhole bh) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        bh.consume(backend.findAccessToken(tokenId(random.nextInt(USERS), random.nextInt(TOKENS_PER_USER))));
+    }
+
+    @Benchmark
+    public void findTokensByClientIdAndUserName(Blackhole bh) {
+        bh.consume(backend.findTokensByClientIdAndUserName("ui", "user" + ThreadLocalRandom.current().nextInt(USERS)));
+    }
+
+    @Benchmark
+    public void saveAccessToken() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int user = random.nextInt(USERS);
+        backend.saveAccessToken(entity(tokenId(user, random.nextInt(TOKENS_PER_USER)), user));
+    }
+
+    private static String tokenId(int user, int token) {
+        return "token_" + user + "_" + token;
+    }
+
+    private OAuth2AccessTokenEntity entity(String tokenId, int user) {
+        OAuth2AccessTokenEntity entity = new OAuth2AccessTokenEntity();
+        entity.setTokenId(tokenId);
+        entity.setToken(token);
+        entity.setAuthentication(authentication);
+        entity.setCodecVersion(TokenCodec.CURRENT_VERSION);
+        entity.setAuthenticationId("auth_" + tokenId);
+        entity.setUserName("user" + user);
+        entity.setClientId("ui");
+        entity.setExpiresAt(new Date(System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1)));
+        return entity;
+    }
+
+    private static OAuth2Authentication authentication() {
+        Map<String, ProjectRole> projectRoles = new HashMap<>();
+        for (int i = 0; i < 5; i++) {
+            projectRoles.put("project_" + i, ProjectRole.MEMBER);
+        }
+        ReportPortalUser user = new ReportPortalUser("default", "", AuthorityUtils.createAuthorityList("ROLE_USER"), projectRoles);
+        user.eraseCredentials();
+        OAuth2Request request = new OAuth2Request(Collections.emptyMap(), "ui", AuthorityUtils.createAuthorityList("ROLE_USER"), true,
+                ImmutableSet.of("ui"), Collections.emptySet(), null, Collections.emptySet(), Collections.<String, Serializable>emptyMap());
+        return new OAuth2Authentication(request, new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2018 EPAM Systems
+ *
+ *
+ * This file is part of EPAM Report Portal.
+ * https://github.com/reportportal/service-authorization
+ *
+ * Report Portal is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Report Portal is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Report Portal.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.epam.reportportal.auth.store.codec;
+
+import com.epam.reportportal.auth.ReportPortalUser;
+import com.epam.ta.reportportal.database.entity.ProjectRole;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.oauth2.common.DefaultOAuth2AccessToken;
+import org.springframework.security.oauth2.common.OAuth2AccessToken;
+import org.springframework.security.oauth2.common.util.SerializationUtils;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+import org.springframework.security.oauth2.provider.OAuth2Request;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares size and encode/decode time of {@link TokenCodec} against Java serialization
+ * used for token collections before. Sizes are printed once per trial
+ *
+ * @author Andrei Varabyeu
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class TokenCodecBenchmark {
+
+    /**
+     * Amount of projects user is assigned to
+     */
+    @Param({ "1", "20" })
+    private int projects;
+
+    private OAuth2AccessToken token;
+    private OAuth2Authentication authentication;
+
+    private byte[] javaToken;
+    private byte[] javaAuthentication;
+    private byte[] codecToken;
+    private byte[] codecAuthentication;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        DefaultOAuth2AccessToken accessToken = new DefaultOAuth2AccessToken(UUID.randomUUID().toString());
+        accessToken.setExpiration(new Date(System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(30)));
+        accessToken.setScope(ImmutableSet.of("ui"));
+        this.token = accessToken;
+
+        Map<String, ProjectRole> projectRoles = new HashMap<>();
+        for (int i = 0; i < projects; i++) {
+            projectRoles.put("project_" + i, ProjectRole.MEMBER);
+        }
+        ReportPortalUser user = new ReportPortalUser("default", "N/A", AuthorityUtils.createAuthorityList("ROLE_USER"), projectRoles);
+        user.eraseCredentials();
+        UsernamePasswordAuthenticationToken userAuth = new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities());
+        userAuth.setDetails(ImmutableMap.of("grant_type", "password", "username", "default"));
+
+        OAuth2Request request = new OAuth2Request(ImmutableMap.of("grant_type", "password", "username", "default"), "ui",
+                AuthorityUtils.createAuthorityList("ROLE_USER"), true, ImmutableSet.of("ui"), Collections.emptySet(), null,
+                Collections.emptySet(), Collections.<String, Serializable>emptyMap());
+        this.authentication = new OAuth2Authentication(request, userAuth);
+
+        this.javaToken = SerializationUtils.serialize(token);
+        this.javaAuthentication = SerializationUtils.serialize(authentication);
+        this.codecToken = TokenCodec.encodeAccessToken(token);
+        this.codecAuthentication = TokenCodec.encodeAuthentication(authentication);
+
+        System.out.printf("%nEncoded size, projects=%d: token java=%d codec=%d bytes; authentication java=%d codec=%d bytes%n", projects,
+                javaToken.length, codecToken.length, javaAuthentication.length, codecAuthentication.length);
+    }
+
+    @Benchmark
+    public void encodeJava(Blackhole bh) {
+        bh.consume(SerializationUtils.serialize(token));
+        bh.consume(SerializationUtils.serialize(authentication));
+    }
+
+    @Benchmark
+    public void encodeCodec(Blackhole bh) {
+        bh.consume(TokenCodec.encodeAccessToken(token));
+        bh.consume(TokenCodec.encodeAuthentication(authentication));
+    }
+
+    @Benchmark
+    public void decodeJava(Blackhole bh) {
+        bh.consume(TokenCodec.decodeAccessToken(TokenCodec.JAVA_SERIALIZATION, javaToken));
+        bh.consume(TokenCodec.decodeAuthentication(TokenCodec.JAVA_SERIALIZATION, javaAuthentication, null));
+    }
+
+    @Benchmark
+    public void decodeCodec(Blackhole bh) {
+        bh.consume(TokenCodec.decodeAccessToken(TokenCodec.CURRENT_VERSION, codecToken));
+        bh.consume(TokenCodec.decodeAuthentication(TokenCodec.CURRENT_VERSION, codecAuthentication, null));
+    }
+}
@@ -20,19 +20,28 @@
  */
 package com.epam.reportportal.auth;
 
-import com.epam.ta.reportportal.database.dao.ServerSettingsRepository;
+import com.epam.reportportal.auth.event.OAuthConfigChangedEvent;
+import com.epam.reportportal.auth.store.AuthConfigHolder;
 import com.epam.ta.reportportal.database.entity.settings.OAuth2LoginDetails;
-import com.epam.ta.reportportal.database.entity.settings.ServerSettings;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationListener;
+import org.springframework.http.client.ClientHttpRequestFactory;
 import org.springframework.security.authentication.ProviderNotFoundException;
 import org.springframework.security.oauth2.client.OAuth2ClientContext;
 import org.springframework.security.oauth2.client.OAuth2RestOperations;
 import org.springframework.security.oauth2.client.OAuth2RestTemplate;
 import org.springframework.security.oauth2.client.resource.BaseOAuth2ProtectedResourceDetails;
 import org.springframework.security.oauth2.client.resource.OAuth2ProtectedResourceDetails;
+import org.springframework.security.oauth2.client.token.AccessTokenProvider;
+import org.springframework.security.oauth2.client.token.AccessTokenProviderChain;
+import org.springframework.security.oauth2.client.token.OAuth2AccessTokenSupport;
+import org.springframework.security.oauth2.client.token.grant.client.ClientCredentialsAccessTokenProvider;
 import org.springframework.security.oauth2.client.token.grant.client.ClientCredentialsResourceDetails;
+import org.springframework.security.oauth2.client.token.grant.code.AuthorizationCodeAccessTokenProvider;
 import org.springframework.security.oauth2.client.token.grant.code.AuthorizationCodeResourceDetails;
+import org.springframework.security.oauth2.client.token.grant.implicit.ImplicitAccessTokenProvider;
 import org.springframework.security.oauth2.client.token.grant.implicit.ImplicitResourceDetails;
+import org.springframework.security.oauth2.client.token.grant.password.ResourceOwnerPasswordAccessTokenProvider;
 import org.springframework.security.oauth2.client.token.grant.password.ResourceOwnerPasswordResourceDetails;
 import org.springframework.security.oauth2.client.token.grant.redirect.AbstractRedirectResourceDetails;
 import org.springframework.security.oauth2.common.AuthenticationScheme;
@@ -40,7 +49,11 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.client.RestTemplate;
 
 import java.lang.reflect.InvocationTargetException;
+import java.util.Arrays;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Function;
 import java.util.function.Supplier;
 
@@ -48,27 +61,34 @@ import static com.google.common.reflect.Reflection.newProxy;
 import static java.util.Optional.ofNullable;
 
 /**
- * Builds proxy instance of {@link RestTemplate} which load OAuth resouce details from DB on each operation
+ * Builds proxy instance of {@link RestTemplate} which uses OAuth resouce details from current settings.
+ * Template is built once per revision of provider settings and rebuilt after they are changed
  *
  * @author <a href="mailto:andrei_varabyeu@epam.com">Andrei Varabyeu</a>
  */
 @Component
-public class AuthConfigService {
+public class AuthConfigService implements ApplicationListener<OAuthConfigChangedEvent> {
 
 	@Autowired
-	private ServerSettingsRepository serverSettingsRepository;
+	private AuthConfigHolder authConfigHolder;
+
+	@Autowired
+	private ClientHttpRequestFactory oauthRequestFactory;
+
+	private final ConcurrentMap<String, AtomicLong> revisions = new ConcurrentHashMap<>();
 
 	/**
-	 * Builds proxy instance of {@link RestTemplate} which load OAuth resouce details from DB on each operation
+	 * Builds proxy instance of {@link RestTemplate} which uses OAuth resouce details from current settings
 	 *
 	 * @param name                Name/ID of resource of {@link RestTemplate}
 	 * @param oauth2ClientContext OAuth Client context
 	 * @return Proxy instance of {@link RestTemplate}
 	 */
 	public OAuth2RestOperations getRestTemplate(String name, OAuth2ClientContext oauth2ClientContext) {
+		RevisionedTemplate template = new RevisionedTemplate(name, oauth2ClientContext);
 		return newProxy(OAuth2RestOperations.class, (proxy, method, args) -> {
 			try {
-				return method.invoke(new OAuth2RestTemplate(loadResourceDetails(name), oauth2ClientContext), args);
+				return method.invoke(template.get(), args);
 
 			} catch (InvocationTargetException e) {
 				throw e.getTargetException();
@@ -76,24 +96,27 @@ public class AuthConfigService {
 		});
 	}
 
+	@Override
+	public void onApplicationEvent(OAuthConfigChangedEvent event) {
+		revision(event.getName()).incrementAndGet();
+	}
+
 	public Supplier<OAuth2LoginDetails> getLoginDetailsSupplier(String name) {
 		return () -> loadLoginDetails(name).orElseThrow(() -> noAuthDetailsException(name));
 	}
 
 	/**
-	 * Loads {@link OAuth2LoginDetails} from database
+	 * Loads {@link OAuth2LoginDetails} from current settings snapshot
 	 *
 	 * @param name Name of resource
 	 * @return Built {@link OAuth2ProtectedResourceDetails}
 	 */
 	public Optional<OAuth2LoginDetails> loadLoginDetails(String name) {
-		return ofNullable(serverSettingsRepository.findOne("default"))
-				.map(ServerSettings::getoAuth2LoginDetails)
-				.flatMap(details -> ofNullable(details.get(name)));
+		return authConfigHolder.get().getOAuth2LoginDetails(name);
 	}
 
 	/**
-	 * Loads {@link OAuth2ProtectedResourceDetails} from database
+	 * Loads {@link OAuth2ProtectedResourceDetails} from current settings snapshot
 	 *
 	 * @param name Name of resource
 	 * @return Built {@link OAuth2ProtectedResourceDetails}
@@ -150,4 +173,66 @@ public class AuthConfigService {
 	private ProviderNotFoundException noAuthDetailsException(String name) {
 		return new ProviderNotFoundException("Auth details '" + name + "' are not configured");
 	}
+
+	private AtomicLong revision(String name) {
+		return revisions.computeIfAbsent(name, n -> new AtomicLong());
+	}
+
+	/**
+	 * Template of single provider. Requests to token endpoint and to resources share pooled connections
+	 */
+	private class RevisionedTemplate {
+		private final String name;
+		private final OAuth2ClientContext context;
+
+		private volatile BuiltTemplate built;
+
+		RevisionedTemplate(String name, OAuth2ClientContext context) {
+			this.name = name;
+			this.context = context;
+		}
+
+		OAuth2RestTemplate get() {
+			long current = revision(name).get();
+			BuiltTemplate template = built;
+			if (null == template || template.revision != current) {
+				synchronized (this) {
+					template = built;
+					if (null == template || template.revision != current) {
+						/* settings changed while template is being built make revision outdated right away */
+						template = new BuiltTemplate(current, build());
+						built = template;
+					}
+				}
+			}
+			return template.template;
+		}
+
+		private OAuth2RestTemplate build() {
+			OAuth2RestTemplate restTemplate = new OAuth2RestTemplate(loadResourceDetails(name), context);
+			restTemplate.setRequestFactory(oauthRequestFactory);
+			restTemplate.setAccessTokenProvider(new AccessTokenProviderChain(Arrays.<AccessTokenProvider>asList(
+					pooled(new AuthorizationCodeAccessTokenProvider()),
+					pooled(new ImplicitAccessTokenProvider()),
+					pooled(new ResourceOwnerPasswordAccessTokenProvider()),
+					pooled(new ClientCredentialsAccessTokenProvider())
+			)));
+			return restTemplate;
+		}
+
+		private <T extends OAuth2AccessTokenSupport> T pooled(T tokenProvider) {
+			tokenProvider.setRequestFactory(oauthRequestFactory);
+			return tokenProvider;
+		}
+	}
+
+	private static class BuiltTemplate {
+		private final long revision;
+		private final OAuth2RestTemplate template;
+
+		BuiltTemplate(long revision, OAuth2RestTemplate template) {
+			this.revision = revision;
+			this.template = template;
+		}
+	}
 }
@@ -20,36 +20,91 @@
  */
 package com.epam.reportportal.auth;
 
-import com.epam.reportportal.auth.store.AuthConfigRepository;
+import com.epam.reportportal.auth.event.AuthConfigChangedEvent;
+import com.epam.reportportal.auth.integration.AuthIntegrationType;
+import com.epam.reportportal.auth.store.AuthConfigHolder;
+import org.springframework.context.ApplicationListener;
 import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.AuthenticationException;
 
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
 /**
- * Dynamic (enableable) auth provider
+ * Dynamic (enableable) auth provider. Delegate is built once per revision of integration settings
+ * and rebuilt after settings are changed
  *
  * @author Andrei Varabyeu
  */
-public abstract class EnableableAuthProvider implements AuthenticationProvider {
+public abstract class EnableableAuthProvider implements AuthenticationProvider, ApplicationListener<AuthConfigChangedEvent> {
+
+	protected final AuthConfigHolder authConfigHolder;
 
-	protected final AuthConfigRepository authConfigRepository;
+	private final AtomicLong revision = new AtomicLong();
+	private volatile BuiltDelegate delegate;
 
-	protected EnableableAuthProvider(AuthConfigRepository authConfigRepository) {
-		this.authConfigRepository = authConfigRepository;
+	protected EnableableAuthProvider(AuthConfigHolder authConfigHolder) {
+		this.authConfigHolder = authConfigHolder;
 	}
 
+	/**
+	 * @return Type of integration which settings delegate is built from
+	 */
+	protected abstract AuthIntegrationType getType();
+
 	protected abstract boolean isEnabled();
 
 	protected abstract AuthenticationProvider getDelegate();
 
 	@Override
 	public final Authentication authenticate(Authentication authentication) throws AuthenticationException {
-		return isEnabled() ? getDelegate().authenticate(authentication) : null;
+		Optional<AuthenticationProvider> provider = delegate();
+		return provider.isPresent() ? provider.get().authenticate(authentication) : null;
 	}
 
 	@Override
 	public final boolean supports(Class<?> authentication) {
-		return isEnabled() && getDelegate().supports(authentication);
+		return delegate().map(it -> it.supports(authentication)).orElse(false);
+	}
+
+	@Override
+	public void onApplicationEvent(AuthConfigChangedEvent event) {
+		if (getType() == event.getType()) {
+			invalidate();
+		}
 	}
 
+	/**
+	 * Makes provider rebuild delegate on next call
+	 */
+	public void invalidate() {
+		revision.incrementAndGet();
+	}
+
+	private Optional<AuthenticationProvider> delegate() {
+		long current = revision.get();
+		BuiltDelegate built = delegate;
+		if (null == built || built.revision != current) {
+			synchronized (this) {
+				built = delegate;
+				if (null == built || built.revision != current) {
+					/* settings changed while delegate is being built make revision outdated right away */
+					built = new BuiltDelegate(current, isEnabled() ? Optional.of(getDelegate()) : Optional.empty());
+					delegate = built;
+				}
+			}
+		}
+		return built.provider;
+	}
+
+	private static class BuiltDelegate {
+		private final long revision;
+		private final Optional<AuthenticationProvider> provider;
+
+		BuiltDelegate(long revision, Optional<AuthenticationProvider> provider) {
+			this.revision = revision;
+			this.provider = provider;
+		}
+	}
 }
@@ -20,18 +20,35 @@
  */
 package com.epam.reportportal.auth;
 
+import com.epam.reportportal.auth.bulkhead.BulkheadAuthenticationProvider;
+import com.epam.reportportal.auth.bulkhead.Bulkheads;
+import com.epam.reportportal.auth.integration.AuthIntegrationType;
 import com.epam.reportportal.auth.integration.ldap.ActiveDirectoryAuthProvider;
 import com.epam.reportportal.auth.integration.ldap.LdapAuthProvider;
 import com.epam.reportportal.auth.integration.ldap.LdapUserReplicator;
-import com.epam.reportportal.auth.store.AuthConfigRepository;
-import com.epam.reportportal.auth.store.OAuth2MongoTokenStore;
+import com.epam.reportportal.auth.integration.ldap.UserDnCache;
+import com.epam.reportportal.auth.integration.ldap.VerifiedCredentialsCache;
+import com.epam.reportportal.auth.store.AccessTokenCache;
+import com.epam.reportportal.auth.store.AuthConfigHolder;
+import com.epam.reportportal.auth.store.ReportPortalTokenStore;
+import com.epam.reportportal.auth.store.jwt.ClientJwtTokenEnhancer;
+import com.epam.reportportal.auth.store.jwt.HybridTokenStore;
+import com.epam.reportportal.auth.store.jwt.ReportPortalUserAuthenticationConverter;
+import com.epam.reportportal.auth.store.jwt.RevokedJwtRegistry;
 import com.epam.ta.reportportal.commons.ExceptionMappings;
 import com.epam.ta.reportportal.commons.exception.rest.DefaultErrorResolver;
 import com.epam.ta.reportportal.commons.exception.rest.ReportPortalExceptionResolver;
+import com.epam.ta.reportportal.database.entity.user.UserType;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.data.mongodb.core.MongoOperations;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.authentication.encoding.Md5PasswordEncoder;
@@ -47,6 +64,13 @@ import org.springframework.security.oauth2.config.annotation.web.configuration.E
 import org.springframework.security.oauth2.config.annotation.web.configuration.ResourceServerConfigurerAdapter;
 import org.springframework.security.oauth2.config.annotation.web.configurers.AuthorizationServerEndpointsConfigurer;
 import org.springframework.security.oauth2.config.annotation.web.configurers.AuthorizationServerSecurityConfigurer;
+import org.springframework.security.oauth2.provider.token.DefaultAccessTokenConverter;
+import org.springframework.security.oauth2.provider.token.store.JwtAccessTokenConverter;
+import org.springframework.security.oauth2.provider.token.store.KeyStoreKeyFactory;
+import org.springframework.util.StringUtils;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Set of general Security configs. This class is not supposed to be extended
@@ -78,11 +102,29 @@ class PrimarySecurityConfigs {
 	protected static class GlobalSecurityConfiguration extends GlobalAuthenticationConfigurerAdapter {
 
 		@Autowired
-		private AuthConfigRepository authConfigRepository;
+		private AuthConfigHolder authConfigHolder;
 
 		@Autowired
 		private LdapUserReplicator ldapUserReplicator;
 
+		@Autowired
+		private VerifiedCredentialsCache verifiedCredentialsCache;
+
+		@Autowired
+		private UserDnCache userDnCache;
+
+		@Autowired
+		private Bulkheads bulkheads;
+
+		@Autowired
+		private MongoOperations mongoOperations;
+
+		@Value("${rp.auth.routing.cache.size:10000}")
+		private long userTypeCacheSize;
+
+		@Value("${rp.auth.routing.cache.ttl:60}")
+		private long userTypeCacheTtl;
+
 		@Bean
 		UserDetailsService userDetailsService() {
 			return new DatabaseUserDetailsService();
@@ -96,11 +138,38 @@ class PrimarySecurityConfigs {
 			return provider;
 		}
 
+		/*
+		 * Beans, so they are notified once settings are changed
+		 */
+		@Bean
+		ActiveDirectoryAuthProvider activeDirectoryAuthProvider() {
+			return new ActiveDirectoryAuthProvider(authConfigHolder, ldapUserReplicator, verifiedCredentialsCache);
+		}
+
+		@Bean
+		LdapAuthProvider ldapAuthProvider() {
+			return new LdapAuthProvider(authConfigHolder, ldapUserReplicator, verifiedCredentialsCache, userDnCache);
+		}
+
+		@Bean
+		UserTypeCache userTypeCache() {
+			return new UserTypeCache(mongoOperations, userTypeCacheSize, userTypeCacheTtl);
+		}
+
 		@Override
 		public void init(AuthenticationManagerBuilder auth) throws Exception {
-			auth.authenticationProvider(basicPasswordAuthProvider())
-					.authenticationProvider(new ActiveDirectoryAuthProvider(authConfigRepository, ldapUserReplicator))
-					.authenticationProvider(new LdapAuthProvider(authConfigRepository, ldapUserReplicator));
+			/* each provider is limited in concurrent requests, so slow one cannot take every request thread */
+			AuthenticationProvider basic = new BulkheadAuthenticationProvider(basicPasswordAuthProvider(),
+					bulkheads.get(Bulkheads.INTERNAL));
+			AuthenticationProvider activeDirectory = new BulkheadAuthenticationProvider(activeDirectoryAuthProvider(),
+					bulkheads.get(AuthIntegrationType.ACTIVE_DIRECTORY.getId()));
+			AuthenticationProvider ldap = new BulkheadAuthenticationProvider(ldapAuthProvider(),
+					bulkheads.get(AuthIntegrationType.LDAP.getId()));
+
+			/* both directories replicate users as LDAP ones */
+			auth.authenticationProvider(new RoutingAuthenticationProvider(userTypeCache(),
+					ImmutableList.of(basic, activeDirectory, ldap),
+					ImmutableMap.of(UserType.INTERNAL, ImmutableList.of(basic), UserType.LDAP, ImmutableList.of(activeDirectory, ldap))));
 		}
 
 
@@ -120,9 +189,73 @@ class PrimarySecurityConfigs {
 		@Value("${rp.session.live}")
 		private Integer sessionLive;
 
+		/**
+		 * Whether UI tokens are signed self-contained ones
+		 */
+		@Value("${rp.auth.jwt.enabled:false}")
+		private boolean jwtEnabled;
+
+		@Value("${rp.auth.jwt.keystore.location:}")
+		private String jwtKeystore;
+
+		@Value("${rp.auth.jwt.keystore.password:}")
+		private String jwtKeystorePassword;
+
+		@Value("${rp.auth.jwt.keystore.alias:}")
+		private String jwtKeyAlias;
+
+		@Value("${rp.auth.jwt.signing-key:}")
+		private String jwtSigningKey;
+
+		@Autowired
+		private MongoOperations mongoOperations;
+
+		@Bean
+		public ReportPortalTokenStore tokenStore() {
+			return new ReportPortalTokenStore();
+		}
+
+		/**
+		 * Signs self-contained tokens. Its presence enables /sso/oauth/token_key endpoint
+		 */
 		@Bean
-		public OAuth2MongoTokenStore tokenStore() {
-			return new OAuth2MongoTokenStore();
+		@ConditionalOnProperty(name = "rp.auth.jwt.enabled", havingValue = "true")
+		public JwtAccessTokenConverter jwtAccessTokenConverter() {
+			JwtAccessTokenConverter converter = new JwtAccessTokenConverter();
+			if (StringUtils.hasText(jwtKeystore)) {
+				converter.setKeyPair(new KeyStoreKeyFactory(new DefaultResourceLoader().getResource(jwtKeystore),
+						jwtKeystorePassword.toCharArray()).getKeyPair(jwtKeyAlias));
+			} else if (StringUtils.hasText(jwtSigningKey)) {
+				converter.setSigningKey(jwtSigningKey);
+			} else {
+				/* generated key cannot be shared between nodes */
+				throw new IllegalStateException("Either 'rp.auth.jwt.keystore.location' or 'rp.auth.jwt.signing-key' should be specified");
+			}
+			DefaultAccessTokenConverter accessTokenConverter = new DefaultAccessTokenConverter();
+			accessTokenConverter.setUserTokenConverter(new ReportPortalUserAuthenticationConverter());
+			converter.setAccessTokenConverter(accessTokenConverter);
+			return converter;
+		}
+
+		@Bean
+		@ConditionalOnProperty(name = "rp.auth.jwt.enabled", havingValue = "true")
+		public RevokedJwtRegistry revokedJwtRegistry() {
+			/* refresh tokens outlive access ones. Default validity of refresh token is used */
+			return new RevokedJwtRegistry(mongoOperations, TimeUnit.DAYS.toMillis(30));
+		}
+
+		@Bean
+		@Primary
+		@ConditionalOnProperty(name = "rp.auth.jwt.enabled", havingValue = "true")
+		public HybridTokenStore hybridTokenStore() {
+			return new HybridTokenStore(tokenStore(), jwtAccessTokenConverter(), revokedJwtRegistry(),
+					Collections.singleton(ReportPortalClient.ui.name()));
+		}
+
+		@Bean
+		public AccessTokenCache accessTokenCache(@Value("${rp.auth.token.cache.size:10000}") long size,
+				@Value("${rp.auth.token.cache.ttl:30}") long ttl) {
+			return new AccessTokenCache(size, ttl);
 		}
 
 		@Override
@@ -135,10 +268,14 @@ class PrimarySecurityConfigs {
 					.pathMapping("/oauth/authorize", "/sso/oauth/authorize")
 					.pathMapping("/oauth/confirm_access", "/sso/oauth/confirm_access")
 					.authenticationManager(authenticationManager)
-					.exceptionTranslator(new OAuthErrorHandler(new ReportPortalExceptionResolver(new DefaultErrorResolver(ExceptionMappings.DEFAULT_MAPPING))))
-
-					.tokenStore(tokenStore());
+					.exceptionTranslator(new OAuthErrorHandler(new ReportPortalExceptionResolver(new DefaultErrorResolver(ExceptionMappings.DEFAULT_MAPPING))));
 			//@formatter:on
+			if (jwtEnabled) {
+				endpoints.tokenStore(hybridTokenStore())
+						.tokenEnhancer(new ClientJwtTokenEnhancer(Collections.singleton(ReportPortalClient.ui.name()), jwtAccessTokenConverter()));
+			} else {
+				endpoints.tokenStore(tokenStore());
+			}
 		}
 
 		@Override
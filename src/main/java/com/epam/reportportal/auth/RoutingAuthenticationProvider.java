@@ -0,0 +1,100 @@
+/*
+ * Copyright 2018 EPAM Systems
+ *
+ *
+ * This file is part of EPAM Report Portal.
+ * https://github.com/reportportal/service-authorization
+ *
+ * Report Portal is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Report Portal is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Report Portal.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.epam.reportportal.auth;
+
+import com.epam.ta.reportportal.database.entity.user.UserType;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.springframework.security.authentication.AccountStatusException;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.InternalAuthenticationServiceException;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sends login of known user straight to providers which can authenticate users of their type,
+ * so internal users do not hit directories and directory users do not hit internal DB.
+ * Logins of unknown users, users of other types and users whose providers are all disabled
+ * go through the whole chain, so they are rejected the same way as without routing.
+ * Providers are asked the same way {@link org.springframework.security.authentication.ProviderManager} does
+ *
+ * @author Andrei Varabyeu
+ */
+class RoutingAuthenticationProvider implements AuthenticationProvider {
+
+	private final UserTypeCache userTypes;
+	private final List<AuthenticationProvider> chain;
+	private final Map<UserType, List<AuthenticationProvider>> routes;
+
+	/**
+	 * @param userTypes Types of users
+	 * @param chain     All the providers in order they are asked
+	 * @param routes    Providers able to authenticate users of each type
+	 */
+	RoutingAuthenticationProvider(UserTypeCache userTypes, List<AuthenticationProvider> chain,
+			Map<UserType, List<AuthenticationProvider>> routes) {
+		this.userTypes = userTypes;
+		this.chain = ImmutableList.copyOf(chain);
+		this.routes = ImmutableMap.copyOf(routes);
+	}
+
+	@Override
+	public Authentication authenticate(Authentication authentication) throws AuthenticationException {
+		AuthenticationException lastException = null;
+		for (AuthenticationProvider provider : route(authentication)) {
+			if (!provider.supports(authentication.getClass())) {
+				continue;
+			}
+			try {
+				Authentication result = provider.authenticate(authentication);
+				if (null != result) {
+					return result;
+				}
+			} catch (AccountStatusException | InternalAuthenticationServiceException e) {
+				throw e;
+			} catch (AuthenticationException e) {
+				lastException = e;
+			}
+		}
+		if (null != lastException) {
+			throw lastException;
+		}
+		return null;
+	}
+
+	@Override
+	public boolean supports(Class<?> authentication) {
+		return chain.stream().anyMatch(provider -> provider.supports(authentication));
+	}
+
+	List<AuthenticationProvider> route(Authentication authentication) {
+		if (null == authentication.getName()) {
+			return chain;
+		}
+		return userTypes.get(authentication.getName())
+				.map(routes::get)
+				.filter(providers -> providers.stream().anyMatch(provider -> provider.supports(authentication.getClass())))
+				.orElse(chain);
+	}
+}
@@ -20,20 +20,28 @@
  */
 package com.epam.reportportal.auth;
 
-import com.epam.reportportal.auth.store.OAuth2AccessTokenRepository;
+import com.epam.reportportal.auth.store.AccessTokenCache;
+import com.epam.reportportal.auth.store.BatchTokenReader;
+import com.epam.reportportal.auth.store.RevokedTokens;
+import com.epam.reportportal.auth.store.TokenStoreBackend;
+import com.epam.reportportal.auth.store.jwt.HybridTokenStore;
 import com.google.common.collect.ImmutableMap;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.oauth2.common.OAuth2AccessToken;
-import org.springframework.security.oauth2.common.util.SerializationUtils;
 import org.springframework.security.oauth2.provider.*;
 import org.springframework.security.oauth2.provider.request.DefaultOAuth2RequestFactory;
+import org.springframework.security.oauth2.provider.token.AccessTokenConverter;
 import org.springframework.security.oauth2.provider.token.AuthorizationServerTokenServices;
+import org.springframework.security.oauth2.provider.token.DefaultAccessTokenConverter;
 import org.springframework.security.oauth2.provider.token.DefaultTokenServices;
+import org.springframework.security.oauth2.provider.token.TokenStore;
 import org.springframework.stereotype.Service;
 
 import java.io.Serializable;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.stream.Stream;
 
@@ -45,36 +53,86 @@ import java.util.stream.Stream;
 @Service
 public class TokenServicesFacade {
 
-	private final OAuth2AccessTokenRepository tokenRepository;
+	private final TokenStoreBackend tokenBackend;
+	private final TokenStore tokenStore;
 	private final DefaultTokenServices tokenServices;
 	private final OAuth2RequestFactory oAuth2RequestFactory;
 	private final ClientDetailsService clientDetailsService;
+	private final AccessTokenCache accessTokenCache;
+	private final AccessTokenConverter accessTokenConverter = new DefaultAccessTokenConverter();
 
 	@Autowired
-	public TokenServicesFacade(AuthorizationServerTokenServices tokenServices, OAuth2AccessTokenRepository tokenRepository,
-			ClientDetailsService clientDetailsService) {
+	public TokenServicesFacade(AuthorizationServerTokenServices tokenServices, TokenStoreBackend tokenBackend,
+			TokenStore tokenStore, ClientDetailsService clientDetailsService, AccessTokenCache accessTokenCache) {
 		this.tokenServices = (DefaultTokenServices) tokenServices;
-		this.tokenRepository = tokenRepository;
+		this.tokenBackend = tokenBackend;
+		this.tokenStore = tokenStore;
+		this.accessTokenCache = accessTokenCache;
 		this.clientDetailsService = clientDetailsService;
 		this.oAuth2RequestFactory = new DefaultOAuth2RequestFactory(clientDetailsService);
 	}
 
 	public Stream<OAuth2AccessToken> getTokens(String username, ReportPortalClient client) {
-		return tokenRepository.findByClientIdAndUserName(client.name(), username)
-				.map(token -> SerializationUtils.<OAuth2AccessToken>deserialize(token.getToken()));
+		return tokenStore.findTokensByClientIdAndUserName(client.name(), username).stream();
+	}
+
+	/**
+	 * Introspects several tokens at once. Response for each token is the same as of check token endpoint
+	 *
+	 * @param tokenValues Values of access tokens
+	 * @return Token details mapped by token value. Unknown, invalid and expired tokens are absent
+	 */
+	public Map<String, Map<String, ?>> checkTokens(Collection<String> tokenValues) {
+		Map<String, AccessTokenCache.CachedToken> tokens;
+		if (tokenStore instanceof BatchTokenReader) {
+			tokens = ((BatchTokenReader) tokenStore).readAccessTokens(tokenValues);
+		} else {
+			tokens = new HashMap<>();
+			tokenValues.forEach(tokenValue -> {
+				OAuth2AccessToken token = tokenStore.readAccessToken(tokenValue);
+				if (null != token) {
+					tokens.put(tokenValue, new AccessTokenCache.CachedToken(token, tokenStore.readAuthentication(token)));
+				}
+			});
+		}
+
+		Map<String, Map<String, ?>> response = new HashMap<>(tokens.size());
+		tokens.forEach((tokenValue, token) -> {
+			if (!token.getAccessToken().isExpired() && null != token.getAuthentication()) {
+				response.put(tokenValue, accessTokenConverter.convertAccessToken(token.getAccessToken(), token.getAuthentication()));
+			}
+		});
+		return response;
 	}
 
 	public void revokeToken(String token) {
 		this.tokenServices.revokeToken(token);
 	}
 
-	public void revokeUserTokens(String user) {
-		this.tokenRepository.findByUserName(user).forEach(token -> tokenServices.revokeToken(token.getTokenId()));
+	/**
+	 * Removes all tokens of provided users with a few bulk operations
+	 *
+	 * @param users Names of users
+	 * @return Removed tokens
+	 */
+	public RevokedTokens revokeUserTokens(Collection<String> users) {
+		if (tokenStore instanceof HybridTokenStore) {
+			((HybridTokenStore) tokenStore).revokeUserTokens(users);
+		}
+		return revoke(tokenBackend.removeAccessTokensByUserNames(users, null));
+	}
+
+	public RevokedTokens revokeUserTokens(String user) {
+		return revokeUserTokens(Collections.singleton(user));
+	}
+
+	public RevokedTokens revokeUserTokens(String user, ReportPortalClient client) {
+		return revoke(tokenBackend.removeAccessTokensByUserNames(Collections.singleton(user), client.name()));
 	}
 
-	public void revokeUserTokens(String user, ReportPortalClient client) {
-		this.tokenRepository.findByClientIdAndUserName(client.name(), user)
-				.forEach(token -> tokenServices.revokeToken(token.getTokenId()));
+	private RevokedTokens revoke(RevokedTokens revoked) {
+		accessTokenCache.invalidateAll(revoked.getAccessTokens());
+		return revoked;
 	}
 
 	public OAuth2AccessToken createToken(ReportPortalClient client, String username, Authentication userAuthentication) {
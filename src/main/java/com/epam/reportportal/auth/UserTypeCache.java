@@ -0,0 +1,79 @@
+/*
+ * Copyright 2018 EPAM Systems
+ *
+ *
+ * This file is part of EPAM Report Portal.
+ * https://github.com/reportportal/service-authorization
+ *
+ * Report Portal is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Report Portal is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Report Portal.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.epam.reportportal.auth;
+
+import com.epam.ta.reportportal.database.entity.user.User;
+import com.epam.ta.reportportal.database.entity.user.UserType;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static com.epam.ta.reportportal.commons.EntityUtils.normalizeId;
+import static java.util.Optional.ofNullable;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * Types of users by login. Only type is loaded from DB. Unknown logins are remembered as well,
+ * so keep TTL short: newly replicated user (on this node or another one) is routed through
+ * all providers till then, the same way unknown users are
+ *
+ * @author Andrei Varabyeu
+ */
+public class UserTypeCache {
+
+	private final MongoOperations mongoOperations;
+	private final Cache<String, Optional<UserType>> cache;
+
+	/**
+	 * @param maxSize    Maximum amount of cached logins
+	 * @param ttlSeconds Time to live of cached type in seconds
+	 */
+	public UserTypeCache(MongoOperations mongoOperations, long maxSize, long ttlSeconds) {
+		this.mongoOperations = mongoOperations;
+		this.cache = CacheBuilder.newBuilder().maximumSize(maxSize).expireAfterWrite(ttlSeconds, TimeUnit.SECONDS).build();
+	}
+
+	/**
+	 * @param login Login of user
+	 * @return Type of user or empty if there is no such user
+	 */
+	public Optional<UserType> get(String login) {
+		String id = normalizeId(login);
+		try {
+			return cache.get(id, () -> load(id));
+		} catch (ExecutionException e) {
+			/* lookup is optimization only */
+			return Optional.empty();
+		}
+	}
+
+	private Optional<UserType> load(String login) {
+		Query query = query(where("_id").is(login));
+		query.fields().include("type");
+		return ofNullable(mongoOperations.findOne(query, User.class)).map(User::getType);
+	}
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2018 EPAM Systems
+ *
+ *
+ * This file is part of EPAM Report Portal.
+ * https://github.com/reportportal/service-authorization
+ *
+ * Report Portal is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Report Portal is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Report Portal.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.epam.reportportal.auth.bulkhead;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Limits amount of concurrent calls to slow dependency, so it cannot take every request thread.
+ * Calls above the limit wait for a while in queue of limited depth. Calls which do not fit
+ * into the queue or have waited too long are rejected right away
+ *
+ * @author Andrei Varabyeu
+ */
+public class Bulkhead {
+
+    private final String name;
+    private final int maxConcurrent;
+    private final int maxWaiting;
+    private final long maxWait;
+
+    private final Semaphore permits;
+    private final AtomicInteger waiting = new AtomicInteger();
+
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    /**
+     * @param name          Name of protected dependency
+     * @param maxConcurrent Max amount of concurrent calls
+     * @param maxWaiting    Max amount of calls waiting for permit
+     * @param maxWait       Max millis call waits for permit
+     */
+    public Bulkhead(String name, int maxConcurrent, int maxWaiting, long maxWait) {
+        this.name = name;
+        this.maxConcurrent = maxConcurrent;
+        this.maxWaiting = maxWaiting;
+        this.maxWait = maxWait;
+        this.permits = new Semaphore(maxConcurrent, true);
+    }
+
+    /**
+     * Executes call once permit is obtained
+     *
+     * @param call Call to dependency
+     * @param <T>  Type of result
+     * @return Result of call
+     * @throws BulkheadFullException if permit is not obtained
+     */
+    public <T> T execute(Supplier<T> call) {
+        if (!acquire()) {
+            rejected.incrementAndGet();
+            throw new BulkheadFullException("Too many concurrent requests to '" + name + "'. Try again later");
+        }
+        accepted.incrementAndGet();
+        try {
+            return call.get();
+        } finally {
+            permits.release();
+        }
+    }
+
+    private boolean acquire() {
+        if (permits.tryAcquire()) {
+            return true;
+        }
+        if (waiting.incrementAndGet() > maxWaiting) {
+            waiting.decrementAndGet();
+            return false;
+        }
+        try {
+            return permits.tryAcquire(maxWait, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            waiting.decrementAndGet();
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return Amount of calls in progress
+     */
+    public int getActive() {
+        return maxConcurrent - permits.availablePermits();
+    }
+
+    /**
+     * @return Amount of calls waiting for permit
+     */
+    public int getWaiting() {
+        return waiting.get();
+    }
+
+    /**
+     * @return Amount of calls executed since start
+     */
+    public long getAccepted() {
+        return accepted.get();
+    }
+
+    /**
+     * @return Amount of calls rejected since start
+     */
+    public long getRejected() {
+        return rejected.get();
+    }
+}
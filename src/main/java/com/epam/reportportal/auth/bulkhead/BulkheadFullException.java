@@ -0,0 +1,37 @@
+/*
+ * Copyright 2018 EPAM Systems
+ *
+ *
+ * This file is part of EPAM Report Portal.
+ * https://github.com/reportportal/service-authorization
+ *
+ * Report Portal is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Report Portal is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Report Portal.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.epam.reportportal.auth.bulkhead;
+
+import org.springframework.security.authentication.AuthenticationServiceException;
+
+/**
+ * Call is rejected because dependency already serves as many calls as allowed.
+ * Not an internal service exception, so provider manager still asks next providers, e.g. internal
+ * one for local users while directory is overloaded
+ *
+ * @author Andrei Varabyeu
+ */
+public class BulkheadFullException extends AuthenticationServiceException {
+
+    public BulkheadFullException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2018 EPAM Systems
+ *
+ *
+ * This file is part of EPAM Report Portal.
+ * https://github.com/reportportal/service-authorization
+ *
+ * Report Portal is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Report Portal is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Report Portal.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.epam.reportportal.auth.bulkhead;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Bulkheads of authentication providers. Limits of each one are configured with
+ * 'rp.auth.bulkhead.{name}.*' properties and fall back to 'rp.auth.bulkhead.*' ones
+ *
+ * @author Andrei Varabyeu
+ */
+@Component
+public class Bulkheads {
+
+    public static final String INTERNAL = "internal";
+    public static final String GITHUB = "github";
+
+    private static final String PREFIX = "rp.auth.bulkhead.";
+
+    private static final int DEFAULT_MAX_CONCURRENT = 50;
+    private static final int DEFAULT_MAX_WAITING = 50;
+    private static final long DEFAULT_MAX_WAIT = 1000L;
+
+    private final Environment environment;
+    private final ConcurrentMap<String, Bulkhead> bulkheads = new ConcurrentHashMap<>();
+
+    @Autowired
+    public Bulkheads(Environment environment) {
+        this.environment = environment;
+    }
+
+    /**
+     * @param name Name of provider
+     * @return Bulkhead of provider. Created on first call
+     */
+    public Bulkhead get(String name) {
+        return bulkheads.computeIfAbsent(name,
+                it -> new Bulkhead(it, property(it, "max-concurrent", Integer.class, DEFAULT_MAX_CONCURRENT),
+                        property(it, "max-waiting", Integer.class, DEFAULT_MAX_WAITING),
+                        property(it, "max-wait", Long.class, DEFAULT_MAX_WAIT)));
+    }
+
+    public Collection<Bulkhead> getAll() {
+        return Collections.unmodifiableCollection(bulkheads.values());
+    }
+
+    private <T> T property(String name, String property, Class<T> type, T defaultValue) {
+        return environment.getProperty(PREFIX + name + "." + property, type,
+                environment.getProperty(PREFIX + property, type, defaultValue));
+    }
+}
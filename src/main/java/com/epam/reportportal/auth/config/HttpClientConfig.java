@@ -0,0 +1,88 @@
+/*
+ * Copyright 2018 EPAM Systems
+ *
+ *
+ * This file is part of EPAM Report Portal.
+ * https://github.com/reportportal/service-authorization
+ *
+ * Report Portal is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Report Portal is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Report Portal.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.epam.reportportal.auth.config;
+
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+
+/**
+ * HTTP client shared by calls to third-party OAuth providers and their APIs. Connections are pooled
+ * and kept alive between logins. Unless configured explicitly, connections per route are sized to
+ * serve every login GitHub bulkhead admits (one call at a time on login thread) along with every
+ * concurrent call of GitHub executor, so logins don't wait for pooled connection
+ *
+ * @author Andrei Varabyeu
+ */
+@Configuration
+public class HttpClientConfig {
+
+    @Value("${rp.auth.http.max-connections:100}")
+    private int maxConnections;
+
+    /* 0 stands for derived from limits below */
+    @Value("${rp.auth.http.max-connections-per-route:0}")
+    private int maxConnectionsPerRoute;
+
+    @Value("${rp.auth.bulkhead.github.max-concurrent:${rp.auth.bulkhead.max-concurrent:50}}")
+    private int githubConcurrentLogins;
+
+    @Value("${rp.auth.github.executor.threads:16}")
+    private int githubThreads;
+
+    @Value("${rp.auth.http.connect-timeout:5000}")
+    private int connectTimeout;
+
+    @Value("${rp.auth.http.read-timeout:10000}")
+    private int readTimeout;
+
+    @Value("${rp.auth.http.pool-timeout:2000}")
+    private int poolTimeout;
+
+    @Bean
+    public CloseableHttpClient oauthHttpClient() {
+        int perRoute = maxConnectionsPerRoute > 0 ? maxConnectionsPerRoute : githubConcurrentLogins + githubThreads;
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(Math.max(maxConnections, perRoute));
+        connectionManager.setDefaultMaxPerRoute(perRoute);
+        return HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectTimeout(connectTimeout)
+                        .setSocketTimeout(readTimeout)
+                        .setConnectionRequestTimeout(poolTimeout)
+                        .build())
+                /* connections are shared between users, so they must not carry user state */
+                .disableCookieManagement()
+                .build();
+    }
+
+    @Bean
+    public ClientHttpRequestFactory oauthRequestFactory() {
+        return new HttpComponentsClientHttpRequestFactory(oauthHttpClient());
+    }
+}
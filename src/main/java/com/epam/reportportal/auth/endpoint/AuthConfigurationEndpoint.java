@@ -21,6 +21,7 @@
 package com.epam.reportportal.auth.endpoint;
 
 import com.epam.reportportal.auth.integration.AuthIntegrationType;
+import com.epam.reportportal.auth.store.AuthConfigHolder;
 import com.epam.reportportal.auth.store.AuthConfigRepository;
 import com.epam.reportportal.auth.store.entity.AbstractAuthConfig;
 import com.epam.reportportal.auth.store.entity.ldap.ActiveDirectoryConfig;
@@ -51,11 +52,13 @@ public class AuthConfigurationEndpoint {
 
 	private final AuthConfigRepository repository;
 	private final Encryptor encryptor;
+	private final AuthConfigHolder authConfigHolder;
 
 	@Autowired
-	public AuthConfigurationEndpoint(AuthConfigRepository repository, Encryptor encryptor) {
+	public AuthConfigurationEndpoint(AuthConfigRepository repository, Encryptor encryptor, AuthConfigHolder authConfigHolder) {
 		this.repository = repository;
 		this.encryptor = encryptor;
+		this.authConfigHolder = authConfigHolder;
 	}
 
 	/**
@@ -71,6 +74,8 @@ public class AuthConfigurationEndpoint {
 	public LdapConfig updateLdapSettings(@RequestBody @Valid LdapConfig ldapConfig) {
 		encyptPasswords(ldapConfig);
 		repository.updateLdap(ldapConfig);
+		/* providers of changed integration are notified by holder */
+		authConfigHolder.refresh();
 		return repository.findDefault().getLdap();
 	}
 
@@ -86,6 +91,7 @@ public class AuthConfigurationEndpoint {
 	@ApiOperation(value = "Updates LDAP auth settings")
 	public ActiveDirectoryConfig updateADSettings(@RequestBody @Validated ActiveDirectoryConfig adConfig) {
 		repository.updateActiveDirectory(adConfig);
+		authConfigHolder.refresh();
 		return repository.findDefault().getActiveDirectory();
 	}
 
@@ -116,6 +122,7 @@ public class AuthConfigurationEndpoint {
 	@ApiOperation(value = "Retrieves auth settings")
 	public OperationCompletionRS deleteSettings(@PathVariable AuthIntegrationType authType) {
 		repository.deleteSettings(authType);
+		authConfigHolder.refresh();
 		return new OperationCompletionRS(String.format("Auth config %s successfully deleted", authType));
 	}
 
@@ -22,7 +22,7 @@ package com.epam.reportportal.auth.endpoint;
 
 import com.epam.reportportal.auth.OAuthSecurityConfig;
 import com.epam.reportportal.auth.oauth.OAuthProvider;
-import com.epam.ta.reportportal.database.dao.ServerSettingsRepository;
+import com.epam.reportportal.auth.store.AuthConfigHolder;
 import com.epam.ta.reportportal.database.entity.settings.OAuth2LoginDetails;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.actuate.info.Info;
@@ -42,24 +42,23 @@ import static org.springframework.web.servlet.support.ServletUriComponentsBuilde
 @Component
 public class AuthProvidersInfoContributor implements InfoContributor {
 
-    private final ServerSettingsRepository settingsRepository;
+    private final AuthConfigHolder authConfigHolder;
     private final Map<String, OAuthProvider> providersMap;
 
     @Autowired
-    public AuthProvidersInfoContributor(ServerSettingsRepository settingsRepository,
+    public AuthProvidersInfoContributor(AuthConfigHolder authConfigHolder,
             Map<String, OAuthProvider> providersMap) {
-        this.settingsRepository = settingsRepository;
+        this.authConfigHolder = authConfigHolder;
         this.providersMap = providersMap;
     }
 
     @Override
     public void contribute(Info.Builder builder) {
-        final Map<String, OAuth2LoginDetails> oauth2Details =
-                settingsRepository.findOne("default").getoAuth2LoginDetails();
+        final Map<String, OAuth2LoginDetails> oauth2Details = authConfigHolder.get().getOAuth2LoginDetails();
 
         final Map<String, AuthProviderInfo> providers = providersMap.values()
                 .stream()
-                .filter(p -> !p.isConfigDynamic() || (null != oauth2Details && oauth2Details.containsKey(p.getName())))
+                .filter(p -> !p.isConfigDynamic() || oauth2Details.containsKey(p.getName()))
                 .collect(Collectors
                         .toMap(OAuthProvider::getName,
                                 p -> new AuthProviderInfo(p.getButton(), p.buildPath(getAuthBasePath()))));
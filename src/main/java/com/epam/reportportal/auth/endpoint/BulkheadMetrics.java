@@ -0,0 +1,59 @@
+/*
+ * Copyright 2018 EPAM Systems
+ *
+ *
+ * This file is part of EPAM Report Portal.
+ * https://github.com/reportportal/service-authorization
+ *
+ * Report Portal is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Report Portal is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Report Portal.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.epam.reportportal.auth.endpoint;
+
+import com.epam.reportportal.auth.bulkhead.Bulkheads;
+import com.google.common.collect.ImmutableList;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+
+/**
+ * Exposes load and rejections of authentication providers bulkheads on metrics endpoint
+ *
+ * @author Andrei Varabyeu
+ */
+@Component
+public class BulkheadMetrics implements PublicMetrics {
+
+    private final Bulkheads bulkheads;
+
+    @Autowired
+    public BulkheadMetrics(Bulkheads bulkheads) {
+        this.bulkheads = bulkheads;
+    }
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+        ImmutableList.Builder<Metric<?>> metrics = ImmutableList.builder();
+        bulkheads.getAll().forEach(bulkhead -> {
+            String prefix = "auth.bulkhead." + bulkhead.getName();
+            metrics.add(new Metric<>(prefix + ".active", bulkhead.getActive()))
+                    .add(new Metric<>(prefix + ".waiting", bulkhead.getWaiting()))
+                    .add(new Metric<>(prefix + ".accepted", bulkhead.getAccepted()))
+                    .add(new Metric<>(prefix + ".rejected", bulkhead.getRejected()));
+        });
+        return metrics.build();
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2018 EPAM Systems
+ *
+ *
+ * This file is part of EPAM Report Portal.
+ * https://github.com/reportportal/service-authorization
+ *
+ * Report Portal is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Report Portal is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Report Portal.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.epam.reportportal.auth.endpoint;
+
+import com.epam.reportportal.auth.integration.AuthIntegrationType;
+import com.epam.reportportal.auth.integration.ldap.ActiveDirectoryAuthProvider;
+import com.epam.reportportal.auth.integration.ldap.CircuitBreaker;
+import com.epam.reportportal.auth.integration.ldap.DirectoryAuthProvider;
+import com.epam.reportportal.auth.integration.ldap.LdapAuthProvider;
+import com.google.common.collect.ImmutableMap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.health.AbstractHealthIndicator;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Shows circuit breakers of directory integrations on health endpoint. Unavailable directory
+ * doesn't make service down since local users are still able to log in
+ *
+ * @author Andrei Varabyeu
+ */
+@Component
+public class DirectoryHealthIndicator extends AbstractHealthIndicator {
+
+    static final Status DEGRADED = new Status("DEGRADED", "Directory is unavailable");
+
+    private final Map<AuthIntegrationType, DirectoryAuthProvider<?>> providers;
+
+    @Autowired
+    public DirectoryHealthIndicator(LdapAuthProvider ldapAuthProvider, ActiveDirectoryAuthProvider activeDirectoryAuthProvider) {
+        this.providers = ImmutableMap.of(AuthIntegrationType.LDAP, ldapAuthProvider, AuthIntegrationType.ACTIVE_DIRECTORY,
+                activeDirectoryAuthProvider);
+    }
+
+    @Override
+    protected void doHealthCheck(Health.Builder builder) {
+        builder.up();
+        providers.forEach((type, provider) -> provider.getCircuitBreaker().ifPresent(breaker -> {
+            builder.withDetail(type.getId(), breaker.getState());
+            if (CircuitBreaker.State.OPEN == breaker.getState()) {
+                builder.status(DEGRADED);
+            }
+        }));
+    }
+}
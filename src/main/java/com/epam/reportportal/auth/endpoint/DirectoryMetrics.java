@@ -0,0 +1,121 @@
+/*
+ * Copyright 2018 EPAM Systems
+ *
+ *
+ * This file is part of EPAM Report Portal.
+ * https://github.com/reportportal/service-authorization
+ *
+ * Report Portal is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Report Portal is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Report Portal.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.epam.reportportal.auth.endpoint;
+
+import com.epam.reportportal.auth.integration.AuthIntegrationType;
+import com.epam.reportportal.auth.integration.ReplicationQueue;
+import com.epam.reportportal.auth.integration.ldap.ActiveDirectoryAuthProvider;
+import com.epam.reportportal.auth.integration.ldap.DirectoryAuthProvider;
+import com.epam.reportportal.auth.integration.ldap.DirectoryEndpoint;
+import com.epam.reportportal.auth.integration.ldap.LdapAuthProvider;
+import com.epam.reportportal.auth.integration.ldap.LdapSynchronizer;
+import com.epam.reportportal.auth.integration.ldap.UserDnCache;
+import com.epam.reportportal.auth.integration.ldap.VerifiedCredentialsCache;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Exposes stats of directory servers, their connections pools, circuit breakers, caches of verified
+ * credentials and user DNs, background replication and synchronization of users on metrics endpoint.
+ * Breaker state is 0 when closed, 1 when half-open and 2 when open
+ *
+ * @author Andrei Varabyeu
+ */
+@Component
+public class DirectoryMetrics implements PublicMetrics {
+
+    private final Map<AuthIntegrationType, DirectoryAuthProvider<?>> providers;
+    private final VerifiedCredentialsCache credentialsCache;
+    private final ReplicationQueue replicationQueue;
+    private final LdapSynchronizer synchronizer;
+    private final UserDnCache userDnCache;
+
+    @Autowired
+    public DirectoryMetrics(LdapAuthProvider ldapAuthProvider, ActiveDirectoryAuthProvider activeDirectoryAuthProvider,
+            VerifiedCredentialsCache credentialsCache, ReplicationQueue replicationQueue, LdapSynchronizer synchronizer,
+            UserDnCache userDnCache) {
+        this.providers = ImmutableMap.of(AuthIntegrationType.LDAP, ldapAuthProvider, AuthIntegrationType.ACTIVE_DIRECTORY,
+                activeDirectoryAuthProvider);
+        this.credentialsCache = credentialsCache;
+        this.replicationQueue = replicationQueue;
+        this.synchronizer = synchronizer;
+        this.userDnCache = userDnCache;
+    }
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+        ImmutableList.Builder<Metric<?>> metrics = ImmutableList.builder();
+        metrics.add(new Metric<>("auth.replication.pending", replicationQueue.getPending()))
+                .add(new Metric<>("auth.replication.submitted", replicationQueue.getSubmitted()))
+                .add(new Metric<>("auth.replication.completed", replicationQueue.getCompleted()))
+                .add(new Metric<>("auth.replication.failed", replicationQueue.getFailed()))
+                .add(new Metric<>("auth.replication.rejected", replicationQueue.getRejected()))
+                .add(new Metric<>("auth.ldap.sync.running", synchronizer.isRunning() ? 1 : 0))
+                .add(new Metric<>("auth.ldap.sync.processed", synchronizer.getProcessed()))
+                .add(new Metric<>("auth.ldap.sync.throughput", synchronizer.getThroughput()))
+                .add(new Metric<>("auth.ldap.sync.lag", synchronizer.getLag()))
+                .add(new Metric<>("auth.ldap.sync.synchronized", synchronizer.getSynchronizedUsers()))
+                .add(new Metric<>("auth.ldap.sync.failed", synchronizer.getFailedRuns()));
+        if (credentialsCache.isEnabled()) {
+            metrics.add(new Metric<>("auth.ldap.credentials-cache.size", credentialsCache.size()))
+                    .add(new Metric<>("auth.ldap.credentials-cache.hit", credentialsCache.getHits()))
+                    .add(new Metric<>("auth.ldap.credentials-cache.miss", credentialsCache.getMisses()));
+        }
+        if (userDnCache.isEnabled()) {
+            metrics.add(new Metric<>("auth.ldap.dn-cache.size", userDnCache.size()))
+                    .add(new Metric<>("auth.ldap.dn-cache.hit", userDnCache.getHits()))
+                    .add(new Metric<>("auth.ldap.dn-cache.miss", userDnCache.getMisses()))
+                    .add(new Metric<>("auth.ldap.dn-cache.hit-ratio", userDnCache.getHitRatio()));
+        }
+        providers.forEach((type, provider) -> provider.getCircuitBreaker().ifPresent(breaker -> {
+            String prefix = "auth." + type.getId() + ".breaker";
+            metrics.add(new Metric<>(prefix + ".state", breaker.getState().ordinal()))
+                    .add(new Metric<>(prefix + ".rejected", breaker.getRejected()))
+                    .add(new Metric<>(prefix + ".opened", breaker.getOpened()));
+        }));
+        providers.forEach((type, provider) -> provider.getEndpoints().forEach(endpoint -> {
+            String prefix = "auth." + type.getId() + ".endpoint." + name(endpoint);
+            metrics.add(new Metric<>(prefix + ".latency", endpoint.getLatency()))
+                    .add(new Metric<>(prefix + ".requests", endpoint.getRequests()))
+                    .add(new Metric<>(prefix + ".errors", endpoint.getErrors()))
+                    .add(new Metric<>(prefix + ".available", endpoint.isAvailable() ? 1 : 0));
+            endpoint.getConnectionPool().ifPresent(pool -> metrics.add(new Metric<>(prefix + ".pool.active", pool.getNumActive()))
+                    .add(new Metric<>(prefix + ".pool.idle", pool.getNumIdle()))
+                    .add(new Metric<>(prefix + ".pool.borrowed", pool.getBorrowed()))
+                    .add(new Metric<>(prefix + ".binds", pool.getBinds())));
+        }));
+        return metrics.build();
+    }
+
+    /**
+     * @return Host and port of server suitable for metric name
+     */
+    private static String name(DirectoryEndpoint endpoint) {
+        return endpoint.getUrl().replaceFirst("^ldaps?://", "").replaceAll("/.*$", "").replaceAll("[^A-Za-z0-9-]", "_");
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2018 EPAM Systems
+ *
+ *
+ * This file is part of EPAM Report Portal.
+ * https://github.com/reportportal/service-authorization
+ *
+ * Report Portal is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Report Portal is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Report Portal.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.epam.reportportal.auth.endpoint;
+
+import com.epam.reportportal.auth.integration.github.GitHubApiCache;
+import com.google.common.collect.ImmutableList;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+
+/**
+ * Exposes usage of GitHub API and its rate limit on metrics endpoint
+ *
+ * @author Andrei Varabyeu
+ */
+@Component
+public class GitHubMetrics implements PublicMetrics {
+
+    private final GitHubApiCache cache;
+
+    @Autowired
+    public GitHubMetrics(GitHubApiCache cache) {
+        this.cache = cache;
+    }
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+        return ImmutableList.<Metric<?>>builder().add(new Metric<>("auth.github.requests", cache.getRequests()))
+                .add(new Metric<>("auth.github.not-modified", cache.getNotModified()))
+                .add(new Metric<>("auth.github.stale", cache.getServedStale()))
+                .add(new Metric<>("auth.github.rate-limited", cache.getRateLimited()))
+                .add(new Metric<>("auth.github.cache.size", cache.size()))
+                .add(new Metric<>("auth.github.rate-limit.limit", cache.getLastLimit()))
+                .add(new Metric<>("auth.github.rate-limit.remaining", cache.getLastRemaining()))
+                .add(new Metric<>("auth.github.rate-limit.reset", cache.getLastReset()))
+                .build();
+    }
+}
@@ -22,6 +22,7 @@ package com.epam.reportportal.auth.endpoint;
 
 import com.epam.reportportal.auth.converter.OAuthDetailsConverters;
 import com.epam.reportportal.auth.oauth.OAuthProvider;
+import com.epam.reportportal.auth.store.AuthConfigHolder;
 import com.epam.ta.reportportal.commons.Predicates;
 import com.epam.ta.reportportal.commons.validation.BusinessRule;
 import com.epam.ta.reportportal.database.dao.ServerSettingsRepository;
@@ -60,11 +61,14 @@ public class OAuthConfigurationEndpoint {
 
 	private final ServerSettingsRepository repository;
 	private final Map<String, OAuthProvider> providers;
+	private final AuthConfigHolder authConfigHolder;
 
 	@Autowired
-	public OAuthConfigurationEndpoint(ServerSettingsRepository repository, Map<String, OAuthProvider> providers) {
+	public OAuthConfigurationEndpoint(ServerSettingsRepository repository, Map<String, OAuthProvider> providers,
+			AuthConfigHolder authConfigHolder) {
 		this.repository = repository;
 		this.providers = providers;
+		this.authConfigHolder = authConfigHolder;
 	}
 
 	/**
@@ -96,6 +100,7 @@ public class OAuthConfigurationEndpoint {
 		settings.setoAuth2LoginDetails(serverOAuthDetails);
 
 		repository.save(settings);
+		authConfigHolder.refresh();
 		return serverOAuthDetails.entrySet().stream()
 				.collect(toMap(Map.Entry::getKey, e -> OAuthDetailsConverters.TO_RESOURCE.apply(e.getValue())));
 	}
@@ -120,6 +125,7 @@ public class OAuthConfigurationEndpoint {
 		if (null != serverOAuthDetails.remove(oauthProviderName)) {
 			settings.setoAuth2LoginDetails(serverOAuthDetails);
 			repository.save(settings);
+			authConfigHolder.refresh();
 		} else {
 			throw new ReportPortalException(ErrorType.AUTH_INTEGRATION_NOT_FOUND);
 		}
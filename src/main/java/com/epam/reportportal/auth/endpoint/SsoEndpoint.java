@@ -23,6 +23,8 @@ package com.epam.reportportal.auth.endpoint;
 import com.epam.reportportal.auth.ReportPortalClient;
 import com.epam.reportportal.auth.ReportPortalUser;
 import com.epam.reportportal.auth.TokenServicesFacade;
+import com.epam.reportportal.auth.integration.ldap.VerifiedCredentialsCache;
+import com.epam.reportportal.auth.store.RevokedTokens;
 import com.epam.ta.reportportal.commons.Preconditions;
 import com.epam.ta.reportportal.commons.validation.BusinessRule;
 import com.epam.ta.reportportal.ws.model.ErrorType;
@@ -37,6 +39,7 @@ import org.springframework.security.oauth2.provider.OAuth2Authentication;
 import org.springframework.security.oauth2.provider.authentication.OAuth2AuthenticationDetails;
 import org.springframework.security.web.authentication.logout.SecurityContextLogoutHandler;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RestController;
@@ -44,6 +47,7 @@ import org.springframework.web.bind.annotation.RestController;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.security.Principal;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
@@ -56,12 +60,16 @@ import java.util.stream.Collectors;
 @RestController
 public class SsoEndpoint {
 
+    private static final int MAX_CHECKED_TOKENS = 1000;
+
     private final TokenServicesFacade tokenServicesFacade;
+    private final VerifiedCredentialsCache verifiedCredentialsCache;
     private final SecurityContextLogoutHandler logoutHandler;
 
     @Autowired
-    public SsoEndpoint(TokenServicesFacade tokenServicesFacade) {
+    public SsoEndpoint(TokenServicesFacade tokenServicesFacade, VerifiedCredentialsCache verifiedCredentialsCache) {
         this.tokenServicesFacade = tokenServicesFacade;
+        this.verifiedCredentialsCache = verifiedCredentialsCache;
         this.logoutHandler = new SecurityContextLogoutHandler();
 
         this.logoutHandler.setClearAuthentication(true);
@@ -106,11 +114,22 @@ public class SsoEndpoint {
         return tokenServicesFacade.createToken(ReportPortalClient.api, user.getName(), user.getUserAuthentication());
     }
 
+    @RequestMapping(value = { "/sso/internal/check_tokens" }, method = RequestMethod.POST)
+    @ApiOperation(value = "Check several tokens at once", notes = "Unknown, invalid and expired tokens are absent in response")
+    public Map<String, Map<String, ?>> checkTokens(@RequestBody List<String> tokens) {
+        BusinessRule.expect(tokens.size(), size -> size <= MAX_CHECKED_TOKENS)
+                .verify(ErrorType.BAD_REQUEST_ERROR, "No more than " + MAX_CHECKED_TOKENS + " tokens can be checked at once");
+        return tokenServicesFacade.checkTokens(tokens);
+    }
+
     @RequestMapping(value = { "/sso/internal/user/{user}" }, method = RequestMethod.DELETE)
-    @ApiOperation(value = "Revoke all user tokens")
-    public OperationCompletionRS revokeUserTokens(@PathVariable String user) {
-        tokenServicesFacade.revokeUserTokens(user);
-        return new OperationCompletionRS(String.format("Token of user '%s' has been revoked", user));
+    @ApiOperation(value = "Revoke all tokens of user or comma-separated list of users")
+    public OperationCompletionRS revokeUserTokens(@PathVariable List<String> user) {
+        RevokedTokens revoked = tokenServicesFacade.revokeUserTokens(user);
+        /* revoked user has to log in against directory again */
+        verifiedCredentialsCache.invalidateUsers(user);
+        return new OperationCompletionRS(String.format("Tokens of users '%s' have been revoked. Access tokens: %d, refresh tokens: %d",
+                String.join(",", user), revoked.getAccessTokensRemoved(), revoked.getRefreshTokensRemoved()));
     }
 
 }
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2018 EPAM Systems
+ *
+ *
+ * This file is part of EPAM Report Portal.
+ * https://github.com/reportportal/service-authorization
+ *
+ * Report Portal is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Report Portal is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Report Portal.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.epam.reportportal.auth.endpoint;
+
+import com.epam.reportportal.auth.store.AccessTokenCache;
+import com.google.common.cache.CacheStats;
+import com.google.common.collect.ImmutableList;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+
+/**
+ * Exposes access token near-cache statistics on metrics endpoint
+ *
+ * @author Andrei Varabyeu
+ */
+@Component
+public class TokenCacheMetrics implements PublicMetrics {
+
+    private final AccessTokenCache accessTokenCache;
+
+    @Autowired
+    public TokenCacheMetrics(AccessTokenCache accessTokenCache) {
+        this.accessTokenCache = accessTokenCache;
+    }
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+        CacheStats stats = accessTokenCache.stats();
+        return ImmutableList.<Metric<?>>builder()
+                .add(new Metric<>("auth.token.cache.size", accessTokenCache.size()))
+                .add(new Metric<>("auth.token.cache.hit", stats.hitCount()))
+                .add(new Metric<>("auth.token.cache.miss", stats.missCount()))
+                .add(new Metric<>("auth.token.cache.eviction", stats.evictionCount()))
+                .build();
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2018 EPAM Systems
+ *
+ *
+ * This file is part of EPAM Report Portal.
+ * https://github.com/reportportal/service-authorization
+ *
+ * Report Portal is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Report Portal is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Report Portal.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.epam.reportportal.auth.endpoint;
+
+import com.epam.reportportal.auth.store.ExpiredTokenReaper;
+import com.google.common.collect.ImmutableList;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+
+/**
+ * Exposes progress of expired tokens cleanup on metrics endpoint
+ *
+ * @author Andrei Varabyeu
+ */
+@Component
+public class TokenReaperMetrics implements PublicMetrics {
+
+    private final ExpiredTokenReaper reaper;
+
+    @Autowired
+    public TokenReaperMetrics(ExpiredTokenReaper reaper) {
+        this.reaper = reaper;
+    }
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+        return ImmutableList.<Metric<?>>builder()
+                .add(new Metric<>("auth.token.reaper.scanned", reaper.getScanned()))
+                .add(new Metric<>("auth.token.reaper.deleted", reaper.getDeleted()))
+                .add(new Metric<>("auth.token.reaper.backfilled", reaper.getBackfilled()))
+                .add(new Metric<>("auth.token.reaper.failed", reaper.getFailed()))
+                .add(new Metric<>("auth.token.reaper.legacy.remaining", reaper.getLegacyRemaining()))
+                .add(new Metric<>("auth.token.ttl.pending", reaper.getTtlPending()))
+                .add(new Metric<>("auth.token.reaper.last-run", reaper.getLastRun()))
+                .build();
+    }
+}
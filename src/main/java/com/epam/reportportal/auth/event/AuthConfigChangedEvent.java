@@ -0,0 +1,42 @@
+/*
+ * Copyright 2018 EPAM Systems
+ *
+ *
+ * This file is part of EPAM Report Portal.
+ * https://github.com/reportportal/service-authorization
+ *
+ * Report Portal is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Report Portal is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Report Portal.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.epam.reportportal.auth.event;
+
+import com.epam.reportportal.auth.integration.AuthIntegrationType;
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * Published once settings of auth integration are updated or removed
+ *
+ * @author Andrei Varabyeu
+ */
+public class AuthConfigChangedEvent extends ApplicationEvent {
+
+	private static final long serialVersionUID = 2873601429740161427L;
+
+	public AuthConfigChangedEvent(AuthIntegrationType type) {
+		super(type);
+	}
+
+	public AuthIntegrationType getType() {
+		return (AuthIntegrationType) getSource();
+	}
+}
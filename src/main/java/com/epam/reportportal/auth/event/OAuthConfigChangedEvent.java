@@ -0,0 +1,44 @@
+/*
+ * Copyright 2018 EPAM Systems
+ *
+ *
+ * This file is part of EPAM Report Portal.
+ * https://github.com/reportportal/service-authorization
+ *
+ * Report Portal is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Report Portal is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Report Portal.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.epam.reportportal.auth.event;
+
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * Published once settings of OAuth provider are changed or removed
+ *
+ * @author Andrei Varabyeu
+ */
+public class OAuthConfigChangedEvent extends ApplicationEvent {
+
+	private static final long serialVersionUID = -3128447125913561950L;
+
+	/**
+	 * @param name Name of OAuth provider
+	 */
+	public OAuthConfigChangedEvent(String name) {
+		super(name);
+	}
+
+	public String getName() {
+		return (String) getSource();
+	}
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright 2018 EPAM Systems
+ *
+ *
+ * This file is part of EPAM Report Portal.
+ * https://github.com/reportportal/service-authorization
+ *
+ * Report Portal is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Report Portal is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Report Portal.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.epam.reportportal.auth.integration;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.retry.backoff.ExponentialBackOffPolicy;
+import org.springframework.retry.policy.SimpleRetryPolicy;
+import org.springframework.retry.support.RetryTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs replication of non-essential user attributes (photos and so on) off the login path.
+ * Tasks are executed by a few background threads with retry and exponential backoff.
+ * Queue is bounded: once it is full, tasks are dropped rather than slowing logins down.
+ * When disabled, tasks are executed right away in caller thread
+ *
+ * @author Andrei Varabyeu
+ */
+@Component
+public class ReplicationQueue implements DisposableBean {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReplicationQueue.class);
+
+    private final boolean async;
+    private final ThreadPoolExecutor executor;
+    private final RetryTemplate retryTemplate;
+
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    /**
+     * @param async    Whether tasks are executed in background
+     * @param threads  Amount of background threads
+     * @param capacity Max amount of pending tasks
+     * @param attempts Max attempts to execute task
+     * @param backoff  Millis to wait before second attempt. Doubled with each next one
+     */
+    @Autowired
+    public ReplicationQueue(@Value("${rp.auth.replication.async:true}") boolean async,
+            @Value("${rp.auth.replication.threads:2}") int threads, @Value("${rp.auth.replication.capacity:1000}") int capacity,
+            @Value("${rp.auth.replication.attempts:3}") int attempts, @Value("${rp.auth.replication.backoff:1000}") long backoff) {
+        this.async = async;
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(capacity),
+                new ThreadFactoryBuilder().setDaemon(true).setNameFormat("user-replication-%d").build(),
+                new ThreadPoolExecutor.AbortPolicy());
+
+        ExponentialBackOffPolicy backOffPolicy = new ExponentialBackOffPolicy();
+        backOffPolicy.setInitialInterval(backoff);
+        this.retryTemplate = new RetryTemplate();
+        this.retryTemplate.setRetryPolicy(new SimpleRetryPolicy(attempts));
+        this.retryTemplate.setBackOffPolicy(backOffPolicy);
+    }
+
+    /**
+     * Schedules task. Task may be executed several times, so it should be safe to repeat
+     *
+     * @param description Description of task for logs
+     * @param task        Task to be executed
+     * @return FALSE if task has been dropped because queue is full
+     */
+    public boolean submit(String description, Runnable task) {
+        submitted.incrementAndGet();
+        if (!async) {
+            execute(description, task);
+            return true;
+        }
+        try {
+            executor.execute(() -> execute(description, task));
+            return true;
+        } catch (RejectedExecutionException e) {
+            rejected.incrementAndGet();
+            LOGGER.warn("Replication queue is full. Replication of {} is skipped", description);
+            return false;
+        }
+    }
+
+    private void execute(String description, Runnable task) {
+        try {
+            retryTemplate.execute(context -> {
+                task.run();
+                return null;
+            });
+            completed.incrementAndGet();
+        } catch (Exception e) {
+            failed.incrementAndGet();
+            LOGGER.error("Unable to replicate {}", description, e);
+        }
+    }
+
+    /**
+     * @return Amount of tasks waiting for execution
+     */
+    public int getPending() {
+        return executor.getQueue().size();
+    }
+
+    /**
+     * @return Amount of submitted tasks
+     */
+    public long getSubmitted() {
+        return submitted.get();
+    }
+
+    /**
+     * @return Amount of successfully executed tasks
+     */
+    public long getCompleted() {
+        return completed.get();
+    }
+
+    /**
+     * @return Amount of tasks failed after all attempts
+     */
+    public long getFailed() {
+        return failed.get();
+    }
+
+    /**
+     * @return Amount of tasks dropped because queue was full
+     */
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+}
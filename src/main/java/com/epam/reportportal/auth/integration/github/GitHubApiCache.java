@@ -0,0 +1,249 @@
+/*
+ * Copyright 2018 EPAM Systems
+ *
+ *
+ * This file is part of EPAM Report Portal.
+ * https://github.com/reportportal/service-authorization
+ *
+ * Report Portal is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Report Portal is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Report Portal.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.epam.reportportal.auth.integration.github;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hashing;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.util.Optional.ofNullable;
+
+/**
+ * Responses of GitHub API along with their ETags, so repeated requests are conditional
+ * and answers 'Not Modified' don't count against rate limit. Tracks rate limit of each token
+ * reported by 'X-RateLimit-*' headers. Once limit is close, organizations of user are taken
+ * from cache if they are not older than staleness window. Responses neither requested nor
+ * revalidated for TTL are dropped
+ *
+ * @author Andrei Varabyeu
+ */
+@Component
+public class GitHubApiCache {
+
+    static final String LIMIT_HEADER = "X-RateLimit-Limit";
+    static final String REMAINING_HEADER = "X-RateLimit-Remaining";
+    static final String RESET_HEADER = "X-RateLimit-Reset";
+
+    private final Cache<String, CachedResponse> responses;
+    private final Cache<String, RateLimit> rateLimits;
+    private final long organizationsStaleness;
+    private final long reserve;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong notModified = new AtomicLong();
+    private final AtomicLong servedStale = new AtomicLong();
+    private final AtomicLong rateLimited = new AtomicLong();
+    private volatile RateLimit lastRateLimit;
+
+    /**
+     * @param size                   Max amount of cached responses. Nothing is cached if 0
+     * @param ttl                    Seconds response is kept since it was fetched or revalidated last time
+     * @param organizationsStaleness Seconds cached organizations are served without request once limit is close
+     * @param reserve                Remaining requests treated as close limit
+     */
+    @Autowired
+    public GitHubApiCache(@Value("${rp.auth.github.cache.size:10000}") long size, @Value("${rp.auth.github.cache.ttl:86400}") long ttl,
+            @Value("${rp.auth.github.cache.organizations-staleness:3600}") long organizationsStaleness,
+            @Value("${rp.auth.github.rate-limit.reserve:100}") long reserve) {
+        this.responses = CacheBuilder.newBuilder().maximumSize(size).expireAfterWrite(ttl, TimeUnit.SECONDS).build();
+        /* limits are reset hourly */
+        this.rateLimits = CacheBuilder.newBuilder().maximumSize(Math.max(size, 1)).expireAfterWrite(1, TimeUnit.HOURS).build();
+        this.organizationsStaleness = TimeUnit.SECONDS.toMillis(organizationsStaleness);
+        this.reserve = reserve;
+    }
+
+    /**
+     * @param accessToken Token of user
+     * @return Key of token which doesn't reveal it
+     */
+    static String tokenKey(String accessToken) {
+        return Hashing.sha256().hashString(accessToken, StandardCharsets.UTF_8).toString();
+    }
+
+    CachedResponse get(String key) {
+        return responses.getIfPresent(key);
+    }
+
+    void put(String key, String etag, Object body) {
+        responses.put(key, new CachedResponse(etag, body, System.currentTimeMillis()));
+    }
+
+    /**
+     * @param response Response which has not been modified
+     * @return Same response considered fetched right now
+     */
+    Object revalidated(String key, CachedResponse response) {
+        notModified.incrementAndGet();
+        put(key, response.etag, response.body);
+        return response.body;
+    }
+
+    /**
+     * @return Whether response may be served without asking GitHub since rate limit of token is close
+     */
+    boolean serveStale(String tokenKey, CachedResponse organizations) {
+        RateLimit limit = rateLimits.getIfPresent(tokenKey);
+        boolean stale = null != organizations && null != limit && limit.isClose(reserve)
+                && System.currentTimeMillis() - organizations.fetched < organizationsStaleness;
+        if (stale) {
+            servedStale.incrementAndGet();
+        }
+        return stale;
+    }
+
+    /**
+     * @return Whether token has no requests left till reset. Such requests are not sent at all
+     */
+    boolean isExhausted(String tokenKey) {
+        RateLimit limit = rateLimits.getIfPresent(tokenKey);
+        boolean exhausted = null != limit && limit.isExhausted();
+        if (exhausted) {
+            rateLimited.incrementAndGet();
+        }
+        return exhausted;
+    }
+
+    /**
+     * Remembers limit reported by response to request of token
+     */
+    void onResponse(String tokenKey, HttpHeaders headers) {
+        requests.incrementAndGet();
+        RateLimit limit = RateLimit.of(headers);
+        if (null != limit) {
+            rateLimits.put(tokenKey, limit);
+            lastRateLimit = limit;
+        }
+    }
+
+    /**
+     * @return Seconds since epoch when rate limit of token is reset or -1 if unknown
+     */
+    long getReset(String tokenKey) {
+        return ofNullable(rateLimits.getIfPresent(tokenKey)).map(it -> it.reset).orElse(-1L);
+    }
+
+    public long getRequests() {
+        return requests.get();
+    }
+
+    public long getNotModified() {
+        return notModified.get();
+    }
+
+    public long getServedStale() {
+        return servedStale.get();
+    }
+
+    public long getRateLimited() {
+        return rateLimited.get();
+    }
+
+    public long size() {
+        return responses.size();
+    }
+
+    /**
+     * @return Limit reported by last response or -1 if there were no responses yet
+     */
+    public long getLastLimit() {
+        return ofNullable(lastRateLimit).map(it -> it.limit).orElse(-1L);
+    }
+
+    /**
+     * @return Remaining requests reported by last response or -1 if there were no responses yet
+     */
+    public long getLastRemaining() {
+        return ofNullable(lastRateLimit).map(it -> it.remaining).orElse(-1L);
+    }
+
+    /**
+     * @return Reset time reported by last response (seconds since epoch) or -1 if there were no responses yet
+     */
+    public long getLastReset() {
+        return ofNullable(lastRateLimit).map(it -> it.reset).orElse(-1L);
+    }
+
+    static class CachedResponse {
+        private final String etag;
+        private final Object body;
+        private final long fetched;
+
+        CachedResponse(String etag, Object body, long fetched) {
+            this.etag = etag;
+            this.body = body;
+            this.fetched = fetched;
+        }
+
+        String getEtag() {
+            return etag;
+        }
+
+        Object getBody() {
+            return body;
+        }
+    }
+
+    private static class RateLimit {
+        private final long limit;
+        private final long remaining;
+        private final long reset;
+
+        private RateLimit(long limit, long remaining, long reset) {
+            this.limit = limit;
+            this.remaining = remaining;
+            this.reset = reset;
+        }
+
+        static RateLimit of(HttpHeaders headers) {
+            String remaining = headers.getFirst(REMAINING_HEADER);
+            String reset = headers.getFirst(RESET_HEADER);
+            if (null == remaining || null == reset) {
+                return null;
+            }
+            try {
+                return new RateLimit(ofNullable(headers.getFirst(LIMIT_HEADER)).map(Long::parseLong).orElse(-1L), Long.parseLong(remaining),
+                        Long.parseLong(reset));
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+        boolean isClose(long reserve) {
+            return remaining <= reserve && !isReset();
+        }
+
+        boolean isExhausted() {
+            return remaining <= 0 && !isReset();
+        }
+
+        private boolean isReset() {
+            return TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis()) >= reset;
+        }
+    }
+}
@@ -20,81 +20,170 @@
  */
 package com.epam.reportportal.auth.integration.github;
 
-import com.google.common.base.Charsets;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.core.io.Resource;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.ClientHttpResponse;
 import org.springframework.security.authentication.AuthenticationServiceException;
-import org.springframework.web.client.DefaultResponseErrorHandler;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
 
-import java.io.IOException;
+import java.time.Instant;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
 
 /**
- * Simple GitHub client
+ * Simple GitHub client. Sends requests on behalf of single user through {@link RestTemplate}
+ * shared by all clients, see {@link GitHubClients}. API responses are revalidated with
+ * their ETags, see {@link GitHubApiCache}. Each login comes with new token, so responses are
+ * cached by what they describe rather than by token: emails by login of their owner and
+ * organizations by user they belong to. '/user' is what tells the login, so it's never cached
  *
  * @author <a href="mailto:andrei_varabyeu@epam.com">Andrei Varabyeu</a>
  */
 
 public class GitHubClient {
 
-    private static final Logger LOGGER = LoggerFactory.getLogger(GitHubClient.class);
-
     private final String githubBaseUrl;
 
     private final RestTemplate restTemplate;
 
+    private final String accessToken;
 
-    private GitHubClient(String accessToken, String githubBaseUrl) {
-        this.restTemplate = new RestTemplate();
-        this.restTemplate.setErrorHandler(new DefaultResponseErrorHandler() {
-            @Override
-            public void handleError(ClientHttpResponse response) throws IOException {
-                String errorMessage = "Unable to load Github Data:" + new String(getResponseBody(response), Charsets.UTF_8);
-                LOGGER.error(errorMessage);
-                throw new AuthenticationServiceException(errorMessage);
-            }
-        });
-        this.restTemplate.getInterceptors().add((request, body, execution) -> {
-            request.getHeaders().add("Authorization", "bearer " + accessToken);
-            return execution.execute(request, body);
-        });
-        this.githubBaseUrl=githubBaseUrl;
-    }
+    private final String tokenKey;
+
+    private final HttpEntity<?> authorization;
 
-    public static GitHubClient withAccessToken(String accessToken, String githubBaseUrl) {
-        return new GitHubClient(accessToken, githubBaseUrl);
+    private final Executor executor;
+
+    private final GitHubApiCache cache;
+
+    GitHubClient(RestTemplate restTemplate, String accessToken, String githubBaseUrl, Executor executor, GitHubApiCache cache) {
+        this.restTemplate = restTemplate;
+        this.accessToken = accessToken;
+        this.tokenKey = GitHubApiCache.tokenKey(accessToken);
+        this.authorization = new HttpEntity<>(authorizationHeaders());
+        this.githubBaseUrl = githubBaseUrl;
+        this.executor = executor;
+        this.cache = cache;
     }
 
     public UserResource getUser() {
-        return this.restTemplate.getForObject(this.githubBaseUrl + "/user", UserResource.class);
+        return getForObject(this.githubBaseUrl + "/user", new ParameterizedTypeReference<UserResource>() {
+        }, null, false);
     }
 
-    public List<EmailResource> getUserEmails() {
-        return getForObject(this.githubBaseUrl + "/user/emails", new ParameterizedTypeReference<List<EmailResource>>() {
-        });
+    /**
+     * @param user Owner of token returned by {@link #getUser()}
+     */
+    public List<EmailResource> getUserEmails(UserResource user) {
+        String url = this.githubBaseUrl + "/user/emails";
+        /* private emails of token owner, same for any token of the user */
+        return getForObject(url, new ParameterizedTypeReference<List<EmailResource>>() {
+        }, url + "#" + user.login, false);
     }
 
     public List<OrganizationResource> getUserOrganizations(String user) {
-        return getForObject(this.githubBaseUrl + "/users/{}/orgs", new ParameterizedTypeReference<List<OrganizationResource>>() {
-        }, user);
+        String url = this.githubBaseUrl + "/users/" + user + "/orgs";
+        return getForObject(url, new ParameterizedTypeReference<List<OrganizationResource>>() {
+        }, url, true);
     }
 
     public List<OrganizationResource> getUserOrganizations(UserResource user) {
+        /* public memberships of particular user, same for any token */
         return getForObject(user.organizationsUrl, new ParameterizedTypeReference<List<OrganizationResource>>() {
-        });
+        }, user.organizationsUrl, true);
     }
 
     public ResponseEntity<Resource> downloadResource(String url) {
-        return this.restTemplate.getForEntity(url, Resource.class);
+        return call(() -> this.restTemplate.exchange(url, HttpMethod.GET, authorization, Resource.class));
+    }
+
+    /**
+     * Performs call concurrently with caller if there are free threads, otherwise by caller
+     *
+     * @param call Call of this client
+     * @return Result of call
+     */
+    public <T> CompletableFuture<T> async(Supplier<T> call) {
+        return CompletableFuture.supplyAsync(call, executor);
+    }
+
+    /**
+     * Waits for result of {@link #async(Supplier)}
+     *
+     * @param future Result of call
+     * @return Value returned by call
+     * @throws RuntimeException Thrown by call
+     */
+    public static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * @param cacheKey     Key of cached response. Response isn't cached if NULL
+     * @param staleAllowed Whether cached response may be served without request once rate limit is close
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T getForObject(String url, ParameterizedTypeReference<T> type, String cacheKey, boolean staleAllowed) {
+        GitHubApiCache.CachedResponse cached = null == cacheKey ? null : cache.get(cacheKey);
+        if (staleAllowed && cache.serveStale(tokenKey, cached)) {
+            return (T) cached.getBody();
+        }
+        if (cache.isExhausted(tokenKey)) {
+            throw new AuthenticationServiceException(
+                    "GitHub API rate limit is exceeded. It is reset at " + Instant.ofEpochSecond(cache.getReset(tokenKey)));
+        }
+
+        HttpHeaders headers = authorizationHeaders();
+        if (null != cached) {
+            headers.setIfNoneMatch(cached.getEtag());
+        }
+        ResponseEntity<T> response;
+        try {
+            response = call(() -> this.restTemplate.exchange(url, HttpMethod.GET, new HttpEntity<>(headers), type));
+        } catch (GitHubClients.GitHubApiException e) {
+            cache.onResponse(tokenKey, e.getHeaders());
+            throw e;
+        }
+        cache.onResponse(tokenKey, response.getHeaders());
+
+        if (HttpStatus.NOT_MODIFIED == response.getStatusCode() && null != cached) {
+            return (T) cache.revalidated(cacheKey, cached);
+        }
+        if (null != cacheKey && null != response.getHeaders().getETag()) {
+            cache.put(cacheKey, response.getHeaders().getETag(), response.getBody());
+        }
+        return response.getBody();
+    }
+
+    /**
+     * Timeouts, refused connections and exhausted connection pool fail login as any unavailable provider does
+     */
+    private static <T> T call(Supplier<T> call) {
+        try {
+            return call.get();
+        } catch (ResourceAccessException e) {
+            throw new AuthenticationServiceException("GitHub API is unavailable: " + e.getMessage(), e);
+        }
     }
 
-    private <T> T getForObject(String url, ParameterizedTypeReference<T> type, Object... urlVars) {
-        return this.restTemplate.exchange(url, HttpMethod.GET, null, type, urlVars).getBody();
+    private HttpHeaders authorizationHeaders() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.add(HttpHeaders.AUTHORIZATION, "bearer " + accessToken);
+        return headers;
     }
 }
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2018 EPAM Systems
+ *
+ *
+ * This file is part of EPAM Report Portal.
+ * https://github.com/reportportal/service-authorization
+ *
+ * Report Portal is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Report Portal is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Report Portal.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.epam.reportportal.auth.integration.github;
+
+import com.google.common.base.Charsets;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.security.authentication.AuthenticationServiceException;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.DefaultResponseErrorHandler;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creates {@link GitHubClient} of particular access token. All clients share single
+ * {@link RestTemplate} with pooled connections, executor of concurrent calls and {@link GitHubApiCache}
+ *
+ * @author Andrei Varabyeu
+ */
+@Component
+public class GitHubClients implements DisposableBean {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(GitHubClients.class);
+
+    private final String githubBaseUrl;
+    private final RestTemplate restTemplate;
+    private final ThreadPoolExecutor executor;
+    private final GitHubApiCache cache;
+
+    /**
+     * @param requestFactory Factory of pooled connections
+     * @param cache          Cache of API responses
+     * @param githubBaseUrl  URL of GitHub API
+     * @param threads        Max amount of concurrent calls. Calls are performed by caller one after another if 0
+     * @param queue          Max amount of calls waiting for free thread. Calls above are performed by caller
+     */
+    @Autowired
+    public GitHubClients(ClientHttpRequestFactory requestFactory, GitHubApiCache cache,
+            @Value("${rp.auth.github.apiUrl:https://api.github.com}") String githubBaseUrl,
+            @Value("${rp.auth.github.executor.threads:16}") int threads, @Value("${rp.auth.github.executor.queue:100}") int queue) {
+        this.githubBaseUrl = githubBaseUrl;
+        this.cache = cache;
+        this.restTemplate = new RestTemplate(requestFactory);
+        this.restTemplate.setErrorHandler(new DefaultResponseErrorHandler() {
+            @Override
+            public void handleError(ClientHttpResponse response) throws IOException {
+                String errorMessage = "Unable to load Github Data:" + new String(getResponseBody(response), Charsets.UTF_8);
+                LOGGER.error(errorMessage);
+                throw new GitHubApiException(errorMessage, response.getHeaders());
+            }
+        });
+        this.executor = threads > 0 ?
+                new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(Math.max(1, queue)),
+                        new ThreadFactoryBuilder().setNameFormat("github-%d").setDaemon(true).build(),
+                        new ThreadPoolExecutor.CallerRunsPolicy()) :
+                null;
+        if (null != this.executor) {
+            this.executor.allowCoreThreadTimeOut(true);
+        }
+    }
+
+    /**
+     * @param accessToken Token of GitHub user
+     * @return Client sending requests on behalf of user
+     */
+    public GitHubClient withAccessToken(String accessToken) {
+        return new GitHubClient(restTemplate, accessToken, githubBaseUrl, null == executor ? Runnable::run : executor, cache);
+    }
+
+    @Override
+    public void destroy() {
+        if (null != executor) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Error response of GitHub API. Headers are kept, so rate limit reported by error is known
+     */
+    public static class GitHubApiException extends AuthenticationServiceException {
+
+        private final transient HttpHeaders headers;
+
+        public GitHubApiException(String msg, HttpHeaders headers) {
+            super(msg);
+            this.headers = headers;
+        }
+
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+    }
+}
@@ -21,6 +21,7 @@
 package com.epam.reportportal.auth.integration.github;
 
 import com.epam.reportportal.auth.AuthUtils;
+import com.epam.reportportal.auth.bulkhead.Bulkhead;
 import com.epam.ta.reportportal.database.entity.settings.OAuth2LoginDetails;
 import com.epam.ta.reportportal.database.entity.user.User;
 import com.google.common.base.Splitter;
@@ -36,13 +37,16 @@ import java.io.Serializable;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Supplier;
 
 import static java.util.Collections.emptyList;
 import static java.util.Optional.ofNullable;
 
 /**
- * Token services for GitHub account info with internal ReportPortal's database
+ * Token services for GitHub account info with internal ReportPortal's database.
+ * Calls to GitHub are limited by {@link Bulkhead}. Organizations, emails and avatar
+ * of user are loaded concurrently
  *
  * @author <a href="mailto:andrei_varabyeu@epam.com">Andrei Varabyeu</a>
  */
@@ -50,32 +54,43 @@ public class GitHubTokenServices implements ResourceServerTokenServices {
 
     private final GitHubUserReplicator replicator;
     private final Supplier<OAuth2LoginDetails> loginDetails;
-    private final String githubBaseUrl;
+    private final GitHubClients gitHubClients;
+    private final Bulkhead bulkhead;
 
-    public GitHubTokenServices(GitHubUserReplicator replicatingPrincipalExtractor, Supplier<OAuth2LoginDetails> loginDetails, String githubBaseUrl) {
+    public GitHubTokenServices(GitHubUserReplicator replicatingPrincipalExtractor, Supplier<OAuth2LoginDetails> loginDetails,
+            GitHubClients gitHubClients, Bulkhead bulkhead) {
         this.replicator = replicatingPrincipalExtractor;
         this.loginDetails = loginDetails;
-        this.githubBaseUrl = githubBaseUrl;
+        this.gitHubClients = gitHubClients;
+        this.bulkhead = bulkhead;
     }
 
     @Override
     public OAuth2Authentication loadAuthentication(String accessToken) throws AuthenticationException, InvalidTokenException {
-        GitHubClient gitHubClient = GitHubClient.withAccessToken(accessToken, this.githubBaseUrl);
+        return bulkhead.execute(() -> authenticate(accessToken));
+    }
+
+    private OAuth2Authentication authenticate(String accessToken) {
+        GitHubClient gitHubClient = gitHubClients.withAccessToken(accessToken);
         UserResource gitHubUser = gitHubClient.getUser();
 
         List<String> allowedOrganizations = ofNullable(loginDetails.get().getRestrictions())
                 .flatMap(restrictions -> ofNullable(restrictions.get("organizations")))
                 .map(it -> Splitter.on(",").omitEmptyStrings().splitToList(it))
                 .orElse(emptyList());
+        CompletableFuture<Void> admission = CompletableFuture.completedFuture(null);
         if (!allowedOrganizations.isEmpty()) {
-            boolean assignedToOrganization = gitHubClient.getUserOrganizations(gitHubUser).stream().map(userOrg -> userOrg.login)
-                    .anyMatch(allowedOrganizations::contains);
-            if (!assignedToOrganization) {
-                throw new InsufficientOrganizationException("User '" + gitHubUser.login + "' does not belong to allowed GitHUB organization");
-            }
+            admission = gitHubClient.async(() -> gitHubClient.getUserOrganizations(gitHubUser)).thenAccept(organizations -> {
+                boolean assignedToOrganization = organizations.stream().map(userOrg -> userOrg.login)
+                        .anyMatch(allowedOrganizations::contains);
+                if (!assignedToOrganization) {
+                    throw new InsufficientOrganizationException(
+                            "User '" + gitHubUser.login + "' does not belong to allowed GitHUB organization");
+                }
+            });
         }
 
-        User user = replicator.replicateUser(gitHubUser, gitHubClient);
+        User user = replicator.replicateUser(gitHubUser, gitHubClient, admission);
 
         UsernamePasswordAuthenticationToken token = new UsernamePasswordAuthenticationToken(user.getId(), "N/A",
                 AuthUtils.AS_AUTHORITIES.apply(user.getRole()));
@@ -34,7 +34,6 @@ import com.epam.ta.reportportal.database.personal.PersonalProjectService;
 import com.epam.ta.reportportal.ws.model.ErrorType;
 import com.google.common.base.Strings;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.Resource;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
@@ -44,7 +43,9 @@ import java.io.InputStream;
 import java.time.ZonedDateTime;
 import java.util.Date;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 
+import static com.epam.reportportal.auth.integration.github.GitHubClient.await;
 import static com.epam.ta.reportportal.commons.EntityUtils.normalizeId;
 
 /**
@@ -55,18 +56,17 @@ import static com.epam.ta.reportportal.commons.EntityUtils.normalizeId;
 @Component
 public class GitHubUserReplicator extends AbstractUserReplicator {
 
-    private final String githubBaseUrl;
+    private final GitHubClients gitHubClients;
 
     @Autowired
     public GitHubUserReplicator(UserRepository userRepository, ProjectRepository projectRepository, DataStorage dataStorage,
-                                PersonalProjectService personalProjectService,
-                                @Value("${rp.auth.github.apiUrl:https://api.github.com}") String githubBaseUrl) {
+                                PersonalProjectService personalProjectService, GitHubClients gitHubClients) {
         super(userRepository, projectRepository, personalProjectService, dataStorage);
-        this.githubBaseUrl=githubBaseUrl;
+        this.gitHubClients = gitHubClients;
     }
 
     public User synchronizeUser(String accessToken) {
-        GitHubClient gitHubClient = GitHubClient.withAccessToken(accessToken, this.githubBaseUrl);
+        GitHubClient gitHubClient = gitHubClients.withAccessToken(accessToken);
         UserResource userInfo = gitHubClient.getUser();
         User user = userRepository.findOne(normalizeId(userInfo.login));
         BusinessRule.expect(user, Objects::nonNull).verify(ErrorType.USER_NOT_FOUND, userInfo.login);
@@ -75,7 +75,9 @@ public class GitHubUserReplicator extends AbstractUserReplicator {
         user.setFullName(userInfo.name);
         user.getMetaInfo().setSynchronizationDate(Date.from(ZonedDateTime.now().toInstant()));
 
-        String newPhotoId = uploadAvatar(gitHubClient, userInfo.login, userInfo.avatarUrl);
+        String newPhotoId = null == userInfo.avatarUrl ?
+                null :
+                uploadAvatar(userInfo.login, gitHubClient.downloadResource(userInfo.avatarUrl.toString()));
         if (!Strings.isNullOrEmpty(newPhotoId)) {
             dataStorage.deleteData(user.getPhotoId());
             user.setPhotoId(newPhotoId);
@@ -91,7 +93,7 @@ public class GitHubUserReplicator extends AbstractUserReplicator {
      * @return Internal User representation
      */
     public User replicateUser(String accessToken) {
-        GitHubClient gitHubClient = GitHubClient.withAccessToken(accessToken, this.githubBaseUrl);
+        GitHubClient gitHubClient = gitHubClients.withAccessToken(accessToken);
         UserResource userInfo = gitHubClient.getUser();
         return replicateUser(userInfo, gitHubClient);
     }
@@ -104,17 +106,36 @@ public class GitHubUserReplicator extends AbstractUserReplicator {
      * @return Internal User representation
      */
     public User replicateUser(UserResource userInfo, GitHubClient gitHubClient) {
+        return replicateUser(userInfo, gitHubClient, CompletableFuture.completedFuture(null));
+    }
+
+    /**
+     * Replicates GitHub user to internal database (if does NOT exist). Creates personal project for that user.
+     * Emails and avatar of new user are downloaded concurrently with admission check
+     *
+     * @param userInfo     GitHub user to be replicated
+     * @param gitHubClient Configured github client
+     * @param admission    Check user is allowed to log in. Nothing is stored until it completes successfully
+     * @return Internal User representation
+     */
+    public User replicateUser(UserResource userInfo, GitHubClient gitHubClient, CompletableFuture<?> admission) {
         String login = normalizeId(userInfo.login);
         User user = userRepository.findOne(login);
         if (null == user) {
+            CompletableFuture<String> primaryEmail = Strings.isNullOrEmpty(userInfo.email) ?
+                    gitHubClient.async(() -> gitHubClient.getUserEmails(userInfo).stream().filter(EmailResource::isVerified)
+                            .filter(EmailResource::isPrimary).findAny().get().getEmail()) :
+                    CompletableFuture.completedFuture(userInfo.email);
+            Object avatarUrl = userInfo.avatarUrl;
+            CompletableFuture<ResponseEntity<Resource>> avatar = null == avatarUrl ?
+                    CompletableFuture.completedFuture(null) :
+                    gitHubClient.async(() -> gitHubClient.downloadResource(avatarUrl.toString()));
+            await(admission);
+
             user = new User();
             user.setLogin(login);
 
-            String email = userInfo.email;
-            if (Strings.isNullOrEmpty(email)) {
-                email = gitHubClient.getUserEmails().stream().filter(EmailResource::isVerified).filter(EmailResource::isPrimary).findAny()
-                        .get().getEmail();
-            }
+            String email = await(primaryEmail);
             email = normalizeId(email);
             checkEmail(email);
             user.setEmail(email);
@@ -127,32 +148,32 @@ public class GitHubUserReplicator extends AbstractUserReplicator {
 
             user.setType(UserType.GITHUB);
             user.setRole(UserRole.USER);
-            Object avatarUrl = userInfo.avatarUrl;
-            user.setPhotoId(uploadAvatar(gitHubClient, login, avatarUrl));
+            ResponseEntity<Resource> photoRs = await(avatar);
+            user.setPhotoId(null == photoRs ? null : uploadAvatar(login, photoRs));
 
             user.setIsExpired(false);
 
             user.setDefaultProject(generatePersonalProject(user));
             userRepository.save(user);
 
-        } else if (!UserType.GITHUB.equals(user.getType())) {
-            //if user with such login exists, but it's not GitHub user than throw an exception
-            throw new UserSynchronizationException("User with login '" + user.getId() + "' already exists");
+        } else {
+            await(admission);
+            if (!UserType.GITHUB.equals(user.getType())) {
+                //if user with such login exists, but it's not GitHub user than throw an exception
+                throw new UserSynchronizationException("User with login '" + user.getId() + "' already exists");
+            }
         }
         return user;
     }
 
-    private String uploadAvatar(GitHubClient gitHubClient, String login, Object avatarUrl) {
+    private String uploadAvatar(String login, ResponseEntity<Resource> photoRs) {
         String photoId = null;
-        if (null != avatarUrl) {
-            ResponseEntity<Resource> photoRs = gitHubClient.downloadResource(avatarUrl.toString());
-            try (InputStream photoStream = photoRs.getBody().getInputStream()) {
-                BinaryData photo = new BinaryData(photoRs.getHeaders().getContentType().toString(), photoRs.getBody().contentLength(),
-                        photoStream);
-                photoId = uploadPhoto(login, photo);
-            } catch (IOException e) {
-                LOGGER.error("Unable to load photo for user {}", login);
-            }
+        try (InputStream photoStream = photoRs.getBody().getInputStream()) {
+            BinaryData photo = new BinaryData(photoRs.getHeaders().getContentType().toString(), photoRs.getBody().contentLength(),
+                    photoStream);
+            photoId = uploadPhoto(login, photo);
+        } catch (IOException e) {
+            LOGGER.error("Unable to load photo for user {}", login);
         }
         return photoId;
     }
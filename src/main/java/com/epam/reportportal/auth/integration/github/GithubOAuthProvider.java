@@ -21,6 +21,7 @@
 package com.epam.reportportal.auth.integration.github;
 
 import com.epam.reportportal.auth.AuthConfigService;
+import com.epam.reportportal.auth.bulkhead.Bulkheads;
 import com.epam.ta.reportportal.database.entity.settings.OAuth2LoginDetails;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.oauth2.client.OAuth2ClientContext;
@@ -45,21 +46,24 @@ public class GithubOAuthProvider extends com.epam.reportportal.auth.oauth.OAuthP
 
     private final GitHubUserReplicator githubReplicator;
     private final AuthConfigService authConfigService;
+    private final Bulkheads bulkheads;
     private final String tokenUrl;
     private final String authUrl;
-    private final String githubBaseUrl;
+    private final GitHubClients gitHubClients;
 
     public GithubOAuthProvider(GitHubUserReplicator githubReplicator,
                                AuthConfigService authConfigService,
+                               Bulkheads bulkheads,
+                               GitHubClients gitHubClients,
                                @Value("${rp.auth.github.tokenUrl:https://github.com/login/oauth/access_token}") String tokenUrl,
-                               @Value("${rp.auth.github.authUrl:https://github.com/login/oauth/authorize}") String authUrl,
-                               @Value("${rp.auth.github.apiUrl:https://api.github.com}") String githubBaseUrl) {
+                               @Value("${rp.auth.github.authUrl:https://github.com/login/oauth/authorize}") String authUrl) {
         super("github", BUTTON, true);
         this.githubReplicator = githubReplicator;
         this.authConfigService = authConfigService;
+        this.bulkheads = bulkheads;
         this.tokenUrl = tokenUrl;
         this.authUrl = authUrl;
-        this.githubBaseUrl = githubBaseUrl;
+        this.gitHubClients = gitHubClients;
     }
 
     @Override
@@ -76,7 +80,8 @@ public class GithubOAuthProvider extends com.epam.reportportal.auth.oauth.OAuthP
 
     @Override
     public ResourceServerTokenServices getTokenServices() {
-        return new GitHubTokenServices(githubReplicator, authConfigService.getLoginDetailsSupplier(getName()), this.githubBaseUrl);
+        return new GitHubTokenServices(githubReplicator, authConfigService.getLoginDetailsSupplier(getName()), gitHubClients,
+                bulkheads.get(Bulkheads.GITHUB));
     }
 
     @Override
@@ -20,44 +20,48 @@
  */
 package com.epam.reportportal.auth.integration.ldap;
 
-import com.epam.reportportal.auth.EnableableAuthProvider;
-import com.epam.reportportal.auth.store.AuthConfigRepository;
+import com.epam.reportportal.auth.integration.AuthIntegrationType;
+import com.epam.reportportal.auth.store.AuthConfigHolder;
 import com.epam.reportportal.auth.store.entity.ldap.ActiveDirectoryConfig;
-import org.springframework.security.authentication.AuthenticationProvider;
-import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.core.authority.mapping.NullAuthoritiesMapper;
 import org.springframework.security.ldap.authentication.ad.ActiveDirectoryLdapAuthenticationProvider;
 
+import java.util.Optional;
+
 /**
  * Active Directory provider
  *
  * @author Andrei Varabyeu
  */
-public class ActiveDirectoryAuthProvider extends EnableableAuthProvider {
+public class ActiveDirectoryAuthProvider extends DirectoryAuthProvider<ActiveDirectoryConfig> {
 
-    private final LdapUserReplicator ldapUserReplicator;
+    public ActiveDirectoryAuthProvider(AuthConfigHolder authConfigHolder, LdapUserReplicator ldapUserReplicator) {
+        this(authConfigHolder, ldapUserReplicator, VerifiedCredentialsCache.disabled());
+    }
 
-    public ActiveDirectoryAuthProvider(AuthConfigRepository authConfigRepository, LdapUserReplicator ldapUserReplicator) {
-        super(authConfigRepository);
-        this.ldapUserReplicator = ldapUserReplicator;
+    public ActiveDirectoryAuthProvider(AuthConfigHolder authConfigHolder, LdapUserReplicator ldapUserReplicator,
+            VerifiedCredentialsCache credentialsCache) {
+        super(authConfigHolder, ldapUserReplicator, credentialsCache);
     }
 
     @Override
-    protected boolean isEnabled() {
-        return authConfigRepository.findActiveDirectory(true).isPresent();
+    protected AuthIntegrationType getType() {
+        return AuthIntegrationType.ACTIVE_DIRECTORY;
     }
 
     @Override
-    protected AuthenticationProvider getDelegate() {
-
-        ActiveDirectoryConfig adConfig = authConfigRepository.findActiveDirectory(true)
-                .orElseThrow(() -> new BadCredentialsException("Active Directory is not configured"));
+    protected Optional<ActiveDirectoryConfig> findConfig() {
+        return authConfigHolder.get().getActiveDirectory(true);
+    }
 
-        ActiveDirectoryLdapAuthenticationProvider adAuth = new ActiveDirectoryLdapAuthenticationProvider(adConfig.getDomain(),
-                adConfig.getUrl(), adConfig.getBaseDn());
+    @Override
+    protected DirectoryEndpoint buildEndpoint(ActiveDirectoryConfig adConfig, String url) {
+        ActiveDirectoryLdapAuthenticationProvider adAuth = new ActiveDirectoryLdapAuthenticationProvider(adConfig.getDomain(), url,
+                adConfig.getBaseDn());
 
+        adAuth.setContextEnvironmentProperties(timeouts(adConfig));
         adAuth.setAuthoritiesMapper(new NullAuthoritiesMapper());
-        adAuth.setUserDetailsContextMapper(new DetailsContextMapper(ldapUserReplicator, adConfig.getSynchronizationAttributes()));
-        return adAuth;
+        adAuth.setUserDetailsContextMapper(new DetailsContextMapper());
+        return new DirectoryEndpoint(url, adAuth);
     }
 }
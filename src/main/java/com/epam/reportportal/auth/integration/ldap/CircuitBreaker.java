@@ -0,0 +1,107 @@
+/*
+ * Copyright 2018 EPAM Systems
+ *
+ *
+ * This file is part of EPAM Report Portal.
+ * https://github.com/reportportal/service-authorization
+ *
+ * Report Portal is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Report Portal is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Report Portal.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.epam.reportportal.auth.integration.ldap;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Stops calls to directory once it has failed several times in a row. After open time single call
+ * is let through to check whether directory is back
+ *
+ * @author Andrei Varabyeu
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED,
+        /* single probe call is being performed */
+        HALF_OPEN,
+        OPEN
+    }
+
+    private final int failureThreshold;
+    private final long openTime;
+
+    private final AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+    private final AtomicInteger failures = new AtomicInteger();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong opened = new AtomicLong();
+    private volatile long openedAt;
+
+    /**
+     * @param failureThreshold Failures in a row which open breaker
+     * @param openTime         Millis breaker stays open before probe call
+     */
+    CircuitBreaker(int failureThreshold, long openTime) {
+        this.failureThreshold = failureThreshold;
+        this.openTime = openTime;
+    }
+
+    /**
+     * @return FALSE if call should not be performed
+     */
+    boolean tryAcquire() {
+        State current = state.get();
+        if (State.CLOSED == current) {
+            return true;
+        }
+        if (State.OPEN == current && System.currentTimeMillis() - openedAt >= openTime && state.compareAndSet(State.OPEN,
+                State.HALF_OPEN)) {
+            return true;
+        }
+        rejected.incrementAndGet();
+        return false;
+    }
+
+    void onSuccess() {
+        failures.set(0);
+        state.set(State.CLOSED);
+    }
+
+    void onFailure() {
+        if (State.HALF_OPEN == state.get() || failures.incrementAndGet() >= failureThreshold) {
+            openedAt = System.currentTimeMillis();
+            if (State.OPEN != state.getAndSet(State.OPEN)) {
+                opened.incrementAndGet();
+            }
+        }
+    }
+
+    public State getState() {
+        return state.get();
+    }
+
+    /**
+     * @return Amount of calls rejected while breaker was open
+     */
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    /**
+     * @return Amount of times breaker has been opened
+     */
+    public long getOpened() {
+        return opened.get();
+    }
+}
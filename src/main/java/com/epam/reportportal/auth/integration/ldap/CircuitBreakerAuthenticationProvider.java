@@ -0,0 +1,77 @@
+/*
+ * Copyright 2018 EPAM Systems
+ *
+ *
+ * This file is part of EPAM Report Portal.
+ * https://github.com/reportportal/service-authorization
+ *
+ * Report Portal is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Report Portal is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Report Portal.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.epam.reportportal.auth.integration.ldap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.InternalAuthenticationServiceException;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+
+/**
+ * Skips delegate while directory is considered unavailable so next providers in chain
+ * are asked right away
+ *
+ * @author Andrei Varabyeu
+ */
+class CircuitBreakerAuthenticationProvider implements AuthenticationProvider {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CircuitBreakerAuthenticationProvider.class);
+
+    private final AuthenticationProvider delegate;
+    private final CircuitBreaker circuitBreaker;
+
+    CircuitBreakerAuthenticationProvider(AuthenticationProvider delegate, CircuitBreaker circuitBreaker) {
+        this.delegate = delegate;
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    @Override
+    public Authentication authenticate(Authentication authentication) throws AuthenticationException {
+        if (!circuitBreaker.tryAcquire()) {
+            LOGGER.debug("Directory is unavailable. Authentication of '{}' is skipped", authentication.getName());
+            /* provider manager goes to next provider */
+            return null;
+        }
+        try {
+            Authentication result = delegate.authenticate(authentication);
+            circuitBreaker.onSuccess();
+            return result;
+        } catch (DirectoryUnavailableException | InternalAuthenticationServiceException e) {
+            circuitBreaker.onFailure();
+            throw e;
+        } catch (AuthenticationException e) {
+            /* directory has responded, e.g. credentials are wrong */
+            circuitBreaker.onSuccess();
+            throw e;
+        } catch (RuntimeException e) {
+            /* e.g. CommunicationException of Active Directory provider which doesn't wrap timeouts */
+            circuitBreaker.onFailure();
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean supports(Class<?> authentication) {
+        return delegate.supports(authentication);
+    }
+}
@@ -20,36 +20,77 @@
  */
 package com.epam.reportportal.auth.integration.ldap;
 
-import com.epam.reportportal.auth.AuthUtils;
-import com.epam.reportportal.auth.store.entity.ldap.SynchronizationAttributes;
-import com.epam.ta.reportportal.database.entity.user.User;
 import org.springframework.ldap.core.DirContextOperations;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.ldap.userdetails.LdapUserDetailsMapper;
 
 import java.util.Collection;
+import java.util.Collections;
 
 /**
+ * Keeps directory entry of authenticated user, so user is replicated by {@link ReplicatingAuthenticationProvider}
+ * once directory server has responded
+ *
  * @author Details Context mapper
  */
 class DetailsContextMapper extends LdapUserDetailsMapper {
 
-    private final LdapUserReplicator ldapUserReplicator;
-    private final SynchronizationAttributes attributes;
-
-    DetailsContextMapper(LdapUserReplicator ldapUserReplicator, SynchronizationAttributes attributes) {
-        this.ldapUserReplicator = ldapUserReplicator;
-        this.attributes = attributes;
-    }
-
     @Override
     public UserDetails mapUserFromContext(DirContextOperations ctx, String username, Collection<? extends GrantedAuthority> authorities) {
-        UserDetails userDetails = super.mapUserFromContext(ctx, username, authorities);
+        return new DirectoryEntry(username, ctx);
+    }
+
+    /**
+     * Authenticated user which is not replicated yet
+     */
+    static class DirectoryEntry implements UserDetails {
+
+        private final String username;
+        private final DirContextOperations context;
+
+        DirectoryEntry(String username, DirContextOperations context) {
+            this.username = username;
+            this.context = context;
+        }
+
+        DirContextOperations getContext() {
+            return context;
+        }
+
+        @Override
+        public Collection<? extends GrantedAuthority> getAuthorities() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public String getPassword() {
+            return "";
+        }
+
+        @Override
+        public String getUsername() {
+            return username;
+        }
+
+        @Override
+        public boolean isAccountNonExpired() {
+            return true;
+        }
+
+        @Override
+        public boolean isAccountNonLocked() {
+            return true;
+        }
 
-        User user = ldapUserReplicator.replicateUser(userDetails.getUsername(), ctx, attributes);
+        @Override
+        public boolean isCredentialsNonExpired() {
+            return true;
+        }
 
-        return new org.springframework.security.core.userdetails.User(user.getId(), "", true, true, true, true,
-                AuthUtils.AS_AUTHORITIES.apply(user.getRole()));
+        @Override
+        public boolean isEnabled() {
+            return true;
+        }
     }
 }
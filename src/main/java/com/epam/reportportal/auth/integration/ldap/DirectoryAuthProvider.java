@@ -0,0 +1,166 @@
+/*
+ * Copyright 2018 EPAM Systems
+ *
+ *
+ * This file is part of EPAM Report Portal.
+ * https://github.com/reportportal/service-authorization
+ *
+ * Report Portal is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Report Portal is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Report Portal.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.epam.reportportal.auth.integration.ldap;
+
+import com.epam.reportportal.auth.EnableableAuthProvider;
+import com.epam.reportportal.auth.store.AuthConfigHolder;
+import com.epam.reportportal.auth.store.entity.ldap.AbstractLdapConfig;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.BadCredentialsException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static java.util.Optional.ofNullable;
+
+/**
+ * Base for providers authenticating against directory servers. Builds delegate for each server
+ * and routes requests between them
+ *
+ * @param <T> Type of settings
+ * @author Andrei Varabyeu
+ */
+public abstract class DirectoryAuthProvider<T extends AbstractLdapConfig> extends EnableableAuthProvider implements DisposableBean {
+
+    /**
+     * Max amount of directory requests performed concurrently in background.
+     * Request is performed by caller once the limit is reached
+     */
+    private static final int MAX_BACKGROUND_REQUESTS = 64;
+
+    private static final long DEFAULT_CONNECT_TIMEOUT = TimeUnit.SECONDS.toMillis(5);
+    private static final long DEFAULT_READ_TIMEOUT = TimeUnit.SECONDS.toMillis(15);
+    private static final int DEFAULT_BREAKER_THRESHOLD = 5;
+    private static final long DEFAULT_BREAKER_OPEN_TIME = TimeUnit.SECONDS.toMillis(30);
+
+    protected final LdapUserReplicator ldapUserReplicator;
+
+    private final ThreadPoolExecutor executor = new ThreadPoolExecutor(0, MAX_BACKGROUND_REQUESTS, 60, TimeUnit.SECONDS,
+            new SynchronousQueue<>(), new ThreadFactoryBuilder().setNameFormat("directory-auth-%d").setDaemon(true).build(),
+            new ThreadPoolExecutor.CallerRunsPolicy());
+
+    /**
+     * Servers of current settings revision
+     */
+    private final AtomicReference<List<DirectoryEndpoint>> endpoints = new AtomicReference<>(Collections.emptyList());
+
+    /**
+     * Breaker of current settings revision
+     */
+    private volatile CircuitBreaker circuitBreaker;
+
+    private final VerifiedCredentialsCache credentialsCache;
+
+    protected DirectoryAuthProvider(AuthConfigHolder authConfigHolder, LdapUserReplicator ldapUserReplicator,
+            VerifiedCredentialsCache credentialsCache) {
+        super(authConfigHolder);
+        this.ldapUserReplicator = ldapUserReplicator;
+        this.credentialsCache = credentialsCache;
+    }
+
+    /**
+     * @return Settings if integration is enabled
+     */
+    protected abstract Optional<T> findConfig();
+
+    /**
+     * @param config Settings
+     * @param url    URL of particular server
+     * @return Server along with delegate authenticating against it
+     */
+    protected abstract DirectoryEndpoint buildEndpoint(T config, String url);
+
+    @Override
+    protected boolean isEnabled() {
+        boolean enabled = findConfig().isPresent();
+        if (!enabled) {
+            /* connections of disabled integration are not needed anymore */
+            replaceEndpoints(Collections.emptyList());
+            circuitBreaker = null;
+        }
+        return enabled;
+    }
+
+    @Override
+    protected AuthenticationProvider getDelegate() {
+        T config = findConfig().orElseThrow(() -> new BadCredentialsException("Integration '" + getType() + "' is not configured"));
+
+        List<String> urls = new ArrayList<>();
+        urls.add(config.getUrl());
+        ofNullable(config.getFailoverUrls()).ifPresent(urls::addAll);
+
+        List<DirectoryEndpoint> built = new ArrayList<>(urls.size());
+        urls.stream().distinct().forEach(url -> built.add(buildEndpoint(config, url)));
+        replaceEndpoints(built);
+
+        CircuitBreaker breaker = new CircuitBreaker(ofNullable(config.getCircuitBreakerThreshold()).orElse(DEFAULT_BREAKER_THRESHOLD),
+                ofNullable(config.getCircuitBreakerOpenTime()).orElse(DEFAULT_BREAKER_OPEN_TIME));
+        circuitBreaker = breaker;
+
+        /* remembered logins are served even if directory is unavailable. User is replicated once any server has responded */
+        return credentialsCache.wrap(getType(), new ReplicatingAuthenticationProvider(new CircuitBreakerAuthenticationProvider(
+                new FailoverAuthenticationProvider(built, ofNullable(config.getHedgeDelay()).orElse(0L), executor), breaker),
+                ldapUserReplicator, config.getSynchronizationAttributes()));
+    }
+
+    /**
+     * @return JNDI environment limiting time of directory calls
+     */
+    protected static Map<String, Object> timeouts(AbstractLdapConfig config) {
+        return ImmutableMap.<String, Object>of("com.sun.jndi.ldap.connect.timeout",
+                String.valueOf(ofNullable(config.getConnectTimeout()).orElse(DEFAULT_CONNECT_TIMEOUT)), "com.sun.jndi.ldap.read.timeout",
+                String.valueOf(ofNullable(config.getReadTimeout()).orElse(DEFAULT_READ_TIMEOUT)));
+    }
+
+    /**
+     * @return Servers of current settings along with their stats
+     */
+    public List<DirectoryEndpoint> getEndpoints() {
+        return endpoints.get();
+    }
+
+    /**
+     * @return Breaker of current settings if integration is enabled
+     */
+    public Optional<CircuitBreaker> getCircuitBreaker() {
+        return ofNullable(circuitBreaker);
+    }
+
+    @Override
+    public void destroy() {
+        replaceEndpoints(Collections.emptyList());
+        executor.shutdown();
+    }
+
+    private void replaceEndpoints(List<DirectoryEndpoint> replacement) {
+        endpoints.getAndSet(Collections.unmodifiableList(replacement)).forEach(DirectoryEndpoint::close);
+    }
+}
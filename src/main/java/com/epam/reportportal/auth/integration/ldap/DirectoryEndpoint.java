@@ -0,0 +1,167 @@
+/*
+ * Copyright 2018 EPAM Systems
+ *
+ *
+ * This file is part of EPAM Report Portal.
+ * https://github.com/reportportal/service-authorization
+ *
+ * Report Portal is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Report Portal is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Report Portal.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.epam.reportportal.auth.integration.ldap;
+
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.InternalAuthenticationServiceException;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.util.Optional.ofNullable;
+
+/**
+ * Directory server along with delegate authenticating against it. Tracks latency and errors of the server.
+ * Server is considered unavailable for some time after it fails to respond. The time grows exponentially
+ * while failures continue
+ *
+ * @author Andrei Varabyeu
+ */
+public class DirectoryEndpoint implements AutoCloseable {
+
+    /**
+     * Weight of latest latency sample
+     */
+    private static final double ALPHA = 0.2;
+    private static final long MIN_BACKOFF = TimeUnit.SECONDS.toMillis(1);
+    private static final long MAX_BACKOFF = TimeUnit.MINUTES.toMillis(1);
+
+    private final String url;
+    private final AuthenticationProvider delegate;
+    private final PooledLdapContextSource connectionPool;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicInteger consecutiveErrors = new AtomicInteger();
+    private volatile double latency;
+    private volatile long lastError;
+
+    DirectoryEndpoint(String url, AuthenticationProvider delegate) {
+        this(url, delegate, null);
+    }
+
+    /**
+     * @param connectionPool Pool delegate takes connections from, if any. Closed along with endpoint
+     */
+    DirectoryEndpoint(String url, AuthenticationProvider delegate, PooledLdapContextSource connectionPool) {
+        this.url = url;
+        this.delegate = delegate;
+        this.connectionPool = connectionPool;
+    }
+
+    /**
+     * Authenticates against the server. Directory has responded unless {@link DirectoryUnavailableException} is thrown.
+     * Delegate reports such errors either as {@link InternalAuthenticationServiceException} or, like Active Directory provider,
+     * as Spring LDAP exceptions
+     */
+    Authentication authenticate(Authentication authentication) {
+        requests.incrementAndGet();
+        long start = System.nanoTime();
+        try {
+            Authentication result = delegate.authenticate(authentication);
+            onResponse(System.nanoTime() - start);
+            return result;
+        } catch (InternalAuthenticationServiceException e) {
+            onError();
+            throw new DirectoryUnavailableException(e.getMessage(), null == e.getCause() ? e : e.getCause());
+        } catch (AuthenticationException e) {
+            /* wrong credentials is still a response */
+            onResponse(System.nanoTime() - start);
+            throw e;
+        } catch (RuntimeException e) {
+            onError();
+            throw new DirectoryUnavailableException(e.getMessage(), e);
+        }
+    }
+
+    boolean supports(Class<?> authentication) {
+        return delegate.supports(authentication);
+    }
+
+    private void onResponse(long nanos) {
+        double sample = nanos / 1_000_000d;
+        double current = latency;
+        latency = 0 == current ? sample : current + ALPHA * (sample - current);
+        consecutiveErrors.set(0);
+    }
+
+    private void onError() {
+        if (Thread.currentThread().isInterrupted()) {
+            /* attempt has been cancelled since another server has responded first */
+            return;
+        }
+        errors.incrementAndGet();
+        consecutiveErrors.incrementAndGet();
+        lastError = System.currentTimeMillis();
+    }
+
+    /**
+     * @param now Current time in millis
+     * @return TRUE if server hasn't failed recently
+     */
+    boolean isAvailable(long now) {
+        int failures = consecutiveErrors.get();
+        if (0 == failures) {
+            return true;
+        }
+        long backoff = Math.min(MAX_BACKOFF, MIN_BACKOFF << Math.min(failures - 1, 16));
+        return now - lastError > backoff;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    /**
+     * @return Exponentially weighted average of response time in millis
+     */
+    public double getLatency() {
+        return latency;
+    }
+
+    public long getRequests() {
+        return requests.get();
+    }
+
+    /**
+     * @return Amount of requests server hasn't responded to
+     */
+    public long getErrors() {
+        return errors.get();
+    }
+
+    public boolean isAvailable() {
+        return isAvailable(System.currentTimeMillis());
+    }
+
+    public Optional<PooledLdapContextSource> getConnectionPool() {
+        return ofNullable(connectionPool);
+    }
+
+    @Override
+    public void close() {
+        getConnectionPool().ifPresent(PooledLdapContextSource::close);
+    }
+}
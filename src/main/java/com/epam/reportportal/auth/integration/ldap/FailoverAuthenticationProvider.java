@@ -0,0 +1,148 @@
+/*
+ * Copyright 2018 EPAM Systems
+ *
+ *
+ * This file is part of EPAM Report Portal.
+ * https://github.com/reportportal/service-authorization
+ *
+ * Report Portal is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Report Portal is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Report Portal.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.epam.reportportal.auth.integration.ldap;
+
+import com.google.common.annotations.VisibleForTesting;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.InternalAuthenticationServiceException;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Authenticates against the healthiest of directory servers. Servers which haven't failed recently
+ * are tried first, fastest ones go first. Once server doesn't respond the next one is tried.
+ * If hedge delay is set and server hasn't responded within it, the same request is sent to the next
+ * server as well and the first response is taken. Attempts still running by then are cancelled
+ *
+ * @author Andrei Varabyeu
+ */
+class FailoverAuthenticationProvider implements AuthenticationProvider {
+
+    private final List<DirectoryEndpoint> endpoints;
+    private final long hedgeDelay;
+    private final Executor executor;
+
+    /**
+     * @param endpoints  Directory servers in configured order
+     * @param hedgeDelay Millis to wait for response before the same request is sent to next server. Non-positive disables hedging
+     * @param executor   Executor hedged requests are performed on
+     */
+    FailoverAuthenticationProvider(List<DirectoryEndpoint> endpoints, long hedgeDelay, Executor executor) {
+        this.endpoints = endpoints;
+        this.hedgeDelay = hedgeDelay;
+        this.executor = executor;
+    }
+
+    @Override
+    public Authentication authenticate(Authentication authentication) throws AuthenticationException {
+        List<DirectoryEndpoint> ordered = order();
+        return hedgeDelay > 0 && ordered.size() > 1 ? hedged(ordered, authentication) : sequential(ordered, authentication);
+    }
+
+    @Override
+    public boolean supports(Class<?> authentication) {
+        return endpoints.get(0).supports(authentication);
+    }
+
+    @VisibleForTesting
+    List<DirectoryEndpoint> order() {
+        long now = System.currentTimeMillis();
+        /* stats change concurrently, so they are taken once before sorting */
+        Map<DirectoryEndpoint, Double> scores = new IdentityHashMap<>(endpoints.size());
+        endpoints.forEach(it -> scores.put(it, it.isAvailable(now) ? it.getLatency() : Double.MAX_VALUE));
+        List<DirectoryEndpoint> ordered = new ArrayList<>(endpoints);
+        ordered.sort(Comparator.comparing(scores::get));
+        return ordered;
+    }
+
+    private Authentication sequential(List<DirectoryEndpoint> ordered, Authentication authentication) {
+        DirectoryUnavailableException lastError = null;
+        for (DirectoryEndpoint endpoint : ordered) {
+            try {
+                return endpoint.authenticate(authentication);
+            } catch (DirectoryUnavailableException e) {
+                lastError = e;
+            }
+        }
+        throw lastError;
+    }
+
+    private Authentication hedged(List<DirectoryEndpoint> ordered, Authentication authentication) {
+        CompletionService<Authentication> attempts = new ExecutorCompletionService<>(executor);
+        List<Future<Authentication>> submitted = new ArrayList<>(ordered.size());
+        Iterator<DirectoryEndpoint> next = ordered.iterator();
+        submitted.add(attempt(attempts, next.next(), authentication));
+        int pending = 1;
+
+        DirectoryUnavailableException lastError = null;
+        try {
+            while (pending > 0) {
+                Future<Authentication> done = next.hasNext() ? attempts.poll(hedgeDelay, TimeUnit.MILLISECONDS) : attempts.take();
+                if (null == done) {
+                    /* slow response. Ask next server as well */
+                    submitted.add(attempt(attempts, next.next(), authentication));
+                    pending++;
+                    continue;
+                }
+                pending--;
+                try {
+                    return done.get();
+                } catch (ExecutionException e) {
+                    if (!(e.getCause() instanceof DirectoryUnavailableException)) {
+                        throw e.getCause() instanceof RuntimeException ?
+                                (RuntimeException) e.getCause() :
+                                new InternalAuthenticationServiceException(e.getCause().getMessage(), e.getCause());
+                    }
+                    lastError = (DirectoryUnavailableException) e.getCause();
+                    if (0 == pending && next.hasNext()) {
+                        submitted.add(attempt(attempts, next.next(), authentication));
+                        pending++;
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InternalAuthenticationServiceException("Authentication has been interrupted", e);
+        } finally {
+            /* first response is taken, the rest are not needed */
+            submitted.forEach(attempt -> attempt.cancel(true));
+        }
+        throw lastError;
+    }
+
+    private static Future<Authentication> attempt(CompletionService<Authentication> attempts, DirectoryEndpoint endpoint,
+            Authentication authentication) {
+        return attempts.submit(() -> endpoint.authenticate(authentication));
+    }
+}
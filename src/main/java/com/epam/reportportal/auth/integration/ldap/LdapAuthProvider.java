@@ -20,23 +20,29 @@
  */
 package com.epam.reportportal.auth.integration.ldap;
 
-import com.epam.reportportal.auth.EnableableAuthProvider;
-import com.epam.reportportal.auth.store.AuthConfigRepository;
+import com.epam.reportportal.auth.integration.AuthIntegrationType;
+import com.epam.reportportal.auth.store.AuthConfigHolder;
+import com.epam.reportportal.auth.store.entity.ldap.ConnectionPoolConfig;
 import com.epam.reportportal.auth.store.entity.ldap.LdapConfig;
 import com.epam.reportportal.auth.store.entity.ldap.PasswordEncoderType;
 import com.epam.ta.reportportal.commons.accessible.Accessible;
 import com.epam.ta.reportportal.exception.ReportPortalException;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableMap;
+import org.springframework.ldap.core.support.BaseLdapPathContextSource;
 import org.springframework.security.authentication.AuthenticationProvider;
-import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.encoding.*;
 import org.springframework.security.config.annotation.authentication.builders.AuthenticationManagerBuilder;
 import org.springframework.security.config.annotation.authentication.configurers.ldap.LdapAuthenticationProviderConfigurer;
 import org.springframework.security.ldap.DefaultSpringSecurityContextSource;
+import org.springframework.security.ldap.authentication.AbstractLdapAuthenticator;
+import org.springframework.security.ldap.authentication.BindAuthenticator;
+import org.springframework.security.ldap.authentication.LdapAuthenticationProvider;
 import org.springframework.security.ldap.authentication.NullLdapAuthoritiesPopulator;
+import org.springframework.security.ldap.search.FilterBasedLdapUserSearch;
 
 import java.util.Map;
+import java.util.Optional;
 
 import static com.google.common.base.Strings.isNullOrEmpty;
 import static java.util.Collections.singletonList;
@@ -47,34 +53,50 @@ import static java.util.Optional.ofNullable;
  *
  * @author Andrei Varabyeu
  */
-public class LdapAuthProvider extends EnableableAuthProvider {
+public class LdapAuthProvider extends DirectoryAuthProvider<LdapConfig> {
 
-    private final LdapUserReplicator ldapUserReplicator;
+    private final UserDnCache userDnCache;
 
-    public LdapAuthProvider(AuthConfigRepository authConfigRepository, LdapUserReplicator ldapUserReplicator) {
-        super(authConfigRepository);
-        this.ldapUserReplicator = ldapUserReplicator;
+    public LdapAuthProvider(AuthConfigHolder authConfigHolder, LdapUserReplicator ldapUserReplicator) {
+        this(authConfigHolder, ldapUserReplicator, VerifiedCredentialsCache.disabled(), UserDnCache.disabled());
+    }
+
+    public LdapAuthProvider(AuthConfigHolder authConfigHolder, LdapUserReplicator ldapUserReplicator,
+            VerifiedCredentialsCache credentialsCache, UserDnCache userDnCache) {
+        super(authConfigHolder, ldapUserReplicator, credentialsCache);
+        this.userDnCache = userDnCache;
     }
 
     @Override
-    protected boolean isEnabled() {
-        return authConfigRepository.findLdap(true).isPresent();
+    protected AuthIntegrationType getType() {
+        return AuthIntegrationType.LDAP;
     }
 
     @Override
-    protected AuthenticationProvider getDelegate() {
-        LdapConfig ldap = authConfigRepository.findLdap(true).orElseThrow(() -> new BadCredentialsException("LDAP is not configured"));
+    protected Optional<LdapConfig> findConfig() {
+        return authConfigHolder.get().getLdap(true);
+    }
 
-        DefaultSpringSecurityContextSource contextSource = new DefaultSpringSecurityContextSource(singletonList(ldap.getUrl()),
+    @Override
+    protected DirectoryEndpoint buildEndpoint(LdapConfig ldap, String url) {
+        DefaultSpringSecurityContextSource contextSource = new DefaultSpringSecurityContextSource(singletonList(url),
                 ldap.getBaseDn());
         ofNullable(ldap.getManagerPassword()).ifPresent(contextSource::setPassword);
         ofNullable(ldap.getManagerDn()).ifPresent(contextSource::setUserDn);
+        contextSource.setBaseEnvironmentProperties(timeouts(ldap));
+
+        Optional<ConnectionPoolConfig> poolConfig = ofNullable(ldap.getConnectionPool()).filter(it -> Boolean.TRUE.equals(it.isEnabled()));
+        /* pooling provided by JNDI cannot be configured per directory */
+        contextSource.setPooled(!poolConfig.isPresent());
         contextSource.afterPropertiesSet();
 
+        PooledLdapContextSource pooled = poolConfig.map(it -> new PooledLdapContextSource(contextSource, it)).orElse(null);
+
+        BaseLdapPathContextSource searchContextSource = null == pooled ? contextSource : pooled;
         LdapAuthenticationProviderConfigurer<AuthenticationManagerBuilder> builder = new LdapAuthenticationProviderConfigurer<AuthenticationManagerBuilder>()
-                .contextSource(contextSource)
+                .contextSource(searchContextSource)
                 .ldapAuthoritiesPopulator(new NullLdapAuthoritiesPopulator())
-                .userDetailsContextMapper(new DetailsContextMapper(ldapUserReplicator, ldap.getSynchronizationAttributes()));
+                .userDetailsContextMapper(new DetailsContextMapper());
 
 		/*
          * Basically, groups are not used
@@ -119,9 +141,24 @@ public class LdapAuthProvider extends EnableableAuthProvider {
         }
 
         try {
-            return (AuthenticationProvider) Accessible.on(builder)
+            LdapAuthenticationProvider provider = (LdapAuthenticationProvider) Accessible.on(builder)
                     .method(LdapAuthenticationProviderConfigurer.class.getDeclaredMethod("build")).invoke();
+            if (isNullOrEmpty(ldap.getUserSearchFilter())) {
+                return new DirectoryEndpoint(url, provider, pooled);
+            }
+
+            /* configurer has no way to customize user search, so it is replaced with the same one being cached */
+            AbstractLdapAuthenticator authenticator = (AbstractLdapAuthenticator) Accessible.on(provider)
+                    .method(LdapAuthenticationProvider.class.getDeclaredMethod("getAuthenticator")).invoke();
+            if (!(authenticator instanceof BindAuthenticator)) {
+                /* password is compared with attribute of found entry, which cached DN doesn't have */
+                return new DirectoryEndpoint(url, provider, pooled);
+            }
+            authenticator.setUserSearch(
+                    userDnCache.wrap(new FilterBasedLdapUserSearch("", ldap.getUserSearchFilter(), searchContextSource)));
+            return new DirectoryEndpoint(url, userDnCache.invalidateOnFailure(provider), pooled);
         } catch (Throwable e) {
+            ofNullable(pooled).ifPresent(PooledLdapContextSource::close);
             throw new ReportPortalException("Cannot build LDAP auth provider", e);
         }
     }
@@ -0,0 +1,405 @@
+/*
+ * Copyright 2018 EPAM Systems
+ *
+ *
+ * This file is part of EPAM Report Portal.
+ * https://github.com/reportportal/service-authorization
+ *
+ * Report Portal is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Report Portal is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Report Portal.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.epam.reportportal.auth.integration.ldap;
+
+import com.epam.reportportal.auth.store.AuthConfigHolder;
+import com.epam.reportportal.auth.store.JobLock;
+import com.epam.reportportal.auth.store.entity.ldap.LdapConfig;
+import com.epam.reportportal.auth.store.entity.ldap.SynchronizationAttributes;
+import com.epam.reportportal.auth.store.entity.ldap.SynchronizationState;
+import com.google.common.annotations.VisibleForTesting;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.ldap.CommunicationException;
+import org.springframework.ldap.control.PagedResultsDirContextProcessor;
+import org.springframework.ldap.control.SortControlDirContextProcessor;
+import org.springframework.ldap.core.AggregateDirContextProcessor;
+import org.springframework.ldap.core.ContextMapper;
+import org.springframework.ldap.core.DirContextOperations;
+import org.springframework.ldap.core.support.SingleContextSource;
+import org.springframework.ldap.filter.AndFilter;
+import org.springframework.ldap.filter.GreaterThanOrEqualsFilter;
+import org.springframework.ldap.filter.HardcodedFilter;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.ldap.DefaultSpringSecurityContextSource;
+import org.springframework.stereotype.Component;
+
+import javax.naming.directory.SearchControls;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static com.epam.ta.reportportal.commons.EntityUtils.normalizeId;
+import static com.google.common.base.Strings.isNullOrEmpty;
+import static java.util.Optional.ofNullable;
+
+/**
+ * Pulls changes of LDAP users into internal database in background. Directory is searched page by page
+ * for entries whose change marker ('modifyTimestamp' by default, 'uSNChanged' for AD-like directories)
+ * is not less than the greatest one seen by previous successful run, so only changed entries are read.
+ * Users are updated in batches using {@link SynchronizationAttributes} mapping. Entries are sorted by marker
+ * when directory supports it, so marker is stored in DB after each batch and interrupted run continues
+ * from the last one. Otherwise marker is stored once run completes. Markers are specific to server
+ * (e.g. 'uSNChanged'), so servers are tried one by one and each has own {@link SynchronizationState}.
+ * Runs on one node at a time holding {@link JobLock} renewed with each batch.
+ * Active Directory integration has no service account to search with, so only LDAP is synchronized
+ *
+ * @author Andrei Varabyeu
+ */
+@Component
+public class LdapSynchronizer {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LdapSynchronizer.class);
+
+    private static final String JOB = "ldapSynchronizer";
+
+    /* login attribute is the one compared with username in user search filter or DN pattern */
+    private static final Pattern LOGIN_ATTRIBUTE = Pattern.compile("([\\w-]+)\\s*=\\s*\\{0}");
+    private static final Pattern NUMBER = Pattern.compile("\\d+");
+    private static final Pattern GENERALIZED_TIME = Pattern.compile(
+            "(\\d{4})(\\d{2})(\\d{2})(\\d{2})(\\d{2})?(\\d{2})?(?:[.,](\\d+))?(Z|[+-]\\d{2}(?:\\d{2})?)?");
+
+    private final AuthConfigHolder authConfigHolder;
+    private final LdapUserReplicator ldapUserReplicator;
+    private final MongoOperations mongoOperations;
+    private final JobLock jobLock;
+    private final boolean enabled;
+    private final int pageSize;
+    private final int batchSize;
+    private final String markerAttribute;
+    private final boolean createUsers;
+    private final long lease;
+
+    private final AtomicLong synchronizedUsers = new AtomicLong();
+    private final AtomicLong runProcessed = new AtomicLong();
+    private final AtomicLong failedRuns = new AtomicLong();
+    private volatile long lastRunDuration;
+    private volatile long lastRunProcessed;
+    private volatile long lastSuccess;
+    private volatile boolean running;
+
+    /**
+     * @param pageSize        Amount of entries requested from directory at once
+     * @param batchSize       Amount of users updated in DB at once
+     * @param markerAttribute Operational attribute which grows with each change of entry
+     * @param createUsers     Whether users who have never logged in are replicated as well
+     * @param lease           Millis other nodes skip synchronization after the last batch of this one
+     */
+    @Autowired
+    public LdapSynchronizer(AuthConfigHolder authConfigHolder, LdapUserReplicator ldapUserReplicator,
+            MongoOperations mongoOperations, JobLock jobLock, @Value("${rp.auth.ldap.sync.enabled:false}") boolean enabled,
+            @Value("${rp.auth.ldap.sync.page-size:500}") int pageSize, @Value("${rp.auth.ldap.sync.batch-size:100}") int batchSize,
+            @Value("${rp.auth.ldap.sync.marker-attribute:modifyTimestamp}") String markerAttribute,
+            @Value("${rp.auth.ldap.sync.create-users:false}") boolean createUsers,
+            @Value("${rp.auth.ldap.sync.delay:300000}") long lease) {
+        this.authConfigHolder = authConfigHolder;
+        this.ldapUserReplicator = ldapUserReplicator;
+        this.mongoOperations = mongoOperations;
+        this.jobLock = jobLock;
+        this.enabled = enabled;
+        this.pageSize = pageSize;
+        this.batchSize = batchSize;
+        this.markerAttribute = markerAttribute;
+        this.createUsers = createUsers;
+        this.lease = lease;
+    }
+
+    @Scheduled(initialDelayString = "${rp.auth.ldap.sync.initial-delay:60000}", fixedDelayString = "${rp.auth.ldap.sync.delay:300000}")
+    public void synchronize() {
+        if (!enabled) {
+            return;
+        }
+        authConfigHolder.get().getLdap(true).filter(ldap -> null != ldap.getSynchronizationAttributes())
+                .filter(ldap -> jobLock.tryLock(JOB, lease)).ifPresent(ldap -> {
+            long started = System.currentTimeMillis();
+            running = true;
+            runProcessed.set(0);
+            try {
+                synchronize(ldap);
+                lastSuccess = started;
+            } catch (Exception e) {
+                failedRuns.incrementAndGet();
+                LOGGER.error("LDAP synchronization has failed. Changes will be pulled by next run", e);
+            } finally {
+                running = false;
+                lastRunProcessed = runProcessed.get();
+                lastRunDuration = System.currentTimeMillis() - started;
+            }
+        });
+    }
+
+    private void synchronize(LdapConfig ldap) {
+        UserSearch search = UserSearch.of(ldap).orElseThrow(
+                () -> new IllegalStateException("Neither user search filter nor user DN pattern refers to username"));
+        List<String> urls = new ArrayList<>();
+        urls.add(ldap.getUrl());
+        ofNullable(ldap.getFailoverUrls()).ifPresent(urls::addAll);
+
+        for (Iterator<String> it = urls.iterator(); it.hasNext(); ) {
+            String url = it.next();
+            try {
+                synchronize(ldap, url, search);
+                return;
+            } catch (CommunicationException e) {
+                if (!it.hasNext()) {
+                    throw e;
+                }
+                LOGGER.warn("LDAP server '{}' is unavailable. Synchronizing with the next one", url, e);
+            }
+        }
+    }
+
+    private void synchronize(LdapConfig ldap, String url, UserSearch search) {
+        SynchronizationAttributes attributes = ldap.getSynchronizationAttributes();
+        String directory = url + "/" + ldap.getBaseDn();
+        SynchronizationState state = ofNullable(mongoOperations.findById(directory, SynchronizationState.class)).orElseGet(() -> {
+            SynchronizationState initial = new SynchronizationState();
+            initial.setId(directory);
+            return initial;
+        });
+        Date started = new Date();
+
+        AndFilter filter = new AndFilter().and(new HardcodedFilter(search.filter));
+        ofNullable(state.getHighWaterMark()).ifPresent(mark -> filter.and(new GreaterThanOrEqualsFilter(markerAttribute, mark)));
+
+        SearchControls controls = new SearchControls();
+        controls.setSearchScope(SearchControls.SUBTREE_SCOPE);
+        controls.setReturningAttributes(Stream.of(search.loginAttribute, markerAttribute, attributes.getEmail(),
+                attributes.getFullName(), attributes.getPhoto()).filter(Objects::nonNull).distinct().toArray(String[]::new));
+
+        SingleContextSource.doWithSingleContext(contextSource(ldap, url), operations -> {
+            /* paged results are bound to connection, so all pages are read using single one */
+            PagedResultsDirContextProcessor pages = new PagedResultsDirContextProcessor(pageSize);
+            /* directory without sorting support returns entries as is */
+            SortControlDirContextProcessor sort = new SortControlDirContextProcessor(markerAttribute);
+            sort.setCritical(false);
+            AggregateDirContextProcessor processor = new AggregateDirContextProcessor();
+            processor.addDirContextProcessor(sort);
+            processor.addDirContextProcessor(pages);
+
+            Map<String, DirContextOperations> batch = new LinkedHashMap<>(batchSize);
+            do {
+                List<DirContextOperations> page = operations.search(search.base, filter.encode(), controls,
+                        (ContextMapper<DirContextOperations>) ctx -> (DirContextOperations) ctx, processor);
+                for (DirContextOperations entry : page) {
+                    String login = entry.getStringAttribute(search.loginAttribute);
+                    if (!isNullOrEmpty(login)) {
+                        batch.put(normalizeId(login), entry);
+                    }
+                    state.setHighWaterMark(max(state.getHighWaterMark(), entry.getStringAttribute(markerAttribute)));
+                    if (batch.size() >= batchSize) {
+                        flush(batch, attributes);
+                        /* entries with lower markers have been synchronized, so next run starts from here */
+                        if (sort.isSorted()) {
+                            mongoOperations.save(state);
+                        }
+                        if (!jobLock.tryLock(JOB, lease)) {
+                            throw new IllegalStateException("LDAP synchronization has been taken over by another node");
+                        }
+                    }
+                }
+            } while (pages.hasMore());
+            flush(batch, attributes);
+            return null;
+        });
+
+        state.setLastSuccess(started);
+        mongoOperations.save(state);
+    }
+
+    private void flush(Map<String, DirContextOperations> batch, SynchronizationAttributes attributes) {
+        if (!batch.isEmpty()) {
+            synchronizedUsers.addAndGet(ldapUserReplicator.synchronizeUsers(batch, attributes, createUsers));
+            runProcessed.addAndGet(batch.size());
+            batch.clear();
+        }
+    }
+
+    private static DefaultSpringSecurityContextSource contextSource(LdapConfig ldap, String url) {
+        DefaultSpringSecurityContextSource contextSource = new DefaultSpringSecurityContextSource(
+                Collections.singletonList(url), ldap.getBaseDn());
+        ofNullable(ldap.getManagerPassword()).ifPresent(contextSource::setPassword);
+        ofNullable(ldap.getManagerDn()).ifPresent(contextSource::setUserDn);
+        contextSource.setBaseEnvironmentProperties(DirectoryAuthProvider.timeouts(ldap));
+        contextSource.setPooled(false);
+        contextSource.afterPropertiesSet();
+        return contextSource;
+    }
+
+    /**
+     * Markers are either numbers or GeneralizedTime timestamps which may differ in precision and time zone
+     */
+    @VisibleForTesting
+    static String max(String mark, String candidate) {
+        if (null == mark) {
+            return candidate;
+        }
+        if (null == candidate) {
+            return mark;
+        }
+        return compareMarkers(mark, candidate) >= 0 ? mark : candidate;
+    }
+
+    private static int compareMarkers(String first, String second) {
+        if (NUMBER.matcher(first).matches() && NUMBER.matcher(second).matches()) {
+            return new BigInteger(first).compareTo(new BigInteger(second));
+        }
+        Optional<Instant> firstTime = generalizedTime(first);
+        Optional<Instant> secondTime = generalizedTime(second);
+        if (firstTime.isPresent() && secondTime.isPresent()) {
+            return firstTime.get().compareTo(secondTime.get());
+        }
+        return first.compareTo(second);
+    }
+
+    /**
+     * @param value Timestamp like '20180101115959.5Z'. Minutes, seconds, fraction and time zone are optional
+     */
+    private static Optional<Instant> generalizedTime(String value) {
+        Matcher matcher = GENERALIZED_TIME.matcher(value);
+        if (!matcher.matches()) {
+            return Optional.empty();
+        }
+        try {
+            LocalDateTime time = LocalDateTime.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)),
+                    Integer.parseInt(matcher.group(3)), Integer.parseInt(matcher.group(4)),
+                    ofNullable(matcher.group(5)).map(Integer::parseInt).orElse(0), ofNullable(matcher.group(6)).map(Integer::parseInt).orElse(0));
+            String zone = matcher.group(8);
+            Instant instant = time.toInstant(null == zone || "Z".equals(zone) ? ZoneOffset.UTC : ZoneOffset.of(zone));
+            if (null != matcher.group(7)) {
+                /* fraction belongs to the last unit present */
+                long unit = null != matcher.group(6) ? TimeUnit.SECONDS.toNanos(1) :
+                        null != matcher.group(5) ? TimeUnit.MINUTES.toNanos(1) : TimeUnit.HOURS.toNanos(1);
+                instant = instant.plusNanos(new BigDecimal("0." + matcher.group(7)).multiply(BigDecimal.valueOf(unit)).longValue());
+            }
+            return Optional.of(instant);
+        } catch (DateTimeException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * @return Amount of users updated or created since start
+     */
+    public long getSynchronizedUsers() {
+        return synchronizedUsers.get();
+    }
+
+    /**
+     * @return Amount of entries processed by current run or by last one if there is no run in progress
+     */
+    public long getProcessed() {
+        return running ? runProcessed.get() : lastRunProcessed;
+    }
+
+    /**
+     * @return Entries processed per second by last run
+     */
+    public double getThroughput() {
+        return 0 == lastRunDuration ? 0 : lastRunProcessed * 1000d / lastRunDuration;
+    }
+
+    /**
+     * @return Millis since start of last successful run, which is how much internal data may lag behind directory.
+     * -1 if there was no successful run yet
+     */
+    public long getLag() {
+        return 0 == lastSuccess ? -1 : System.currentTimeMillis() - lastSuccess;
+    }
+
+    /**
+     * @return Amount of failed runs since start
+     */
+    public long getFailedRuns() {
+        return failedRuns.get();
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Where and how to look for users. Derived from settings used by login
+     */
+    static class UserSearch {
+
+        private final String base;
+        private final String filter;
+        private final String loginAttribute;
+
+        private UserSearch(String base, String filter, String loginAttribute) {
+            this.base = base;
+            this.filter = filter;
+            this.loginAttribute = loginAttribute;
+        }
+
+        static Optional<UserSearch> of(LdapConfig ldap) {
+            if (!isNullOrEmpty(ldap.getUserSearchFilter())) {
+                return loginAttribute(ldap.getUserSearchFilter()).map(
+                        attribute -> new UserSearch("", ldap.getUserSearchFilter().replace("{0}", "*"), attribute));
+            }
+            if (!isNullOrEmpty(ldap.getUserDnPattern())) {
+                String pattern = ldap.getUserDnPattern();
+                int comma = pattern.indexOf(',');
+                return loginAttribute(pattern).map(
+                        attribute -> new UserSearch(comma < 0 ? "" : pattern.substring(comma + 1), "(" + attribute + "=*)", attribute));
+            }
+            return Optional.empty();
+        }
+
+        private static Optional<String> loginAttribute(String expression) {
+            Matcher matcher = LOGIN_ATTRIBUTE.matcher(expression);
+            return matcher.find() ? Optional.of(matcher.group(1)) : Optional.empty();
+        }
+
+        String getBase() {
+            return base;
+        }
+
+        String getFilter() {
+            return filter;
+        }
+
+        String getLoginAttribute() {
+            return loginAttribute;
+        }
+    }
+}
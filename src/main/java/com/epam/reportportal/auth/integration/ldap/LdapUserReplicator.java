@@ -21,6 +21,7 @@
 package com.epam.reportportal.auth.integration.ldap;
 
 import com.epam.reportportal.auth.integration.AbstractUserReplicator;
+import com.epam.reportportal.auth.integration.ReplicationQueue;
 import com.epam.reportportal.auth.oauth.UserSynchronizationException;
 import com.epam.reportportal.auth.store.entity.ldap.SynchronizationAttributes;
 import com.epam.ta.reportportal.database.DataStorage;
@@ -30,26 +31,50 @@ import com.epam.ta.reportportal.database.entity.user.User;
 import com.epam.ta.reportportal.database.entity.user.UserRole;
 import com.epam.ta.reportportal.database.entity.user.UserType;
 import com.epam.ta.reportportal.database.personal.PersonalProjectService;
+import com.google.common.hash.Hashing;
+import com.mongodb.DBObject;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.ldap.core.DirContextOperations;
 import org.springframework.stereotype.Component;
 
+import java.util.Date;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
 import static com.epam.ta.reportportal.commons.EntityUtils.normalizeId;
 import static com.google.common.base.Strings.isNullOrEmpty;
 import static java.util.Optional.ofNullable;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
 
 /**
- * LDAP replicator
+ * LDAP replicator. Only user record and personal project are created during login,
+ * photo is uploaded afterwards by {@link ReplicationQueue}
  *
  * @author Andrei Varabyeu
  */
 @Component
 public class LdapUserReplicator extends AbstractUserReplicator {
 
+    /**
+     * Hash of directory photo the user's photo has been uploaded from. Not mapped by entity
+     */
+    static final String PHOTO_HASH = "photoHash";
+
+    private final MongoOperations mongoOperations;
+    private final ReplicationQueue replicationQueue;
+
     @Autowired
     public LdapUserReplicator(UserRepository userRepository, ProjectRepository projectRepository,
-                              PersonalProjectService personalProjectService, DataStorage dataStorage) {
+                              PersonalProjectService personalProjectService, DataStorage dataStorage,
+                              MongoOperations mongoOperations, ReplicationQueue replicationQueue) {
         super(userRepository, projectRepository, personalProjectService, dataStorage);
+        this.mongoOperations = mongoOperations;
+        this.replicationQueue = replicationQueue;
     }
 
     /**
@@ -73,16 +98,7 @@ public class LdapUserReplicator extends AbstractUserReplicator {
             User newUser = new User();
             newUser.setLogin(login);
 
-            ofNullable(attributes.getFullName())
-                    .flatMap(it -> ofNullable(ctx.getStringAttribute(it)))
-                    .ifPresent(newUser::setFullName);
-
-            ofNullable(attributes.getPhoto())
-                    .flatMap(it -> ofNullable(ctx.getObjectAttribute(it)))
-                    .filter(photo -> photo instanceof byte[])
-                    .map(photo -> (byte[]) photo)
-                    .ifPresent(photo -> newUser.setPhotoId(uploadPhoto(login, photo)));
-
+            fullName(ctx, attributes).ifPresent(newUser::setFullName);
 
             checkEmail(email);
             newUser.setEmail(email);
@@ -96,6 +112,9 @@ public class LdapUserReplicator extends AbstractUserReplicator {
             userRepository.save(newUser);
             user = newUser;
 
+            photo(ctx, attributes).ifPresent(
+                    photo -> replicationQueue.submit("photo of '" + login + "'", new PhotoReplication(login, photo, null)));
+
         } else if (!UserType.LDAP.equals(user.getType())) {
             //if user with such login exists, but it's not GitHub user than throw an exception
             throw new UserSynchronizationException("User with login '" + user.getId() + "' already exists");
@@ -103,4 +122,100 @@ public class LdapUserReplicator extends AbstractUserReplicator {
         return user;
     }
 
+    /**
+     * Updates name and photo of existing LDAP users with one bulk operation. Users of other types are skipped.
+     * Photo is uploaded only if it differs from the one uploaded before
+     *
+     * @param entries     Directory entries mapped by normalized login
+     * @param attributes  Synchronization Attributes
+     * @param createUsers Whether users who have never logged in are replicated as well
+     * @return Amount of updated and created users
+     */
+    public int synchronizeUsers(Map<String, DirContextOperations> entries, SynchronizationAttributes attributes, boolean createUsers) {
+        /* raw documents, so hash of photo which is not mapped by entity is read along with users */
+        Map<String, DBObject> existing = mongoOperations.find(query(where("_id").in(entries.keySet())), DBObject.class,
+                mongoOperations.getCollectionName(User.class)).stream().collect(Collectors.toMap(it -> (String) it.get("_id"), it -> it));
+
+        BulkOperations bulk = mongoOperations.bulkOps(BulkOperations.BulkMode.UNORDERED, User.class);
+        Date now = new Date();
+        int updated = 0;
+        int created = 0;
+        for (Map.Entry<String, DirContextOperations> entry : entries.entrySet()) {
+            String login = entry.getKey();
+            DirContextOperations ctx = entry.getValue();
+            DBObject document = existing.get(login);
+            User user = null == document ? null : mongoOperations.getConverter().read(User.class, document);
+            if (null == user) {
+                if (createUsers) {
+                    try {
+                        replicateUser(login, ctx, attributes);
+                        created++;
+                    } catch (UserSynchronizationException e) {
+                        LOGGER.warn("Unable to replicate LDAP user '{}': {}", login, e.getMessage());
+                    }
+                }
+            } else if (UserType.LDAP.equals(user.getType())) {
+                Update update = Update.update("metaInfo.synchronizationDate", now);
+                fullName(ctx, attributes).ifPresent(fullName -> update.set("fullName", fullName));
+                bulk.updateOne(query(where("_id").is(login)), update);
+                updated++;
+
+                photo(ctx, attributes).map(photo -> new PhotoReplication(login, photo, user.getPhotoId()))
+                        .filter(replication -> !replication.hash.equals(document.get(PHOTO_HASH)))
+                        .ifPresent(replication -> replicationQueue.submit("photo of '" + login + "'", replication));
+            }
+        }
+        if (updated > 0) {
+            bulk.execute();
+        }
+        return updated + created;
+    }
+
+    private static Optional<String> fullName(DirContextOperations ctx, SynchronizationAttributes attributes) {
+        return ofNullable(attributes.getFullName()).flatMap(it -> ofNullable(ctx.getStringAttribute(it)));
+    }
+
+    private static Optional<byte[]> photo(DirContextOperations ctx, SynchronizationAttributes attributes) {
+        return ofNullable(attributes.getPhoto())
+                .flatMap(it -> ofNullable(ctx.getObjectAttribute(it)))
+                .filter(photo -> photo instanceof byte[])
+                .map(photo -> (byte[]) photo);
+    }
+
+    /**
+     * Uploads photo, links it to the user and removes previous one. Photo is uploaded once even if linking has to be repeated.
+     * Photo is linked only if the user still has the previous one, so concurrent replications don't remove the same photo
+     * twice. The one which has lost removes its own upload
+     */
+    private class PhotoReplication implements Runnable {
+
+        private final String login;
+        private final byte[] photo;
+        private final String hash;
+        private final String previousPhotoId;
+        private volatile String photoId;
+        private volatile Boolean linked;
+
+        PhotoReplication(String login, byte[] photo, String previousPhotoId) {
+            this.login = login;
+            this.photo = photo;
+            this.hash = Hashing.sha256().hashBytes(photo).toString();
+            this.previousPhotoId = previousPhotoId;
+        }
+
+        @Override
+        public void run() {
+            if (null == photoId) {
+                photoId = uploadPhoto(login, photo);
+            }
+            if (null == linked) {
+                linked = mongoOperations.updateFirst(query(where("_id").is(login).and("photoId").is(previousPhotoId)),
+                        Update.update("photoId", photoId).set(PHOTO_HASH, hash), User.class).getN() > 0;
+            }
+            String obsolete = linked ? previousPhotoId : photoId;
+            if (null != obsolete) {
+                dataStorage.deleteData(obsolete);
+            }
+        }
+    }
 }
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2018 EPAM Systems
+ *
+ *
+ * This file is part of EPAM Report Portal.
+ * https://github.com/reportportal/service-authorization
+ *
+ * Report Portal is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Report Portal is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Report Portal.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.epam.reportportal.auth.integration.ldap;
+
+import com.epam.reportportal.auth.store.entity.ldap.ConnectionPoolConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ldap.core.DistinguishedName;
+import org.springframework.ldap.core.support.BaseLdapPathContextSource;
+import org.springframework.ldap.pool2.factory.PoolConfig;
+import org.springframework.ldap.pool2.factory.PooledContextSource;
+import org.springframework.ldap.pool2.validation.DefaultDirContextValidator;
+import org.springframework.security.ldap.DefaultSpringSecurityContextSource;
+
+import javax.naming.directory.DirContext;
+import javax.naming.ldap.LdapName;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.util.Optional.ofNullable;
+
+/**
+ * Context source which takes connections for searches performed with manager's credentials from pool.
+ * Connections for user binds are not pooled since they are authenticated as a particular user
+ *
+ * @author Andrei Varabyeu
+ */
+public class PooledLdapContextSource implements BaseLdapPathContextSource, AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PooledLdapContextSource.class);
+
+    private final DefaultSpringSecurityContextSource target;
+    private final PooledContextSource pool;
+
+    private final AtomicLong borrowed = new AtomicLong();
+    private final AtomicLong binds = new AtomicLong();
+
+    /**
+     * @param target Context source connections are opened with. JNDI pooling is expected to be disabled
+     * @param config Pool settings
+     */
+    PooledLdapContextSource(DefaultSpringSecurityContextSource target, ConnectionPoolConfig config) {
+        this.target = target;
+
+        PoolConfig poolConfig = new PoolConfig();
+        ofNullable(config.getMinIdle()).ifPresent(poolConfig::setMinIdlePerKey);
+        ofNullable(config.getMaxIdle()).ifPresent(poolConfig::setMaxIdlePerKey);
+        ofNullable(config.getMaxActive()).ifPresent(poolConfig::setMaxTotalPerKey);
+        ofNullable(config.getMaxWait()).ifPresent(poolConfig::setMaxWaitMillis);
+        ofNullable(config.getTestOnBorrow()).ifPresent(poolConfig::setTestOnBorrow);
+        ofNullable(config.getTestWhileIdle()).ifPresent(poolConfig::setTestWhileIdle);
+        ofNullable(config.getTimeBetweenEvictionRuns()).ifPresent(poolConfig::setTimeBetweenEvictionRunsMillis);
+        ofNullable(config.getMinEvictableIdleTime()).ifPresent(poolConfig::setMinEvictableIdleTimeMillis);
+
+        this.pool = new PooledContextSource(poolConfig);
+        this.pool.setContextSource(target);
+        this.pool.setDirContextValidator(new DefaultDirContextValidator());
+    }
+
+    @Override
+    public DirContext getReadOnlyContext() {
+        borrowed.incrementAndGet();
+        return pool.getReadOnlyContext();
+    }
+
+    @Override
+    public DirContext getReadWriteContext() {
+        borrowed.incrementAndGet();
+        return pool.getReadWriteContext();
+    }
+
+    @Override
+    public DirContext getContext(String principal, String credentials) {
+        binds.incrementAndGet();
+        return target.getContext(principal, credentials);
+    }
+
+    @Override
+    public DistinguishedName getBaseLdapPath() {
+        return target.getBaseLdapPath();
+    }
+
+    @Override
+    public LdapName getBaseLdapName() {
+        return target.getBaseLdapName();
+    }
+
+    @Override
+    public String getBaseLdapPathAsString() {
+        return target.getBaseLdapPathAsString();
+    }
+
+    /**
+     * @return Amount of pooled connections currently in use
+     */
+    public int getNumActive() {
+        return pool.getNumActive();
+    }
+
+    /**
+     * @return Amount of pooled connections waiting to be used
+     */
+    public int getNumIdle() {
+        return pool.getNumIdle();
+    }
+
+    /**
+     * @return Amount of times connection has been taken from pool
+     */
+    public long getBorrowed() {
+        return borrowed.get();
+    }
+
+    /**
+     * @return Amount of connections opened for user binds
+     */
+    public long getBinds() {
+        return binds.get();
+    }
+
+    /**
+     * Closes idle connections. Connections in use are closed once they are returned
+     */
+    @Override
+    public void close() {
+        try {
+            pool.destroy();
+        } catch (Exception e) {
+            LOGGER.warn("Unable to close LDAP connections pool", e);
+        }
+    }
+}
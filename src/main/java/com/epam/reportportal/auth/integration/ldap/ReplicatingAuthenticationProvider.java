@@ -0,0 +1,72 @@
+/*
+ * Copyright 2018 EPAM Systems
+ *
+ *
+ * This file is part of EPAM Report Portal.
+ * https://github.com/reportportal/service-authorization
+ *
+ * Report Portal is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Report Portal is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Report Portal.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.epam.reportportal.auth.integration.ldap;
+
+import com.epam.reportportal.auth.AuthUtils;
+import com.epam.reportportal.auth.store.entity.ldap.SynchronizationAttributes;
+import com.epam.ta.reportportal.database.entity.user.User;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.userdetails.UserDetails;
+
+/**
+ * Replicates user found by delegate, see {@link DetailsContextMapper}. Performed once directory has
+ * responded, so DB errors are not taken for directory ones and losing hedged requests replicate nothing
+ *
+ * @author Andrei Varabyeu
+ */
+class ReplicatingAuthenticationProvider implements AuthenticationProvider {
+
+    private final AuthenticationProvider delegate;
+    private final LdapUserReplicator ldapUserReplicator;
+    private final SynchronizationAttributes attributes;
+
+    ReplicatingAuthenticationProvider(AuthenticationProvider delegate, LdapUserReplicator ldapUserReplicator,
+            SynchronizationAttributes attributes) {
+        this.delegate = delegate;
+        this.ldapUserReplicator = ldapUserReplicator;
+        this.attributes = attributes;
+    }
+
+    @Override
+    public Authentication authenticate(Authentication authentication) throws AuthenticationException {
+        Authentication result = delegate.authenticate(authentication);
+        if (null == result || !(result.getPrincipal() instanceof DetailsContextMapper.DirectoryEntry)) {
+            return result;
+        }
+        DetailsContextMapper.DirectoryEntry entry = (DetailsContextMapper.DirectoryEntry) result.getPrincipal();
+        User user = ldapUserReplicator.replicateUser(entry.getUsername(), entry.getContext(), attributes);
+
+        UserDetails userDetails = new org.springframework.security.core.userdetails.User(user.getId(), "", true, true, true, true,
+                AuthUtils.AS_AUTHORITIES.apply(user.getRole()));
+        UsernamePasswordAuthenticationToken replicated = new UsernamePasswordAuthenticationToken(userDetails, result.getCredentials(),
+                userDetails.getAuthorities());
+        replicated.setDetails(result.getDetails());
+        return replicated;
+    }
+
+    @Override
+    public boolean supports(Class<?> authentication) {
+        return delegate.supports(authentication);
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2018 EPAM Systems
+ *
+ *
+ * This file is part of EPAM Report Portal.
+ * https://github.com/reportportal/service-authorization
+ *
+ * Report Portal is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Report Portal is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Report Portal.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.epam.reportportal.auth.integration.ldap;
+
+import com.epam.reportportal.auth.event.AuthConfigChangedEvent;
+import com.epam.reportportal.auth.integration.AuthIntegrationType;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationListener;
+import org.springframework.ldap.core.DirContextAdapter;
+import org.springframework.ldap.core.DirContextOperations;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.ldap.search.LdapUserSearch;
+import org.springframework.stereotype.Component;
+
+import javax.naming.Name;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.epam.ta.reportportal.commons.EntityUtils.normalizeId;
+
+/**
+ * Remembers DNs found by user search, so login of known user binds right away
+ * without searching as manager first. Only DN is kept: attributes are read by bind
+ * connection. DN is dropped once bind with it fails and all DNs are dropped when LDAP
+ * settings change
+ *
+ * @author Andrei Varabyeu
+ */
+@Component
+public class UserDnCache implements ApplicationListener<AuthConfigChangedEvent> {
+
+    private final boolean enabled;
+    private final Cache<String, Name> cache;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * @param enabled Whether DNs are cached
+     * @param ttl     Seconds DN is remembered
+     * @param size    Max amount of remembered DNs
+     */
+    @Autowired
+    public UserDnCache(@Value("${rp.auth.ldap.dn-cache.enabled:true}") boolean enabled,
+            @Value("${rp.auth.ldap.dn-cache.ttl:600}") long ttl, @Value("${rp.auth.ldap.dn-cache.size:10000}") long size) {
+        this.enabled = enabled;
+        this.cache = CacheBuilder.newBuilder().maximumSize(size).expireAfterWrite(ttl, TimeUnit.SECONDS).build();
+    }
+
+    /**
+     * @return Cache which doesn't remember anything
+     */
+    static UserDnCache disabled() {
+        return new UserDnCache(false, 0, 0);
+    }
+
+    /**
+     * Suitable for bind authentication only: entry of known user has DN but no attributes
+     *
+     * @param delegate Search performed by manager
+     * @return Search which asks delegate only about unknown users if cache is enabled, delegate itself otherwise
+     */
+    LdapUserSearch wrap(LdapUserSearch delegate) {
+        if (!enabled) {
+            return delegate;
+        }
+        return username -> {
+            String key = normalizeId(username);
+            Name dn = cache.getIfPresent(key);
+            if (null != dn) {
+                hits.incrementAndGet();
+                return new DirContextAdapter(dn);
+            }
+            misses.incrementAndGet();
+            DirContextOperations user = delegate.searchForUser(username);
+            cache.put(key, user.getDn());
+            return user;
+        };
+    }
+
+    /**
+     * @param delegate Provider binding with DNs returned by {@link #wrap(LdapUserSearch)}
+     * @return Provider dropping DN of user once delegate rejects the user
+     */
+    AuthenticationProvider invalidateOnFailure(AuthenticationProvider delegate) {
+        if (!enabled) {
+            return delegate;
+        }
+        return new AuthenticationProvider() {
+            @Override
+            public Authentication authenticate(Authentication authentication) {
+                try {
+                    return delegate.authenticate(authentication);
+                } catch (BadCredentialsException e) {
+                    cache.invalidate(normalizeId(authentication.getName()));
+                    throw e;
+                }
+            }
+
+            @Override
+            public boolean supports(Class<?> authentication) {
+                return delegate.supports(authentication);
+            }
+        };
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void onApplicationEvent(AuthConfigChangedEvent event) {
+        if (AuthIntegrationType.LDAP.equals(event.getType())) {
+            cache.invalidateAll();
+        }
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * @return Share of searches served from cache or 0 if there were no searches yet
+     */
+    public double getHitRatio() {
+        long h = hits.get();
+        long total = h + misses.get();
+        return 0 == total ? 0 : (double) h / total;
+    }
+
+    public long size() {
+        return cache.size();
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright 2018 EPAM Systems
+ *
+ *
+ * This file is part of EPAM Report Portal.
+ * https://github.com/reportportal/service-authorization
+ *
+ * Report Portal is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Report Portal is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Report Portal.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.epam.reportportal.auth.integration.ldap;
+
+import com.epam.reportportal.auth.event.AuthConfigChangedEvent;
+import com.epam.reportportal.auth.integration.AuthIntegrationType;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationListener;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.crypto.keygen.KeyGenerators;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.epam.ta.reportportal.commons.EntityUtils.normalizeId;
+
+/**
+ * Remembers successful directory logins for a short time, so repeated logins of the same user
+ * skip directory bind and replication. Only salted slow hash of password is kept. Entry is dropped
+ * once directory rejects the user, integration settings change or user is revoked
+ *
+ * @author Andrei Varabyeu
+ */
+@Component
+public class VerifiedCredentialsCache implements ApplicationListener<AuthConfigChangedEvent> {
+
+    private final boolean enabled;
+    private final Cache<String, VerifiedCredentials> cache;
+    private final Pbkdf2PasswordEncoder passwordEncoder;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * @param enabled    Whether logins are cached
+     * @param ttl        Seconds login is remembered
+     * @param size       Max amount of remembered logins
+     * @param iterations Iterations of password hashing
+     */
+    @Autowired
+    public VerifiedCredentialsCache(@Value("${rp.auth.ldap.credentials-cache.enabled:false}") boolean enabled,
+            @Value("${rp.auth.ldap.credentials-cache.ttl:300}") long ttl, @Value("${rp.auth.ldap.credentials-cache.size:10000}") long size,
+            @Value("${rp.auth.ldap.credentials-cache.iterations:10000}") int iterations) {
+        this.enabled = enabled;
+        this.cache = CacheBuilder.newBuilder().maximumSize(size).expireAfterWrite(ttl, TimeUnit.SECONDS).build();
+        /* secret is generated per node. Hashes are useless outside of this process */
+        this.passwordEncoder = new Pbkdf2PasswordEncoder(KeyGenerators.string().generateKey(), iterations, 256);
+    }
+
+    /**
+     * @return Cache which doesn't remember anything
+     */
+    static VerifiedCredentialsCache disabled() {
+        return new VerifiedCredentialsCache(false, 0, 0, 1);
+    }
+
+    /**
+     * @param type     Integration delegate belongs to
+     * @param delegate Provider authenticating against directory
+     * @return Provider remembering logins of delegate if cache is enabled, delegate itself otherwise
+     */
+    AuthenticationProvider wrap(AuthIntegrationType type, AuthenticationProvider delegate) {
+        if (!enabled) {
+            return delegate;
+        }
+        return new AuthenticationProvider() {
+            @Override
+            public Authentication authenticate(Authentication authentication) {
+                return VerifiedCredentialsCache.this.authenticate(type, authentication, delegate);
+            }
+
+            @Override
+            public boolean supports(Class<?> authentication) {
+                return delegate.supports(authentication);
+            }
+        };
+    }
+
+    /**
+     * Authenticates with remembered credentials if password matches, otherwise asks delegate
+     *
+     * @param type           Integration delegate belongs to
+     * @param authentication Authentication request
+     * @param delegate       Provider authenticating against directory
+     * @return Authentication result
+     */
+    Authentication authenticate(AuthIntegrationType type, Authentication authentication, AuthenticationProvider delegate) {
+        if (!enabled || !(authentication.getCredentials() instanceof String)) {
+            return delegate.authenticate(authentication);
+        }
+        String key = key(type, authentication.getName());
+        String password = (String) authentication.getCredentials();
+
+        VerifiedCredentials verified = cache.getIfPresent(key);
+        if (null != verified && passwordEncoder.matches(password, verified.password)) {
+            hits.incrementAndGet();
+            return withoutCredentials(verified.authentication);
+        }
+
+        misses.incrementAndGet();
+        try {
+            Authentication result = delegate.authenticate(authentication);
+            if (null != result) {
+                cache.put(key, new VerifiedCredentials(passwordEncoder.encode(password), withoutCredentials(result)));
+            }
+            return result;
+        } catch (BadCredentialsException e) {
+            cache.invalidate(key);
+            throw e;
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Forgets logins of users
+     *
+     * @param users Logins of users
+     */
+    public void invalidateUsers(Collection<String> users) {
+        users.forEach(user -> Arrays.stream(AuthIntegrationType.values()).forEach(type -> cache.invalidate(key(type, user))));
+    }
+
+    @Override
+    public void onApplicationEvent(AuthConfigChangedEvent event) {
+        String prefix = event.getType().getId() + ":";
+        cache.asMap().keySet().removeIf(key -> key.startsWith(prefix));
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long size() {
+        return cache.size();
+    }
+
+    /**
+     * Copy of authentication result. Credentials are not kept and each caller gets own instance
+     */
+    private static Authentication withoutCredentials(Authentication authentication) {
+        UsernamePasswordAuthenticationToken copy = new UsernamePasswordAuthenticationToken(authentication.getPrincipal(), null,
+                authentication.getAuthorities());
+        copy.setDetails(authentication.getDetails());
+        return copy;
+    }
+
+    private static String key(AuthIntegrationType type, String user) {
+        return type.getId() + ":" + normalizeId(user);
+    }
+
+    private static class VerifiedCredentials {
+        private final String password;
+        private final Authentication authentication;
+
+        VerifiedCredentials(String password, Authentication authentication) {
+            this.password = password;
+            this.authentication = authentication;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2018 EPAM Systems
+ *
+ *
+ * This file is part of EPAM Report Portal.
+ * https://github.com/reportportal/service-authorization
+ *
+ * Report Portal is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Report Portal is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Report Portal.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.epam.reportportal.auth.store;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import org.springframework.security.oauth2.common.OAuth2AccessToken;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-process near-cache of decoded access tokens. Keeps {@link OAuth2AccessToken} together with
+ * its {@link OAuth2Authentication} so authenticated requests do not hit the database and
+ * de-serialize token blobs each time.
+ * <p>
+ * Cache is local to the node, so entries removed on another instance stay visible here
+ * until TTL expires. Keep TTL short.
+ *
+ * @author Andrei Varabyeu
+ */
+public class AccessTokenCache {
+
+    private final Cache<String, CachedToken> cache;
+
+    /**
+     * @param maxSize    Maximum amount of cached tokens. Zero disables caching
+     * @param ttlSeconds Time to live of cached token in seconds
+     */
+    public AccessTokenCache(long maxSize, long ttlSeconds) {
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * @param tokenValue Value of access token
+     * @return Cached token or NULL if there is no such token in cache
+     */
+    public CachedToken get(String tokenValue) {
+        return cache.getIfPresent(tokenValue);
+    }
+
+    public void put(String tokenValue, CachedToken token) {
+        cache.put(tokenValue, token);
+    }
+
+    public void invalidate(String tokenValue) {
+        cache.invalidate(tokenValue);
+    }
+
+    public void invalidateAll(Collection<String> tokenValues) {
+        cache.invalidateAll(tokenValues);
+    }
+
+    public long size() {
+        return cache.size();
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    /**
+     * Decoded access token and authentication it has been issued for
+     */
+    public static class CachedToken {
+
+        private final OAuth2AccessToken accessToken;
+        private final OAuth2Authentication authentication;
+
+        public CachedToken(OAuth2AccessToken accessToken, OAuth2Authentication authentication) {
+            this.accessToken = accessToken;
+            this.authentication = authentication;
+        }
+
+        public OAuth2AccessToken getAccessToken() {
+            return accessToken;
+        }
+
+        public OAuth2Authentication getAuthentication() {
+            return authentication;
+        }
+    }
+}
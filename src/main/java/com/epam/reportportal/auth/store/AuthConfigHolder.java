@@ -0,0 +1,175 @@
+/*
+ * Copyright 2018 EPAM Systems
+ *
+ *
+ * This file is part of EPAM Report Portal.
+ * https://github.com/reportportal/service-authorization
+ *
+ * Report Portal is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Report Portal is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Report Portal.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.epam.reportportal.auth.store;
+
+import com.epam.reportportal.auth.event.AuthConfigChangedEvent;
+import com.epam.reportportal.auth.event.OAuthConfigChangedEvent;
+import com.epam.reportportal.auth.integration.AuthIntegrationType;
+import com.epam.reportportal.auth.store.entity.AuthConfigEntity;
+import com.epam.ta.reportportal.database.entity.settings.OAuth2LoginDetails;
+import com.epam.ta.reportportal.database.entity.settings.ServerSettings;
+import com.mongodb.DBObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import static java.util.Optional.ofNullable;
+
+/**
+ * Keeps {@link AuthConfigSnapshot} of auth integrations and OAuth settings, so logins don't
+ * query DB for settings. Snapshot is reloaded right after settings are changed through endpoints
+ * of this node. Changes made by other nodes are noticed by polling: raw settings documents are
+ * compared with ones snapshot has been built from, and entities are mapped again only if they
+ * differ. {@link AuthConfigChangedEvent} and {@link OAuthConfigChangedEvent} are published for each
+ * integration and OAuth provider which settings changed
+ *
+ * @author Andrei Varabyeu
+ */
+@Component
+public class AuthConfigHolder {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AuthConfigHolder.class);
+
+    private final MongoOperations mongoOperations;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private volatile Loaded loaded;
+
+    @Autowired
+    public AuthConfigHolder(MongoOperations mongoOperations, ApplicationEventPublisher eventPublisher) {
+        this.mongoOperations = mongoOperations;
+        this.eventPublisher = eventPublisher;
+        this.loaded = load(0, readAuthConfig(), readServerSettings());
+    }
+
+    /**
+     * @return Current settings. Doesn't query DB
+     */
+    public AuthConfigSnapshot get() {
+        return loaded.snapshot;
+    }
+
+    /**
+     * Reloads settings if they differ from current snapshot
+     *
+     * @return Current settings
+     */
+    public synchronized AuthConfigSnapshot refresh() {
+        Loaded previous = loaded;
+        DBObject authConfig = readAuthConfig();
+        DBObject serverSettings = readServerSettings();
+        if (Objects.equals(previous.authConfig, authConfig) && Objects.equals(previous.serverSettings, serverSettings)) {
+            return previous.snapshot;
+        }
+
+        Loaded current = load(previous.snapshot.getVersion() + 1, authConfig, serverSettings);
+        loaded = current;
+        for (AuthIntegrationType type : AuthIntegrationType.values()) {
+            if (!Objects.equals(field(previous.authConfig, type.getDbField()), field(authConfig, type.getDbField()))) {
+                eventPublisher.publishEvent(new AuthConfigChangedEvent(type));
+            }
+        }
+
+        Map<String, OAuth2LoginDetails> previousDetails = previous.snapshot.getOAuth2LoginDetails();
+        Map<String, OAuth2LoginDetails> currentDetails = current.snapshot.getOAuth2LoginDetails();
+        Set<String> providers = new HashSet<>(previousDetails.keySet());
+        providers.addAll(currentDetails.keySet());
+        for (String provider : providers) {
+            if (!Objects.equals(toDbObject(previousDetails.get(provider)), toDbObject(currentDetails.get(provider)))) {
+                eventPublisher.publishEvent(new OAuthConfigChangedEvent(provider));
+            }
+        }
+        return current.snapshot;
+    }
+
+    /**
+     * Picks up changes made by other nodes
+     */
+    @Scheduled(fixedDelayString = "${rp.auth.config.poll:10000}")
+    public void poll() {
+        try {
+            refresh();
+        } catch (Exception e) {
+            LOGGER.error("Cannot reload auth settings. Previous ones are kept", e);
+        }
+    }
+
+    /**
+     * Maps entities through {@link MongoOperations} and not from raw documents, so load listeners
+     * (e.g. decryption of secrets) are applied
+     */
+    private Loaded load(long version, DBObject authConfig, DBObject serverSettings) {
+        AuthConfigEntity entity = null == authConfig ?
+                null :
+                mongoOperations.findById(AuthConfigRepository.DEFAULT_PROFILE, AuthConfigEntity.class);
+        ServerSettings settings = null == serverSettings ?
+                null :
+                mongoOperations.findById(AuthConfigRepository.DEFAULT_PROFILE, ServerSettings.class);
+        AuthConfigSnapshot snapshot = new AuthConfigSnapshot(version, entity,
+                ofNullable(settings).map(ServerSettings::getoAuth2LoginDetails).orElse(null));
+        return new Loaded(snapshot, authConfig, serverSettings);
+    }
+
+    private DBObject readAuthConfig() {
+        return mongoOperations.findById(AuthConfigRepository.DEFAULT_PROFILE, DBObject.class,
+                mongoOperations.getCollectionName(AuthConfigEntity.class));
+    }
+
+    private DBObject readServerSettings() {
+        return mongoOperations.findById(AuthConfigRepository.DEFAULT_PROFILE, DBObject.class,
+                mongoOperations.getCollectionName(ServerSettings.class));
+    }
+
+    /**
+     * Details entity doesn't define equality, so it's compared in the way it's stored
+     */
+    private Object toDbObject(OAuth2LoginDetails details) {
+        return null == details ? null : mongoOperations.getConverter().convertToMongoType(details);
+    }
+
+    private static Object field(DBObject dbo, String field) {
+        return ofNullable(dbo).map(it -> it.get(field)).orElse(null);
+    }
+
+    /**
+     * Snapshot along with documents it has been built from
+     */
+    private static class Loaded {
+        private final AuthConfigSnapshot snapshot;
+        private final DBObject authConfig;
+        private final DBObject serverSettings;
+
+        Loaded(AuthConfigSnapshot snapshot, DBObject authConfig, DBObject serverSettings) {
+            this.snapshot = snapshot;
+            this.authConfig = authConfig;
+            this.serverSettings = serverSettings;
+        }
+    }
+}
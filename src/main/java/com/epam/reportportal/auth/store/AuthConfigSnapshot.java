@@ -0,0 +1,93 @@
+/*
+ * Copyright 2018 EPAM Systems
+ *
+ *
+ * This file is part of EPAM Report Portal.
+ * https://github.com/reportportal/service-authorization
+ *
+ * Report Portal is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Report Portal is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Report Portal.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.epam.reportportal.auth.store;
+
+import com.epam.reportportal.auth.store.entity.AuthConfigEntity;
+import com.epam.reportportal.auth.store.entity.ldap.ActiveDirectoryConfig;
+import com.epam.reportportal.auth.store.entity.ldap.LdapConfig;
+import com.epam.ta.reportportal.database.entity.settings.OAuth2LoginDetails;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import static java.util.Optional.ofNullable;
+
+/**
+ * Auth settings loaded at some point of time. Snapshot is never changed once built:
+ * new settings make new snapshot with greater version. Settings objects are shared
+ * between threads, so they must not be modified by callers
+ *
+ * @author Andrei Varabyeu
+ */
+public final class AuthConfigSnapshot {
+
+    private final long version;
+    private final AuthConfigEntity authConfig;
+    private final Map<String, OAuth2LoginDetails> oAuth2LoginDetails;
+
+    public AuthConfigSnapshot(long version, AuthConfigEntity authConfig, Map<String, OAuth2LoginDetails> oAuth2LoginDetails) {
+        this.version = version;
+        this.authConfig = null == authConfig ? new AuthConfigEntity() : authConfig;
+        this.oAuth2LoginDetails = null == oAuth2LoginDetails ?
+                Collections.emptyMap() :
+                Collections.unmodifiableMap(new HashMap<>(oAuth2LoginDetails));
+    }
+
+    /**
+     * @return Number of snapshot. Grows with each change of settings
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * @param enabled Expected state of integration
+     * @return LDAP settings if integration is in expected state
+     */
+    public Optional<LdapConfig> getLdap(boolean enabled) {
+        return ofNullable(authConfig.getLdap()).filter(it -> enabled == Boolean.TRUE.equals(it.isEnabled()));
+    }
+
+    /**
+     * @param enabled Expected state of integration
+     * @return Active Directory settings if integration is in expected state
+     */
+    public Optional<ActiveDirectoryConfig> getActiveDirectory(boolean enabled) {
+        return ofNullable(authConfig.getActiveDirectory()).filter(it -> enabled == Boolean.TRUE.equals(it.isEnabled()));
+    }
+
+    /**
+     * @param name Name of OAuth provider
+     * @return Details of provider if configured
+     */
+    public Optional<OAuth2LoginDetails> getOAuth2LoginDetails(String name) {
+        return ofNullable(oAuth2LoginDetails.get(name));
+    }
+
+    /**
+     * @return Details of all configured OAuth providers
+     */
+    public Map<String, OAuth2LoginDetails> getOAuth2LoginDetails() {
+        return oAuth2LoginDetails;
+    }
+}
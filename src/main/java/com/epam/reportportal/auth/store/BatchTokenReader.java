@@ -0,0 +1,40 @@
+/*
+ * Copyright 2017 EPAM Systems
+ *
+ *
+ * This file is part of EPAM Report Portal.
+ * https://github.com/reportportal/service-authorization
+ *
+ * Report Portal is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Report Portal is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Report Portal.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.epam.reportportal.auth.store;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Token store able to read several access tokens at once
+ *
+ * @author Andrei Varabyeu
+ */
+public interface BatchTokenReader {
+
+    /**
+     * Reads access tokens with their authentications
+     *
+     * @param tokenValues Values of access tokens
+     * @return Tokens mapped by value. Unknown and invalid tokens are absent
+     */
+    Map<String, AccessTokenCache.CachedToken> readAccessTokens(Collection<String> tokenValues);
+}
@@ -0,0 +1,240 @@
+/*
+ * Copyright 2018 EPAM Systems
+ *
+ *
+ * This file is part of EPAM Report Portal.
+ * https://github.com/reportportal/service-authorization
+ *
+ * Report Portal is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Report Portal is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Report Portal.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.epam.reportportal.auth.store;
+
+import com.epam.reportportal.auth.store.codec.TokenCodec;
+import com.epam.reportportal.auth.store.entity.OAuth2AccessTokenEntity;
+import com.epam.reportportal.auth.store.entity.OAuth2RefreshTokenEntity;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.util.CloseableIterator;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.oauth2.common.ExpiringOAuth2RefreshToken;
+import org.springframework.security.oauth2.common.OAuth2RefreshToken;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * Processes tokens stored before expiration time was kept as separate field.
+ * Streams such documents, decodes expiration from serialized token and removes
+ * expired ones in batches. Expiration of the rest is copied to 'expiresAt' field
+ * so TTL index takes care of them afterwards. Tokens which never expire or
+ * cannot be decoded get explicit null, so each legacy document is processed once.
+ * Pauses between batches to keep load on DB low. Runs on one node at a time
+ * holding {@link JobLock} renewed with each batch
+ *
+ * @author Andrei Varabyeu
+ */
+@Component
+public class ExpiredTokenReaper {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ExpiredTokenReaper.class);
+
+    private static final String JOB = "expiredTokenReaper";
+
+    private static final String ID = "_id";
+    private static final String CODEC_VERSION = "codecVersion";
+    private static final String EXPIRES_AT = "expiresAt";
+
+    private final MongoOperations mongoOperations;
+    private final JobLock jobLock;
+    private final boolean enabled;
+    private final int batchSize;
+    private final long pause;
+    private final long lease;
+
+    private final AtomicLong scanned = new AtomicLong();
+    private final AtomicLong deleted = new AtomicLong();
+    private final AtomicLong backfilled = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong legacyRemaining = new AtomicLong(-1);
+    private final AtomicLong ttlPending = new AtomicLong(-1);
+    private volatile long lastRun;
+
+    @Autowired
+    public ExpiredTokenReaper(MongoOperations mongoOperations, JobLock jobLock,
+            @Value("${rp.auth.token.reaper.enabled:true}") boolean enabled, @Value("${rp.auth.token.reaper.batch-size:500}") int batchSize,
+            @Value("${rp.auth.token.reaper.pause:200}") long pause, @Value("${rp.auth.token.reaper.delay:3600000}") long lease) {
+        this.mongoOperations = mongoOperations;
+        this.jobLock = jobLock;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.pause = pause;
+        this.lease = lease;
+    }
+
+    @Scheduled(initialDelayString = "${rp.auth.token.reaper.initial-delay:60000}", fixedDelayString = "${rp.auth.token.reaper.delay:3600000}")
+    public void reap() {
+        if (!enabled || !jobLock.tryLock(JOB, lease)) {
+            return;
+        }
+        boolean completed = reap(OAuth2AccessTokenEntity.class, "token", OAuth2AccessTokenEntity::getTokenId,
+                entity -> TokenCodec.decodeAccessToken(entity.getCodecVersion(), entity.getToken()).getExpiration());
+        if (completed) {
+            reap(OAuth2RefreshTokenEntity.class, "oAuth2RefreshToken", OAuth2RefreshTokenEntity::getTokenId, entity -> {
+                OAuth2RefreshToken refreshToken = TokenCodec.decodeRefreshToken(entity.getCodecVersion(), entity.getoAuth2RefreshToken());
+                return refreshToken instanceof ExpiringOAuth2RefreshToken ?
+                        ((ExpiringOAuth2RefreshToken) refreshToken).getExpiration() :
+                        null;
+            });
+        }
+
+        legacyRemaining.set(count(query(where(EXPIRES_AT).exists(false))));
+        ttlPending.set(count(query(where(EXPIRES_AT).lt(new Date()))));
+        lastRun = System.currentTimeMillis();
+    }
+
+    /**
+     * @return FALSE if processing has been interrupted or lease has been taken by another node
+     */
+    private <T> boolean reap(Class<T> entityClass, String tokenField, Function<T, String> id, Function<T, Date> expiration) {
+        Query legacy = query(where(EXPIRES_AT).exists(false));
+        legacy.fields().include(ID).include(tokenField).include(CODEC_VERSION);
+
+        List<String> expired = new ArrayList<>(batchSize);
+        Map<String, Date> alive = new HashMap<>(batchSize);
+        List<String> undecodable = new ArrayList<>();
+        Date now = new Date();
+
+        try (CloseableIterator<T> tokens = mongoOperations.stream(legacy, entityClass)) {
+            while (tokens.hasNext()) {
+                T entity = tokens.next();
+                scanned.incrementAndGet();
+                try {
+                    Date expiresAt = expiration.apply(entity);
+                    if (null != expiresAt && expiresAt.before(now)) {
+                        expired.add(id.apply(entity));
+                    } else {
+                        alive.put(id.apply(entity), expiresAt);
+                    }
+                } catch (Exception e) {
+                    /* kept without expiration, otherwise it's read again with each run */
+                    undecodable.add(id.apply(entity));
+                    failed.incrementAndGet();
+                    LOGGER.warn("Unable to read expiration of token '{}'", id.apply(entity), e);
+                }
+
+                if (expired.size() + alive.size() + undecodable.size() >= batchSize) {
+                    flush(entityClass, expired, alive, undecodable);
+                    Thread.sleep(pause);
+                    if (!jobLock.tryLock(JOB, lease)) {
+                        LOGGER.warn("Expired tokens processing has been taken over by another node");
+                        return false;
+                    }
+                }
+            }
+            flush(entityClass, expired, alive, undecodable);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LOGGER.warn("Expired tokens processing has been interrupted");
+            return false;
+        }
+    }
+
+    private void flush(Class<?> entityClass, List<String> expired, Map<String, Date> alive, List<String> undecodable) {
+        if (!expired.isEmpty()) {
+            mongoOperations.remove(query(where(ID).in(expired)), entityClass);
+            deleted.addAndGet(expired.size());
+            expired.clear();
+        }
+        if (!alive.isEmpty()) {
+            BulkOperations bulk = mongoOperations.bulkOps(BulkOperations.BulkMode.UNORDERED, entityClass);
+            alive.forEach((tokenId, expiresAt) -> bulk.updateOne(query(where(ID).is(tokenId)), Update.update(EXPIRES_AT, expiresAt)));
+            bulk.execute();
+            backfilled.addAndGet(alive.size());
+            alive.clear();
+        }
+        if (!undecodable.isEmpty()) {
+            mongoOperations.updateMulti(query(where(ID).in(undecodable)), Update.update(EXPIRES_AT, null), entityClass);
+            undecodable.clear();
+        }
+    }
+
+    private long count(Query query) {
+        return mongoOperations.count(query, OAuth2AccessTokenEntity.class) + mongoOperations.count(query, OAuth2RefreshTokenEntity.class);
+    }
+
+    /**
+     * @return Amount of legacy tokens checked
+     */
+    public long getScanned() {
+        return scanned.get();
+    }
+
+    /**
+     * @return Amount of expired legacy tokens removed
+     */
+    public long getDeleted() {
+        return deleted.get();
+    }
+
+    /**
+     * @return Amount of legacy tokens with expiration copied to separate field
+     */
+    public long getBackfilled() {
+        return backfilled.get();
+    }
+
+    /**
+     * @return Amount of legacy tokens which cannot be decoded. Such tokens are kept without expiration
+     */
+    public long getFailed() {
+        return failed.get();
+    }
+
+    /**
+     * @return Amount of tokens without expiration field after last run or -1 if there was no run yet
+     */
+    public long getLegacyRemaining() {
+        return legacyRemaining.get();
+    }
+
+    /**
+     * @return Amount of expired tokens not yet removed by TTL index after last run or -1 if there was no run yet
+     */
+    public long getTtlPending() {
+        return ttlPending.get();
+    }
+
+    /**
+     * @return Time of last run in millis or 0 if there was no run yet
+     */
+    public long getLastRun() {
+        return lastRun;
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2018 EPAM Systems
+ *
+ *
+ * This file is part of EPAM Report Portal.
+ * https://github.com/reportportal/service-authorization
+ *
+ * Report Portal is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Report Portal is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Report Portal.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.epam.reportportal.auth.store;
+
+import com.mongodb.DBObject;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.util.Date;
+import java.util.UUID;
+
+import static org.springframework.data.mongodb.core.FindAndModifyOptions.options;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * Lease of scheduled job shared by all nodes, so job runs on one node at a time. Node holding
+ * the lease keeps it while renewing. Once node stops renewing, lease expires and any node may take it
+ *
+ * @author Andrei Varabyeu
+ */
+@Component
+public class JobLock {
+
+    public static final String COLLECTION = "jobLocks";
+
+    private static final String ID = "_id";
+    private static final String OWNER = "owner";
+    private static final String LOCKED_UNTIL = "lockedUntil";
+
+    private final MongoOperations mongoOperations;
+    private final String owner;
+
+    @Autowired
+    public JobLock(MongoOperations mongoOperations) {
+        this(mongoOperations, ManagementFactory.getRuntimeMXBean().getName() + "/" + UUID.randomUUID());
+    }
+
+    JobLock(MongoOperations mongoOperations, String owner) {
+        this.mongoOperations = mongoOperations;
+        this.owner = owner;
+    }
+
+    /**
+     * Takes lease of job or renews it if this node already holds it
+     *
+     * @param job   Name of job
+     * @param lease Millis lease is held for
+     * @return TRUE if this node holds lease now
+     */
+    public boolean tryLock(String job, long lease) {
+        Date now = new Date();
+        Query query = query(where(ID).is(job).orOperator(where(LOCKED_UNTIL).lt(now), where(OWNER).is(owner)));
+        Update update = Update.update(OWNER, owner).set(LOCKED_UNTIL, new Date(now.getTime() + lease));
+        try {
+            return null != mongoOperations.findAndModify(query, update, options().upsert(true).returnNew(true), DBObject.class,
+                    COLLECTION);
+        } catch (DuplicateKeyException e) {
+            /* another node holds lease, so upsert has tried to insert the second document */
+            return false;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2017 EPAM Systems
+ *
+ *
+ * This file is part of EPAM Report Portal.
+ * https://github.com/reportportal/service-authorization
+ *
+ * Report Portal is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Report Portal is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Report Portal.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.epam.reportportal.auth.store;
+
+import com.epam.reportportal.auth.store.entity.OAuth2AccessTokenEntity;
+import com.epam.reportportal.auth.store.entity.OAuth2RefreshTokenEntity;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Nullable;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Keeps tokens in MongoDB. Default backend
+ *
+ * @author Andrei Varabyeu
+ */
+@Component
+@ConditionalOnProperty(name = "rp.auth.token.store.backend", havingValue = "mongo", matchIfMissing = true)
+public class MongoTokenStoreBackend implements TokenStoreBackend {
+
+    private final OAuth2AccessTokenRepository accessTokenRepository;
+    private final OAuth2RefreshTokenRepository refreshTokenRepository;
+
+    @Autowired
+    MongoTokenStoreBackend(OAuth2AccessTokenRepository accessTokenRepository, OAuth2RefreshTokenRepository refreshTokenRepository) {
+        this.accessTokenRepository = accessTokenRepository;
+        this.refreshTokenRepository = refreshTokenRepository;
+    }
+
+    @Override
+    public void saveAccessToken(OAuth2AccessTokenEntity token) {
+        accessTokenRepository.save(token);
+    }
+
+    @Override
+    public OAuth2AccessTokenEntity findAccessToken(String tokenId) {
+        return accessTokenRepository.findByTokenId(tokenId);
+    }
+
+    @Override
+    public List<OAuth2AccessTokenEntity> findAccessTokens(Collection<String> tokenIds) {
+        return accessTokenRepository.findByTokenIdIn(tokenIds);
+    }
+
+    @Override
+    public OAuth2AccessTokenEntity findAccessTokenByAuthenticationId(String authenticationId) {
+        return accessTokenRepository.findByAuthenticationId(authenticationId);
+    }
+
+    @Override
+    public String findAccessTokenIdByRefreshToken(String refreshToken) {
+        return Optional.ofNullable(accessTokenRepository.findIdByRefreshToken(refreshToken))
+                .map(OAuth2AccessTokenEntity::getTokenId)
+                .orElse(null);
+    }
+
+    @Override
+    public List<OAuth2AccessTokenEntity> findTokensByClientIdAndUserName(String clientId, String userName) {
+        return collect(accessTokenRepository.findTokensByClientIdAndUserName(clientId, userName));
+    }
+
+    @Override
+    public List<OAuth2AccessTokenEntity> findTokensByClientId(String clientId) {
+        return collect(accessTokenRepository.findTokensByClientId(clientId));
+    }
+
+    @Override
+    public void removeAccessToken(String tokenId) {
+        accessTokenRepository.delete(tokenId);
+    }
+
+    @Override
+    public RevokedTokens removeAccessTokensByUserNames(Collection<String> userNames, @Nullable String clientId) {
+        return accessTokenRepository.removeByUserNames(userNames, clientId);
+    }
+
+    @Override
+    public void saveRefreshToken(OAuth2RefreshTokenEntity token) {
+        refreshTokenRepository.save(token);
+    }
+
+    @Override
+    public OAuth2RefreshTokenEntity findRefreshToken(String tokenId) {
+        return refreshTokenRepository.findByTokenId(tokenId);
+    }
+
+    @Override
+    public void removeRefreshToken(String tokenId) {
+        refreshTokenRepository.delete(tokenId);
+    }
+
+    /**
+     * Closes underlying cursor
+     */
+    private static List<OAuth2AccessTokenEntity> collect(Stream<OAuth2AccessTokenEntity> tokens) {
+        try (Stream<OAuth2AccessTokenEntity> stream = tokens) {
+            return stream.collect(Collectors.toList());
+        }
+    }
+}
@@ -22,8 +22,10 @@ package com.epam.reportportal.auth.store;
 
 import com.epam.reportportal.auth.store.entity.OAuth2AccessTokenEntity;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.stream.Stream;
 
@@ -31,18 +33,32 @@ import java.util.stream.Stream;
  * @author Andrei Varabyeu
  */
 @Repository
-public interface OAuth2AccessTokenRepository extends MongoRepository<OAuth2AccessTokenEntity, String> {
+public interface OAuth2AccessTokenRepository extends MongoRepository<OAuth2AccessTokenEntity, String>, OAuth2AccessTokenRepositoryCustom {
+
+    String TOKEN_ONLY = "{ 'token' : 1, 'codecVersion' : 1 }";
 
     OAuth2AccessTokenEntity findByTokenId(String tokenId);
 
-    OAuth2AccessTokenEntity findByRefreshToken(String refreshToken);
+    List<OAuth2AccessTokenEntity> findByTokenIdIn(Collection<String> tokenIds);
 
-    OAuth2AccessTokenEntity findByAuthenticationId(String authenticationId);
+    /**
+     * Loads ID of token only
+     */
+    @Query(value = "{ 'refreshToken' : ?0 }", fields = "{ '_id' : 1 }")
+    OAuth2AccessTokenEntity findIdByRefreshToken(String refreshToken);
 
-    Stream<OAuth2AccessTokenEntity> findByUserName(String userName);
+    OAuth2AccessTokenEntity findByAuthenticationId(String authenticationId);
 
-    Stream<OAuth2AccessTokenEntity> findByClientIdAndUserName(String clientId, String userName);
+    /**
+     * Loads encoded tokens only, without authentications
+     */
+    @Query(value = "{ 'clientId' : ?0, 'userName' : ?1 }", fields = TOKEN_ONLY)
+    Stream<OAuth2AccessTokenEntity> findTokensByClientIdAndUserName(String clientId, String userName);
 
-    Stream<OAuth2AccessTokenEntity> findByClientId(String clientId);
+    /**
+     * Loads encoded tokens only, without authentications
+     */
+    @Query(value = "{ 'clientId' : ?0 }", fields = TOKEN_ONLY)
+    Stream<OAuth2AccessTokenEntity> findTokensByClientId(String clientId);
 
 }
\ No newline at end of file
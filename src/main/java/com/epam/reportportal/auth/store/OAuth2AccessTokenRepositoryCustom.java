@@ -0,0 +1,41 @@
+/*
+ * Copyright 2017 EPAM Systems
+ *
+ *
+ * This file is part of EPAM Report Portal.
+ * https://github.com/reportportal/service-authorization
+ *
+ * Report Portal is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Report Portal is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Report Portal.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.epam.reportportal.auth.store;
+
+import javax.annotation.Nullable;
+import java.util.Collection;
+
+/**
+ * Set-based operations on access tokens
+ *
+ * @author Andrei Varabyeu
+ */
+public interface OAuth2AccessTokenRepositoryCustom {
+
+    /**
+     * Removes access tokens of provided users along with linked refresh tokens
+     *
+     * @param userNames Names of users
+     * @param clientId  Client tokens are issued for. All user tokens are removed if NULL
+     * @return Removed tokens
+     */
+    RevokedTokens removeByUserNames(Collection<String> userNames, @Nullable String clientId);
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2017 EPAM Systems
+ *
+ *
+ * This file is part of EPAM Report Portal.
+ * https://github.com/reportportal/service-authorization
+ *
+ * Report Portal is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Report Portal is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Report Portal.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.epam.reportportal.auth.store;
+
+import com.epam.reportportal.auth.store.entity.OAuth2AccessTokenEntity;
+import com.epam.reportportal.auth.store.entity.OAuth2RefreshTokenEntity;
+import com.google.common.collect.Lists;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import javax.annotation.Nullable;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * Access token repository custom
+ *
+ * @author Andrei Varabyeu
+ */
+public class OAuth2AccessTokenRepositoryImpl implements OAuth2AccessTokenRepositoryCustom {
+
+    /**
+     * Max amount of IDs in single remove query to keep it far from BSON document size limit
+     */
+    private static final int REMOVE_BATCH_SIZE = 1000;
+
+    private final MongoOperations mongoOperations;
+
+    @Autowired
+    public OAuth2AccessTokenRepositoryImpl(MongoOperations mongoOperations) {
+        this.mongoOperations = mongoOperations;
+    }
+
+    @Override
+    public RevokedTokens removeByUserNames(Collection<String> userNames, @Nullable String clientId) {
+        Criteria criteria = null == clientId ? where("userName").in(userNames) : where("clientId").is(clientId).and("userName").in(userNames);
+        Query tokensQuery = query(criteria);
+        tokensQuery.fields().include("_id").include("refreshToken");
+        List<OAuth2AccessTokenEntity> tokens = mongoOperations.find(tokensQuery, OAuth2AccessTokenEntity.class);
+
+        List<String> refreshTokens = tokens.stream()
+                .map(OAuth2AccessTokenEntity::getRefreshToken)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        /* refresh tokens go first, so access token cannot be re-issued with refresh token of removed one */
+        long refreshRemoved = removeByIds(refreshTokens, OAuth2RefreshTokenEntity.class);
+
+        List<String> accessTokens = tokens.stream().map(OAuth2AccessTokenEntity::getTokenId).collect(Collectors.toList());
+        long accessRemoved = removeByIds(accessTokens, OAuth2AccessTokenEntity.class);
+
+        return new RevokedTokens(accessTokens, accessRemoved, refreshRemoved);
+    }
+
+    private long removeByIds(List<String> ids, Class<?> entityClass) {
+        return Lists.partition(ids, REMOVE_BATCH_SIZE)
+                .stream()
+                .mapToLong(batch -> mongoOperations.remove(query(where("_id").in(batch)), entityClass).getN())
+                .sum();
+    }
+}
@@ -0,0 +1,477 @@
+/*
+ * Copyright 2017 EPAM Systems
+ *
+ *
+ * This file is part of EPAM Report Portal.
+ * https://github.com/reportportal/service-authorization
+ *
+ * Report Portal is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Report Portal is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Report Portal.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.epam.reportportal.auth.store;
+
+import com.epam.reportportal.auth.store.entity.OAuth2AccessTokenEntity;
+import com.epam.reportportal.auth.store.entity.OAuth2RefreshTokenEntity;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Nullable;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps encoded tokens in direct (off-heap) memory, so they do not put pressure on GC.
+ * Lookups by user, client, authentication and refresh token are served by in-heap
+ * secondary indexes. Tokens are lost on restart and not shared between nodes, so
+ * backend is intended for single-node and test deployments. It isn't meant as hot tier
+ * in front of MongoDB either: near-cache of {@link ReportPortalTokenStore} already plays that role.
+ * Tokens are indexed by expiration, so expired ones are purged periodically in batches without
+ * reading the rest. Once memory limit is reached and there are no expired tokens to purge,
+ * new tokens are rejected
+ *
+ * @author Andrei Varabyeu
+ */
+@Component
+@ConditionalOnProperty(name = "rp.auth.token.store.backend", havingValue = "offheap")
+public class OffHeapTokenStoreBackend implements TokenStoreBackend {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(OffHeapTokenStoreBackend.class);
+
+    private static final int NULL = -1;
+
+    /* tokens purged at once, write lock is released between batches */
+    private static final int PURGE_BATCH = 1000;
+
+    private final long maxMemory;
+
+    private final Map<String, ByteBuffer> accessTokens = new HashMap<>();
+    private final Map<String, ByteBuffer> refreshTokens = new HashMap<>();
+
+    private final Map<String, Set<String>> byUserName = new HashMap<>();
+    private final Map<String, Set<String>> byClientId = new HashMap<>();
+    private final Map<String, String> byAuthenticationId = new HashMap<>();
+    private final Map<String, String> byRefreshToken = new HashMap<>();
+    private final NavigableMap<Long, Set<String>> accessExpirations = new TreeMap<>();
+    private final NavigableMap<Long, Set<String>> refreshExpirations = new TreeMap<>();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private long usedMemory;
+
+    /**
+     * @param maxMemory Max amount of direct memory in bytes
+     */
+    @Autowired
+    public OffHeapTokenStoreBackend(@Value("${rp.auth.token.offheap.max-memory:268435456}") long maxMemory) {
+        this.maxMemory = maxMemory;
+    }
+
+    @Override
+    public void saveAccessToken(OAuth2AccessTokenEntity token) {
+        RecordWriter record = encode(token);
+        write(() -> {
+            reserve(record.size(), accessTokens, token.getTokenId());
+            ByteBuffer buffer = record.toBuffer();
+            removeAccessTokenLocked(token.getTokenId());
+            usedMemory += buffer.capacity();
+            accessTokens.put(token.getTokenId(), buffer);
+            index(accessExpirations, expiresAt(buffer), token.getTokenId());
+            index(byUserName, token.getUserName(), token.getTokenId());
+            index(byClientId, token.getClientId(), token.getTokenId());
+            if (null != token.getAuthenticationId()) {
+                byAuthenticationId.put(token.getAuthenticationId(), token.getTokenId());
+            }
+            if (null != token.getRefreshToken()) {
+                byRefreshToken.put(token.getRefreshToken(), token.getTokenId());
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public OAuth2AccessTokenEntity findAccessToken(String tokenId) {
+        return read(() -> decodeAccessToken(accessTokens.get(tokenId)));
+    }
+
+    @Override
+    public List<OAuth2AccessTokenEntity> findAccessTokens(Collection<String> tokenIds) {
+        return read(() -> decodeAccessTokens(tokenIds));
+    }
+
+    @Override
+    public OAuth2AccessTokenEntity findAccessTokenByAuthenticationId(String authenticationId) {
+        return read(() -> {
+            String tokenId = byAuthenticationId.get(authenticationId);
+            return null == tokenId ? null : decodeAccessToken(accessTokens.get(tokenId));
+        });
+    }
+
+    @Override
+    public String findAccessTokenIdByRefreshToken(String refreshToken) {
+        return read(() -> byRefreshToken.get(refreshToken));
+    }
+
+    @Override
+    public List<OAuth2AccessTokenEntity> findTokensByClientIdAndUserName(String clientId, String userName) {
+        return read(() -> decodeAccessTokens(byUserName.getOrDefault(userName, Collections.emptySet())).stream()
+                .filter(token -> Objects.equals(clientId, token.getClientId()))
+                .collect(Collectors.toList()));
+    }
+
+    @Override
+    public List<OAuth2AccessTokenEntity> findTokensByClientId(String clientId) {
+        return read(() -> decodeAccessTokens(byClientId.getOrDefault(clientId, Collections.emptySet())));
+    }
+
+    @Override
+    public void removeAccessToken(String tokenId) {
+        write(() -> removeAccessTokenLocked(tokenId));
+    }
+
+    @Override
+    public RevokedTokens removeAccessTokensByUserNames(Collection<String> userNames, @Nullable String clientId) {
+        return write(() -> {
+            List<String> removed = new ArrayList<>();
+            long refreshRemoved = 0;
+            for (String userName : userNames) {
+                for (String tokenId : new ArrayList<>(byUserName.getOrDefault(userName, Collections.emptySet()))) {
+                    OAuth2AccessTokenEntity token = decodeAccessToken(accessTokens.get(tokenId));
+                    if (null == clientId || clientId.equals(token.getClientId())) {
+                        if (null != token.getRefreshToken() && null != removeRefreshTokenLocked(token.getRefreshToken())) {
+                            refreshRemoved++;
+                        }
+                        removeAccessTokenLocked(tokenId);
+                        removed.add(tokenId);
+                    }
+                }
+            }
+            return new RevokedTokens(removed, removed.size(), refreshRemoved);
+        });
+    }
+
+    @Override
+    public void saveRefreshToken(OAuth2RefreshTokenEntity token) {
+        RecordWriter record = encode(token);
+        write(() -> {
+            reserve(record.size(), refreshTokens, token.getTokenId());
+            ByteBuffer buffer = record.toBuffer();
+            removeRefreshTokenLocked(token.getTokenId());
+            usedMemory += buffer.capacity();
+            refreshTokens.put(token.getTokenId(), buffer);
+            index(refreshExpirations, expiresAt(buffer), token.getTokenId());
+            return null;
+        });
+    }
+
+    @Override
+    public OAuth2RefreshTokenEntity findRefreshToken(String tokenId) {
+        return read(() -> decodeRefreshToken(refreshTokens.get(tokenId)));
+    }
+
+    @Override
+    public void removeRefreshToken(String tokenId) {
+        write(() -> removeRefreshTokenLocked(tokenId));
+    }
+
+    /**
+     * Removes expired tokens
+     */
+    @Scheduled(fixedDelayString = "${rp.auth.token.offheap.purge:60000}")
+    public void purgeExpired() {
+        int purged;
+        do {
+            purged = write(() -> purgeExpiredLocked(PURGE_BATCH));
+        } while (purged >= PURGE_BATCH);
+    }
+
+    /**
+     * @return Amount of direct memory occupied by tokens in bytes
+     */
+    public long getUsedMemory() {
+        return read(() -> usedMemory);
+    }
+
+    /**
+     * @param limit Max amount of tokens of each type removed
+     * @return Amount of removed tokens
+     */
+    private int purgeExpiredLocked(int limit) {
+        long now = System.currentTimeMillis();
+        int access = purge(accessExpirations, now, limit, this::removeAccessTokenLocked);
+        int refresh = purge(refreshExpirations, now, limit, this::removeRefreshTokenLocked);
+        if (access > 0 || refresh > 0) {
+            LOGGER.debug("Purged {} access and {} refresh tokens", access, refresh);
+        }
+        return access + refresh;
+    }
+
+    private static int purge(NavigableMap<Long, Set<String>> expirations, long now, int limit, Consumer<String> remove) {
+        List<String> expired = expirations.headMap(now, false)
+                .values()
+                .stream()
+                .flatMap(Set::stream)
+                .limit(limit)
+                .collect(Collectors.toList());
+        expired.forEach(remove);
+        return expired.size();
+    }
+
+    /**
+     * Checks there is room for new record before anything is changed or allocated, so stored record stays intact if there is none
+     *
+     * @param bytes   Size of new record
+     * @param records Records new one is put to
+     * @param tokenId ID of new record. Record stored under it is replaced
+     */
+    private void reserve(int bytes, Map<String, ByteBuffer> records, String tokenId) {
+        if (!fits(bytes, records.get(tokenId))) {
+            purgeExpiredLocked(Integer.MAX_VALUE);
+            /* replaced record might have expired as well */
+            if (!fits(bytes, records.get(tokenId))) {
+                throw new IllegalStateException("Off-heap token storage is full. Increase 'rp.auth.token.offheap.max-memory'");
+            }
+        }
+    }
+
+    private boolean fits(int bytes, @Nullable ByteBuffer replaced) {
+        return usedMemory - (null == replaced ? 0 : replaced.capacity()) + bytes <= maxMemory;
+    }
+
+    private Void removeAccessTokenLocked(String tokenId) {
+        ByteBuffer record = accessTokens.remove(tokenId);
+        if (null != record) {
+            usedMemory -= record.capacity();
+            unindex(accessExpirations, expiresAt(record), tokenId);
+            OAuth2AccessTokenEntity token = decodeAccessToken(record);
+            unindex(byUserName, token.getUserName(), tokenId);
+            unindex(byClientId, token.getClientId(), tokenId);
+            if (null != token.getAuthenticationId()) {
+                byAuthenticationId.remove(token.getAuthenticationId(), tokenId);
+            }
+            if (null != token.getRefreshToken()) {
+                byRefreshToken.remove(token.getRefreshToken(), tokenId);
+            }
+        }
+        return null;
+    }
+
+    private ByteBuffer removeRefreshTokenLocked(String tokenId) {
+        ByteBuffer record = refreshTokens.remove(tokenId);
+        if (null != record) {
+            usedMemory -= record.capacity();
+            unindex(refreshExpirations, expiresAt(record), tokenId);
+        }
+        return record;
+    }
+
+    private List<OAuth2AccessTokenEntity> decodeAccessTokens(Collection<String> tokenIds) {
+        return tokenIds.stream().map(accessTokens::get).filter(Objects::nonNull).map(OffHeapTokenStoreBackend::decodeAccessToken).collect(Collectors.toList());
+    }
+
+    private static <K> void index(Map<K, Set<String>> index, K key, String tokenId) {
+        if (null != key) {
+            index.computeIfAbsent(key, k -> new HashSet<>()).add(tokenId);
+        }
+    }
+
+    private static <K> void unindex(Map<K, Set<String>> index, K key, String tokenId) {
+        Set<String> tokenIds = null == key ? null : index.get(key);
+        if (null != tokenIds) {
+            tokenIds.remove(tokenId);
+            if (tokenIds.isEmpty()) {
+                index.remove(key);
+            }
+        }
+    }
+
+    private <T> T read(Locked<T> action) {
+        return locked(lock.readLock(), action);
+    }
+
+    private <T> T write(Locked<T> action) {
+        return locked(lock.writeLock(), action);
+    }
+
+    private static <T> T locked(Lock lock, Locked<T> action) {
+        lock.lock();
+        try {
+            return action.run();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @FunctionalInterface
+    private interface Locked<T> {
+        T run();
+    }
+
+    /*
+     * Records layout. Expiration comes first, so it's read without decoding the rest.
+     * Strings and arrays are prefixed with length, -1 stands for NULL
+     */
+
+    @Nullable
+    private static Long expiresAt(ByteBuffer record) {
+        long value = record.getLong(0);
+        return NULL == value ? null : value;
+    }
+
+    private static RecordWriter encode(OAuth2AccessTokenEntity token) {
+        return new RecordWriter().date(token.getExpiresAt())
+                .string(token.getTokenId())
+                .bytes(token.getToken())
+                .bytes(token.getAuthentication())
+                .integer(token.getCodecVersion())
+                .string(token.getAuthenticationId())
+                .string(token.getUserName())
+                .string(token.getClientId())
+                .string(token.getRefreshToken());
+    }
+
+    private static OAuth2AccessTokenEntity decodeAccessToken(ByteBuffer record) {
+        if (null == record) {
+            return null;
+        }
+        RecordReader reader = new RecordReader(record);
+        OAuth2AccessTokenEntity token = new OAuth2AccessTokenEntity();
+        token.setExpiresAt(reader.date());
+        token.setTokenId(reader.string());
+        token.setToken(reader.bytes());
+        token.setAuthentication(reader.bytes());
+        token.setCodecVersion(reader.integer());
+        token.setAuthenticationId(reader.string());
+        token.setUserName(reader.string());
+        token.setClientId(reader.string());
+        token.setRefreshToken(reader.string());
+        return token;
+    }
+
+    private static RecordWriter encode(OAuth2RefreshTokenEntity token) {
+        return new RecordWriter().date(token.getExpiresAt())
+                .string(token.getTokenId())
+                .bytes(token.getoAuth2RefreshToken())
+                .bytes(token.getAuthentication())
+                .integer(token.getCodecVersion());
+    }
+
+    private static OAuth2RefreshTokenEntity decodeRefreshToken(ByteBuffer record) {
+        if (null == record) {
+            return null;
+        }
+        RecordReader reader = new RecordReader(record);
+        OAuth2RefreshTokenEntity token = new OAuth2RefreshTokenEntity();
+        token.setExpiresAt(reader.date());
+        token.setTokenId(reader.string());
+        token.setoAuth2RefreshToken(reader.bytes());
+        token.setAuthentication(reader.bytes());
+        token.setCodecVersion(reader.integer());
+        return token;
+    }
+
+    private static class RecordWriter {
+
+        private final List<Function<ByteBuffer, ByteBuffer>> fields = new ArrayList<>();
+        private int size;
+
+        RecordWriter string(String value) {
+            return bytes(null == value ? null : value.getBytes(StandardCharsets.UTF_8));
+        }
+
+        RecordWriter bytes(byte[] value) {
+            size += Integer.BYTES + (null == value ? 0 : value.length);
+            fields.add(buffer -> null == value ? buffer.putInt(NULL) : buffer.putInt(value.length).put(value));
+            return this;
+        }
+
+        RecordWriter integer(Integer value) {
+            size += Integer.BYTES;
+            fields.add(buffer -> buffer.putInt(null == value ? NULL : value));
+            return this;
+        }
+
+        RecordWriter date(Date value) {
+            size += Long.BYTES;
+            fields.add(buffer -> buffer.putLong(null == value ? NULL : value.getTime()));
+            return this;
+        }
+
+        int size() {
+            return size;
+        }
+
+        ByteBuffer toBuffer() {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(size);
+            fields.forEach(field -> field.apply(buffer));
+            buffer.flip();
+            return buffer;
+        }
+    }
+
+    private static class RecordReader {
+
+        /* own view of the record, so concurrent readers do not share position */
+        private final ByteBuffer buffer;
+
+        RecordReader(ByteBuffer record) {
+            this.buffer = record.duplicate();
+        }
+
+        String string() {
+            byte[] value = bytes();
+            return null == value ? null : new String(value, StandardCharsets.UTF_8);
+        }
+
+        byte[] bytes() {
+            int length = buffer.getInt();
+            if (NULL == length) {
+                return null;
+            }
+            byte[] value = new byte[length];
+            buffer.get(value);
+            return value;
+        }
+
+        Integer integer() {
+            int value = buffer.getInt();
+            return NULL == value ? null : value;
+        }
+
+        Date date() {
+            long value = buffer.getLong();
+            return NULL == value ? null : new Date(value);
+        }
+    }
+}
@@ -0,0 +1,264 @@
+/*
+ * Copyright 2016 EPAM Systems
+ *
+ *
+ * This file is part of EPAM Report Portal.
+ * https://github.com/reportportal/service-authorization
+ *
+ * Report Portal is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Report Portal is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Report Portal.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.epam.reportportal.auth.store;
+
+import com.epam.reportportal.auth.store.codec.TokenCodec;
+import com.epam.reportportal.auth.store.entity.OAuth2AccessTokenEntity;
+import com.epam.reportportal.auth.store.entity.OAuth2RefreshTokenEntity;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.oauth2.common.ExpiringOAuth2RefreshToken;
+import org.springframework.security.oauth2.common.OAuth2AccessToken;
+import org.springframework.security.oauth2.common.OAuth2RefreshToken;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+import org.springframework.security.oauth2.provider.token.AuthenticationKeyGenerator;
+import org.springframework.security.oauth2.provider.token.DefaultAuthenticationKeyGenerator;
+import org.springframework.security.oauth2.provider.token.TokenStore;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Encodes tokens and keeps them in {@link TokenStoreBackend}.
+ * Decoded access tokens are kept in near-cache
+ *
+ * @author Andrei Varabyeu
+ */
+public class ReportPortalTokenStore implements TokenStore, BatchTokenReader {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReportPortalTokenStore.class);
+
+    @Autowired
+    private TokenStoreBackend backend;
+
+    @Autowired
+    private AccessTokenCache accessTokenCache;
+
+    /**
+     * Whether token loaded during request should be reused until request is completed
+     */
+    @Value("${rp.auth.token.request-scoped:true}")
+    private boolean requestScoped = true;
+
+    private AuthenticationKeyGenerator authenticationKeyGenerator = new DefaultAuthenticationKeyGenerator();
+
+    @Override
+    public OAuth2Authentication readAuthentication(OAuth2AccessToken token) {
+        return readAuthentication(token.getValue());
+    }
+
+    @Override
+    public OAuth2Authentication readAuthentication(String tokenId) {
+        return Optional.ofNullable(loadToken(tokenId)).map(AccessTokenCache.CachedToken::getAuthentication).orElse(null);
+    }
+
+    @Override
+    public void storeAccessToken(OAuth2AccessToken token, OAuth2Authentication authentication) {
+        OAuth2AccessTokenEntity tokenEntity = new OAuth2AccessTokenEntity();
+        tokenEntity.setTokenId(token.getValue());
+        tokenEntity.setToken(TokenCodec.encodeAccessToken(token));
+        tokenEntity.setAuthentication(TokenCodec.encodeAuthentication(authentication));
+        tokenEntity.setCodecVersion(TokenCodec.CURRENT_VERSION);
+        tokenEntity.setAuthenticationId(authenticationKeyGenerator.extractKey(authentication));
+        tokenEntity.setUserName(authentication.isClientOnly() ? null : authentication.getName());
+        tokenEntity.setRefreshToken(null == token.getRefreshToken() ? null : token.getRefreshToken().getValue());
+        tokenEntity.setClientId(authentication.getOAuth2Request().getClientId());
+        tokenEntity.setExpiresAt(token.getExpiration());
+
+        backend.saveAccessToken(tokenEntity);
+    }
+
+    @Override
+    public OAuth2AccessToken readAccessToken(String tokenValue) {
+        //let spring security handle the invalid token if nothing found
+        return Optional.ofNullable(loadToken(tokenValue)).map(AccessTokenCache.CachedToken::getAccessToken).orElse(null);
+    }
+
+    @Override
+    public void removeAccessToken(OAuth2AccessToken token) {
+        accessTokenCache.invalidate(token.getValue());
+        RequestScopedTokens.remove(token.getValue());
+        backend.removeAccessToken(token.getValue());
+    }
+
+    @Override
+    public void storeRefreshToken(OAuth2RefreshToken refreshToken, OAuth2Authentication authentication) {
+        OAuth2RefreshTokenEntity refreshEntity = new OAuth2RefreshTokenEntity();
+        refreshEntity.setAuthentication(TokenCodec.encodeAuthentication(authentication));
+        refreshEntity.setTokenId(refreshToken.getValue());
+        refreshEntity.setoAuth2RefreshToken(TokenCodec.encodeRefreshToken(refreshToken));
+        refreshEntity.setCodecVersion(TokenCodec.CURRENT_VERSION);
+        if (refreshToken instanceof ExpiringOAuth2RefreshToken) {
+            refreshEntity.setExpiresAt(((ExpiringOAuth2RefreshToken) refreshToken).getExpiration());
+        }
+        backend.saveRefreshToken(refreshEntity);
+    }
+
+    @Override
+    public OAuth2RefreshToken readRefreshToken(String tokenValue) {
+        return Optional.ofNullable(backend.findRefreshToken(tokenValue))
+                .map(token -> TokenCodec.decodeRefreshToken(token.getCodecVersion(), token.getoAuth2RefreshToken()))
+                .orElse(null);
+    }
+
+    @Override
+    public OAuth2Authentication readAuthenticationForRefreshToken(OAuth2RefreshToken token) {
+        return Optional.ofNullable(backend.findRefreshToken(token.getValue()))
+                .map(refreshToken -> TokenCodec.decodeAuthentication(refreshToken.getCodecVersion(), refreshToken.getAuthentication(), null))
+                .orElse(null);
+    }
+
+    @Override
+    public void removeRefreshToken(OAuth2RefreshToken token) {
+        if (null != token && null != token.getValue()) {
+            backend.removeRefreshToken(token.getValue());
+        }
+    }
+
+    @Override
+    public void removeAccessTokenUsingRefreshToken(OAuth2RefreshToken refreshToken) {
+        String accessToken = backend.findAccessTokenIdByRefreshToken(refreshToken.getValue());
+        if (accessToken != null) {
+            accessTokenCache.invalidate(accessToken);
+            RequestScopedTokens.remove(accessToken);
+            backend.removeAccessToken(accessToken);
+        }
+    }
+
+    @Override
+    public OAuth2AccessToken getAccessToken(OAuth2Authentication authentication) {
+        OAuth2AccessTokenEntity token = backend.findAccessTokenByAuthenticationId(authenticationKeyGenerator.extractKey(authentication));
+        return token == null ? null : extractAccessToken(token);
+    }
+
+    @Override
+    public Collection<OAuth2AccessToken> findTokensByClientId(String clientId) {
+        return backend.findTokensByClientId(clientId).stream().map(this::extractAccessToken).collect(Collectors.toList());
+    }
+
+    @Override
+    public Collection<OAuth2AccessToken> findTokensByClientIdAndUserName(String clientId, String userName) {
+        return backend.findTokensByClientIdAndUserName(clientId, userName)
+                .stream()
+                .map(this::extractAccessToken)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Reads tokens missing in near-cache with single query and decodes them in parallel.
+     * Tokens which cannot be decoded are absent in result
+     */
+    @Override
+    public Map<String, AccessTokenCache.CachedToken> readAccessTokens(Collection<String> tokenValues) {
+        Map<String, AccessTokenCache.CachedToken> tokens = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (String tokenValue : new LinkedHashSet<>(tokenValues)) {
+            AccessTokenCache.CachedToken cached = accessTokenCache.get(tokenValue);
+            if (null == cached) {
+                missing.add(tokenValue);
+            } else {
+                tokens.put(tokenValue, cached);
+            }
+        }
+        if (!missing.isEmpty()) {
+            Map<String, AccessTokenCache.CachedToken> loaded = new ConcurrentHashMap<>();
+            Queue<OAuth2AccessTokenEntity> reencoded = new ConcurrentLinkedQueue<>();
+            backend.findAccessTokens(missing).parallelStream().forEach(entity -> {
+                try {
+                    loaded.put(entity.getTokenId(), decodeToken(entity, reencoded::add));
+                } catch (RuntimeException e) {
+                    /* broken token is considered invalid, the rest of batch is still checked */
+                    LOGGER.warn("Unable to decode access token", e);
+                }
+            });
+            /* common pool isn't blocked by DB writes */
+            reencoded.forEach(backend::saveAccessToken);
+            loaded.forEach(accessTokenCache::put);
+            tokens.putAll(loaded);
+        }
+        return tokens;
+    }
+
+    private OAuth2AccessToken extractAccessToken(OAuth2AccessTokenEntity token) {
+        return TokenCodec.decodeAccessToken(token.getCodecVersion(), token.getToken());
+    }
+
+    /**
+     * Loads access token and its authentication. Looks up tokens already resolved during current request,
+     * then near-cache, and falls back to DB
+     *
+     * @param tokenValue Value of access token
+     * @return Decoded token or NULL if there is no such token
+     */
+    private AccessTokenCache.CachedToken loadToken(String tokenValue) {
+        AccessTokenCache.CachedToken cached = requestScoped ? RequestScopedTokens.get(tokenValue) : null;
+        if (null == cached) {
+            cached = loadTokenCached(tokenValue);
+            if (requestScoped && null != cached) {
+                RequestScopedTokens.put(tokenValue, cached);
+            }
+        }
+        return cached;
+    }
+
+    private AccessTokenCache.CachedToken loadTokenCached(String tokenValue) {
+        AccessTokenCache.CachedToken cached = accessTokenCache.get(tokenValue);
+        if (null == cached) {
+            final OAuth2AccessTokenEntity entity = backend.findAccessToken(tokenValue);
+            if (null == entity) {
+                return null;
+            }
+            cached = decodeToken(entity, backend::saveAccessToken);
+            accessTokenCache.put(tokenValue, cached);
+        }
+        return cached;
+    }
+
+    /**
+     * @param reencoded Receives legacy token re-encoded with current codec, so it is saved back to DB
+     */
+    private AccessTokenCache.CachedToken decodeToken(OAuth2AccessTokenEntity entity, Consumer<OAuth2AccessTokenEntity> reencoded) {
+        final OAuth2AccessToken accessToken = extractAccessToken(entity);
+        OAuth2Authentication authentication = TokenCodec.decodeAuthentication(entity.getCodecVersion(), entity.getAuthentication(),
+                auth -> {
+                    // if we are at the place, there was InvalidClassException,
+                    // and we successfully recovered auth object
+                    // let's save it back to DB then, re-encoded with current codec
+                    entity.setToken(TokenCodec.encodeAccessToken(accessToken));
+                    entity.setAuthentication(TokenCodec.encodeAuthentication(auth));
+                    entity.setCodecVersion(TokenCodec.CURRENT_VERSION);
+                    reencoded.accept(entity);
+                });
+        return new AccessTokenCache.CachedToken(accessToken, authentication);
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2018 EPAM Systems
+ *
+ *
+ * This file is part of EPAM Report Portal.
+ * https://github.com/reportportal/service-authorization
+ *
+ * Report Portal is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Report Portal is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Report Portal.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.epam.reportportal.auth.store;
+
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+/**
+ * Keeps tokens resolved during current HTTP request in request attributes,
+ * so token is loaded from DB once per request even if near-cache is disabled.
+ * Does nothing outside of request scope
+ *
+ * @author Andrei Varabyeu
+ */
+final class RequestScopedTokens {
+
+    private static final String ATTRIBUTE_PREFIX = RequestScopedTokens.class.getName() + ".";
+
+    private RequestScopedTokens() {
+        //statics only
+    }
+
+    static AccessTokenCache.CachedToken get(String tokenValue) {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        return null == attributes ?
+                null :
+                (AccessTokenCache.CachedToken) attributes.getAttribute(ATTRIBUTE_PREFIX + tokenValue, RequestAttributes.SCOPE_REQUEST);
+    }
+
+    static void put(String tokenValue, AccessTokenCache.CachedToken token) {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (null != attributes) {
+            attributes.setAttribute(ATTRIBUTE_PREFIX + tokenValue, token, RequestAttributes.SCOPE_REQUEST);
+        }
+    }
+
+    static void remove(String tokenValue) {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (null != attributes) {
+            attributes.removeAttribute(ATTRIBUTE_PREFIX + tokenValue, RequestAttributes.SCOPE_REQUEST);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2017 EPAM Systems
+ *
+ *
+ * This file is part of EPAM Report Portal.
+ * https://github.com/reportportal/service-authorization
+ *
+ * Report Portal is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Report Portal is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Report Portal.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.epam.reportportal.auth.store;
+
+import java.util.List;
+
+/**
+ * Result of bulk tokens removal
+ *
+ * @author Andrei Varabyeu
+ */
+public class RevokedTokens {
+
+    private final List<String> accessTokens;
+    private final long accessTokensRemoved;
+    private final long refreshTokensRemoved;
+
+    public RevokedTokens(List<String> accessTokens, long accessTokensRemoved, long refreshTokensRemoved) {
+        this.accessTokens = accessTokens;
+        this.accessTokensRemoved = accessTokensRemoved;
+        this.refreshTokensRemoved = refreshTokensRemoved;
+    }
+
+    /**
+     * @return Values of access tokens found for removal
+     */
+    public List<String> getAccessTokens() {
+        return accessTokens;
+    }
+
+    public long getAccessTokensRemoved() {
+        return accessTokensRemoved;
+    }
+
+    public long getRefreshTokensRemoved() {
+        return refreshTokensRemoved;
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2018 EPAM Systems
+ *
+ *
+ * This file is part of EPAM Report Portal.
+ * https://github.com/reportportal/service-authorization
+ *
+ * Report Portal is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Report Portal is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Report Portal.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.epam.reportportal.auth.store;
+
+import com.epam.reportportal.auth.store.entity.OAuth2AccessTokenEntity;
+import com.epam.reportportal.auth.store.entity.OAuth2RefreshTokenEntity;
+import com.epam.reportportal.auth.store.entity.RevokedTokenEntity;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.IndexOperations;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexField;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Makes sure token collections have indexes for every query token store performs.
+ * Creates missing indexes on startup and reports ones which still cannot be found
+ *
+ * @author Andrei Varabyeu
+ */
+@Component
+public class TokenIndexesInitializer implements InitializingBean {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TokenIndexesInitializer.class);
+
+    /**
+     * Required indexes. Key fields and names match ones declared on entities
+     */
+    //@formatter:off
+    static final Map<Class<?>, List<TokenIndex>> INDEXES = ImmutableMap.<Class<?>, List<TokenIndex>>builder()
+            .put(OAuth2AccessTokenEntity.class, ImmutableList.of(
+                    new TokenIndex("authenticationId", "authenticationId"),
+                    new TokenIndex("refreshToken", "refreshToken"),
+                    new TokenIndex("userName", "userName"),
+                    new TokenIndex("client_user", "clientId", "userName"),
+                    TokenIndex.ttl("expiresAt")))
+            /* refresh tokens are looked up by ID only */
+            .put(OAuth2RefreshTokenEntity.class, ImmutableList.of(TokenIndex.ttl("expiresAt")))
+            /* revoked self-contained tokens are loaded entirely */
+            .put(RevokedTokenEntity.class, ImmutableList.of(TokenIndex.ttl("expiresAt")))
+            .build();
+    //@formatter:on
+
+    private final MongoOperations mongoOperations;
+
+    @Autowired
+    public TokenIndexesInitializer(MongoOperations mongoOperations) {
+        this.mongoOperations = mongoOperations;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        INDEXES.forEach((entity, indexes) -> {
+            IndexOperations indexOps = mongoOperations.indexOps(entity);
+            indexes.stream().filter(index -> !index.isPresent(indexOps.getIndexInfo())).forEach(index -> {
+                LOGGER.info("Creating index '{}' on '{}'", index.name, mongoOperations.getCollectionName(entity));
+                indexOps.ensureIndex(index.toDefinition());
+            });
+
+            List<IndexInfo> existing = indexOps.getIndexInfo();
+            List<String> missing = indexes.stream()
+                    .filter(index -> !index.isPresent(existing))
+                    .map(index -> index.name)
+                    .collect(Collectors.toList());
+            if (!missing.isEmpty()) {
+                LOGGER.error("Indexes {} are missing on '{}'. Token lookups will perform collection scans", missing,
+                        mongoOperations.getCollectionName(entity));
+            }
+        });
+    }
+
+    /**
+     * Index required by token store queries
+     */
+    static class TokenIndex {
+
+        private final String name;
+        private final List<String> keys;
+        private final boolean ttl;
+
+        TokenIndex(String name, String... keys) {
+            this(false, name, keys);
+        }
+
+        private TokenIndex(boolean ttl, String name, String... keys) {
+            this.name = name;
+            this.keys = ImmutableList.copyOf(keys);
+            this.ttl = ttl;
+        }
+
+        /**
+         * Index removing document once time in given date field has come
+         */
+        static TokenIndex ttl(String field) {
+            return new TokenIndex(true, field, field);
+        }
+
+        /**
+         * Index is considered present if there is index with the same keys, no matter how it is named
+         */
+        boolean isPresent(List<IndexInfo> existing) {
+            return existing.stream()
+                    .anyMatch(info -> info.getIndexFields().stream().map(IndexField::getKey).collect(Collectors.toList()).equals(keys));
+        }
+
+        Index toDefinition() {
+            Index index = new Index().named(name);
+            keys.forEach(key -> index.on(key, Sort.Direction.ASC));
+            if (ttl) {
+                index.expire(0);
+            }
+            return index;
+        }
+    }
+}
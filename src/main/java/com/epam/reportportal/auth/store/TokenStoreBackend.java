@@ -0,0 +1,91 @@
+/*
+ * Copyright 2017 EPAM Systems
+ *
+ *
+ * This file is part of EPAM Report Portal.
+ * https://github.com/reportportal/service-authorization
+ *
+ * Report Portal is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Report Portal is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Report Portal.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.epam.reportportal.auth.store;
+
+import com.epam.reportportal.auth.store.entity.OAuth2AccessTokenEntity;
+import com.epam.reportportal.auth.store.entity.OAuth2RefreshTokenEntity;
+
+import javax.annotation.Nullable;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Storage of encoded tokens behind {@link ReportPortalTokenStore}. Implementation is chosen
+ * with 'rp.auth.token.store.backend' property. Every implementation should pass
+ * TokenStoreBackendConformanceTest
+ *
+ * @author Andrei Varabyeu
+ */
+public interface TokenStoreBackend {
+
+    /**
+     * Saves access token. Token with the same ID is replaced
+     */
+    void saveAccessToken(OAuth2AccessTokenEntity token);
+
+    @Nullable
+    OAuth2AccessTokenEntity findAccessToken(String tokenId);
+
+    /**
+     * @return Found tokens. Unknown IDs are skipped
+     */
+    List<OAuth2AccessTokenEntity> findAccessTokens(Collection<String> tokenIds);
+
+    @Nullable
+    OAuth2AccessTokenEntity findAccessTokenByAuthenticationId(String authenticationId);
+
+    /**
+     * @return ID of access token issued with provided refresh token
+     */
+    @Nullable
+    String findAccessTokenIdByRefreshToken(String refreshToken);
+
+    /**
+     * @return Tokens with encoded token and codec version only
+     */
+    List<OAuth2AccessTokenEntity> findTokensByClientIdAndUserName(String clientId, String userName);
+
+    /**
+     * @return Tokens with encoded token and codec version only
+     */
+    List<OAuth2AccessTokenEntity> findTokensByClientId(String clientId);
+
+    void removeAccessToken(String tokenId);
+
+    /**
+     * Removes access tokens of provided users along with linked refresh tokens
+     *
+     * @param userNames Names of users
+     * @param clientId  Client tokens are issued for. All user tokens are removed if NULL
+     * @return Removed tokens
+     */
+    RevokedTokens removeAccessTokensByUserNames(Collection<String> userNames, @Nullable String clientId);
+
+    /**
+     * Saves refresh token. Token with the same ID is replaced
+     */
+    void saveRefreshToken(OAuth2RefreshTokenEntity token);
+
+    @Nullable
+    OAuth2RefreshTokenEntity findRefreshToken(String tokenId);
+
+    void removeRefreshToken(String tokenId);
+}
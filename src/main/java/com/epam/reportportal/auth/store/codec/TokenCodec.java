@@ -0,0 +1,534 @@
+/*
+ * Copyright 2018 EPAM Systems
+ *
+ *
+ * This file is part of EPAM Report Portal.
+ * https://github.com/reportportal/service-authorization
+ *
+ * Report Portal is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Report Portal is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Report Portal.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.epam.reportportal.auth.store.codec;
+
+import com.epam.reportportal.auth.ReportPortalUser;
+import com.epam.ta.reportportal.database.entity.ProjectRole;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.oauth2.common.DefaultExpiringOAuth2RefreshToken;
+import org.springframework.security.oauth2.common.DefaultOAuth2AccessToken;
+import org.springframework.security.oauth2.common.DefaultOAuth2RefreshToken;
+import org.springframework.security.oauth2.common.ExpiringOAuth2RefreshToken;
+import org.springframework.security.oauth2.common.OAuth2AccessToken;
+import org.springframework.security.oauth2.common.OAuth2RefreshToken;
+import org.springframework.security.oauth2.common.util.SerializationUtils;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+import org.springframework.security.oauth2.provider.OAuth2Request;
+
+import javax.annotation.Nullable;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import static com.epam.reportportal.auth.AuthUtils.deserializeSafely;
+
+/**
+ * Compact binary codec for access tokens, refresh tokens and {@link OAuth2Authentication}s
+ * stored in token collections. Replaces Java serialization.
+ * <p>
+ * Each blob starts with {@link #MAGIC} byte, version of format and type of encoded object.
+ * Every field is written explicitly, values of unknown types (e.g. custom extensions)
+ * fall back to Java serialization. Version {@link #JAVA_SERIALIZATION} (or absent version) stands for legacy blobs
+ * written with Java serialization
+ *
+ * @author Andrei Varabyeu
+ */
+public final class TokenCodec {
+
+    /**
+     * Legacy format. Objects are stored with Java serialization
+     */
+    public static final int JAVA_SERIALIZATION = 0;
+
+    /**
+     * Version of format written by this codec
+     */
+    public static final int CURRENT_VERSION = 1;
+
+    private static final byte MAGIC = 'R';
+
+    private static final byte TYPE_ACCESS_TOKEN = 'A';
+    private static final byte TYPE_REFRESH_TOKEN = 'R';
+    private static final byte TYPE_AUTHENTICATION = 'U';
+
+    private static final byte REFRESH_NONE = 0;
+    private static final byte REFRESH_PLAIN = 1;
+    private static final byte REFRESH_EXPIRING = 2;
+
+    private static final byte USER_AUTH_NONE = 0;
+    private static final byte USER_AUTH_PASSWORD_TOKEN = 1;
+    private static final byte USER_AUTH_SERIALIZED = 2;
+
+    /* principal kinds do not intersect with value types, principals of other types are written as plain values */
+    private static final byte PRINCIPAL_USER = 16;
+    private static final byte PRINCIPAL_RP_USER = 17;
+
+    private static final byte VALUE_NULL = 0;
+    private static final byte VALUE_STRING = 1;
+    private static final byte VALUE_BOOLEAN = 2;
+    private static final byte VALUE_INTEGER = 3;
+    private static final byte VALUE_LONG = 4;
+    private static final byte VALUE_MAP = 5;
+    private static final byte VALUE_LIST = 6;
+    private static final byte VALUE_SERIALIZED = 7;
+
+    private static final long NO_EXPIRATION = -1L;
+
+    private TokenCodec() {
+        //statics only
+    }
+
+    public static byte[] encodeAccessToken(OAuth2AccessToken token) {
+        return encode(TYPE_ACCESS_TOKEN, out -> {
+            writeString(out, token.getValue());
+            writeString(out, token.getTokenType());
+            writeDate(out, token.getExpiration());
+            writeRefreshToken(out, token.getRefreshToken());
+            writeStrings(out, token.getScope());
+            writeValue(out, token.getAdditionalInformation());
+        });
+    }
+
+    public static OAuth2AccessToken decodeAccessToken(@Nullable Integer codecVersion, byte[] data) {
+        if (isLegacy(codecVersion)) {
+            return deserializeSafely(data, null);
+        }
+        return decode(TYPE_ACCESS_TOKEN, data, in -> {
+            DefaultOAuth2AccessToken token = new DefaultOAuth2AccessToken(readString(in));
+            token.setTokenType(readString(in));
+            token.setExpiration(readDate(in));
+            token.setRefreshToken(readRefreshToken(in));
+            token.setScope(readStrings(in));
+            Map<String, Object> additionalInformation = readMap(in);
+            if (null != additionalInformation) {
+                token.setAdditionalInformation(additionalInformation);
+            }
+            return token;
+        });
+    }
+
+    public static byte[] encodeRefreshToken(OAuth2RefreshToken token) {
+        return encode(TYPE_REFRESH_TOKEN, out -> writeRefreshToken(out, token));
+    }
+
+    public static OAuth2RefreshToken decodeRefreshToken(@Nullable Integer codecVersion, byte[] data) {
+        if (isLegacy(codecVersion)) {
+            return deserializeSafely(data, null);
+        }
+        return decode(TYPE_REFRESH_TOKEN, data, TokenCodec::readRefreshToken);
+    }
+
+    public static byte[] encodeAuthentication(OAuth2Authentication authentication) {
+        return encode(TYPE_AUTHENTICATION, out -> {
+            writeRequest(out, authentication.getOAuth2Request());
+            writeUserAuthentication(out, authentication.getUserAuthentication());
+        });
+    }
+
+    /**
+     * Decodes {@link OAuth2Authentication}
+     *
+     * @param codecVersion     Version of codec data has been encoded with
+     * @param data             Encoded data
+     * @param mismatchCallback Executed in case legacy blob has been recovered after serialVersionUID mismatch.
+     *                         See {@link com.epam.reportportal.auth.AuthUtils#deserializeSafely(byte[], Consumer)}
+     * @return Decoded authentication
+     */
+    public static OAuth2Authentication decodeAuthentication(@Nullable Integer codecVersion, byte[] data,
+            @Nullable Consumer<OAuth2Authentication> mismatchCallback) {
+        if (isLegacy(codecVersion)) {
+            return deserializeSafely(data, mismatchCallback);
+        }
+        return decode(TYPE_AUTHENTICATION, data, in -> new OAuth2Authentication(readRequest(in), readUserAuthentication(in)));
+    }
+
+    private static boolean isLegacy(@Nullable Integer codecVersion) {
+        return null == codecVersion || JAVA_SERIALIZATION == codecVersion;
+    }
+
+    private static byte[] encode(byte type, Writer writer) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(MAGIC);
+            out.writeByte(CURRENT_VERSION);
+            out.writeByte(type);
+            writer.write(out);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Unable to encode token", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static <T> T decode(byte type, byte[] data, Reader<T> reader) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            if (MAGIC != in.readByte()) {
+                throw new IllegalArgumentException("Unknown token format");
+            }
+            byte version = in.readByte();
+            if (CURRENT_VERSION != version) {
+                throw new IllegalArgumentException("Unsupported token codec version: " + version);
+            }
+            if (type != in.readByte()) {
+                throw new IllegalArgumentException("Unexpected type of encoded object");
+            }
+            return reader.read(in);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Unable to decode token", e);
+        }
+    }
+
+    private static void writeRefreshToken(DataOutputStream out, OAuth2RefreshToken token) throws IOException {
+        if (null == token) {
+            out.writeByte(REFRESH_NONE);
+        } else if (token instanceof ExpiringOAuth2RefreshToken) {
+            out.writeByte(REFRESH_EXPIRING);
+            writeString(out, token.getValue());
+            writeDate(out, ((ExpiringOAuth2RefreshToken) token).getExpiration());
+        } else {
+            out.writeByte(REFRESH_PLAIN);
+            writeString(out, token.getValue());
+        }
+    }
+
+    private static OAuth2RefreshToken readRefreshToken(DataInputStream in) throws IOException {
+        byte kind = in.readByte();
+        switch (kind) {
+        case REFRESH_NONE:
+            return null;
+        case REFRESH_PLAIN:
+            return new DefaultOAuth2RefreshToken(readString(in));
+        case REFRESH_EXPIRING:
+            return new DefaultExpiringOAuth2RefreshToken(readString(in), readDate(in));
+        default:
+            throw new IllegalArgumentException("Unknown refresh token kind: " + kind);
+        }
+    }
+
+    private static void writeRequest(DataOutputStream out, OAuth2Request request) throws IOException {
+        writeString(out, request.getClientId());
+        writeValue(out, request.getRequestParameters());
+        writeStrings(out, request.getScope());
+        writeAuthorities(out, request.getAuthorities());
+        out.writeBoolean(request.isApproved());
+        writeStrings(out, request.getResourceIds());
+        writeString(out, request.getRedirectUri());
+        writeStrings(out, request.getResponseTypes());
+        writeValue(out, request.getExtensions());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static OAuth2Request readRequest(DataInputStream in) throws IOException {
+        String clientId = readString(in);
+        Map<String, String> parameters = (Map<String, String>) readValue(in);
+        Set<String> scope = readStrings(in);
+        List<GrantedAuthority> authorities = readAuthorities(in);
+        boolean approved = in.readBoolean();
+        Set<String> resourceIds = readStrings(in);
+        String redirectUri = readString(in);
+        Set<String> responseTypes = readStrings(in);
+        Map<String, Serializable> extensions = (Map<String, Serializable>) readValue(in);
+        return new OAuth2Request(parameters, clientId, authorities, approved, scope, resourceIds, redirectUri, responseTypes,
+                extensions);
+    }
+
+    private static void writeUserAuthentication(DataOutputStream out, Authentication authentication) throws IOException {
+        if (null == authentication) {
+            out.writeByte(USER_AUTH_NONE);
+        } else if (UsernamePasswordAuthenticationToken.class.equals(authentication.getClass())) {
+            out.writeByte(USER_AUTH_PASSWORD_TOKEN);
+            out.writeBoolean(authentication.isAuthenticated());
+            writePrincipal(out, authentication.getPrincipal());
+            writeValue(out, authentication.getCredentials());
+            writeAuthorities(out, authentication.getAuthorities());
+            writeValue(out, authentication.getDetails());
+        } else {
+            out.writeByte(USER_AUTH_SERIALIZED);
+            writeBytes(out, SerializationUtils.serialize(authentication));
+        }
+    }
+
+    private static Authentication readUserAuthentication(DataInputStream in) throws IOException {
+        byte kind = in.readByte();
+        switch (kind) {
+        case USER_AUTH_NONE:
+            return null;
+        case USER_AUTH_PASSWORD_TOKEN:
+            boolean authenticated = in.readBoolean();
+            Object principal = readPrincipal(in);
+            Object credentials = readValue(in);
+            List<GrantedAuthority> authorities = readAuthorities(in);
+            UsernamePasswordAuthenticationToken token = new UsernamePasswordAuthenticationToken(principal, credentials, authorities);
+            token.setAuthenticated(authenticated);
+            token.setDetails(readValue(in));
+            return token;
+        case USER_AUTH_SERIALIZED:
+            return deserializeSafely(readBytes(in), null);
+        default:
+            throw new IllegalArgumentException("Unknown user authentication kind: " + kind);
+        }
+    }
+
+    private static void writePrincipal(DataOutputStream out, Object principal) throws IOException {
+        if (null != principal && ReportPortalUser.class.equals(principal.getClass())) {
+            ReportPortalUser user = (ReportPortalUser) principal;
+            out.writeByte(PRINCIPAL_RP_USER);
+            writeUserFields(out, user);
+            out.writeInt(user.getProjectRoles().size());
+            for (Map.Entry<String, ProjectRole> role : user.getProjectRoles().entrySet()) {
+                writeString(out, role.getKey());
+                writeString(out, role.getValue().name());
+            }
+        } else if (null != principal && User.class.equals(principal.getClass())) {
+            out.writeByte(PRINCIPAL_USER);
+            writeUserFields(out, (User) principal);
+        } else {
+            writeValue(out, principal);
+        }
+    }
+
+    private static Object readPrincipal(DataInputStream in) throws IOException {
+        byte kind = in.readByte();
+        switch (kind) {
+        case PRINCIPAL_USER:
+            return readUser(in);
+        case PRINCIPAL_RP_USER:
+            User user = readUser(in);
+            int rolesCount = in.readInt();
+            Map<String, ProjectRole> projectRoles = new LinkedHashMap<>(rolesCount);
+            for (int i = 0; i < rolesCount; i++) {
+                projectRoles.put(readString(in), ProjectRole.valueOf(readString(in)));
+            }
+            ReportPortalUser rpUser = new ReportPortalUser(user.getUsername(), null == user.getPassword() ? "" : user.getPassword(),
+                    user.getAuthorities(), projectRoles);
+            if (null == user.getPassword()) {
+                rpUser.eraseCredentials();
+            }
+            return rpUser;
+        default:
+            return readValue(kind, in);
+        }
+    }
+
+    private static void writeUserFields(DataOutputStream out, User user) throws IOException {
+        writeString(out, user.getUsername());
+        writeString(out, user.getPassword());
+        out.writeBoolean(user.isEnabled());
+        out.writeBoolean(user.isAccountNonExpired());
+        out.writeBoolean(user.isCredentialsNonExpired());
+        out.writeBoolean(user.isAccountNonLocked());
+        writeAuthorities(out, user.getAuthorities());
+    }
+
+    private static User readUser(DataInputStream in) throws IOException {
+        String username = readString(in);
+        String password = readString(in);
+        //@formatter:off
+        User user = new User(username, null == password ? "" : password, in.readBoolean(), in.readBoolean(), in.readBoolean(),
+                in.readBoolean(), readAuthorities(in));
+        //@formatter:on
+        if (null == password) {
+            // credentials were erased before storing
+            user.eraseCredentials();
+        }
+        return user;
+    }
+
+    private static void writeAuthorities(DataOutputStream out, Collection<? extends GrantedAuthority> authorities) throws IOException {
+        out.writeInt(authorities.size());
+        for (GrantedAuthority authority : authorities) {
+            writeString(out, authority.getAuthority());
+        }
+    }
+
+    private static List<GrantedAuthority> readAuthorities(DataInputStream in) throws IOException {
+        int size = in.readInt();
+        List<GrantedAuthority> authorities = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            authorities.add(new SimpleGrantedAuthority(readString(in)));
+        }
+        return authorities;
+    }
+
+    private static void writeValue(DataOutputStream out, Object value) throws IOException {
+        if (null == value) {
+            out.writeByte(VALUE_NULL);
+        } else if (value instanceof String) {
+            out.writeByte(VALUE_STRING);
+            writeString(out, (String) value);
+        } else if (value instanceof Boolean) {
+            out.writeByte(VALUE_BOOLEAN);
+            out.writeBoolean((Boolean) value);
+        } else if (value instanceof Integer) {
+            out.writeByte(VALUE_INTEGER);
+            out.writeInt((Integer) value);
+        } else if (value instanceof Long) {
+            out.writeByte(VALUE_LONG);
+            out.writeLong((Long) value);
+        } else if (value instanceof Map && ((Map<?, ?>) value).keySet().stream().allMatch(String.class::isInstance)) {
+            Map<?, ?> map = (Map<?, ?>) value;
+            out.writeByte(VALUE_MAP);
+            out.writeInt(map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                writeString(out, (String) entry.getKey());
+                writeValue(out, entry.getValue());
+            }
+        } else if (value instanceof List) {
+            List<?> list = (List<?>) value;
+            out.writeByte(VALUE_LIST);
+            out.writeInt(list.size());
+            for (Object item : list) {
+                writeValue(out, item);
+            }
+        } else {
+            out.writeByte(VALUE_SERIALIZED);
+            writeBytes(out, SerializationUtils.serialize(value));
+        }
+    }
+
+    private static Object readValue(DataInputStream in) throws IOException {
+        return readValue(in.readByte(), in);
+    }
+
+    private static Object readValue(byte kind, DataInputStream in) throws IOException {
+        switch (kind) {
+        case VALUE_NULL:
+            return null;
+        case VALUE_STRING:
+            return readString(in);
+        case VALUE_BOOLEAN:
+            return in.readBoolean();
+        case VALUE_INTEGER:
+            return in.readInt();
+        case VALUE_LONG:
+            return in.readLong();
+        case VALUE_MAP:
+            int mapSize = in.readInt();
+            Map<String, Object> map = new LinkedHashMap<>(mapSize);
+            for (int i = 0; i < mapSize; i++) {
+                map.put(readString(in), readValue(in));
+            }
+            return map;
+        case VALUE_LIST:
+            int listSize = in.readInt();
+            List<Object> list = new ArrayList<>(listSize);
+            for (int i = 0; i < listSize; i++) {
+                list.add(readValue(in));
+            }
+            return list;
+        case VALUE_SERIALIZED:
+            return deserializeSafely(readBytes(in), null);
+        default:
+            throw new IllegalArgumentException("Unknown value type: " + kind);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> readMap(DataInputStream in) throws IOException {
+        return (Map<String, Object>) readValue(in);
+    }
+
+    private static void writeStrings(DataOutputStream out, Collection<String> strings) throws IOException {
+        if (null == strings) {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(strings.size());
+        for (String s : strings) {
+            writeString(out, s);
+        }
+    }
+
+    private static Set<String> readStrings(DataInputStream in) throws IOException {
+        int size = in.readInt();
+        if (size < 0) {
+            return null;
+        }
+        Set<String> strings = new LinkedHashSet<>(size);
+        for (int i = 0; i < size; i++) {
+            strings.add(readString(in));
+        }
+        return strings;
+    }
+
+    private static void writeDate(DataOutputStream out, Date date) throws IOException {
+        out.writeLong(null == date ? NO_EXPIRATION : date.getTime());
+    }
+
+    private static Date readDate(DataInputStream in) throws IOException {
+        long time = in.readLong();
+        return NO_EXPIRATION == time ? null : new Date(time);
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        writeBytes(out, null == s ? null : s.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = readBytes(in);
+        return null == bytes ? null : new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+        if (null == bytes) {
+            out.writeInt(-1);
+        } else {
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private static byte[] readBytes(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return bytes;
+    }
+
+    @FunctionalInterface
+    private interface Writer {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface Reader<T> {
+        T read(DataInputStream in) throws IOException;
+    }
+}
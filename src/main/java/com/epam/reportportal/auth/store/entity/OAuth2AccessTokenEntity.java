@@ -21,26 +21,48 @@
 package com.epam.reportportal.auth.store.entity;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
+import java.util.Date;
+
 /**
+ * Indexes are verified on startup by {@link com.epam.reportportal.auth.store.TokenIndexesInitializer}.
+ * Keep both in sync
+ *
  * @author Andrei Varabyeu
  */
 @Document(collection = "oauth_access_token")
+@CompoundIndex(name = "client_user", def = "{'clientId': 1, 'userName': 1}")
 public class OAuth2AccessTokenEntity {
 
     @Id
     private String tokenId;
     private byte[] token;
+    @Indexed
     private String authenticationId;
     @Indexed
     private String userName;
-    @Indexed
+    /* lookups by client are served by 'client_user' compound index */
     private String clientId;
     private byte[] authentication;
+    @Indexed
     private String refreshToken;
 
+    /**
+     * Expiration time of token. Expired tokens are removed by TTL index.
+     * Absent for legacy tokens which are not yet processed by {@link com.epam.reportportal.auth.store.ExpiredTokenReaper}
+     */
+    @Indexed(expireAfterSeconds = 0)
+    private Date expiresAt;
+
+    /**
+     * Version of {@link com.epam.reportportal.auth.store.codec.TokenCodec} token and authentication
+     * are encoded with. Absent for legacy Java-serialized tokens
+     */
+    private Integer codecVersion;
+
     public String getTokenId() {
         return tokenId;
     }
@@ -96,4 +118,20 @@ public class OAuth2AccessTokenEntity {
     public void setRefreshToken(String refreshToken) {
         this.refreshToken = refreshToken;
     }
+
+    public Date getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(Date expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
+    public Integer getCodecVersion() {
+        return codecVersion;
+    }
+
+    public void setCodecVersion(Integer codecVersion) {
+        this.codecVersion = codecVersion;
+    }
 }
\ No newline at end of file
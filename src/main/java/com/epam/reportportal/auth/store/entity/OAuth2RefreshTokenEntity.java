@@ -21,8 +21,11 @@
 package com.epam.reportportal.auth.store.entity;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
+import java.util.Date;
+
 /**
  * @author Andrei Varabyeu
  */
@@ -35,6 +38,19 @@ public class OAuth2RefreshTokenEntity {
     private byte[] oAuth2RefreshToken;
     private byte[] authentication;
 
+    /**
+     * Expiration time of token. Expired tokens are removed by TTL index.
+     * Absent for legacy tokens which are not yet processed by {@link com.epam.reportportal.auth.store.ExpiredTokenReaper}
+     */
+    @Indexed(expireAfterSeconds = 0)
+    private Date expiresAt;
+
+    /**
+     * Version of {@link com.epam.reportportal.auth.store.codec.TokenCodec} token and authentication
+     * are encoded with. Absent for legacy Java-serialized tokens
+     */
+    private Integer codecVersion;
+
     public String getTokenId() {
         return tokenId;
     }
@@ -58,4 +74,20 @@ public class OAuth2RefreshTokenEntity {
     public void setAuthentication(byte[] authentication) {
         this.authentication = authentication;
     }
+
+    public Date getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(Date expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
+    public Integer getCodecVersion() {
+        return codecVersion;
+    }
+
+    public void setCodecVersion(Integer codecVersion) {
+        this.codecVersion = codecVersion;
+    }
 }
\ No newline at end of file
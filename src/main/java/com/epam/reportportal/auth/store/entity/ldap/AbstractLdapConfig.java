@@ -24,8 +24,11 @@ import com.epam.reportportal.auth.store.entity.AbstractAuthConfig;
 import com.epam.reportportal.auth.validation.IfEnabled;
 import org.hibernate.validator.constraints.NotEmpty;
 
+import javax.validation.Valid;
+import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Pattern;
+import java.util.List;
 
 /**
  * General properties for both LDAP and AD authentication types
@@ -38,11 +41,49 @@ public class AbstractLdapConfig extends AbstractAuthConfig {
 	@NotEmpty(groups = { IfEnabled.class })
 	private String url;
 
+	/**
+	 * Servers tried when server under 'url' is unavailable or slow. Healthiest server is asked first
+	 */
+	private List<String> failoverUrls;
+
+	/**
+	 * Millis to wait for response of a server before the same request is sent to next one. Not set disables hedging
+	 */
+	@Min(1)
+	private Long hedgeDelay;
+
+	/**
+	 * Millis to wait for connection to a server
+	 */
+	@Min(1)
+	private Long connectTimeout;
+
+	/**
+	 * Millis to wait for response of a server
+	 */
+	@Min(1)
+	private Long readTimeout;
+
+	/**
+	 * Failed logins in a row after which directory is not asked for a while
+	 */
+	@Min(1)
+	private Integer circuitBreakerThreshold;
+
+	/**
+	 * Millis directory is not asked after it has failed
+	 */
+	@Min(1)
+	private Long circuitBreakerOpenTime;
+
 	@NotNull(groups = { IfEnabled.class })
 	private String baseDn;
 
 	private SynchronizationAttributes synchronizationAttributes;
 
+	@Valid
+	private ConnectionPoolConfig connectionPool;
+
 	public String getUrl() {
 		return url;
 	}
@@ -51,6 +92,54 @@ public class AbstractLdapConfig extends AbstractAuthConfig {
 		this.url = url;
 	}
 
+	public List<String> getFailoverUrls() {
+		return failoverUrls;
+	}
+
+	public void setFailoverUrls(List<String> failoverUrls) {
+		this.failoverUrls = failoverUrls;
+	}
+
+	public Long getHedgeDelay() {
+		return hedgeDelay;
+	}
+
+	public void setHedgeDelay(Long hedgeDelay) {
+		this.hedgeDelay = hedgeDelay;
+	}
+
+	public Long getConnectTimeout() {
+		return connectTimeout;
+	}
+
+	public void setConnectTimeout(Long connectTimeout) {
+		this.connectTimeout = connectTimeout;
+	}
+
+	public Long getReadTimeout() {
+		return readTimeout;
+	}
+
+	public void setReadTimeout(Long readTimeout) {
+		this.readTimeout = readTimeout;
+	}
+
+	public Integer getCircuitBreakerThreshold() {
+		return circuitBreakerThreshold;
+	}
+
+	public void setCircuitBreakerThreshold(Integer circuitBreakerThreshold) {
+		this.circuitBreakerThreshold = circuitBreakerThreshold;
+	}
+
+	public Long getCircuitBreakerOpenTime() {
+		return circuitBreakerOpenTime;
+	}
+
+	public void setCircuitBreakerOpenTime(Long circuitBreakerOpenTime) {
+		this.circuitBreakerOpenTime = circuitBreakerOpenTime;
+	}
+
 	public String getBaseDn() {
 		return baseDn;
 	}
@@ -66,4 +155,12 @@ public class AbstractLdapConfig extends AbstractAuthConfig {
 	public void setSynchronizationAttributes(SynchronizationAttributes synchronizationAttributes) {
 		this.synchronizationAttributes = synchronizationAttributes;
 	}
+
+	public ConnectionPoolConfig getConnectionPool() {
+		return connectionPool;
+	}
+
+	public void setConnectionPool(ConnectionPoolConfig connectionPool) {
+		this.connectionPool = connectionPool;
+	}
 }
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2018 EPAM Systems
+ *
+ *
+ * This file is part of EPAM Report Portal.
+ * https://github.com/reportportal/service-authorization
+ *
+ * Report Portal is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Report Portal is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Report Portal.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.epam.reportportal.auth.store.entity.ldap;
+
+import javax.validation.constraints.Min;
+
+/**
+ * Settings of connections pool used for directory searches performed with manager's credentials.
+ * User binds always open separate connection. Values which are not specified are taken from
+ * defaults of commons-pool
+ *
+ * @author Andrei Varabyeu
+ */
+public class ConnectionPoolConfig {
+
+	private Boolean enabled;
+
+	@Min(0)
+	private Integer minIdle;
+
+	@Min(0)
+	private Integer maxIdle;
+
+	@Min(1)
+	private Integer maxActive;
+
+	/**
+	 * Millis to wait for free connection. Negative value means wait indefinitely
+	 */
+	private Long maxWait;
+
+	private Boolean testOnBorrow;
+
+	private Boolean testWhileIdle;
+
+	/**
+	 * Millis between runs of idle connections evictor. Non-positive value disables evictor
+	 */
+	private Long timeBetweenEvictionRuns;
+
+	/**
+	 * Millis connection may stay idle before it is evicted
+	 */
+	@Min(0)
+	private Long minEvictableIdleTime;
+
+	public Boolean isEnabled() {
+		return enabled;
+	}
+
+	public void setEnabled(Boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	public Integer getMinIdle() {
+		return minIdle;
+	}
+
+	public void setMinIdle(Integer minIdle) {
+		this.minIdle = minIdle;
+	}
+
+	public Integer getMaxIdle() {
+		return maxIdle;
+	}
+
+	public void setMaxIdle(Integer maxIdle) {
+		this.maxIdle = maxIdle;
+	}
+
+	public Integer getMaxActive() {
+		return maxActive;
+	}
+
+	public void setMaxActive(Integer maxActive) {
+		this.maxActive = maxActive;
+	}
+
+	public Long getMaxWait() {
+		return maxWait;
+	}
+
+	public void setMaxWait(Long maxWait) {
+		this.maxWait = maxWait;
+	}
+
+	public Boolean getTestOnBorrow() {
+		return testOnBorrow;
+	}
+
+	public void setTestOnBorrow(Boolean testOnBorrow) {
+		this.testOnBorrow = testOnBorrow;
+	}
+
+	public Boolean getTestWhileIdle() {
+		return testWhileIdle;
+	}
+
+	public void setTestWhileIdle(Boolean testWhileIdle) {
+		this.testWhileIdle = testWhileIdle;
+	}
+
+	public Long getTimeBetweenEvictionRuns() {
+		return timeBetweenEvictionRuns;
+	}
+
+	public void setTimeBetweenEvictionRuns(Long timeBetweenEvictionRuns) {
+		this.timeBetweenEvictionRuns = timeBetweenEvictionRuns;
+	}
+
+	public Long getMinEvictableIdleTime() {
+		return minEvictableIdleTime;
+	}
+
+	public void setMinEvictableIdleTime(Long minEvictableIdleTime) {
+		this.minEvictableIdleTime = minEvictableIdleTime;
+	}
+}
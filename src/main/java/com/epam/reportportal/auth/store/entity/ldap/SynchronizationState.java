@@ -0,0 +1,77 @@
+/*
+ * Copyright 2018 EPAM Systems
+ *
+ *
+ * This file is part of EPAM Report Portal.
+ * https://github.com/reportportal/service-authorization
+ *
+ * Report Portal is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Report Portal is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Report Portal.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.epam.reportportal.auth.store.entity.ldap;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+
+/**
+ * Progress of directory synchronization. Kept per directory server so synchronization
+ * continues from the place where previous run (possibly on another node) has finished
+ *
+ * @author Andrei Varabyeu
+ */
+@Document(collection = "directorySynchronization")
+public class SynchronizationState {
+
+	/**
+	 * URL and base DN of server state belongs to. Change markers differ from server to server,
+	 * so synchronization with another server starts from its own state
+	 */
+	@Id
+	private String id;
+
+	/**
+	 * Greatest value of change marker attribute among synchronized entries
+	 */
+	private String highWaterMark;
+
+	/**
+	 * Start of last run which has synchronized all changes
+	 */
+	private Date lastSuccess;
+
+	public String getId() {
+		return id;
+	}
+
+	public void setId(String id) {
+		this.id = id;
+	}
+
+	public String getHighWaterMark() {
+		return highWaterMark;
+	}
+
+	public void setHighWaterMark(String highWaterMark) {
+		this.highWaterMark = highWaterMark;
+	}
+
+	public Date getLastSuccess() {
+		return lastSuccess;
+	}
+
+	public void setLastSuccess(Date lastSuccess) {
+		this.lastSuccess = lastSuccess;
+	}
+}
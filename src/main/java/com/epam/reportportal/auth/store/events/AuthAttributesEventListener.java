@@ -44,8 +44,12 @@ public class AuthAttributesEventListener extends AbstractMongoEventListener<Auth
 	private static final Logger LOGGER = LoggerFactory.getLogger(AuthAttributesEventListener.class);
 	private static final String MANAGER_PASSWORD_FIELD = "managerPassword";
 
+	private final Encryptor encryptor;
+
 	@Autowired
-	private Encryptor encryptor;
+	public AuthAttributesEventListener(Encryptor encryptor) {
+		this.encryptor = encryptor;
+	}
 
 	@Override
 	public void onApplicationEvent(MongoMappingEvent<?> event) {
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2017 EPAM Systems
+ *
+ *
+ * This file is part of EPAM Report Portal.
+ * https://github.com/reportportal/service-authorization
+ *
+ * Report Portal is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Report Portal is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Report Portal.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.epam.reportportal.auth.store.jwt;
+
+import com.google.common.collect.ImmutableSet;
+import org.springframework.security.oauth2.common.DefaultOAuth2AccessToken;
+import org.springframework.security.oauth2.common.OAuth2AccessToken;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+import org.springframework.security.oauth2.provider.token.TokenEnhancer;
+import org.springframework.security.oauth2.provider.token.store.JwtAccessTokenConverter;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Converts tokens of provided clients to signed self-contained ones.
+ * Tokens of other clients are left as is
+ *
+ * @author Andrei Varabyeu
+ */
+public class ClientJwtTokenEnhancer implements TokenEnhancer {
+
+    /**
+     * Issue time in seconds
+     */
+    static final String ISSUED_AT = "iat";
+
+    /**
+     * Issue time in millis. Used to check whether token is issued before all user tokens are revoked.
+     * Standard claim is too coarse for that: token issued right after revocation looks issued before it
+     */
+    static final String ISSUED_AT_MILLIS = "iat_ms";
+
+    private final Set<String> clients;
+    private final JwtAccessTokenConverter converter;
+
+    public ClientJwtTokenEnhancer(Collection<String> clients, JwtAccessTokenConverter converter) {
+        this.clients = ImmutableSet.copyOf(clients);
+        this.converter = converter;
+    }
+
+    @Override
+    public OAuth2AccessToken enhance(OAuth2AccessToken accessToken, OAuth2Authentication authentication) {
+        if (!clients.contains(authentication.getOAuth2Request().getClientId())) {
+            return accessToken;
+        }
+        DefaultOAuth2AccessToken token = new DefaultOAuth2AccessToken(accessToken);
+        Map<String, Object> info = new LinkedHashMap<>(accessToken.getAdditionalInformation());
+        long now = System.currentTimeMillis();
+        info.put(ISSUED_AT, TimeUnit.MILLISECONDS.toSeconds(now));
+        info.put(ISSUED_AT_MILLIS, now);
+        token.setAdditionalInformation(info);
+        return converter.enhance(token, authentication);
+    }
+}
@@ -0,0 +1,260 @@
+/*
+ * Copyright 2017 EPAM Systems
+ *
+ *
+ * This file is part of EPAM Report Portal.
+ * https://github.com/reportportal/service-authorization
+ *
+ * Report Portal is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Report Portal is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Report Portal.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.epam.reportportal.auth.store.jwt;
+
+import com.epam.reportportal.auth.store.AccessTokenCache;
+import com.epam.reportportal.auth.store.BatchTokenReader;
+import com.google.common.collect.ImmutableSet;
+import org.springframework.security.jwt.JwtHelper;
+import org.springframework.security.oauth2.common.ExpiringOAuth2RefreshToken;
+import org.springframework.security.oauth2.common.OAuth2AccessToken;
+import org.springframework.security.oauth2.common.OAuth2RefreshToken;
+import org.springframework.security.oauth2.common.exceptions.InvalidTokenException;
+import org.springframework.security.oauth2.common.util.JsonParser;
+import org.springframework.security.oauth2.common.util.JsonParserFactory;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+import org.springframework.security.oauth2.provider.token.AccessTokenConverter;
+import org.springframework.security.oauth2.provider.token.TokenStore;
+import org.springframework.security.oauth2.provider.token.UserAuthenticationConverter;
+import org.springframework.security.oauth2.provider.token.store.JwtAccessTokenConverter;
+import org.springframework.security.oauth2.provider.token.store.JwtTokenStore;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Token store for mixed token types. Signed self-contained tokens are verified and decoded
+ * without DB lookup, so they are not stored at all. The rest of tokens is delegated to
+ * persistent token store. Self-contained tokens are checked against revoked ones
+ *
+ * @author Andrei Varabyeu
+ */
+public class HybridTokenStore implements TokenStore, BatchTokenReader {
+
+    private final TokenStore tokenStore;
+    private final JwtTokenStore jwtTokenStore;
+    private final RevokedJwtRegistry revokedRegistry;
+    private final Set<String> jwtClients;
+    private final JsonParser jsonParser = JsonParserFactory.create();
+
+    /**
+     * @param tokenStore      Persistent token store
+     * @param converter       Converter of self-contained tokens
+     * @param revokedRegistry Registry of revoked self-contained tokens
+     * @param jwtClients      Clients which are issued self-contained tokens
+     */
+    public HybridTokenStore(TokenStore tokenStore, JwtAccessTokenConverter converter, RevokedJwtRegistry revokedRegistry,
+            Collection<String> jwtClients) {
+        this.tokenStore = tokenStore;
+        this.jwtTokenStore = new JwtTokenStore(converter);
+        this.revokedRegistry = revokedRegistry;
+        this.jwtClients = ImmutableSet.copyOf(jwtClients);
+    }
+
+    /**
+     * Signed token consists of three dot-separated parts, while persistent tokens are UUIDs
+     */
+    static boolean isJwt(String tokenValue) {
+        return null != tokenValue && tokenValue.indexOf('.') > 0 && tokenValue.indexOf('.') != tokenValue.lastIndexOf('.');
+    }
+
+    @Override
+    public OAuth2Authentication readAuthentication(OAuth2AccessToken token) {
+        return readAuthentication(token.getValue());
+    }
+
+    @Override
+    public OAuth2Authentication readAuthentication(String token) {
+        if (isJwt(token)) {
+            return isRevoked(token) ? null : jwtTokenStore.readAuthentication(token);
+        }
+        return tokenStore.readAuthentication(token);
+    }
+
+    @Override
+    public void storeAccessToken(OAuth2AccessToken token, OAuth2Authentication authentication) {
+        if (!isJwt(token.getValue())) {
+            tokenStore.storeAccessToken(token, authentication);
+        }
+    }
+
+    @Override
+    public OAuth2AccessToken readAccessToken(String tokenValue) {
+        if (isJwt(tokenValue)) {
+            return isRevoked(tokenValue) ? null : jwtTokenStore.readAccessToken(tokenValue);
+        }
+        return tokenStore.readAccessToken(tokenValue);
+    }
+
+    @Override
+    public void removeAccessToken(OAuth2AccessToken token) {
+        if (isJwt(token.getValue())) {
+            /* expired tokens are rejected anyway */
+            if (!token.isExpired()) {
+                revokedRegistry.revokeToken((String) token.getAdditionalInformation().get(AccessTokenConverter.JTI), token.getExpiration());
+            }
+        } else {
+            tokenStore.removeAccessToken(token);
+        }
+    }
+
+    @Override
+    public void storeRefreshToken(OAuth2RefreshToken refreshToken, OAuth2Authentication authentication) {
+        if (!isJwt(refreshToken.getValue())) {
+            tokenStore.storeRefreshToken(refreshToken, authentication);
+        }
+    }
+
+    @Override
+    public OAuth2RefreshToken readRefreshToken(String tokenValue) {
+        if (isJwt(tokenValue)) {
+            return isRevoked(tokenValue) ? null : jwtTokenStore.readRefreshToken(tokenValue);
+        }
+        return tokenStore.readRefreshToken(tokenValue);
+    }
+
+    @Override
+    public OAuth2Authentication readAuthenticationForRefreshToken(OAuth2RefreshToken token) {
+        return isJwt(token.getValue()) ?
+                jwtTokenStore.readAuthenticationForRefreshToken(token) :
+                tokenStore.readAuthenticationForRefreshToken(token);
+    }
+
+    @Override
+    public void removeRefreshToken(OAuth2RefreshToken token) {
+        if (isJwt(token.getValue())) {
+            revokedRegistry.revokeToken((String) readClaims(token.getValue()).get(AccessTokenConverter.JTI),
+                    token instanceof ExpiringOAuth2RefreshToken ? ((ExpiringOAuth2RefreshToken) token).getExpiration() : null);
+        } else {
+            tokenStore.removeRefreshToken(token);
+        }
+    }
+
+    @Override
+    public void removeAccessTokenUsingRefreshToken(OAuth2RefreshToken refreshToken) {
+        /* self-contained access tokens are not linked to refresh ones and live till expiration */
+        if (!isJwt(refreshToken.getValue())) {
+            tokenStore.removeAccessTokenUsingRefreshToken(refreshToken);
+        }
+    }
+
+    @Override
+    public OAuth2AccessToken getAccessToken(OAuth2Authentication authentication) {
+        /* self-contained tokens are not stored, so new one is issued each time */
+        return jwtClients.contains(authentication.getOAuth2Request().getClientId()) ? null : tokenStore.getAccessToken(authentication);
+    }
+
+    @Override
+    public Collection<OAuth2AccessToken> findTokensByClientIdAndUserName(String clientId, String userName) {
+        return jwtClients.contains(clientId) ? Collections.emptyList() : tokenStore.findTokensByClientIdAndUserName(clientId, userName);
+    }
+
+    @Override
+    public Collection<OAuth2AccessToken> findTokensByClientId(String clientId) {
+        return jwtClients.contains(clientId) ? Collections.emptyList() : tokenStore.findTokensByClientId(clientId);
+    }
+
+    /**
+     * Self-contained tokens are decoded in parallel, the rest is delegated to persistent store
+     */
+    @Override
+    public Map<String, AccessTokenCache.CachedToken> readAccessTokens(Collection<String> tokenValues) {
+        Map<Boolean, List<String>> byType = tokenValues.stream().distinct().collect(Collectors.partitioningBy(HybridTokenStore::isJwt));
+
+        Map<String, AccessTokenCache.CachedToken> tokens = new HashMap<>();
+        byType.get(true)
+                .parallelStream()
+                .map(this::decodeQuietly)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList())
+                .forEach(token -> tokens.put(token.getAccessToken().getValue(), token));
+
+        List<String> persistent = byType.get(false);
+        if (!persistent.isEmpty()) {
+            if (tokenStore instanceof BatchTokenReader) {
+                tokens.putAll(((BatchTokenReader) tokenStore).readAccessTokens(persistent));
+            } else {
+                persistent.forEach(tokenValue -> {
+                    OAuth2AccessToken token = tokenStore.readAccessToken(tokenValue);
+                    if (null != token) {
+                        tokens.put(tokenValue, new AccessTokenCache.CachedToken(token, tokenStore.readAuthentication(token)));
+                    }
+                });
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Revokes self-contained tokens of provided users issued till now
+     */
+    public void revokeUserTokens(Collection<String> userNames) {
+        revokedRegistry.revokeUsers(userNames);
+    }
+
+    private AccessTokenCache.CachedToken decodeQuietly(String tokenValue) {
+        try {
+            OAuth2AccessToken token = readAccessToken(tokenValue);
+            return null == token ? null : new AccessTokenCache.CachedToken(token, jwtTokenStore.readAuthentication(tokenValue));
+        } catch (InvalidTokenException e) {
+            return null;
+        }
+    }
+
+    private boolean isRevoked(String tokenValue) {
+        Map<String, Object> claims;
+        try {
+            claims = readClaims(tokenValue);
+        } catch (IllegalArgumentException e) {
+            /* malformed token */
+            return true;
+        }
+        return revokedRegistry.isRevoked((String) claims.get(AccessTokenConverter.JTI),
+                (String) claims.get(UserAuthenticationConverter.USERNAME), issuedAt(claims));
+    }
+
+    /**
+     * @return Issue time in millis. Tokens issued before millisecond claim was added have it truncated to seconds,
+     * so they are treated as revoked if issued within the second of revocation
+     */
+    private static Long issuedAt(Map<String, Object> claims) {
+        Object millis = claims.get(ClientJwtTokenEnhancer.ISSUED_AT_MILLIS);
+        if (millis instanceof Number) {
+            return ((Number) millis).longValue();
+        }
+        Object seconds = claims.get(ClientJwtTokenEnhancer.ISSUED_AT);
+        return seconds instanceof Number ? TimeUnit.SECONDS.toMillis(((Number) seconds).longValue()) : null;
+    }
+
+    /**
+     * Reads claims without signature verification. Verification is up to {@link JwtTokenStore}
+     */
+    private Map<String, Object> readClaims(String tokenValue) {
+        return jsonParser.parseMap(JwtHelper.decode(tokenValue).getClaims());
+    }
+}
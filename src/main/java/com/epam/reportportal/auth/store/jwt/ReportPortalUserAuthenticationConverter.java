@@ -0,0 +1,69 @@
+/*
+ * Copyright 2017 EPAM Systems
+ *
+ *
+ * This file is part of EPAM Report Portal.
+ * https://github.com/reportportal/service-authorization
+ *
+ * Report Portal is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Report Portal is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Report Portal.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.epam.reportportal.auth.store.jwt;
+
+import com.epam.reportportal.auth.ReportPortalUser;
+import com.epam.ta.reportportal.database.entity.ProjectRole;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.provider.token.DefaultUserAuthenticationConverter;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps project roles of {@link ReportPortalUser} in self-contained tokens,
+ * so user can be restored without DB lookup
+ *
+ * @author Andrei Varabyeu
+ */
+public class ReportPortalUserAuthenticationConverter extends DefaultUserAuthenticationConverter {
+
+    static final String PROJECTS = "projects";
+
+    @Override
+    public Map<String, ?> convertUserAuthentication(Authentication authentication) {
+        Map<String, Object> response = new LinkedHashMap<>(super.convertUserAuthentication(authentication));
+        if (authentication.getPrincipal() instanceof ReportPortalUser) {
+            response.put(PROJECTS, ((ReportPortalUser) authentication.getPrincipal()).getProjectRoles()
+                    .entrySet()
+                    .stream()
+                    .collect(Collectors.toMap(Map.Entry::getKey, role -> role.getValue().name())));
+        }
+        return response;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Authentication extractAuthentication(Map<String, ?> map) {
+        Authentication authentication = super.extractAuthentication(map);
+        if (null == authentication || !map.containsKey(PROJECTS)) {
+            return authentication;
+        }
+        Map<String, ProjectRole> projectRoles = ((Map<String, String>) map.get(PROJECTS)).entrySet()
+                .stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, role -> ProjectRole.valueOf(role.getValue())));
+        ReportPortalUser user = new ReportPortalUser(authentication.getName(), "", authentication.getAuthorities(), projectRoles);
+        user.eraseCredentials();
+        return new UsernamePasswordAuthenticationToken(user, "N/A", authentication.getAuthorities());
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2017 EPAM Systems
+ *
+ *
+ * This file is part of EPAM Report Portal.
+ * https://github.com/reportportal/service-authorization
+ *
+ * Report Portal is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Report Portal is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Report Portal.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.epam.reportportal.auth.store.jwt;
+
+import com.epam.reportportal.auth.store.entity.RevokedTokenEntity;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.annotation.Nullable;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * Keeps revoked self-contained tokens. Since such tokens are not stored, revoked ones are
+ * recorded in DB until they expire, so the set stays small and is kept in memory.
+ * Revocations made on other nodes are picked up on periodical reload
+ *
+ * @author Andrei Varabyeu
+ */
+public class RevokedJwtRegistry implements InitializingBean {
+
+    private static final String USER_PREFIX = "user:";
+
+    private final MongoOperations mongoOperations;
+
+    /**
+     * Max lifetime of self-contained tokens. Revocation of all user tokens is kept that long
+     */
+    private final long tokenLifetime;
+
+    private volatile Set<String> revokedTokens = Collections.emptySet();
+    private volatile Map<String, Long> revokedUsers = Collections.emptyMap();
+
+    public RevokedJwtRegistry(MongoOperations mongoOperations, long tokenLifetime) {
+        this.mongoOperations = mongoOperations;
+        this.tokenLifetime = tokenLifetime;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        reload();
+    }
+
+    /**
+     * @param tokenId   ID of token
+     * @param userName  Name of token owner
+     * @param issuedAt  Issue time of token in millis
+     * @return TRUE if token itself or all tokens of its owner issued before given time are revoked
+     */
+    public boolean isRevoked(@Nullable String tokenId, @Nullable String userName, @Nullable Long issuedAt) {
+        if (null != tokenId && revokedTokens.contains(tokenId)) {
+            return true;
+        }
+        Long revokedAt = null == userName ? null : revokedUsers.get(userName);
+        return null != revokedAt && (null == issuedAt || issuedAt <= revokedAt);
+    }
+
+    public synchronized void revokeToken(String tokenId, @Nullable Date expiresAt) {
+        RevokedTokenEntity entity = new RevokedTokenEntity();
+        entity.setId(tokenId);
+        entity.setRevokedAt(new Date());
+        entity.setExpiresAt(null == expiresAt ? new Date(System.currentTimeMillis() + tokenLifetime) : expiresAt);
+        mongoOperations.save(entity);
+
+        Set<String> tokens = new HashSet<>(revokedTokens);
+        tokens.add(tokenId);
+        revokedTokens = tokens;
+    }
+
+    /**
+     * Revokes all tokens of provided users issued till now
+     */
+    public synchronized void revokeUsers(Collection<String> userNames) {
+        if (userNames.isEmpty()) {
+            return;
+        }
+        Date revokedAt = new Date();
+        Date expiresAt = new Date(revokedAt.getTime() + tokenLifetime);
+        BulkOperations bulk = mongoOperations.bulkOps(BulkOperations.BulkMode.UNORDERED, RevokedTokenEntity.class);
+        userNames.forEach(userName -> bulk.upsert(query(where("_id").is(USER_PREFIX + userName)),
+                Update.update("userName", userName).set("revokedAt", revokedAt).set("expiresAt", expiresAt)));
+        bulk.execute();
+
+        Map<String, Long> users = new HashMap<>(revokedUsers);
+        userNames.forEach(userName -> users.put(userName, revokedAt.getTime()));
+        revokedUsers = users;
+    }
+
+    /**
+     * Reloads revocations including ones made on other nodes
+     */
+    @Scheduled(fixedDelayString = "${rp.auth.jwt.revocation.refresh:10000}")
+    public synchronized void reload() {
+        List<RevokedTokenEntity> revoked = mongoOperations.find(query(where("expiresAt").gt(new Date())), RevokedTokenEntity.class);
+        Set<String> tokens = new HashSet<>();
+        Map<String, Long> users = new HashMap<>();
+        revoked.forEach(entity -> {
+            if (null == entity.getUserName()) {
+                tokens.add(entity.getId());
+            } else {
+                users.put(entity.getUserName(), entity.getRevokedAt().getTime());
+            }
+        });
+        revokedTokens = tokens;
+        revokedUsers = users;
+    }
+}
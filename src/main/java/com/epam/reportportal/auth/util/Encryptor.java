@@ -1,20 +1,44 @@
 package com.epam.reportportal.auth.util;
 
-import org.jasypt.util.text.BasicTextEncryptor;
-import org.springframework.beans.factory.InitializingBean;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.jasypt.encryption.pbe.PooledPBEStringEncryptor;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 /**
+ * Encrypts secrets stored in DB. Key of each secret is derived from its own salt, so
+ * decrypted values are remembered by ciphertext to not derive the key on each load of settings
+ *
  * @author Andrei Varabyeu
  */
 @Component
-public class Encryptor implements InitializingBean {
+public class Encryptor {
 
-	@Value("${rp.auth.encryptor.password:reportportal}")
-	private String password;
+	/**
+	 * Algorithm of {@link org.jasypt.util.text.BasicTextEncryptor} secrets have been encrypted with
+	 */
+	private static final String ALGORITHM = "PBEWithMD5AndDES";
+
+	private final PooledPBEStringEncryptor textEncryptor;
+	private final Cache<String, String> decrypted;
 
-	private BasicTextEncryptor textEncryptor;
+	/**
+	 * @param password  Encryption password
+	 * @param cacheSize Max amount of remembered decrypted secrets
+	 */
+	@Autowired
+	public Encryptor(@Value("${rp.auth.encryptor.password:reportportal}") String password,
+			@Value("${rp.auth.encryptor.cache-size:100}") long cacheSize) {
+		this.textEncryptor = new PooledPBEStringEncryptor();
+		this.textEncryptor.setAlgorithm(ALGORITHM);
+		this.textEncryptor.setPassword(password);
+		/* each cipher of pool is locked while in use */
+		this.textEncryptor.setPoolSize(Runtime.getRuntime().availableProcessors());
+		this.textEncryptor.initialize();
+		this.decrypted = CacheBuilder.newBuilder().maximumSize(cacheSize).recordStats().build();
+	}
 
 	/**
 	 * Encrypts string
@@ -33,12 +57,25 @@ public class Encryptor implements InitializingBean {
 	 * @return Decrypted string
 	 */
 	public String decrypt(String str) {
-		return this.textEncryptor.decrypt(str);
+		if (null == str) {
+			return null;
+		}
+		String plain = decrypted.getIfPresent(str);
+		if (null == plain) {
+			plain = this.textEncryptor.decrypt(str);
+			decrypted.put(str, plain);
+		}
+		return plain;
+	}
+
+	/**
+	 * @return Amount of decryptions served from cache
+	 */
+	public long getHits() {
+		return decrypted.stats().hitCount();
 	}
 
-	@Override
-	public void afterPropertiesSet() throws Exception {
-		textEncryptor = new BasicTextEncryptor();
-		textEncryptor.setPassword(password);
+	public long size() {
+		return decrypted.size();
 	}
 }
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2018 EPAM Systems
+ *
+ *
+ * This file is part of EPAM Report Portal.
+ * https://github.com/reportportal/service-authorization
+ *
+ * Report Portal is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Report Portal is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Report Portal.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.epam.reportportal.auth;
+
+import com.epam.reportportal.auth.event.OAuthConfigChangedEvent;
+import com.epam.reportportal.auth.store.AuthConfigHolder;
+import com.epam.reportportal.auth.store.AuthConfigSnapshot;
+import com.epam.reportportal.auth.store.entity.AuthConfigEntity;
+import com.epam.ta.reportportal.database.entity.settings.OAuth2LoginDetails;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.security.oauth2.client.DefaultOAuth2ClientContext;
+import org.springframework.security.oauth2.client.OAuth2RestOperations;
+import org.springframework.security.oauth2.client.resource.OAuth2ProtectedResourceDetails;
+
+import java.util.Collections;
+
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author Andrei Varabyeu
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class AuthConfigServiceTest {
+
+    private static final String GITHUB = "github";
+
+    @Mock
+    private AuthConfigHolder authConfigHolder;
+
+    @Mock
+    private ClientHttpRequestFactory oauthRequestFactory;
+
+    @InjectMocks
+    private AuthConfigService authConfigService;
+
+    @Test
+    public void templateIsReusedTillSettingsChange() {
+        when(authConfigHolder.get()).thenReturn(snapshot("first"));
+        OAuth2RestOperations template = authConfigService.getRestTemplate(GITHUB, new DefaultOAuth2ClientContext());
+
+        OAuth2ProtectedResourceDetails resource = template.getResource();
+        Assert.assertEquals("first", resource.getClientId());
+        Assert.assertSame(resource, template.getResource());
+        verify(authConfigHolder, times(1)).get();
+
+        /* settings are read again only once they are reported changed */
+        when(authConfigHolder.get()).thenReturn(snapshot("second"));
+        Assert.assertSame(resource, template.getResource());
+
+        authConfigService.onApplicationEvent(new OAuthConfigChangedEvent(GITHUB));
+        OAuth2ProtectedResourceDetails rebuilt = template.getResource();
+        Assert.assertEquals("second", rebuilt.getClientId());
+        Assert.assertSame(rebuilt, template.getResource());
+
+        /* change of another provider doesn't affect template */
+        authConfigService.onApplicationEvent(new OAuthConfigChangedEvent("another"));
+        Assert.assertSame(rebuilt, template.getResource());
+        verify(authConfigHolder, times(2)).get();
+    }
+
+    private static AuthConfigSnapshot snapshot(String clientId) {
+        OAuth2LoginDetails details = new OAuth2LoginDetails();
+        details.setClientId(clientId);
+        details.setClientSecret("secret");
+        details.setGrantType("authorization_code");
+        details.setAccessTokenUri("https://github.com/login/oauth/access_token");
+        details.setUserAuthorizationUri("https://github.com/login/oauth/authorize");
+        return new AuthConfigSnapshot(1, new AuthConfigEntity(), Collections.singletonMap(GITHUB, details));
+    }
+}
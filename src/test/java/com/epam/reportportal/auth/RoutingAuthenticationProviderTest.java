@@ -0,0 +1,131 @@
+/*
+ * Copyright 2018 EPAM Systems
+ *
+ *
+ * This file is part of EPAM Report Portal.
+ * https://github.com/reportportal/service-authorization
+ *
+ * Report Portal is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Report Portal is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Report Portal.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.epam.reportportal.auth;
+
+import com.epam.reportportal.auth.bulkhead.BulkheadFullException;
+import com.epam.reportportal.auth.integration.ldap.DirectoryUnavailableException;
+import com.epam.ta.reportportal.database.entity.user.UserType;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * @author Andrei Varabyeu
+ */
+public class RoutingAuthenticationProviderTest {
+
+    private final AuthenticationProvider basic = provider();
+    private final AuthenticationProvider ldap = provider();
+    private final UserTypeCache userTypes = mock(UserTypeCache.class);
+    private final RoutingAuthenticationProvider router = new RoutingAuthenticationProvider(userTypes, ImmutableList.of(basic, ldap),
+            ImmutableMap.of(UserType.INTERNAL, ImmutableList.of(basic), UserType.LDAP, ImmutableList.of(ldap)));
+
+    @Test
+    public void knownUserGoesStraightToProvider() {
+        when(userTypes.get("user")).thenReturn(Optional.of(UserType.LDAP));
+        Authentication login = new UsernamePasswordAuthenticationToken("user", "password");
+        when(ldap.authenticate(login)).thenReturn(login);
+
+        Assert.assertSame(login, router.authenticate(login));
+        verify(basic, never()).authenticate(any());
+    }
+
+    @Test
+    public void unavailableDirectoryDoesNotStopChain() {
+        RoutingAuthenticationProvider directoryFirst = new RoutingAuthenticationProvider(userTypes, ImmutableList.of(ldap, basic),
+                ImmutableMap.of(UserType.LDAP, ImmutableList.of(ldap, basic)));
+        when(userTypes.get("user")).thenReturn(Optional.of(UserType.LDAP));
+        Authentication login = new UsernamePasswordAuthenticationToken("user", "password");
+        doThrow(new DirectoryUnavailableException("Connection refused", null)).when(ldap).authenticate(login);
+        when(basic.authenticate(login)).thenReturn(login);
+
+        Assert.assertSame(login, directoryFirst.authenticate(login));
+    }
+
+    @Test
+    public void fullBulkheadDoesNotStopChain() {
+        when(userTypes.get("user")).thenReturn(Optional.empty());
+        Authentication login = new UsernamePasswordAuthenticationToken("user", "password");
+        doThrow(new BulkheadFullException("Too many concurrent calls")).when(basic).authenticate(login);
+        when(ldap.authenticate(login)).thenReturn(login);
+
+        Assert.assertSame(login, router.authenticate(login));
+    }
+
+    @Test
+    public void unknownUserGoesThroughChain() {
+        when(userTypes.get("user")).thenReturn(Optional.empty());
+        Authentication login = new UsernamePasswordAuthenticationToken("user", "password");
+        doThrow(new BadCredentialsException("Bad credentials")).when(basic).authenticate(login);
+        when(ldap.authenticate(login)).thenReturn(login);
+
+        Assert.assertSame(login, router.authenticate(login));
+        verify(basic).authenticate(login);
+    }
+
+    @Test
+    public void userOfTypeWithoutRouteGoesThroughChain() {
+        when(userTypes.get("user")).thenReturn(Optional.of(UserType.GITHUB));
+        Authentication login = new UsernamePasswordAuthenticationToken("user", "password");
+        doThrow(new BadCredentialsException("Bad credentials")).when(basic).authenticate(login);
+        doThrow(new BadCredentialsException("Bad credentials")).when(ldap).authenticate(login);
+
+        try {
+            router.authenticate(login);
+            Assert.fail("Login should be rejected");
+        } catch (BadCredentialsException e) {
+            verify(basic).authenticate(login);
+            verify(ldap).authenticate(login);
+        }
+    }
+
+    @Test
+    public void userOfDisabledTypeGoesThroughChain() {
+        when(userTypes.get("user")).thenReturn(Optional.of(UserType.LDAP));
+        when(ldap.supports(any())).thenReturn(false);
+        Authentication login = new UsernamePasswordAuthenticationToken("user", "password");
+        doThrow(new BadCredentialsException("Bad credentials")).when(basic).authenticate(login);
+
+        try {
+            router.authenticate(login);
+            Assert.fail("Login should be rejected");
+        } catch (BadCredentialsException e) {
+            verify(basic).authenticate(login);
+            verify(ldap, never()).authenticate(any());
+        }
+    }
+
+    private static AuthenticationProvider provider() {
+        AuthenticationProvider provider = mock(AuthenticationProvider.class);
+        when(provider.supports(any())).thenReturn(true);
+        return provider;
+    }
+}
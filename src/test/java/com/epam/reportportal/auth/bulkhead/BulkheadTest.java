@@ -0,0 +1,107 @@
+/*
+ * Copyright 2018 EPAM Systems
+ *
+ *
+ * This file is part of EPAM Report Portal.
+ * https://github.com/reportportal/service-authorization
+ *
+ * Report Portal is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Report Portal is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Report Portal.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.epam.reportportal.auth.bulkhead;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author Andrei Varabyeu
+ */
+public class BulkheadTest {
+
+    @Test
+    public void rejectsCallsAboveLimit() throws Exception {
+        Bulkhead bulkhead = new Bulkhead("test", 1, 1, 5000);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> running = executor.submit(() -> bulkhead.execute(() -> {
+                started.countDown();
+                await(release);
+                return "first";
+            }));
+            Assert.assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            /* takes the only place in queue */
+            Future<String> waiting = executor.submit(() -> bulkhead.execute(() -> "second"));
+            long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(5);
+            while (bulkhead.getWaiting() < 1 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+
+            try {
+                bulkhead.execute(() -> "third");
+                Assert.fail("Call above limit should be rejected");
+            } catch (BulkheadFullException e) {
+                Assert.assertEquals(1, bulkhead.getRejected());
+            }
+
+            release.countDown();
+            Assert.assertEquals("first", running.get(5, TimeUnit.SECONDS));
+            Assert.assertEquals("second", waiting.get(5, TimeUnit.SECONDS));
+            Assert.assertEquals(2, bulkhead.getAccepted());
+            Assert.assertEquals(0, bulkhead.getActive());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void rejectsCallWaitingTooLong() throws Exception {
+        Bulkhead bulkhead = new Bulkhead("test", 1, 10, 10);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            executor.submit(() -> bulkhead.execute(() -> {
+                started.countDown();
+                await(release);
+                return null;
+            }));
+            Assert.assertTrue(started.await(5, TimeUnit.SECONDS));
+            try {
+                bulkhead.execute(() -> "late");
+                Assert.fail("Call should not wait longer than allowed");
+            } catch (BulkheadFullException e) {
+                Assert.assertEquals(0, bulkhead.getWaiting());
+            }
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
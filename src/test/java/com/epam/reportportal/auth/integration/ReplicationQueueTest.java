@@ -0,0 +1,108 @@
+/*
+ * Copyright 2018 EPAM Systems
+ *
+ *
+ * This file is part of EPAM Report Portal.
+ * https://github.com/reportportal/service-authorization
+ *
+ * Report Portal is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Report Portal is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Report Portal.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.epam.reportportal.auth.integration;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author Andrei Varabyeu
+ */
+public class ReplicationQueueTest {
+
+	@Test
+	public void retriesFailedTask() throws Exception {
+		ReplicationQueue queue = new ReplicationQueue(true, 1, 10, 3, 1);
+		AtomicInteger attempts = new AtomicInteger();
+		CountDownLatch done = new CountDownLatch(1);
+		Assert.assertTrue(queue.submit("task", () -> {
+			if (attempts.incrementAndGet() < 3) {
+				throw new IllegalStateException("not yet");
+			}
+			done.countDown();
+		}));
+
+		Assert.assertTrue(done.await(5, TimeUnit.SECONDS));
+		awaitProcessed(queue, 1);
+		Assert.assertEquals(3, attempts.get());
+		Assert.assertEquals(1, queue.getCompleted());
+		Assert.assertEquals(0, queue.getFailed());
+		queue.destroy();
+	}
+
+	@Test
+	public void givesUpAfterLastAttempt() throws Exception {
+		ReplicationQueue queue = new ReplicationQueue(false, 1, 10, 2, 1);
+		AtomicInteger attempts = new AtomicInteger();
+		queue.submit("task", () -> {
+			attempts.incrementAndGet();
+			throw new IllegalStateException("always");
+		});
+
+		Assert.assertEquals(2, attempts.get());
+		Assert.assertEquals(1, queue.getFailed());
+		Assert.assertEquals(0, queue.getCompleted());
+		queue.destroy();
+	}
+
+	@Test
+	public void dropsTasksAboveCapacity() throws Exception {
+		ReplicationQueue queue = new ReplicationQueue(true, 1, 1, 1, 1);
+		CountDownLatch release = new CountDownLatch(1);
+		Runnable blocking = () -> {
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		};
+
+		/* first one is taken by the worker, second one waits in the queue */
+		Assert.assertTrue(queue.submit("running", blocking));
+		awaitPending(queue, 0);
+		Assert.assertTrue(queue.submit("pending", blocking));
+		Assert.assertFalse(queue.submit("dropped", blocking));
+		Assert.assertEquals(1, queue.getRejected());
+
+		release.countDown();
+		awaitProcessed(queue, 2);
+		Assert.assertEquals(2, queue.getCompleted());
+		queue.destroy();
+	}
+
+	private static void awaitPending(ReplicationQueue queue, int pending) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(5);
+		while (queue.getPending() != pending && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+	}
+
+	private static void awaitProcessed(ReplicationQueue queue, long processed) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(5);
+		while (queue.getCompleted() + queue.getFailed() < processed && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+	}
+}
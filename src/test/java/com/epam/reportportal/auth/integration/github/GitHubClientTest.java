@@ -0,0 +1,202 @@
+/*
+ * Copyright 2018 EPAM Systems
+ *
+ *
+ * This file is part of EPAM Report Portal.
+ * https://github.com/reportportal/service-authorization
+ *
+ * Report Portal is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Report Portal is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Report Portal.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.epam.reportportal.auth.integration.github;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.security.authentication.AuthenticationServiceException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author Andrei Varabyeu
+ */
+public class GitHubClientTest {
+
+    private static final String ETAG = "\"v1\"";
+    private static final String LOGIN = "user";
+
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger conditionalRequests = new AtomicInteger();
+
+    private volatile long remaining = 5000;
+
+    private HttpServer server;
+    private GitHubApiCache cache;
+    private GitHubClients clients;
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/user/emails", exchange -> respond(exchange, "[{\"email\":\"user@example.com\",\"verified\":true,\"primary\":true}]"));
+        server.createContext("/users/user/orgs", exchange -> respond(exchange, "[{\"login\":\"reportportal\"}]"));
+        server.createContext("/user", exchange -> respond(exchange, "{\"login\":\"user\"}"));
+        server.start();
+
+        cache = new GitHubApiCache(100, 3600, 3600, 10);
+        clients = new GitHubClients(new SimpleClientHttpRequestFactory(), cache, "http://localhost:" + server.getAddress().getPort(),
+                0, 0);
+    }
+
+    @After
+    public void tearDown() {
+        clients.destroy();
+        server.stop(0);
+    }
+
+    @Test
+    public void revalidatesEmailsWithAnotherTokenOfSameUser() {
+        UserResource user = clients.withAccessToken("token").getUser();
+        Assert.assertEquals("user@example.com", clients.withAccessToken("token").getUserEmails(user).get(0).getEmail());
+        Assert.assertEquals("user@example.com", clients.withAccessToken("next login").getUserEmails(user).get(0).getEmail());
+
+        Assert.assertEquals(3, requests.get());
+        Assert.assertEquals(1, conditionalRequests.get());
+        Assert.assertEquals(1, cache.getNotModified());
+        Assert.assertEquals(4998, cache.getLastRemaining());
+    }
+
+    @Test
+    public void userIsNotCached() {
+        GitHubClient client = clients.withAccessToken("token");
+        Assert.assertEquals("user", client.getUser().login);
+        Assert.assertEquals("user", client.getUser().login);
+
+        Assert.assertEquals(2, requests.get());
+        Assert.assertEquals(0, conditionalRequests.get());
+        Assert.assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void servesStaleOrganizationsOnceLimitIsClose() {
+        remaining = 5;
+        GitHubClient client = clients.withAccessToken("token");
+        Assert.assertEquals("reportportal", client.getUserOrganizations(LOGIN).get(0).login);
+        Assert.assertEquals("reportportal", client.getUserOrganizations(LOGIN).get(0).login);
+
+        Assert.assertEquals(1, requests.get());
+        Assert.assertEquals(1, cache.getServedStale());
+    }
+
+    @Test
+    public void doesNotCallApiOnceLimitIsExhausted() {
+        remaining = 1;
+        GitHubClient client = clients.withAccessToken("token");
+        UserResource user = client.getUser();
+        client.getUserEmails(user);
+        Assert.assertEquals(2, requests.get());
+
+        try {
+            client.getUserEmails(user);
+            Assert.fail("Exhausted rate limit is ignored");
+        } catch (AuthenticationServiceException e) {
+            Assert.assertEquals(2, requests.get());
+            Assert.assertEquals(1, cache.getRateLimited());
+        }
+
+        /* limit of another token is not affected */
+        clients.withAccessToken("another").getUserEmails(user);
+        Assert.assertEquals(3, requests.get());
+    }
+
+    @Test
+    public void unavailableApiFailsLogin() {
+        GitHubClients unavailable = new GitHubClients(new SimpleClientHttpRequestFactory(), cache, "http://localhost:1", 0, 0);
+        try {
+            unavailable.withAccessToken("token").getUser();
+            Assert.fail("Connection error is not reported");
+        } catch (AuthenticationServiceException e) {
+            Assert.assertTrue(e.getCause() instanceof ResourceAccessException);
+        } finally {
+            unavailable.destroy();
+        }
+    }
+
+    @Test
+    public void callsRunOnCallerWhenExecutorIsBusy() throws Exception {
+        GitHubClients busy = new GitHubClients(new SimpleClientHttpRequestFactory(), cache,
+                "http://localhost:" + server.getAddress().getPort(), 1, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            GitHubClient client = busy.withAccessToken("token");
+            /* the only thread and the only queue slot are taken */
+            CompletableFuture<Boolean> running = client.async(() -> await(release));
+            CompletableFuture<Boolean> queued = client.async(() -> await(release));
+
+            Thread caller = Thread.currentThread();
+            Assert.assertSame(caller, client.async(Thread::currentThread).get(5, TimeUnit.SECONDS));
+            Assert.assertEquals("user", client.async(client::getUser).get(5, TimeUnit.SECONDS).login);
+
+            release.countDown();
+            Assert.assertTrue(running.get(5, TimeUnit.SECONDS));
+            Assert.assertTrue(queued.get(5, TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+            busy.destroy();
+        }
+    }
+
+    private static boolean await(CountDownLatch latch) {
+        try {
+            return latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void respond(HttpExchange exchange, String body) throws IOException {
+        requests.incrementAndGet();
+        long left = remaining;
+        remaining = Math.max(0, left - 1);
+        exchange.getResponseHeaders().add(GitHubApiCache.LIMIT_HEADER, "5000");
+        exchange.getResponseHeaders().add(GitHubApiCache.REMAINING_HEADER, String.valueOf(left));
+        exchange.getResponseHeaders()
+                .add(GitHubApiCache.RESET_HEADER, String.valueOf(TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis()) + 3600));
+        exchange.getResponseHeaders().add("ETag", ETAG);
+
+        if (ETAG.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+            conditionalRequests.incrementAndGet();
+            exchange.sendResponseHeaders(304, -1);
+            exchange.close();
+            return;
+        }
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2018 EPAM Systems
+ *
+ *
+ * This file is part of EPAM Report Portal.
+ * https://github.com/reportportal/service-authorization
+ *
+ * Report Portal is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Report Portal is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Report Portal.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.epam.reportportal.auth.integration.github;
+
+import com.epam.reportportal.auth.bulkhead.Bulkhead;
+import com.epam.ta.reportportal.database.BinaryData;
+import com.epam.ta.reportportal.database.DataStorage;
+import com.epam.ta.reportportal.database.dao.ProjectRepository;
+import com.epam.ta.reportportal.database.dao.UserRepository;
+import com.epam.ta.reportportal.database.entity.Project;
+import com.epam.ta.reportportal.database.entity.settings.OAuth2LoginDetails;
+import com.epam.ta.reportportal.database.entity.user.User;
+import com.epam.ta.reportportal.database.personal.PersonalProjectService;
+import com.epam.ta.reportportal.database.search.Queryable;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author Andrei Varabyeu
+ */
+public class GitHubTokenServicesTest {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final ProjectRepository projectRepository = mock(ProjectRepository.class);
+
+    private volatile String organization = "reportportal";
+    private volatile int organizationsStatus = 200;
+
+    private HttpServer server;
+    private GitHubClients clients;
+    private GitHubTokenServices tokenServices;
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        String baseUrl = "http://localhost:" + server.getAddress().getPort();
+        server.createContext("/users/user/orgs",
+                exchange -> respond(exchange, organizationsStatus, "application/json", "[{\"login\":\"" + organization + "\"}]"));
+        server.createContext("/user/emails",
+                exchange -> respond(exchange, 200, "application/json", "[{\"email\":\"user@example.com\",\"verified\":true,\"primary\":true}]"));
+        server.createContext("/avatar", exchange -> respond(exchange, 200, "image/png", "PNG"));
+        server.createContext("/user", exchange -> respond(exchange, 200, "application/json",
+                "{\"login\":\"user\",\"name\":\"User\",\"avatar_url\":\"" + baseUrl + "/avatar\",\"organizations_url\":\"" + baseUrl
+                        + "/users/user/orgs\"}"));
+        server.start();
+
+        clients = new GitHubClients(new SimpleClientHttpRequestFactory(), new GitHubApiCache(0, 0, 0, 0), baseUrl, 2, 1);
+
+        when(userRepository.exists(any(Queryable.class))).thenReturn(false);
+        when(userRepository.uploadUserPhoto(anyString(), any(BinaryData.class))).thenReturn("photo");
+        when(projectRepository.findPersonalProjectName(anyString())).thenReturn(Optional.empty());
+        GitHubUserReplicator replicator = new GitHubUserReplicator(userRepository, projectRepository, mock(DataStorage.class),
+                new PersonalProjectService(projectRepository), clients);
+
+        OAuth2LoginDetails loginDetails = new OAuth2LoginDetails();
+        loginDetails.setClientId("client");
+        loginDetails.setRestrictions(Collections.singletonMap("organizations", "reportportal"));
+        tokenServices = new GitHubTokenServices(replicator, () -> loginDetails, clients, new Bulkhead("github", 10, 10, 1000));
+    }
+
+    @After
+    public void tearDown() {
+        clients.destroy();
+        server.stop(0);
+    }
+
+    @Test
+    public void memberOfAllowedOrganizationIsReplicated() {
+        OAuth2Authentication authentication = tokenServices.loadAuthentication("token");
+
+        Assert.assertEquals("user", authentication.getName());
+        verify(userRepository).save(any(User.class));
+        verify(userRepository).uploadUserPhoto(anyString(), any(BinaryData.class));
+    }
+
+    @Test
+    public void userOutsideOfAllowedOrganizationIsNotStored() {
+        organization = "another";
+        try {
+            tokenServices.loadAuthentication("token");
+            Assert.fail("User outside of allowed organization is admitted");
+        } catch (GitHubTokenServices.InsufficientOrganizationException e) {
+            //expected
+        }
+        verify(userRepository, never()).save(any(User.class));
+        verify(userRepository, never()).uploadUserPhoto(anyString(), any(BinaryData.class));
+        verify(projectRepository, never()).save(any(Project.class));
+    }
+
+    @Test
+    public void organizationsErrorIsNotWrapped() {
+        organizationsStatus = 500;
+        try {
+            tokenServices.loadAuthentication("token");
+            Assert.fail("Failed organizations check is ignored");
+        } catch (GitHubClients.GitHubApiException e) {
+            //expected
+        }
+        verify(userRepository, never()).save(any(User.class));
+    }
+
+    private static void respond(HttpExchange exchange, int status, String contentType, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2018 EPAM Systems
+ *
+ *
+ * This file is part of EPAM Report Portal.
+ * https://github.com/reportportal/service-authorization
+ *
+ * Report Portal is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Report Portal is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Report Portal.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.epam.reportportal.auth.integration.github;
+
+import com.epam.ta.reportportal.database.BinaryData;
+import com.epam.ta.reportportal.database.DataStorage;
+import com.epam.ta.reportportal.database.dao.ProjectRepository;
+import com.epam.ta.reportportal.database.dao.UserRepository;
+import com.epam.ta.reportportal.database.entity.Project;
+import com.epam.ta.reportportal.database.entity.user.User;
+import com.epam.ta.reportportal.database.entity.user.UserType;
+import com.epam.ta.reportportal.database.personal.PersonalProjectService;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author Andrei Varabyeu
+ */
+public class GitHubUserReplicatorTest {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final ProjectRepository projectRepository = mock(ProjectRepository.class);
+    private final AtomicInteger emailRequests = new AtomicInteger();
+    private final CountDownLatch emailsLoaded = new CountDownLatch(1);
+
+    private HttpServer server;
+    private GitHubClients clients;
+    private GitHubUserReplicator replicator;
+    private UserResource gitHubUser;
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        String baseUrl = "http://localhost:" + server.getAddress().getPort();
+        server.createContext("/user/emails", exchange -> {
+            emailRequests.incrementAndGet();
+            respond(exchange, "application/json", "[{\"email\":\"user@example.com\",\"verified\":true,\"primary\":true}]");
+            emailsLoaded.countDown();
+        });
+        server.createContext("/avatar", exchange -> respond(exchange, "image/png", "PNG"));
+        server.start();
+
+        clients = new GitHubClients(new SimpleClientHttpRequestFactory(), new GitHubApiCache(0, 0, 0, 0), baseUrl, 2, 1);
+        replicator = new GitHubUserReplicator(userRepository, projectRepository, mock(DataStorage.class),
+                new PersonalProjectService(projectRepository), clients);
+
+        gitHubUser = new UserResource();
+        gitHubUser.login = "user";
+        gitHubUser.avatarUrl = baseUrl + "/avatar";
+    }
+
+    @After
+    public void tearDown() {
+        clients.destroy();
+        server.stop(0);
+    }
+
+    @Test
+    public void nothingIsStoredUntilUserIsAdmitted() throws Exception {
+        GitHubClient client = clients.withAccessToken("token");
+        CompletableFuture<Void> admission = new CompletableFuture<>();
+        ExecutorService login = Executors.newSingleThreadExecutor();
+        try {
+            Future<User> replicated = login.submit(() -> replicator.replicateUser(gitHubUser, client, admission));
+
+            /* emails are loaded while admission is being checked */
+            Assert.assertTrue(emailsLoaded.await(5, TimeUnit.SECONDS));
+            verify(userRepository, never()).save(any(User.class));
+
+            admission.completeExceptionally(new GitHubTokenServices.InsufficientOrganizationException("Not a member"));
+            try {
+                replicated.get(5, TimeUnit.SECONDS);
+                Assert.fail("User is replicated without admission");
+            } catch (ExecutionException e) {
+                /* cause of failed admission is thrown as is */
+                Assert.assertTrue(e.getCause() instanceof GitHubTokenServices.InsufficientOrganizationException);
+            }
+        } finally {
+            login.shutdownNow();
+        }
+        verify(userRepository, never()).save(any(User.class));
+        verify(userRepository, never()).uploadUserPhoto(anyString(), any(BinaryData.class));
+        verify(projectRepository, never()).save(any(Project.class));
+    }
+
+    @Test
+    public void existingUserIsNotLoadedAgain() {
+        User existing = new User();
+        existing.setLogin("user");
+        existing.setType(UserType.GITHUB);
+        when(userRepository.findOne("user")).thenReturn(existing);
+
+        Assert.assertSame(existing,
+                replicator.replicateUser(gitHubUser, clients.withAccessToken("token"), CompletableFuture.completedFuture(null)));
+        Assert.assertEquals(0, emailRequests.get());
+        verify(userRepository, never()).save(any(User.class));
+    }
+
+    private static void respond(HttpExchange exchange, String contentType, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", contentType);
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
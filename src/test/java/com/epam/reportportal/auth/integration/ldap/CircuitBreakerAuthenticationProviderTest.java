@@ -0,0 +1,117 @@
+/*
+ * Copyright 2018 EPAM Systems
+ *
+ *
+ * This file is part of EPAM Report Portal.
+ * https://github.com/reportportal/service-authorization
+ *
+ * Report Portal is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Report Portal is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Report Portal.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.epam.reportportal.auth.integration.ldap;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.ldap.CommunicationException;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.InternalAuthenticationServiceException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * @author Andrei Varabyeu
+ */
+public class CircuitBreakerAuthenticationProviderTest {
+
+    private final Authentication request = new UsernamePasswordAuthenticationToken("user", "password");
+
+    @Test
+    public void unavailableDirectoryIsSkipped() throws InterruptedException {
+        AuthenticationProvider delegate = mock(AuthenticationProvider.class);
+        when(delegate.authenticate(any())).thenThrow(new InternalAuthenticationServiceException("Read timed out"));
+        CircuitBreaker breaker = new CircuitBreaker(3, 100);
+        CircuitBreakerAuthenticationProvider provider = new CircuitBreakerAuthenticationProvider(delegate, breaker);
+
+        for (int i = 0; i < 3; i++) {
+            try {
+                provider.authenticate(request);
+                Assert.fail("Unavailable directory should be reported while breaker is closed");
+            } catch (InternalAuthenticationServiceException e) {
+                //expected
+            }
+        }
+        Assert.assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+        /* next providers in chain are asked */
+        Assert.assertNull(provider.authenticate(request));
+        Assert.assertEquals(1, breaker.getRejected());
+        verify(delegate, times(3)).authenticate(any());
+
+        /* probe call succeeds */
+        Thread.sleep(150);
+        reset(delegate);
+        when(delegate.authenticate(any())).thenThrow(new BadCredentialsException("Bad credentials"));
+        try {
+            provider.authenticate(request);
+            Assert.fail("Wrong credentials should be reported");
+        } catch (BadCredentialsException e) {
+            Assert.assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        }
+        Assert.assertEquals(1, breaker.getOpened());
+    }
+
+    @Test
+    public void failedProbeOpensBreakerAgain() throws InterruptedException {
+        AuthenticationProvider delegate = mock(AuthenticationProvider.class);
+        when(delegate.authenticate(any())).thenThrow(new InternalAuthenticationServiceException("Connection refused"));
+        CircuitBreaker breaker = new CircuitBreaker(1, 100);
+        CircuitBreakerAuthenticationProvider provider = new CircuitBreakerAuthenticationProvider(delegate, breaker);
+
+        for (int i = 0; i < 2; i++) {
+            try {
+                provider.authenticate(request);
+                Assert.fail("Unavailable directory should be reported");
+            } catch (InternalAuthenticationServiceException e) {
+                Assert.assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+            }
+            Assert.assertNull(provider.authenticate(request));
+            Thread.sleep(150);
+        }
+        Assert.assertEquals(2, breaker.getOpened());
+    }
+
+    @Test
+    public void communicationErrorOpensBreaker() {
+        AuthenticationProvider delegate = mock(AuthenticationProvider.class);
+        /* Active Directory provider converts timeouts into Spring LDAP exceptions */
+        when(delegate.authenticate(any())).thenThrow(new CommunicationException(new javax.naming.CommunicationException("connect timed out")));
+        CircuitBreaker breaker = new CircuitBreaker(2, 10_000);
+        CircuitBreakerAuthenticationProvider provider = new CircuitBreakerAuthenticationProvider(delegate, breaker);
+
+        for (int i = 0; i < 2; i++) {
+            try {
+                provider.authenticate(request);
+                Assert.fail("Unavailable directory should be reported");
+            } catch (CommunicationException e) {
+                //expected
+            }
+        }
+        Assert.assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        Assert.assertNull(provider.authenticate(request));
+        verify(delegate, times(2)).authenticate(any());
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright 2018 EPAM Systems
+ *
+ *
+ * This file is part of EPAM Report Portal.
+ * https://github.com/reportportal/service-authorization
+ *
+ * Report Portal is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Report Portal is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Report Portal.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.epam.reportportal.auth.integration.ldap;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.ldap.CommunicationException;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.InternalAuthenticationServiceException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * @author Andrei Varabyeu
+ */
+public class FailoverAuthenticationProviderTest {
+
+    private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool();
+
+    private final Authentication request = new UsernamePasswordAuthenticationToken("user", "password");
+    private final Authentication authenticated = new UsernamePasswordAuthenticationToken("user", "", null);
+
+    @AfterClass
+    public static void shutdown() {
+        EXECUTOR.shutdownNow();
+    }
+
+    @Test
+    public void unavailableServerIsSkipped() {
+        AuthenticationProvider failing = mock(AuthenticationProvider.class);
+        when(failing.authenticate(any())).thenThrow(new InternalAuthenticationServiceException("Connection refused"));
+        AuthenticationProvider working = mock(AuthenticationProvider.class);
+        when(working.authenticate(any())).thenReturn(authenticated);
+
+        DirectoryEndpoint first = new DirectoryEndpoint("ldap://dc1", failing);
+        DirectoryEndpoint second = new DirectoryEndpoint("ldap://dc2", working);
+        FailoverAuthenticationProvider provider = new FailoverAuthenticationProvider(Arrays.asList(first, second), 0, EXECUTOR);
+
+        Assert.assertSame(authenticated, provider.authenticate(request));
+        Assert.assertEquals(1, first.getErrors());
+        Assert.assertFalse(first.isAvailable());
+
+        /* failed server goes last until backoff expires */
+        Assert.assertEquals(Arrays.asList(second, first), provider.order());
+        Assert.assertSame(authenticated, provider.authenticate(request));
+        verify(failing, times(1)).authenticate(any());
+        verify(working, times(2)).authenticate(any());
+    }
+
+    @Test
+    public void communicationErrorIsTreatedAsUnavailableServer() {
+        AuthenticationProvider failing = mock(AuthenticationProvider.class);
+        /* Active Directory provider doesn't wrap timeouts into InternalAuthenticationServiceException */
+        when(failing.authenticate(any())).thenThrow(new CommunicationException(new javax.naming.CommunicationException("connect timed out")));
+        AuthenticationProvider working = mock(AuthenticationProvider.class);
+        when(working.authenticate(any())).thenReturn(authenticated);
+
+        DirectoryEndpoint first = new DirectoryEndpoint("ldap://dc1", failing);
+        DirectoryEndpoint second = new DirectoryEndpoint("ldap://dc2", working);
+        FailoverAuthenticationProvider provider = new FailoverAuthenticationProvider(Arrays.asList(first, second), 0, EXECUTOR);
+
+        Assert.assertSame(authenticated, provider.authenticate(request));
+        Assert.assertEquals(1, first.getErrors());
+        Assert.assertFalse(first.isAvailable());
+        Assert.assertEquals(0, first.getLatency(), 0);
+    }
+
+    @Test
+    public void communicationErrorIsReportedWhenAllServersFail() {
+        AuthenticationProvider failing = mock(AuthenticationProvider.class);
+        when(failing.authenticate(any())).thenThrow(new CommunicationException(new javax.naming.CommunicationException("connect timed out")));
+
+        DirectoryEndpoint first = new DirectoryEndpoint("ldap://dc1", failing);
+        DirectoryEndpoint second = new DirectoryEndpoint("ldap://dc2", failing);
+        FailoverAuthenticationProvider provider = new FailoverAuthenticationProvider(Arrays.asList(first, second), 50, EXECUTOR);
+        try {
+            provider.authenticate(request);
+            Assert.fail("Unavailable directory should be reported");
+        } catch (DirectoryUnavailableException e) {
+            Assert.assertTrue(e.getCause() instanceof CommunicationException);
+            Assert.assertEquals(1, first.getErrors());
+            Assert.assertEquals(1, second.getErrors());
+        }
+    }
+
+    @Test
+    public void wrongCredentialsAreNotRetried() {
+        AuthenticationProvider rejecting = mock(AuthenticationProvider.class);
+        when(rejecting.authenticate(any())).thenThrow(new BadCredentialsException("Bad credentials"));
+        AuthenticationProvider other = mock(AuthenticationProvider.class);
+
+        DirectoryEndpoint first = new DirectoryEndpoint("ldap://dc1", rejecting);
+        FailoverAuthenticationProvider provider = new FailoverAuthenticationProvider(
+                Arrays.asList(first, new DirectoryEndpoint("ldap://dc2", other)), 0, EXECUTOR);
+
+        try {
+            provider.authenticate(request);
+            Assert.fail("Wrong credentials should be reported");
+        } catch (BadCredentialsException e) {
+            verifyZeroInteractions(other);
+            Assert.assertEquals(0, first.getErrors());
+            Assert.assertTrue(first.isAvailable());
+        }
+    }
+
+    @Test
+    public void slowServerIsHedged() {
+        AuthenticationProvider slow = mock(AuthenticationProvider.class);
+        when(slow.authenticate(any())).thenAnswer(invocation -> {
+            Thread.sleep(TimeUnit.SECONDS.toMillis(2));
+            return authenticated;
+        });
+        AuthenticationProvider fast = mock(AuthenticationProvider.class);
+        when(fast.authenticate(any())).thenReturn(authenticated);
+
+        FailoverAuthenticationProvider provider = new FailoverAuthenticationProvider(
+                Arrays.asList(new DirectoryEndpoint("ldap://dc1", slow), new DirectoryEndpoint("ldap://dc2", fast)), 50, EXECUTOR);
+
+        long start = System.currentTimeMillis();
+        Assert.assertSame(authenticated, provider.authenticate(request));
+        Assert.assertTrue(System.currentTimeMillis() - start < TimeUnit.SECONDS.toMillis(1));
+        verify(fast).authenticate(request);
+    }
+
+    @Test
+    public void lastErrorIsReportedWhenAllServersFail() {
+        AuthenticationProvider failing = mock(AuthenticationProvider.class);
+        when(failing.authenticate(any())).thenThrow(new InternalAuthenticationServiceException("Connection refused"));
+
+        FailoverAuthenticationProvider provider = new FailoverAuthenticationProvider(
+                Arrays.asList(new DirectoryEndpoint("ldap://dc1", failing), new DirectoryEndpoint("ldap://dc2", failing)), 50, EXECUTOR);
+        try {
+            provider.authenticate(request);
+            Assert.fail("Unavailable directory should be reported");
+        } catch (DirectoryUnavailableException e) {
+            verify(failing, times(2)).authenticate(any());
+        }
+    }
+
+    @Test
+    public void losingAttemptIsCancelled() throws InterruptedException {
+        CountDownLatch cancelled = new CountDownLatch(1);
+        AuthenticationProvider slow = mock(AuthenticationProvider.class);
+        when(slow.authenticate(any())).thenAnswer(invocation -> {
+            try {
+                Thread.sleep(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                cancelled.countDown();
+                throw new InternalAuthenticationServiceException("Interrupted", e);
+            }
+            return authenticated;
+        });
+        AuthenticationProvider fast = mock(AuthenticationProvider.class);
+        when(fast.authenticate(any())).thenReturn(authenticated);
+
+        DirectoryEndpoint first = new DirectoryEndpoint("ldap://dc1", slow);
+        FailoverAuthenticationProvider provider = new FailoverAuthenticationProvider(
+                Arrays.asList(first, new DirectoryEndpoint("ldap://dc2", fast)), 50, EXECUTOR);
+
+        Assert.assertSame(authenticated, provider.authenticate(request));
+        Assert.assertTrue(cancelled.await(1, TimeUnit.SECONDS));
+        /* cancelled attempt is not server's failure */
+        Assert.assertEquals(0, first.getErrors());
+    }
+}
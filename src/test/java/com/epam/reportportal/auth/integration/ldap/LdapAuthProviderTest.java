@@ -20,22 +20,55 @@
  */
 package com.epam.reportportal.auth.integration.ldap;
 
-import com.epam.reportportal.auth.store.AuthConfigRepository;
+import com.epam.reportportal.auth.event.AuthConfigChangedEvent;
+import com.epam.reportportal.auth.integration.AuthIntegrationType;
+import com.epam.reportportal.auth.store.AuthConfigHolder;
+import com.epam.reportportal.auth.store.AuthConfigSnapshot;
+import com.epam.reportportal.auth.store.entity.AuthConfigEntity;
+import com.epam.reportportal.auth.store.entity.ldap.LdapConfig;
 import com.epam.reportportal.auth.store.entity.ldap.PasswordEncoderType;
+import com.epam.reportportal.auth.store.entity.ldap.SynchronizationAttributes;
+import com.unboundid.ldap.listener.InMemoryDirectoryServer;
+import com.unboundid.ldap.listener.InMemoryDirectoryServerConfig;
+import com.unboundid.ldap.listener.InMemoryListenerConfig;
 import org.hamcrest.Matchers;
+import org.junit.AfterClass;
 import org.junit.Assert;
+import org.junit.BeforeClass;
 import org.junit.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 
-import java.util.Optional;
-
-import static org.mockito.Mockito.mock;
-import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.*;
 
 /**
  * @author Andrei Varabyeu
  */
 public class LdapAuthProviderTest {
 
+	private static final String BASE_DN = "dc=example,dc=com";
+	private static final String MANAGER_DN = "cn=admin," + BASE_DN;
+
+	private static InMemoryDirectoryServer directoryServer;
+
+	@BeforeClass
+	public static void startDirectory() throws Exception {
+		InMemoryDirectoryServerConfig config = new InMemoryDirectoryServerConfig(BASE_DN);
+		config.addAdditionalBindCredentials(MANAGER_DN, "secret");
+		config.setListenerConfigs(InMemoryListenerConfig.createLDAPConfig("default", 0));
+		config.setSchema(null);
+		directoryServer = new InMemoryDirectoryServer(config);
+		directoryServer.add("dn: " + BASE_DN, "objectClass: top", "objectClass: domain", "dc: example");
+		directoryServer.add("dn: ou=people," + BASE_DN, "objectClass: top", "objectClass: organizationalUnit", "ou: people");
+		directoryServer.add("dn: uid=user,ou=people," + BASE_DN, "objectClass: top", "objectClass: inetOrgPerson", "uid: user", "cn: User",
+				"sn: User", "userPassword: password");
+		directoryServer.startListening();
+	}
+
+	@AfterClass
+	public static void stopDirectory() {
+		directoryServer.shutDown(true);
+	}
+
 	@Test
 	public void testEncodingTypes() {
 		for (PasswordEncoderType type : PasswordEncoderType.values()) {
@@ -45,8 +78,86 @@ public class LdapAuthProviderTest {
 
 	@Test
 	public void isEnabled() throws Exception {
-		AuthConfigRepository repoMock = mock(AuthConfigRepository.class);
-		when(repoMock.findLdap(true)).thenReturn(Optional.empty());
-		Assert.assertFalse(new LdapAuthProvider(repoMock, mock(LdapUserReplicator.class)).isEnabled());
+		AuthConfigHolder holderMock = mock(AuthConfigHolder.class);
+		when(holderMock.get()).thenReturn(new AuthConfigSnapshot(0, new AuthConfigEntity(), null));
+		Assert.assertFalse(new LdapAuthProvider(holderMock, mock(LdapUserReplicator.class)).isEnabled());
+	}
+
+	@Test
+	public void delegateIsBuiltOncePerRevision() {
+		LdapConfig ldap = new LdapConfig();
+		ldap.setEnabled(true);
+		ldap.setUrl("ldap://localhost:389");
+		ldap.setBaseDn("dc=example,dc=com");
+		ldap.setUserDnPattern("uid={0}");
+		ldap.setSynchronizationAttributes(new SynchronizationAttributes());
+
+		AuthConfigEntity entity = new AuthConfigEntity();
+		entity.setLdap(ldap);
+		AuthConfigHolder holderMock = mock(AuthConfigHolder.class);
+		when(holderMock.get()).thenReturn(new AuthConfigSnapshot(1, entity, null));
+		LdapAuthProvider provider = new LdapAuthProvider(holderMock, mock(LdapUserReplicator.class));
+
+		for (int i = 0; i < 5; i++) {
+			Assert.assertTrue(provider.supports(UsernamePasswordAuthenticationToken.class));
+		}
+		/* one read to check integration is enabled and one to build delegate */
+		verify(holderMock, times(2)).get();
+
+		provider.onApplicationEvent(new AuthConfigChangedEvent(AuthIntegrationType.ACTIVE_DIRECTORY));
+		Assert.assertTrue(provider.supports(UsernamePasswordAuthenticationToken.class));
+		verify(holderMock, times(2)).get();
+
+		when(holderMock.get()).thenReturn(new AuthConfigSnapshot(2, new AuthConfigEntity(), null));
+		provider.onApplicationEvent(new AuthConfigChangedEvent(AuthIntegrationType.LDAP));
+		Assert.assertFalse(provider.supports(UsernamePasswordAuthenticationToken.class));
+		Assert.assertFalse(provider.supports(UsernamePasswordAuthenticationToken.class));
+		verify(holderMock, times(3)).get();
+	}
+
+	@Test
+	public void knownUserBindsWithCachedDn() {
+		UserDnCache dnCache = new UserDnCache(true, 60, 100);
+		DirectoryEndpoint endpoint = endpoint(searchConfig(), dnCache);
+
+		for (int i = 0; i < 2; i++) {
+			Assert.assertNotNull(endpoint.authenticate(new UsernamePasswordAuthenticationToken("user", "password")));
+		}
+		Assert.assertEquals(1, dnCache.getHits());
+		endpoint.close();
+	}
+
+	@Test
+	public void passwordIsComparedWithFoundEntry() {
+		LdapConfig ldap = searchConfig();
+		ldap.setPasswordEncoderType(PasswordEncoderType.PLAIN);
+		ldap.setPasswordAttribute("userPassword");
+		UserDnCache dnCache = new UserDnCache(true, 60, 100);
+		DirectoryEndpoint endpoint = endpoint(ldap, dnCache);
+
+		/* entry of cached DN has no password attribute, so it is searched each time */
+		for (int i = 0; i < 3; i++) {
+			Assert.assertNotNull(endpoint.authenticate(new UsernamePasswordAuthenticationToken("user", "password")));
+		}
+		Assert.assertEquals(0, dnCache.getHits() + dnCache.getMisses());
+		endpoint.close();
+	}
+
+	private static LdapConfig searchConfig() {
+		LdapConfig ldap = new LdapConfig();
+		ldap.setEnabled(true);
+		ldap.setUrl("ldap://localhost:" + directoryServer.getListenPort());
+		ldap.setBaseDn(BASE_DN);
+		ldap.setManagerDn(MANAGER_DN);
+		ldap.setManagerPassword("secret");
+		ldap.setUserSearchFilter("(uid={0})");
+		ldap.setSynchronizationAttributes(new SynchronizationAttributes());
+		return ldap;
+	}
+
+	private static DirectoryEndpoint endpoint(LdapConfig ldap, UserDnCache dnCache) {
+		LdapAuthProvider provider = new LdapAuthProvider(mock(AuthConfigHolder.class), mock(LdapUserReplicator.class),
+				VerifiedCredentialsCache.disabled(), dnCache);
+		return provider.buildEndpoint(ldap, ldap.getUrl());
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,230 @@
+/*
+ * Copyright 2018 EPAM Systems
+ *
+ *
+ * This file is part of EPAM Report Portal.
+ * https://github.com/reportportal/service-authorization
+ *
+ * Report Portal is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Report Portal is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Report Portal.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.epam.reportportal.auth.integration.ldap;
+
+import com.epam.reportportal.auth.integration.ReplicationQueue;
+import com.epam.reportportal.auth.store.AuthConfigHolder;
+import com.epam.reportportal.auth.store.AuthConfigSnapshot;
+import com.epam.reportportal.auth.store.EmbeddedMongoTest;
+import com.epam.reportportal.auth.store.JobLock;
+import com.epam.reportportal.auth.store.entity.AuthConfigEntity;
+import com.epam.reportportal.auth.store.entity.ldap.LdapConfig;
+import com.epam.reportportal.auth.store.entity.ldap.SynchronizationAttributes;
+import com.epam.reportportal.auth.store.entity.ldap.SynchronizationState;
+import com.epam.ta.reportportal.database.DataStorage;
+import com.epam.ta.reportportal.database.entity.user.User;
+import com.epam.ta.reportportal.database.entity.user.UserType;
+import com.unboundid.ldap.listener.InMemoryDirectoryServer;
+import com.unboundid.ldap.listener.InMemoryDirectoryServerConfig;
+import com.unboundid.ldap.listener.InMemoryListenerConfig;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author Andrei Varabyeu
+ */
+public class LdapSynchronizerTest extends EmbeddedMongoTest {
+
+    private static final String BASE_DN = "dc=example,dc=com";
+    private static final String MANAGER_DN = "cn=admin," + BASE_DN;
+    private static final int USERS = 25;
+
+    private static InMemoryDirectoryServer directoryServer;
+
+    private final JobLock jobLock = new JobLock(mongoTemplate);
+
+    @BeforeClass
+    public static void startDirectory() throws Exception {
+        InMemoryDirectoryServerConfig config = new InMemoryDirectoryServerConfig(BASE_DN);
+        config.addAdditionalBindCredentials(MANAGER_DN, "secret");
+        config.setListenerConfigs(InMemoryListenerConfig.createLDAPConfig("default", 0));
+        config.setSchema(null);
+        directoryServer = new InMemoryDirectoryServer(config);
+        directoryServer.add("dn: " + BASE_DN, "objectClass: top", "objectClass: domain", "dc: example");
+        directoryServer.add("dn: ou=people," + BASE_DN, "objectClass: top", "objectClass: organizationalUnit", "ou: people");
+        for (int i = 0; i < USERS; i++) {
+            directoryServer.add("dn: uid=user" + i + ",ou=people," + BASE_DN, "objectClass: top", "objectClass: inetOrgPerson",
+                    "uid: user" + i, "cn: User " + i, "sn: User", "mail: user" + i + "@example.com");
+        }
+        directoryServer.startListening();
+    }
+
+    @AfterClass
+    public static void stopDirectory() {
+        directoryServer.shutDown(true);
+    }
+
+    @After
+    public void cleanUp() {
+        mongoTemplate.dropCollection(User.class);
+        mongoTemplate.dropCollection(SynchronizationState.class);
+        mongoTemplate.dropCollection(JobLock.COLLECTION);
+    }
+
+    @Test
+    public void pullsOnlyChangedEntries() throws Exception {
+        for (int i = 0; i < USERS; i++) {
+            User user = new User();
+            user.setLogin("user" + i);
+            user.setEmail("user" + i + "@example.com");
+            user.setType(UserType.LDAP);
+            user.setFullName("Outdated");
+            user.setMetaInfo(new User.MetaInfo());
+            mongoTemplate.save(user);
+        }
+
+        LdapSynchronizer synchronizer = synchronizer();
+        synchronizer.synchronize();
+
+        Assert.assertEquals(0, synchronizer.getFailedRuns());
+        Assert.assertEquals(USERS, synchronizer.getProcessed());
+        Assert.assertEquals(USERS, synchronizer.getSynchronizedUsers());
+        Assert.assertEquals("User 7", mongoTemplate.findById("user7", User.class).getFullName());
+        Assert.assertNotNull(mongoTemplate.findById(url() + "/" + BASE_DN, SynchronizationState.class).getHighWaterMark());
+
+        /* timestamps have millisecond precision */
+        Thread.sleep(50);
+        directoryServer.modify("dn: uid=user3,ou=people," + BASE_DN, "changetype: modify", "replace: cn", "cn: Renamed");
+
+        /* state is read from DB, so new instance continues where previous one has finished */
+        synchronizer = synchronizer();
+        synchronizer.synchronize();
+
+        Assert.assertEquals(0, synchronizer.getFailedRuns());
+        Assert.assertTrue(synchronizer.getProcessed() < USERS);
+        Assert.assertEquals("Renamed", mongoTemplate.findById("user3", User.class).getFullName());
+        Assert.assertTrue(synchronizer.getLag() >= 0);
+    }
+
+    @Test
+    public void progressIsStoredAfterEachBatch() {
+        LdapUserReplicator replicator = mock(LdapUserReplicator.class);
+        when(replicator.synchronizeUsers(any(), any(), anyBoolean())).thenReturn(7).thenThrow(new IllegalStateException("DB is down"));
+
+        LdapSynchronizer synchronizer = synchronizer(replicator, url());
+        synchronizer.synchronize();
+
+        Assert.assertEquals(1, synchronizer.getFailedRuns());
+        SynchronizationState state = mongoTemplate.findById(url() + "/" + BASE_DN, SynchronizationState.class);
+        Assert.assertNotNull(state.getHighWaterMark());
+        Assert.assertNull(state.getLastSuccess());
+    }
+
+    @Test
+    public void eachServerHasOwnProgress() {
+        String unavailable = "ldap://localhost:1";
+        LdapSynchronizer synchronizer = synchronizer(replicator(), unavailable, url());
+        synchronizer.synchronize();
+
+        Assert.assertEquals(0, synchronizer.getFailedRuns());
+        Assert.assertEquals(USERS, synchronizer.getProcessed());
+        Assert.assertNull(mongoTemplate.findById(unavailable + "/" + BASE_DN, SynchronizationState.class));
+        Assert.assertNotNull(mongoTemplate.findById(url() + "/" + BASE_DN, SynchronizationState.class).getLastSuccess());
+    }
+
+    @Test
+    public void runsOnNodeHoldingLease() {
+        Assert.assertTrue(new JobLock(mongoTemplate).tryLock("ldapSynchronizer", TimeUnit.MINUTES.toMillis(1)));
+
+        LdapSynchronizer synchronizer = synchronizer();
+        synchronizer.synchronize();
+
+        Assert.assertEquals(0, synchronizer.getProcessed());
+        Assert.assertNull(mongoTemplate.findById(url() + "/" + BASE_DN, SynchronizationState.class));
+    }
+
+    @Test
+    public void usersSearchIsDerivedFromLoginSettings() {
+        LdapConfig ldap = new LdapConfig();
+        ldap.setUserDnPattern("uid={0},ou=people");
+        LdapSynchronizer.UserSearch search = LdapSynchronizer.UserSearch.of(ldap).get();
+        Assert.assertEquals("ou=people", search.getBase());
+        Assert.assertEquals("(uid=*)", search.getFilter());
+        Assert.assertEquals("uid", search.getLoginAttribute());
+
+        ldap.setUserSearchFilter("(&(objectClass=person)(sAMAccountName={0}))");
+        search = LdapSynchronizer.UserSearch.of(ldap).get();
+        Assert.assertEquals("", search.getBase());
+        Assert.assertEquals("(&(objectClass=person)(sAMAccountName=*))", search.getFilter());
+        Assert.assertEquals("sAMAccountName", search.getLoginAttribute());
+    }
+
+    @Test
+    public void numericMarkersAreComparedByValue() {
+        Assert.assertEquals("100", LdapSynchronizer.max("99", "100"));
+        Assert.assertEquals("20180102000000Z", LdapSynchronizer.max("20180102000000Z", "20180101000000Z"));
+        Assert.assertEquals("1", LdapSynchronizer.max(null, "1"));
+    }
+
+    @Test
+    public void timestampMarkersAreComparedByTime() {
+        Assert.assertEquals("20180101120000Z", LdapSynchronizer.max("20180101120000Z", "20180101115959.5Z"));
+        Assert.assertEquals("20180101115959.5Z", LdapSynchronizer.max("20180101115959.25Z", "20180101115959.5Z"));
+        Assert.assertEquals("20180101113000Z", LdapSynchronizer.max("20180101120000+0100", "20180101113000Z"));
+    }
+
+    private LdapSynchronizer synchronizer() {
+        return synchronizer(replicator(), url());
+    }
+
+    private LdapSynchronizer synchronizer(LdapUserReplicator replicator, String url, String... failoverUrls) {
+        SynchronizationAttributes attributes = new SynchronizationAttributes();
+        attributes.setEmail("mail");
+        attributes.setFullName("cn");
+
+        LdapConfig ldap = new LdapConfig();
+        ldap.setEnabled(true);
+        ldap.setUrl(url);
+        ldap.setFailoverUrls(Arrays.asList(failoverUrls));
+        ldap.setBaseDn(BASE_DN);
+        ldap.setManagerDn(MANAGER_DN);
+        ldap.setManagerPassword("secret");
+        ldap.setUserDnPattern("uid={0},ou=people");
+        ldap.setSynchronizationAttributes(attributes);
+
+        AuthConfigEntity entity = new AuthConfigEntity();
+        entity.setLdap(ldap);
+        AuthConfigHolder holderMock = mock(AuthConfigHolder.class);
+        when(holderMock.get()).thenReturn(new AuthConfigSnapshot(1, entity, null));
+
+        return new LdapSynchronizer(holderMock, replicator, mongoTemplate, jobLock, true, 10, 7, "modifyTimestamp", false,
+                TimeUnit.MINUTES.toMillis(1));
+    }
+
+    private static LdapUserReplicator replicator() {
+        return new LdapUserReplicator(null, null, null, mock(DataStorage.class), mongoTemplate, new ReplicationQueue(false, 1, 1, 1, 1));
+    }
+
+    private static String url() {
+        return "ldap://localhost:" + directoryServer.getListenPort();
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2018 EPAM Systems
+ *
+ *
+ * This file is part of EPAM Report Portal.
+ * https://github.com/reportportal/service-authorization
+ *
+ * Report Portal is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Report Portal is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Report Portal.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.epam.reportportal.auth.integration.ldap;
+
+import com.epam.reportportal.auth.integration.ReplicationQueue;
+import com.epam.reportportal.auth.store.EmbeddedMongoTest;
+import com.epam.reportportal.auth.store.entity.ldap.SynchronizationAttributes;
+import com.epam.ta.reportportal.database.BinaryData;
+import com.epam.ta.reportportal.database.DataStorage;
+import com.epam.ta.reportportal.database.dao.UserRepository;
+import com.epam.ta.reportportal.database.entity.user.User;
+import com.epam.ta.reportportal.database.entity.user.UserType;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.ldap.core.DirContextAdapter;
+import org.springframework.ldap.core.DirContextOperations;
+
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * @author Andrei Varabyeu
+ */
+public class LdapUserReplicatorTest extends EmbeddedMongoTest {
+
+    private final AtomicInteger uploads = new AtomicInteger();
+
+    private UserRepository userRepository;
+    private DataStorage dataStorage;
+    private LdapUserReplicator replicator;
+    private SynchronizationAttributes attributes;
+
+    @Before
+    public void setUp() {
+        mongoTemplate.dropCollection(User.class);
+        User user = new User();
+        user.setLogin("user");
+        user.setEmail("user@example.com");
+        user.setType(UserType.LDAP);
+        user.setPhotoId("initial");
+        user.setMetaInfo(new User.MetaInfo());
+        mongoTemplate.save(user);
+
+        userRepository = mock(UserRepository.class);
+        when(userRepository.uploadUserPhoto(anyString(), any(BinaryData.class))).thenAnswer(invocation -> "photo" + uploads.incrementAndGet());
+        dataStorage = mock(DataStorage.class);
+        replicator = new LdapUserReplicator(userRepository, null, null, dataStorage, mongoTemplate, new ReplicationQueue(false, 1, 1, 1, 1));
+
+        attributes = new SynchronizationAttributes();
+        attributes.setEmail("mail");
+        attributes.setPhoto("jpegPhoto");
+    }
+
+    @Test
+    public void unchangedPhotoIsNotUploaded() {
+        for (int i = 0; i < 3; i++) {
+            replicator.synchronizeUsers(Collections.singletonMap("user", entry(new byte[] { 1, 2, 3 })), attributes, false);
+        }
+        Assert.assertEquals(1, uploads.get());
+        Assert.assertEquals("photo1", mongoTemplate.findById("user", User.class).getPhotoId());
+        verify(dataStorage, times(1)).deleteData("initial");
+
+        replicator.synchronizeUsers(Collections.singletonMap("user", entry(new byte[] { 4, 5, 6 })), attributes, false);
+        Assert.assertEquals("photo2", mongoTemplate.findById("user", User.class).getPhotoId());
+        verify(dataStorage, times(1)).deleteData("photo1");
+    }
+
+    @Test
+    public void concurrentReplicationsRemovePreviousPhotoOnce() {
+        /* another replication of the same user links its photo while this one uploads */
+        when(userRepository.uploadUserPhoto(anyString(), any(BinaryData.class))).thenAnswer(invocation -> {
+            int upload = uploads.incrementAndGet();
+            if (1 == upload) {
+                replicator.synchronizeUsers(Collections.singletonMap("user", entry(new byte[] { 4, 5, 6 })), attributes, false);
+            }
+            return "photo" + upload;
+        });
+        replicator.synchronizeUsers(Collections.singletonMap("user", entry(new byte[] { 1, 2, 3 })), attributes, false);
+
+        Assert.assertEquals("photo2", mongoTemplate.findById("user", User.class).getPhotoId());
+        verify(dataStorage, times(1)).deleteData("initial");
+        /* upload of replication which has lost */
+        verify(dataStorage, times(1)).deleteData("photo1");
+        verify(dataStorage, times(2)).deleteData(anyString());
+    }
+
+    private static DirContextOperations entry(byte[] photo) {
+        DirContextAdapter ctx = new DirContextAdapter();
+        ctx.setAttributeValue("mail", "user@example.com");
+        ctx.setAttributeValue("jpegPhoto", photo);
+        return ctx;
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2018 EPAM Systems
+ *
+ *
+ * This file is part of EPAM Report Portal.
+ * https://github.com/reportportal/service-authorization
+ *
+ * Report Portal is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Report Portal is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Report Portal.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.epam.reportportal.auth.integration.ldap;
+
+import com.epam.reportportal.auth.store.entity.ldap.ConnectionPoolConfig;
+import com.unboundid.ldap.listener.InMemoryDirectoryServer;
+import com.unboundid.ldap.listener.InMemoryDirectoryServerConfig;
+import com.unboundid.ldap.listener.InMemoryListenerConfig;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.ldap.AuthenticationException;
+import org.springframework.ldap.support.LdapUtils;
+import org.springframework.security.ldap.DefaultSpringSecurityContextSource;
+
+import javax.naming.directory.DirContext;
+import java.util.Collections;
+
+/**
+ * @author Andrei Varabyeu
+ */
+public class PooledLdapContextSourceTest {
+
+    private static final String BASE_DN = "dc=example,dc=com";
+    private static final String MANAGER_DN = "cn=admin," + BASE_DN;
+    private static final String USER_DN = "uid=user,ou=people," + BASE_DN;
+
+    private static InMemoryDirectoryServer directoryServer;
+
+    @BeforeClass
+    public static void startDirectory() throws Exception {
+        InMemoryDirectoryServerConfig config = new InMemoryDirectoryServerConfig(BASE_DN);
+        config.addAdditionalBindCredentials(MANAGER_DN, "secret");
+        config.setListenerConfigs(InMemoryListenerConfig.createLDAPConfig("default", 0));
+        config.setSchema(null);
+        directoryServer = new InMemoryDirectoryServer(config);
+        directoryServer.add("dn: " + BASE_DN, "objectClass: top", "objectClass: domain", "dc: example");
+        directoryServer.add("dn: ou=people," + BASE_DN, "objectClass: top", "objectClass: organizationalUnit", "ou: people");
+        directoryServer.add("dn: " + USER_DN, "objectClass: top", "objectClass: inetOrgPerson", "uid: user", "cn: User", "sn: User",
+                "userPassword: password");
+        directoryServer.startListening();
+    }
+
+    @AfterClass
+    public static void stopDirectory() {
+        directoryServer.shutDown(true);
+    }
+
+    @Test
+    public void searchConnectionsAreReused() {
+        ConnectionPoolConfig config = new ConnectionPoolConfig();
+        config.setEnabled(true);
+        config.setMaxActive(2);
+        config.setTestOnBorrow(true);
+
+        try (PooledLdapContextSource contextSource = new PooledLdapContextSource(target(), config)) {
+            for (int i = 0; i < 10; i++) {
+                LdapUtils.closeContext(contextSource.getReadOnlyContext());
+            }
+            Assert.assertEquals(10, contextSource.getBorrowed());
+            Assert.assertEquals(0, contextSource.getNumActive());
+            Assert.assertEquals(1, contextSource.getNumIdle());
+        }
+    }
+
+    @Test
+    public void userBindsAreNotPooled() {
+        ConnectionPoolConfig config = new ConnectionPoolConfig();
+        config.setEnabled(true);
+
+        try (PooledLdapContextSource contextSource = new PooledLdapContextSource(target(), config)) {
+            DirContext ctx = contextSource.getContext(USER_DN, "password");
+            LdapUtils.closeContext(ctx);
+            Assert.assertEquals(1, contextSource.getBinds());
+            Assert.assertEquals(0, contextSource.getNumIdle());
+
+            try {
+                contextSource.getContext(USER_DN, "wrong");
+                Assert.fail("Bind with wrong password should fail");
+            } catch (AuthenticationException e) {
+                Assert.assertEquals(0, contextSource.getNumIdle());
+            }
+        }
+    }
+
+    private static DefaultSpringSecurityContextSource target() {
+        DefaultSpringSecurityContextSource target = new DefaultSpringSecurityContextSource(
+                Collections.singletonList("ldap://localhost:" + directoryServer.getListenPort()), BASE_DN);
+        target.setUserDn(MANAGER_DN);
+        target.setPassword("secret");
+        target.setPooled(false);
+        target.afterPropertiesSet();
+        return target;
+    }
+}
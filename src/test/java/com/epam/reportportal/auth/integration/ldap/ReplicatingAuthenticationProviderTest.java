@@ -0,0 +1,78 @@
+/*
+ * Copyright 2018 EPAM Systems
+ *
+ *
+ * This file is part of EPAM Report Portal.
+ * https://github.com/reportportal/service-authorization
+ *
+ * Report Portal is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Report Portal is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Report Portal.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.epam.reportportal.auth.integration.ldap;
+
+import com.epam.reportportal.auth.store.entity.ldap.SynchronizationAttributes;
+import com.epam.ta.reportportal.database.entity.user.User;
+import com.epam.ta.reportportal.database.entity.user.UserRole;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.ldap.core.DirContextAdapter;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collections;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * @author Andrei Varabyeu
+ */
+public class ReplicatingAuthenticationProviderTest {
+
+    private final SynchronizationAttributes attributes = new SynchronizationAttributes();
+
+    @Test
+    public void userIsReplicatedOnceDirectoryHasResponded() {
+        DirContextAdapter ctx = new DirContextAdapter("uid=user,ou=people");
+        AuthenticationProvider directory = mock(AuthenticationProvider.class);
+        when(directory.authenticate(any())).thenReturn(
+                new UsernamePasswordAuthenticationToken(new DetailsContextMapper.DirectoryEntry("user", ctx), "password",
+                        Collections.emptyList()));
+
+        User user = new User();
+        user.setId("user");
+        user.setRole(UserRole.USER);
+        LdapUserReplicator replicator = mock(LdapUserReplicator.class);
+        when(replicator.replicateUser("user", ctx, attributes)).thenReturn(user);
+
+        Authentication result = new ReplicatingAuthenticationProvider(directory, replicator, attributes).authenticate(
+                new UsernamePasswordAuthenticationToken("user", "password"));
+
+        Assert.assertEquals("user", ((UserDetails) result.getPrincipal()).getUsername());
+        Assert.assertEquals(UserRole.USER.getAuthority(), result.getAuthorities().iterator().next().getAuthority());
+        verify(replicator).replicateUser(eq("user"), eq(ctx), eq(attributes));
+    }
+
+    @Test
+    public void nothingIsReplicatedIfDirectoryHasNotAuthenticated() {
+        AuthenticationProvider directory = mock(AuthenticationProvider.class);
+        LdapUserReplicator replicator = mock(LdapUserReplicator.class);
+
+        Assert.assertNull(new ReplicatingAuthenticationProvider(directory, replicator, attributes).authenticate(
+                new UsernamePasswordAuthenticationToken("user", "password")));
+        verifyZeroInteractions(replicator);
+    }
+}
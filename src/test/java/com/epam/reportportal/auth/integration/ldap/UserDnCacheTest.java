@@ -0,0 +1,88 @@
+/*
+ * Copyright 2018 EPAM Systems
+ *
+ *
+ * This file is part of EPAM Report Portal.
+ * https://github.com/reportportal/service-authorization
+ *
+ * Report Portal is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Report Portal is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Report Portal.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.epam.reportportal.auth.integration.ldap;
+
+import com.epam.reportportal.auth.event.AuthConfigChangedEvent;
+import com.epam.reportportal.auth.integration.AuthIntegrationType;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.ldap.core.DirContextAdapter;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.ldap.search.LdapUserSearch;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * @author Andrei Varabyeu
+ */
+public class UserDnCacheTest {
+
+    private final UserDnCache cache = new UserDnCache(true, 60, 100);
+
+    @Test
+    public void knownUserIsNotSearched() {
+        LdapUserSearch directory = directory();
+        LdapUserSearch search = cache.wrap(directory);
+
+        Assert.assertEquals("uid=user,ou=people", search.searchForUser("User").getDn().toString());
+        Assert.assertEquals("uid=user,ou=people", search.searchForUser("user").getDn().toString());
+
+        verify(directory, times(1)).searchForUser(anyString());
+        Assert.assertEquals(0.5, cache.getHitRatio(), 0.001);
+    }
+
+    @Test
+    public void failedBindDropsDn() {
+        LdapUserSearch search = cache.wrap(directory());
+        search.searchForUser("user");
+
+        AuthenticationProvider provider = mock(AuthenticationProvider.class);
+        doThrow(new BadCredentialsException("Bad credentials")).when(provider).authenticate(any());
+        try {
+            cache.invalidateOnFailure(provider).authenticate(new UsernamePasswordAuthenticationToken("user", "wrong"));
+            Assert.fail("Wrong password should be rejected");
+        } catch (BadCredentialsException e) {
+            Assert.assertEquals(0, cache.size());
+        }
+    }
+
+    @Test
+    public void ldapSettingsChangeDropsDns() {
+        LdapUserSearch search = cache.wrap(directory());
+        search.searchForUser("user");
+
+        cache.onApplicationEvent(new AuthConfigChangedEvent(AuthIntegrationType.ACTIVE_DIRECTORY));
+        Assert.assertEquals(1, cache.size());
+        cache.onApplicationEvent(new AuthConfigChangedEvent(AuthIntegrationType.LDAP));
+        Assert.assertEquals(0, cache.size());
+    }
+
+    private static LdapUserSearch directory() {
+        LdapUserSearch directory = mock(LdapUserSearch.class);
+        when(directory.searchForUser(anyString())).thenAnswer(
+                invocation -> new DirContextAdapter("uid=" + invocation.<String>getArgument(0).toLowerCase() + ",ou=people"));
+        return directory;
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2018 EPAM Systems
+ *
+ *
+ * This file is part of EPAM Report Portal.
+ * https://github.com/reportportal/service-authorization
+ *
+ * Report Portal is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Report Portal is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Report Portal.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.epam.reportportal.auth.integration.ldap;
+
+import com.epam.reportportal.auth.event.AuthConfigChangedEvent;
+import com.epam.reportportal.auth.integration.AuthIntegrationType;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+
+import java.util.Collections;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * @author Andrei Varabyeu
+ */
+public class VerifiedCredentialsCacheTest {
+
+    private final VerifiedCredentialsCache cache = new VerifiedCredentialsCache(true, 60, 100, 10);
+
+    @Test
+    public void repeatedLoginSkipsDirectory() {
+        AuthenticationProvider directory = directory();
+
+        Authentication first = cache.authenticate(AuthIntegrationType.LDAP, login("User", "password"), directory);
+        Authentication second = cache.authenticate(AuthIntegrationType.LDAP, login("user", "password"), directory);
+
+        verify(directory, times(1)).authenticate(any());
+        Assert.assertEquals(first.getName(), second.getName());
+        Assert.assertNull(second.getCredentials());
+        Assert.assertEquals(1, cache.getHits());
+    }
+
+    @Test
+    public void differentPasswordIsCheckedByDirectory() {
+        AuthenticationProvider directory = directory();
+        cache.authenticate(AuthIntegrationType.LDAP, login("user", "password"), directory);
+
+        doThrow(new BadCredentialsException("Bad credentials")).when(directory).authenticate(any());
+        try {
+            cache.authenticate(AuthIntegrationType.LDAP, login("user", "wrong"), directory);
+            Assert.fail("Wrong password should be rejected");
+        } catch (BadCredentialsException e) {
+            Assert.assertEquals(0, cache.size());
+        }
+        verify(directory, times(2)).authenticate(any());
+    }
+
+    @Test
+    public void settingsChangeDropsLoginsOfIntegration() {
+        AuthenticationProvider directory = directory();
+        cache.authenticate(AuthIntegrationType.LDAP, login("user", "password"), directory);
+        cache.authenticate(AuthIntegrationType.ACTIVE_DIRECTORY, login("user", "password"), directory);
+
+        cache.onApplicationEvent(new AuthConfigChangedEvent(AuthIntegrationType.LDAP));
+        Assert.assertEquals(1, cache.size());
+
+        cache.invalidateUsers(Collections.singletonList("user"));
+        Assert.assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void disabledCacheAlwaysAsksDirectory() {
+        AuthenticationProvider directory = directory();
+        VerifiedCredentialsCache disabled = VerifiedCredentialsCache.disabled();
+        disabled.authenticate(AuthIntegrationType.LDAP, login("user", "password"), directory);
+        disabled.authenticate(AuthIntegrationType.LDAP, login("user", "password"), directory);
+        verify(directory, times(2)).authenticate(any());
+        Assert.assertSame(directory, disabled.wrap(AuthIntegrationType.LDAP, directory));
+    }
+
+    private static Authentication login(String user, String password) {
+        return new UsernamePasswordAuthenticationToken(user, password);
+    }
+
+    private static AuthenticationProvider directory() {
+        AuthenticationProvider directory = mock(AuthenticationProvider.class);
+        when(directory.authenticate(any())).thenAnswer(invocation -> {
+            Authentication request = invocation.getArgument(0);
+            return new UsernamePasswordAuthenticationToken(request.getName().toLowerCase(), request.getCredentials(),
+                    AuthorityUtils.createAuthorityList("ROLE_USER"));
+        });
+        return directory;
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2018 EPAM Systems
+ *
+ *
+ * This file is part of EPAM Report Portal.
+ * https://github.com/reportportal/service-authorization
+ *
+ * Report Portal is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Report Portal is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Report Portal.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.epam.reportportal.auth.store;
+
+import com.epam.reportportal.auth.event.AuthConfigChangedEvent;
+import com.epam.reportportal.auth.event.OAuthConfigChangedEvent;
+import com.epam.reportportal.auth.integration.AuthIntegrationType;
+import com.epam.reportportal.auth.store.entity.AuthConfigEntity;
+import com.epam.reportportal.auth.store.entity.ldap.LdapConfig;
+import com.epam.ta.reportportal.database.entity.settings.OAuth2LoginDetails;
+import com.epam.ta.reportportal.database.entity.settings.ServerSettings;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.Collections;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * @author Andrei Varabyeu
+ */
+public class AuthConfigHolderTest extends EmbeddedMongoTest {
+
+    private ApplicationEventPublisher publisher;
+    private AuthConfigHolder holder;
+
+    @Before
+    public void setUp() {
+        mongoTemplate.dropCollection(AuthConfigEntity.class);
+        mongoTemplate.dropCollection(ServerSettings.class);
+
+        AuthConfigEntity entity = new AuthConfigEntity();
+        entity.setId(AuthConfigRepository.DEFAULT_PROFILE);
+        entity.setLdap(ldap("ldap://localhost:389"));
+        mongoTemplate.save(entity);
+
+        publisher = mock(ApplicationEventPublisher.class);
+        holder = new AuthConfigHolder(mongoTemplate, publisher);
+    }
+
+    @Test
+    public void loadsSettingsOnStart() {
+        AuthConfigSnapshot snapshot = holder.get();
+        Assert.assertEquals("ldap://localhost:389", snapshot.getLdap(true).get().getUrl());
+        Assert.assertFalse(snapshot.getActiveDirectory(true).isPresent());
+        Assert.assertTrue(snapshot.getOAuth2LoginDetails().isEmpty());
+    }
+
+    @Test
+    public void keepsSnapshotIfNothingChanged() {
+        AuthConfigSnapshot snapshot = holder.get();
+        Assert.assertSame(snapshot, holder.refresh());
+        Assert.assertSame(snapshot, holder.get());
+        verify(publisher, never()).publishEvent(any(AuthConfigChangedEvent.class));
+    }
+
+    @Test
+    public void notifiesAboutChangedIntegrationOnly() {
+        long version = holder.get().getVersion();
+
+        /* changed by another node */
+        AuthConfigEntity entity = mongoTemplate.findById(AuthConfigRepository.DEFAULT_PROFILE, AuthConfigEntity.class);
+        entity.setLdap(ldap("ldap://failover:389"));
+        mongoTemplate.save(entity);
+        Assert.assertEquals("ldap://localhost:389", holder.get().getLdap(true).get().getUrl());
+
+        holder.poll();
+
+        AuthConfigSnapshot snapshot = holder.get();
+        Assert.assertEquals(version + 1, snapshot.getVersion());
+        Assert.assertEquals("ldap://failover:389", snapshot.getLdap(true).get().getUrl());
+
+        ArgumentCaptor<AuthConfigChangedEvent> event = ArgumentCaptor.forClass(AuthConfigChangedEvent.class);
+        verify(publisher, times(1)).publishEvent(event.capture());
+        Assert.assertEquals(AuthIntegrationType.LDAP, event.getValue().getType());
+    }
+
+    @Test
+    public void reloadsOAuthDetails() {
+        long version = holder.get().getVersion();
+
+        OAuth2LoginDetails details = new OAuth2LoginDetails();
+        details.setClientId("client");
+        ServerSettings settings = new ServerSettings();
+        settings.setId(AuthConfigRepository.DEFAULT_PROFILE);
+        settings.setoAuth2LoginDetails(Collections.singletonMap("github", details));
+        mongoTemplate.save(settings);
+
+        AuthConfigSnapshot snapshot = holder.refresh();
+        Assert.assertEquals(version + 1, snapshot.getVersion());
+        Assert.assertEquals("client", snapshot.getOAuth2LoginDetails("github").get().getClientId());
+        Assert.assertFalse(snapshot.getOAuth2LoginDetails("unknown").isPresent());
+        verify(publisher, never()).publishEvent(any(AuthConfigChangedEvent.class));
+
+        ArgumentCaptor<OAuthConfigChangedEvent> event = ArgumentCaptor.forClass(OAuthConfigChangedEvent.class);
+        verify(publisher, times(1)).publishEvent(event.capture());
+        Assert.assertEquals("github", event.getValue().getName());
+    }
+
+    private static LdapConfig ldap(String url) {
+        LdapConfig ldap = new LdapConfig();
+        ldap.setEnabled(true);
+        ldap.setUrl(url);
+        ldap.setBaseDn("dc=example,dc=com");
+        return ldap;
+    }
+}
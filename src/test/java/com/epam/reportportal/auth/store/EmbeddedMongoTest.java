@@ -0,0 +1,66 @@
+/*
+ * Copyright 2017 EPAM Systems
+ *
+ *
+ * This file is part of EPAM Report Portal.
+ * https://github.com/reportportal/service-authorization
+ *
+ * Report Portal is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Report Portal is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Report Portal.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.epam.reportportal.auth.store;
+
+import com.mongodb.MongoClient;
+import de.flapdoodle.embed.mongo.MongodExecutable;
+import de.flapdoodle.embed.mongo.MongodStarter;
+import de.flapdoodle.embed.mongo.config.MongodConfigBuilder;
+import de.flapdoodle.embed.mongo.config.Net;
+import de.flapdoodle.embed.mongo.distribution.Version;
+import de.flapdoodle.embed.process.runtime.Network;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+/**
+ * Base for tests which need real MongoDB features (query plans, bulk operations)
+ * in-memory fake does not provide. Starts embedded MongoDB once per test class
+ *
+ * @author Andrei Varabyeu
+ */
+public abstract class EmbeddedMongoTest {
+
+    private static MongodExecutable mongodExecutable;
+    private static MongoClient mongoClient;
+    protected static MongoTemplate mongoTemplate;
+
+    @BeforeClass
+    public static void startMongo() throws Exception {
+        int port = Network.getFreeServerPort();
+        mongodExecutable = MongodStarter.getDefaultInstance()
+                .prepare(new MongodConfigBuilder().version(Version.Main.PRODUCTION).net(new Net(port, Network.localhostIsIPv6())).build());
+        mongodExecutable.start();
+
+        mongoClient = new MongoClient("localhost", port);
+        mongoTemplate = new MongoTemplate(mongoClient, "reportportal");
+    }
+
+    @AfterClass
+    public static void stopMongo() {
+        if (null != mongoClient) {
+            mongoClient.close();
+        }
+        if (null != mongodExecutable) {
+            mongodExecutable.stop();
+        }
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2018 EPAM Systems
+ *
+ *
+ * This file is part of EPAM Report Portal.
+ * https://github.com/reportportal/service-authorization
+ *
+ * Report Portal is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Report Portal is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Report Portal.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.epam.reportportal.auth.store;
+
+import com.epam.reportportal.auth.store.entity.OAuth2AccessTokenEntity;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.security.oauth2.common.DefaultOAuth2AccessToken;
+import org.springframework.security.oauth2.common.util.SerializationUtils;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author Andrei Varabyeu
+ */
+public class ExpiredTokenReaperTest extends EmbeddedMongoTest {
+
+    private static final long LEASE = TimeUnit.HOURS.toMillis(1);
+
+    @After
+    public void cleanUp() {
+        mongoTemplate.dropCollection(OAuth2AccessTokenEntity.class);
+        mongoTemplate.dropCollection(JobLock.COLLECTION);
+    }
+
+    @Test
+    public void removesExpiredLegacyTokens() {
+        long now = System.currentTimeMillis();
+        Date future = new Date(now + TimeUnit.HOURS.toMillis(1));
+        for (int i = 0; i < 10; i++) {
+            mongoTemplate.save(legacyToken("expired" + i, new Date(now - TimeUnit.HOURS.toMillis(1))));
+            mongoTemplate.save(legacyToken("alive" + i, future));
+        }
+        mongoTemplate.save(legacyToken("api", null));
+
+        ExpiredTokenReaper reaper = new ExpiredTokenReaper(mongoTemplate, new JobLock(mongoTemplate), true, 3, 0, LEASE);
+        reaper.reap();
+
+        Assert.assertEquals(11, mongoTemplate.count(new Query(), OAuth2AccessTokenEntity.class));
+        Assert.assertNull(mongoTemplate.findById("expired0", OAuth2AccessTokenEntity.class));
+        Assert.assertEquals(future, mongoTemplate.findById("alive0", OAuth2AccessTokenEntity.class).getExpiresAt());
+        Assert.assertEquals(21, reaper.getScanned());
+        Assert.assertEquals(10, reaper.getDeleted());
+        Assert.assertEquals(11, reaper.getBackfilled());
+        Assert.assertEquals(0, reaper.getLegacyRemaining());
+
+        /* legacy tokens are processed once */
+        reaper.reap();
+        Assert.assertEquals(21, reaper.getScanned());
+    }
+
+    @Test
+    public void undecodableTokenIsProcessedOnce() {
+        OAuth2AccessTokenEntity broken = new OAuth2AccessTokenEntity();
+        broken.setTokenId("broken");
+        broken.setToken(new byte[] { 1, 2, 3 });
+        mongoTemplate.save(broken);
+
+        ExpiredTokenReaper reaper = new ExpiredTokenReaper(mongoTemplate, new JobLock(mongoTemplate), true, 3, 0, LEASE);
+        reaper.reap();
+        reaper.reap();
+
+        Assert.assertEquals(1, reaper.getScanned());
+        Assert.assertEquals(1, reaper.getFailed());
+        Assert.assertEquals(0, reaper.getBackfilled());
+        Assert.assertEquals(0, reaper.getLegacyRemaining());
+        Assert.assertNotNull(mongoTemplate.findById("broken", OAuth2AccessTokenEntity.class));
+    }
+
+    @Test
+    public void runsOnNodeHoldingLease() throws InterruptedException {
+        mongoTemplate.save(legacyToken("alive", new Date(System.currentTimeMillis() + LEASE)));
+        Assert.assertTrue(new JobLock(mongoTemplate, "another node").tryLock("expiredTokenReaper", LEASE));
+
+        ExpiredTokenReaper reaper = new ExpiredTokenReaper(mongoTemplate, new JobLock(mongoTemplate), true, 3, 0, LEASE);
+        reaper.reap();
+        Assert.assertEquals(0, reaper.getScanned());
+
+        Assert.assertTrue(new JobLock(mongoTemplate, "another node").tryLock("expiredTokenReaper", 0));
+        Thread.sleep(10);
+        reaper.reap();
+        Assert.assertEquals(1, reaper.getScanned());
+    }
+
+    private static OAuth2AccessTokenEntity legacyToken(String value, Date expiration) {
+        DefaultOAuth2AccessToken token = new DefaultOAuth2AccessToken(value);
+        token.setExpiration(expiration);
+        OAuth2AccessTokenEntity entity = new OAuth2AccessTokenEntity();
+        entity.setTokenId(value);
+        entity.setToken(SerializationUtils.serialize(token));
+        return entity;
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2017 EPAM Systems
+ *
+ *
+ * This file is part of EPAM Report Portal.
+ * https://github.com/reportportal/service-authorization
+ *
+ * Report Portal is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Report Portal is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Report Portal.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.epam.reportportal.auth.store;
+
+import com.epam.reportportal.auth.store.entity.OAuth2AccessTokenEntity;
+import com.epam.reportportal.auth.store.entity.OAuth2RefreshTokenEntity;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+
+/**
+ * @author Andrei Varabyeu
+ */
+public class MongoTokenStoreBackendTest extends TokenStoreBackendConformanceTest {
+
+    @BeforeClass
+    public static void startMongo() throws Exception {
+        EmbeddedMongoTest.startMongo();
+    }
+
+    @AfterClass
+    public static void stopMongo() {
+        EmbeddedMongoTest.stopMongo();
+    }
+
+    @Override
+    protected TokenStoreBackend createBackend() {
+        MongoTemplate mongoTemplate = EmbeddedMongoTest.mongoTemplate;
+        mongoTemplate.dropCollection(OAuth2AccessTokenEntity.class);
+        mongoTemplate.dropCollection(OAuth2RefreshTokenEntity.class);
+        new TokenIndexesInitializer(mongoTemplate).afterPropertiesSet();
+
+        MongoRepositoryFactory factory = new MongoRepositoryFactory(mongoTemplate);
+        return new MongoTokenStoreBackend(
+                factory.getRepository(OAuth2AccessTokenRepository.class, new OAuth2AccessTokenRepositoryImpl(mongoTemplate)),
+                factory.getRepository(OAuth2RefreshTokenRepository.class));
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2017 EPAM Systems
+ *
+ *
+ * This file is part of EPAM Report Portal.
+ * https://github.com/reportportal/service-authorization
+ *
+ * Report Portal is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Report Portal is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Report Portal.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.epam.reportportal.auth.store;
+
+import com.epam.reportportal.auth.store.entity.OAuth2AccessTokenEntity;
+import com.epam.reportportal.auth.store.entity.OAuth2RefreshTokenEntity;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+/**
+ * @author Andrei Varabyeu
+ */
+public class OAuth2AccessTokenRepositoryImplTest extends EmbeddedMongoTest {
+
+    private OAuth2AccessTokenRepositoryCustom repository;
+
+    @Before
+    public void setUp() {
+        mongoTemplate.dropCollection(OAuth2AccessTokenEntity.class);
+        mongoTemplate.dropCollection(OAuth2RefreshTokenEntity.class);
+        repository = new OAuth2AccessTokenRepositoryImpl(mongoTemplate);
+
+        for (String user : Arrays.asList("user1", "user2", "user3")) {
+            saveToken(user + "_ui", user, "ui", user + "_refresh");
+            saveToken(user + "_api", user, "api", null);
+        }
+    }
+
+    @Test
+    public void removesTokensOfAllUsers() {
+        RevokedTokens revoked = repository.removeByUserNames(Arrays.asList("user1", "user2"), null);
+
+        Assert.assertEquals(4, revoked.getAccessTokensRemoved());
+        Assert.assertEquals(2, revoked.getRefreshTokensRemoved());
+        Assert.assertEquals(4, revoked.getAccessTokens().size());
+        Assert.assertEquals(2, mongoTemplate.count(new Query(), OAuth2AccessTokenEntity.class));
+        Assert.assertEquals(1, mongoTemplate.count(new Query(), OAuth2RefreshTokenEntity.class));
+    }
+
+    @Test
+    public void removesTokensOfClient() {
+        RevokedTokens revoked = repository.removeByUserNames(Collections.singleton("user1"), "api");
+
+        Assert.assertEquals(Collections.singletonList("user1_api"), revoked.getAccessTokens());
+        Assert.assertEquals(0, revoked.getRefreshTokensRemoved());
+        Assert.assertNotNull(mongoTemplate.findById("user1_ui", OAuth2AccessTokenEntity.class));
+    }
+
+    private void saveToken(String tokenId, String user, String client, String refreshToken) {
+        OAuth2AccessTokenEntity entity = new OAuth2AccessTokenEntity();
+        entity.setTokenId(tokenId);
+        entity.setUserName(user);
+        entity.setClientId(client);
+        entity.setRefreshToken(refreshToken);
+        mongoTemplate.save(entity);
+
+        if (null != refreshToken) {
+            OAuth2RefreshTokenEntity refreshEntity = new OAuth2RefreshTokenEntity();
+            refreshEntity.setTokenId(refreshToken);
+            mongoTemplate.save(refreshEntity);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2018 EPAM Systems
+ *
+ *
+ * This file is part of EPAM Report Portal.
+ * https://github.com/reportportal/service-authorization
+ *
+ * Report Portal is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Report Portal is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Report Portal.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.epam.reportportal.auth.store;
+
+import com.epam.reportportal.auth.store.entity.OAuth2AccessTokenEntity;
+import com.google.common.collect.ImmutableMap;
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBObject;
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Checks every query of {@link OAuth2AccessTokenRepository} is served by index
+ * created with {@link TokenIndexesInitializer}. Runs against embedded MongoDB
+ * since in-memory fake does not build query plans
+ *
+ * @author Andrei Varabyeu
+ */
+public class OAuth2AccessTokenRepositoryIndexTest extends EmbeddedMongoTest {
+
+    /**
+     * Query each repository method produces. Should be updated once new method is added to repository
+     */
+    //@formatter:off
+    private static final Map<String, DBObject> QUERIES = ImmutableMap.<String, DBObject>builder()
+            .put("findByTokenId", new BasicDBObject("_id", "token"))
+            .put("findByTokenIdIn", new BasicDBObject("_id", new BasicDBObject("$in", Arrays.asList("token1", "token2"))))
+            .put("findIdByRefreshToken", new BasicDBObject("refreshToken", "refresh"))
+            .put("findByAuthenticationId", new BasicDBObject("authenticationId", "key"))
+            .put("findTokensByClientIdAndUserName", new BasicDBObject("clientId", "ui").append("userName", "user"))
+            .put("findTokensByClientId", new BasicDBObject("clientId", "ui"))
+            .put("removeByUserNames", new BasicDBObject("userName", new BasicDBObject("$in", Arrays.asList("user1", "user2"))))
+            .put("removeByUserNames(client)", new BasicDBObject("clientId", "ui")
+                    .append("userName", new BasicDBObject("$in", Arrays.asList("user1", "user2"))))
+            .build();
+    //@formatter:on
+
+    @BeforeClass
+    public static void createIndexes() {
+        new TokenIndexesInitializer(mongoTemplate).afterPropertiesSet();
+
+        for (int i = 0; i < 100; i++) {
+            OAuth2AccessTokenEntity entity = new OAuth2AccessTokenEntity();
+            entity.setTokenId("token" + i);
+            entity.setRefreshToken("refresh" + i);
+            entity.setAuthenticationId("key" + i);
+            entity.setUserName("user" + i);
+            entity.setClientId(i % 2 == 0 ? "ui" : "api");
+            mongoTemplate.save(entity);
+        }
+    }
+
+    @Test
+    public void allRepositoryMethodsAreChecked() {
+        for (Method method : OAuth2AccessTokenRepository.class.getDeclaredMethods()) {
+            if (method.isSynthetic()) {
+                continue;
+            }
+            Assert.assertThat("Query plan of '" + method.getName() + "' is not checked", QUERIES, Matchers.hasKey(method.getName()));
+        }
+    }
+
+    @Test
+    public void queriesUseIndexes() {
+        QUERIES.forEach((method, query) -> {
+            DBObject plan = mongoTemplate.getCollection(mongoTemplate.getCollectionName(OAuth2AccessTokenEntity.class))
+                    .find(query)
+                    .explain();
+            Assert.assertThat("'" + method + "' performs collection scan", plan.toString(), Matchers.not(Matchers.containsString("COLLSCAN")));
+        });
+    }
+
+    @Test
+    public void initializerIsIdempotent() {
+        int before = mongoTemplate.indexOps(OAuth2AccessTokenEntity.class).getIndexInfo().size();
+        new TokenIndexesInitializer(mongoTemplate).afterPropertiesSet();
+        Assert.assertEquals(before, mongoTemplate.indexOps(OAuth2AccessTokenEntity.class).getIndexInfo().size());
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2017 EPAM Systems
+ *
+ *
+ * This file is part of EPAM Report Portal.
+ * https://github.com/reportportal/service-authorization
+ *
+ * Report Portal is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Report Portal is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Report Portal.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.epam.reportportal.auth.store;
+
+import com.epam.reportportal.auth.store.entity.OAuth2AccessTokenEntity;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Date;
+
+/**
+ * @author Andrei Varabyeu
+ */
+public class OffHeapTokenStoreBackendTest extends TokenStoreBackendConformanceTest {
+
+    @Override
+    protected TokenStoreBackend createBackend() {
+        return new OffHeapTokenStoreBackend(1024);
+    }
+
+    @Test
+    public void releasesMemory() {
+        OffHeapTokenStoreBackend offHeap = (OffHeapTokenStoreBackend) backend;
+        offHeap.saveAccessToken(accessToken("token", "user", "ui", null));
+        Assert.assertTrue(offHeap.getUsedMemory() > 0);
+
+        offHeap.removeAccessToken("token");
+        Assert.assertEquals(0, offHeap.getUsedMemory());
+    }
+
+    @Test
+    public void purgesExpiredTokensWhenFull() {
+        for (int i = 0; i < 100; i++) {
+            OAuth2AccessTokenEntity token = accessToken("expired" + i, "user", "ui", null);
+            token.setExpiresAt(new Date(System.currentTimeMillis() - 1000));
+            try {
+                backend.saveAccessToken(token);
+            } catch (IllegalStateException e) {
+                Assert.fail("Expired tokens are not purged");
+            }
+        }
+        Assert.assertNotNull(backend.findAccessToken("expired99"));
+    }
+
+    @Test
+    public void purgesOnlyExpiredTokens() {
+        OffHeapTokenStoreBackend offHeap = (OffHeapTokenStoreBackend) backend;
+        Date past = new Date(System.currentTimeMillis() - 1000);
+        OAuth2AccessTokenEntity expired = accessToken("expired", "user", "ui", null);
+        expired.setExpiresAt(past);
+        offHeap.saveAccessToken(expired);
+        OAuth2AccessTokenEntity prolonged = accessToken("prolonged", "user", "ui", null);
+        prolonged.setExpiresAt(past);
+        offHeap.saveAccessToken(prolonged);
+        prolonged.setExpiresAt(new Date(System.currentTimeMillis() + 60000));
+        offHeap.saveAccessToken(prolonged);
+        OAuth2AccessTokenEntity permanent = accessToken("permanent", "user", "ui", null);
+        permanent.setExpiresAt(null);
+        offHeap.saveAccessToken(permanent);
+
+        offHeap.purgeExpired();
+
+        Assert.assertNull(offHeap.findAccessToken("expired"));
+        Assert.assertNotNull(offHeap.findAccessToken("prolonged"));
+        Assert.assertNotNull(offHeap.findAccessToken("permanent"));
+        Assert.assertEquals(2, offHeap.findTokensByClientId("ui").size());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void rejectsTokensWhenFull() {
+        for (int i = 0; i < 100; i++) {
+            backend.saveAccessToken(accessToken("token" + i, "user", "ui", null));
+        }
+    }
+
+    @Test
+    public void keepsTokenWhenReplacementDoesNotFit() {
+        OffHeapTokenStoreBackend offHeap = (OffHeapTokenStoreBackend) backend;
+        offHeap.saveAccessToken(accessToken("token", "user", "ui", "refresh"));
+        try {
+            for (int i = 0; i < 100; i++) {
+                offHeap.saveAccessToken(accessToken("other" + i, "user", "ui", null));
+            }
+            Assert.fail("Storage should be full");
+        } catch (IllegalStateException e) {
+            //expected
+        }
+        long usedMemory = offHeap.getUsedMemory();
+
+        /* same size replacement fits */
+        offHeap.saveAccessToken(accessToken("token", "user", "ui", "refresh"));
+        Assert.assertEquals(usedMemory, offHeap.getUsedMemory());
+
+        OAuth2AccessTokenEntity bigger = accessToken("token", "user", "ui", "refresh");
+        bigger.setToken(new byte[1024]);
+        try {
+            offHeap.saveAccessToken(bigger);
+            Assert.fail("Storage should be full");
+        } catch (IllegalStateException e) {
+            Assert.assertEquals(usedMemory, offHeap.getUsedMemory());
+            Assert.assertEquals(3, offHeap.findAccessToken("token").getToken().length);
+            Assert.assertEquals("token", offHeap.findAccessTokenIdByRefreshToken("refresh"));
+            Assert.assertEquals("token", offHeap.findAccessTokenByAuthenticationId("auth_token").getTokenId());
+        }
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2018 EPAM Systems
+ *
+ *
+ * This file is part of EPAM Report Portal.
+ * https://github.com/reportportal/service-authorization
+ *
+ * Report Portal is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Report Portal is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Report Portal.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.epam.reportportal.auth.store;
+
+import com.epam.reportportal.auth.store.codec.TokenCodec;
+import com.epam.reportportal.auth.store.entity.OAuth2AccessTokenEntity;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.oauth2.common.DefaultOAuth2AccessToken;
+import org.springframework.security.oauth2.common.OAuth2AccessToken;
+import org.springframework.security.oauth2.common.util.SerializationUtils;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+import org.springframework.security.oauth2.provider.OAuth2Request;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author Andrei Varabyeu
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class ReportPortalTokenStoreTest {
+
+    private static final String TOKEN = "token-value";
+
+    @Mock
+    private TokenStoreBackend backend;
+
+    @Spy
+    private AccessTokenCache accessTokenCache = new AccessTokenCache(100, 60);
+
+    @InjectMocks
+    private ReportPortalTokenStore tokenStore;
+
+    private OAuth2Authentication authentication;
+
+    @Before
+    public void setUp() {
+        OAuth2Request request = new OAuth2Request(Collections.emptyMap(), "ui", AuthorityUtils.createAuthorityList("ROLE_USER"), true,
+                Collections.singleton("ui"), null, null, null, null);
+        authentication = new OAuth2Authentication(request,
+                new UsernamePasswordAuthenticationToken("user", "N/A", AuthorityUtils.createAuthorityList("ROLE_USER")));
+
+        OAuth2AccessTokenEntity entity = new OAuth2AccessTokenEntity();
+        entity.setTokenId(TOKEN);
+        entity.setToken(SerializationUtils.serialize(new DefaultOAuth2AccessToken(TOKEN)));
+        entity.setAuthentication(SerializationUtils.serialize(authentication));
+        when(backend.findAccessToken(TOKEN)).thenReturn(entity);
+    }
+
+    @Test
+    public void readsTokenFromCache() {
+        OAuth2AccessToken accessToken = tokenStore.readAccessToken(TOKEN);
+        OAuth2Authentication authentication = tokenStore.readAuthentication(accessToken);
+
+        Assert.assertEquals(TOKEN, accessToken.getValue());
+        Assert.assertEquals("user", authentication.getName());
+        verify(backend, times(1)).findAccessToken(TOKEN);
+        Assert.assertEquals(1L, accessTokenCache.stats().hitCount());
+    }
+
+    @Test
+    public void removeInvalidatesCache() {
+        OAuth2AccessToken accessToken = tokenStore.readAccessToken(TOKEN);
+        tokenStore.removeAccessToken(accessToken);
+        tokenStore.readAccessToken(TOKEN);
+
+        verify(accessTokenCache).invalidate(TOKEN);
+        Assert.assertEquals(2L, accessTokenCache.stats().missCount());
+    }
+
+    @Test
+    public void readsMissingTokensWithSingleQuery() {
+        OAuth2AccessTokenEntity other = new OAuth2AccessTokenEntity();
+        other.setTokenId("other");
+        other.setToken(SerializationUtils.serialize(new DefaultOAuth2AccessToken("other")));
+        other.setAuthentication(SerializationUtils.serialize(authentication));
+        when(backend.findAccessTokens(Collections.singletonList("other"))).thenReturn(Collections.singletonList(other));
+
+        tokenStore.readAccessToken(TOKEN);
+        Map<String, AccessTokenCache.CachedToken> tokens = tokenStore.readAccessTokens(Arrays.asList(TOKEN, "other", TOKEN));
+
+        Assert.assertEquals(2, tokens.size());
+        Assert.assertEquals("other", tokens.get("other").getAccessToken().getValue());
+        Assert.assertEquals("user", tokens.get(TOKEN).getAuthentication().getName());
+        verify(backend, times(1)).findAccessToken(TOKEN);
+    }
+
+    @Test
+    public void brokenTokenDoesNotFailBatch() {
+        OAuth2AccessTokenEntity broken = new OAuth2AccessTokenEntity();
+        broken.setTokenId("broken");
+        broken.setToken(new byte[] { 1, 2, 3 });
+        broken.setAuthentication(new byte[] { 1, 2, 3 });
+        broken.setCodecVersion(TokenCodec.CURRENT_VERSION);
+        when(backend.findAccessTokens(Collections.singletonList("broken"))).thenReturn(Collections.singletonList(broken));
+
+        tokenStore.readAccessToken(TOKEN);
+        Map<String, AccessTokenCache.CachedToken> tokens = tokenStore.readAccessTokens(Arrays.asList(TOKEN, "broken"));
+
+        Assert.assertEquals(Collections.singleton(TOKEN), tokens.keySet());
+        Assert.assertEquals("user", tokens.get(TOKEN).getAuthentication().getName());
+    }
+
+    @Test
+    public void loadsTokenOncePerRequest() {
+        ReflectionTestUtils.setField(tokenStore, "accessTokenCache", new AccessTokenCache(0, 60));
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        try {
+            OAuth2AccessToken accessToken = tokenStore.readAccessToken(TOKEN);
+            tokenStore.readAuthentication(accessToken);
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+        }
+        verify(backend, times(1)).findAccessToken(TOKEN);
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright 2017 EPAM Systems
+ *
+ *
+ * This file is part of EPAM Report Portal.
+ * https://github.com/reportportal/service-authorization
+ *
+ * Report Portal is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Report Portal is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Report Portal.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.epam.reportportal.auth.store;
+
+import com.epam.reportportal.auth.store.entity.OAuth2AccessTokenEntity;
+import com.epam.reportportal.auth.store.entity.OAuth2RefreshTokenEntity;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Contract every {@link TokenStoreBackend} should satisfy. Each backend has a subclass providing its instance
+ *
+ * @author Andrei Varabyeu
+ */
+public abstract class TokenStoreBackendConformanceTest {
+
+    private static final byte[] TOKEN = { 1, 2, 3 };
+    private static final byte[] AUTHENTICATION = { 4, 5, 6, 7 };
+
+    protected TokenStoreBackend backend;
+
+    /**
+     * @return Empty backend
+     */
+    protected abstract TokenStoreBackend createBackend();
+
+    @Before
+    public void setUpBackend() {
+        backend = createBackend();
+    }
+
+    @Test
+    public void savesAndFindsAccessToken() {
+        OAuth2AccessTokenEntity saved = accessToken("token", "user", "ui", "refresh");
+        backend.saveAccessToken(saved);
+
+        OAuth2AccessTokenEntity found = backend.findAccessToken("token");
+        Assert.assertNotNull(found);
+        Assert.assertArrayEquals(TOKEN, found.getToken());
+        Assert.assertArrayEquals(AUTHENTICATION, found.getAuthentication());
+        Assert.assertEquals(Integer.valueOf(1), found.getCodecVersion());
+        Assert.assertEquals("user", found.getUserName());
+        Assert.assertEquals("ui", found.getClientId());
+        Assert.assertEquals("refresh", found.getRefreshToken());
+        Assert.assertEquals(saved.getExpiresAt(), found.getExpiresAt());
+        Assert.assertNull(backend.findAccessToken("unknown"));
+    }
+
+    @Test
+    public void findsAccessTokenBySecondaryKeys() {
+        backend.saveAccessToken(accessToken("token", "user", "ui", "refresh"));
+
+        Assert.assertEquals("token", backend.findAccessTokenByAuthenticationId("auth_token").getTokenId());
+        Assert.assertEquals("token", backend.findAccessTokenIdByRefreshToken("refresh"));
+        Assert.assertNull(backend.findAccessTokenByAuthenticationId("auth_unknown"));
+        Assert.assertNull(backend.findAccessTokenIdByRefreshToken("unknown"));
+    }
+
+    @Test
+    public void findsSeveralAccessTokens() {
+        backend.saveAccessToken(accessToken("token1", "user", "ui", null));
+        backend.saveAccessToken(accessToken("token2", "user", "ui", null));
+
+        Assert.assertEquals(Arrays.asList("token1", "token2"), ids(backend.findAccessTokens(Arrays.asList("token1", "unknown", "token2"))));
+    }
+
+    @Test
+    public void findsTokensByClientAndUser() {
+        backend.saveAccessToken(accessToken("ui1", "user1", "ui", null));
+        backend.saveAccessToken(accessToken("api1", "user1", "api", null));
+        backend.saveAccessToken(accessToken("ui2", "user2", "ui", null));
+
+        List<OAuth2AccessTokenEntity> tokens = backend.findTokensByClientIdAndUserName("ui", "user1");
+        Assert.assertEquals(Collections.singletonList("ui1"), ids(tokens));
+        Assert.assertArrayEquals(TOKEN, tokens.get(0).getToken());
+        Assert.assertEquals(Integer.valueOf(1), tokens.get(0).getCodecVersion());
+        Assert.assertEquals(Arrays.asList("ui1", "ui2"), ids(backend.findTokensByClientId("ui")));
+        Assert.assertTrue(backend.findTokensByClientIdAndUserName("ui", "unknown").isEmpty());
+    }
+
+    @Test
+    public void replacesAccessToken() {
+        backend.saveAccessToken(accessToken("token", "user1", "ui", "refresh1"));
+        backend.saveAccessToken(accessToken("token", "user2", "ui", "refresh2"));
+
+        Assert.assertEquals("user2", backend.findAccessToken("token").getUserName());
+        Assert.assertTrue(backend.findTokensByClientIdAndUserName("ui", "user1").isEmpty());
+        Assert.assertEquals(Collections.singletonList("token"), ids(backend.findTokensByClientIdAndUserName("ui", "user2")));
+        Assert.assertEquals("token", backend.findAccessTokenIdByRefreshToken("refresh2"));
+    }
+
+    @Test
+    public void removesAccessToken() {
+        backend.saveAccessToken(accessToken("token", "user", "ui", "refresh"));
+        backend.removeAccessToken("token");
+        backend.removeAccessToken("unknown");
+
+        Assert.assertNull(backend.findAccessToken("token"));
+        Assert.assertNull(backend.findAccessTokenByAuthenticationId("auth_token"));
+        Assert.assertNull(backend.findAccessTokenIdByRefreshToken("refresh"));
+        Assert.assertTrue(backend.findTokensByClientId("ui").isEmpty());
+    }
+
+    @Test
+    public void removesTokensOfUsers() {
+        for (String user : Arrays.asList("user1", "user2", "user3")) {
+            backend.saveAccessToken(accessToken(user + "_ui", user, "ui", user + "_refresh"));
+            backend.saveRefreshToken(refreshToken(user + "_refresh"));
+            backend.saveAccessToken(accessToken(user + "_api", user, "api", null));
+        }
+
+        RevokedTokens revoked = backend.removeAccessTokensByUserNames(Arrays.asList("user1", "user2"), null);
+        Assert.assertEquals(4, revoked.getAccessTokensRemoved());
+        Assert.assertEquals(2, revoked.getRefreshTokensRemoved());
+        Assert.assertEquals(4, revoked.getAccessTokens().size());
+        Assert.assertNull(backend.findRefreshToken("user1_refresh"));
+        Assert.assertNotNull(backend.findRefreshToken("user3_refresh"));
+        Assert.assertEquals(Arrays.asList("user3_api", "user3_ui"), ids(backend.findTokensByClientIdAndUserName("api", "user3"),
+                backend.findTokensByClientIdAndUserName("ui", "user3")));
+
+        revoked = backend.removeAccessTokensByUserNames(Collections.singleton("user3"), "api");
+        Assert.assertEquals(Collections.singletonList("user3_api"), revoked.getAccessTokens());
+        Assert.assertEquals(0, revoked.getRefreshTokensRemoved());
+        Assert.assertNotNull(backend.findAccessToken("user3_ui"));
+    }
+
+    @Test
+    public void savesFindsAndRemovesRefreshToken() {
+        OAuth2RefreshTokenEntity saved = refreshToken("refresh");
+        backend.saveRefreshToken(saved);
+
+        OAuth2RefreshTokenEntity found = backend.findRefreshToken("refresh");
+        Assert.assertArrayEquals(TOKEN, found.getoAuth2RefreshToken());
+        Assert.assertArrayEquals(AUTHENTICATION, found.getAuthentication());
+        Assert.assertEquals(saved.getExpiresAt(), found.getExpiresAt());
+
+        backend.removeRefreshToken("refresh");
+        Assert.assertNull(backend.findRefreshToken("refresh"));
+    }
+
+    protected static OAuth2AccessTokenEntity accessToken(String tokenId, String user, String client, String refreshToken) {
+        OAuth2AccessTokenEntity token = new OAuth2AccessTokenEntity();
+        token.setTokenId(tokenId);
+        token.setToken(TOKEN);
+        token.setAuthentication(AUTHENTICATION);
+        token.setCodecVersion(1);
+        token.setAuthenticationId("auth_" + tokenId);
+        token.setUserName(user);
+        token.setClientId(client);
+        token.setRefreshToken(refreshToken);
+        token.setExpiresAt(new Date(System.currentTimeMillis() / 1000 * 1000 + 3600_000));
+        return token;
+    }
+
+    private static OAuth2RefreshTokenEntity refreshToken(String tokenId) {
+        OAuth2RefreshTokenEntity token = new OAuth2RefreshTokenEntity();
+        token.setTokenId(tokenId);
+        token.setoAuth2RefreshToken(TOKEN);
+        token.setAuthentication(AUTHENTICATION);
+        token.setCodecVersion(1);
+        token.setExpiresAt(new Date(System.currentTimeMillis() / 1000 * 1000 + 3600_000));
+        return token;
+    }
+
+    @SafeVarargs
+    private static List<String> ids(List<OAuth2AccessTokenEntity>... tokens) {
+        return Arrays.stream(tokens).flatMap(List::stream).map(OAuth2AccessTokenEntity::getTokenId).sorted().collect(Collectors.toList());
+    }
+}
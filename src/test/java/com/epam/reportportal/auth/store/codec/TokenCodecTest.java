@@ -0,0 +1,130 @@
+/*
+ * Copyright 2018 EPAM Systems
+ *
+ *
+ * This file is part of EPAM Report Portal.
+ * https://github.com/reportportal/service-authorization
+ *
+ * Report Portal is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Report Portal is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Report Portal.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.epam.reportportal.auth.store.codec;
+
+import com.epam.reportportal.auth.ReportPortalUser;
+import com.epam.ta.reportportal.database.entity.ProjectRole;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.oauth2.common.DefaultExpiringOAuth2RefreshToken;
+import org.springframework.security.oauth2.common.DefaultOAuth2AccessToken;
+import org.springframework.security.oauth2.common.ExpiringOAuth2RefreshToken;
+import org.springframework.security.oauth2.common.OAuth2AccessToken;
+import org.springframework.security.oauth2.common.OAuth2RefreshToken;
+import org.springframework.security.oauth2.common.util.SerializationUtils;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+import org.springframework.security.oauth2.provider.OAuth2Request;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.Date;
+
+/**
+ * @author Andrei Varabyeu
+ */
+public class TokenCodecTest {
+
+    @Test
+    public void testAccessTokenRoundTrip() {
+        DefaultOAuth2AccessToken token = new DefaultOAuth2AccessToken("access");
+        token.setExpiration(new Date(1_000_000L));
+        token.setScope(ImmutableSet.of("ui"));
+        token.setRefreshToken(new DefaultExpiringOAuth2RefreshToken("refresh", new Date(2_000_000L)));
+
+        OAuth2AccessToken decoded = TokenCodec.decodeAccessToken(TokenCodec.CURRENT_VERSION, TokenCodec.encodeAccessToken(token));
+
+        Assert.assertEquals(token, decoded);
+        Assert.assertEquals(token.getExpiration(), decoded.getExpiration());
+        Assert.assertEquals(token.getScope(), decoded.getScope());
+        Assert.assertThat(decoded.getRefreshToken(), Matchers.instanceOf(ExpiringOAuth2RefreshToken.class));
+        Assert.assertEquals(new Date(2_000_000L), ((ExpiringOAuth2RefreshToken) decoded.getRefreshToken()).getExpiration());
+    }
+
+    @Test
+    public void testRefreshTokenRoundTrip() {
+        OAuth2RefreshToken token = new DefaultExpiringOAuth2RefreshToken("refresh", new Date(2_000_000L));
+        Assert.assertEquals(token, TokenCodec.decodeRefreshToken(TokenCodec.CURRENT_VERSION, TokenCodec.encodeRefreshToken(token)));
+    }
+
+    @Test
+    public void testAuthenticationRoundTrip() {
+        OAuth2Authentication authentication = authentication();
+        OAuth2Authentication decoded = TokenCodec.decodeAuthentication(TokenCodec.CURRENT_VERSION,
+                TokenCodec.encodeAuthentication(authentication), null);
+
+        Assert.assertEquals("user", decoded.getName());
+        Assert.assertTrue(decoded.isAuthenticated());
+        Assert.assertEquals(authentication.getOAuth2Request(), decoded.getOAuth2Request());
+        Assert.assertEquals("github-token", decoded.getOAuth2Request().getExtensions().get("upstream_token"));
+        Assert.assertEquals(authentication.getAuthorities(), decoded.getAuthorities());
+
+        Assert.assertThat(decoded.getPrincipal(), Matchers.instanceOf(ReportPortalUser.class));
+        ReportPortalUser user = (ReportPortalUser) decoded.getPrincipal();
+        Assert.assertEquals(ProjectRole.PROJECT_MANAGER, user.getProjectRoles().get("project"));
+        Assert.assertNull("Erased credentials should stay erased", user.getPassword());
+    }
+
+    @Test
+    public void testUnauthenticatedUserKeepsAuthorities() {
+        OAuth2Authentication authentication = authentication();
+        authentication.getUserAuthentication().setAuthenticated(false);
+        OAuth2Authentication decoded = TokenCodec.decodeAuthentication(TokenCodec.CURRENT_VERSION,
+                TokenCodec.encodeAuthentication(authentication), null);
+
+        Assert.assertFalse(decoded.getUserAuthentication().isAuthenticated());
+        Assert.assertEquals(authentication.getUserAuthentication().getAuthorities(), decoded.getUserAuthentication().getAuthorities());
+    }
+
+    @Test
+    public void testLegacyFormat() {
+        OAuth2Authentication authentication = authentication();
+        OAuth2Authentication decoded = TokenCodec.decodeAuthentication(null, SerializationUtils.serialize(authentication), null);
+        Assert.assertEquals(authentication.getName(), decoded.getName());
+
+        DefaultOAuth2AccessToken token = new DefaultOAuth2AccessToken("access");
+        Assert.assertEquals(token, TokenCodec.decodeAccessToken(TokenCodec.JAVA_SERIALIZATION, SerializationUtils.serialize(token)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTypeMismatch() {
+        TokenCodec.decodeAccessToken(TokenCodec.CURRENT_VERSION,
+                TokenCodec.encodeRefreshToken(new DefaultExpiringOAuth2RefreshToken("refresh", new Date())));
+    }
+
+    private static OAuth2Authentication authentication() {
+        ReportPortalUser user = new ReportPortalUser("user", "password", AuthorityUtils.createAuthorityList("ROLE_USER"),
+                ImmutableMap.of("project", ProjectRole.PROJECT_MANAGER));
+        user.eraseCredentials();
+
+        UsernamePasswordAuthenticationToken userAuth = new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities());
+        userAuth.setDetails(ImmutableMap.of("grant_type", "password", "username", "user"));
+
+        OAuth2Request request = new OAuth2Request(ImmutableMap.of("client_id", "ui", "username", "user"), "ui",
+                AuthorityUtils.createAuthorityList("ROLE_USER"), true, ImmutableSet.of("ui"), Collections.emptySet(), null,
+                Collections.emptySet(), ImmutableMap.<String, Serializable>of("upstream_token", "github-token"));
+        return new OAuth2Authentication(request, userAuth);
+    }
+}
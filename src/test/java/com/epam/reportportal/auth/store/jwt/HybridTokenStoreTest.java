@@ -0,0 +1,148 @@
+/*
+ * Copyright 2017 EPAM Systems
+ *
+ *
+ * This file is part of EPAM Report Portal.
+ * https://github.com/reportportal/service-authorization
+ *
+ * Report Portal is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Report Portal is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Report Portal.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.epam.reportportal.auth.store.jwt;
+
+import com.epam.reportportal.auth.ReportPortalUser;
+import com.epam.ta.reportportal.database.entity.ProjectRole;
+import com.google.common.collect.ImmutableMap;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Answers;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.oauth2.common.DefaultOAuth2AccessToken;
+import org.springframework.security.oauth2.common.DefaultOAuth2RefreshToken;
+import org.springframework.security.oauth2.common.OAuth2AccessToken;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+import org.springframework.security.oauth2.provider.OAuth2Request;
+import org.springframework.security.oauth2.provider.token.DefaultAccessTokenConverter;
+import org.springframework.security.oauth2.provider.token.TokenStore;
+import org.springframework.security.oauth2.provider.token.store.JwtAccessTokenConverter;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * @author Andrei Varabyeu
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class HybridTokenStoreTest {
+
+    @Mock
+    private TokenStore persistentStore;
+
+    @Mock(answer = Answers.RETURNS_DEEP_STUBS)
+    private MongoOperations mongoOperations;
+
+    private ClientJwtTokenEnhancer enhancer;
+    private HybridTokenStore tokenStore;
+
+    @Before
+    public void setUp() throws Exception {
+        JwtAccessTokenConverter converter = new JwtAccessTokenConverter();
+        converter.setSigningKey("secret");
+        DefaultAccessTokenConverter accessTokenConverter = new DefaultAccessTokenConverter();
+        accessTokenConverter.setUserTokenConverter(new ReportPortalUserAuthenticationConverter());
+        converter.setAccessTokenConverter(accessTokenConverter);
+        converter.afterPropertiesSet();
+
+        enhancer = new ClientJwtTokenEnhancer(Collections.singleton("ui"), converter);
+        tokenStore = new HybridTokenStore(persistentStore, converter, new RevokedJwtRegistry(mongoOperations, TimeUnit.DAYS.toMillis(1)),
+                Collections.singleton("ui"));
+    }
+
+    @Test
+    public void readsUserFromToken() {
+        OAuth2AccessToken token = issueToken("ui");
+        tokenStore.storeAccessToken(token, authentication("ui"));
+
+        OAuth2Authentication authentication = tokenStore.readAuthentication(token.getValue());
+        Assert.assertEquals("default", authentication.getName());
+        Assert.assertEquals(ProjectRole.MEMBER,
+                ((ReportPortalUser) authentication.getUserAuthentication().getPrincipal()).getProjectRoles().get("default_personal"));
+        verify(persistentStore, never()).storeAccessToken(any(), any());
+        verify(persistentStore, never()).readAuthentication(any(String.class));
+    }
+
+    @Test
+    public void rejectsRevokedToken() {
+        OAuth2AccessToken token = issueToken("ui");
+        tokenStore.removeAccessToken(tokenStore.readAccessToken(token.getValue()));
+
+        Assert.assertNull(tokenStore.readAccessToken(token.getValue()));
+        Assert.assertNotNull(tokenStore.readAccessToken(issueToken("ui").getValue()));
+    }
+
+    @Test
+    public void rejectsTokensOfRevokedUser() {
+        OAuth2AccessToken token = issueToken("ui");
+        tokenStore.revokeUserTokens(Collections.singleton("default"));
+
+        Assert.assertNull(tokenStore.readAccessToken(token.getValue()));
+        Assert.assertNull(tokenStore.readRefreshToken(token.getRefreshToken().getValue()));
+    }
+
+    @Test
+    public void acceptsTokenIssuedRightAfterRevocation() throws InterruptedException {
+        tokenStore.revokeUserTokens(Collections.singleton("default"));
+        Thread.sleep(5);
+
+        Assert.assertNotNull(tokenStore.readAccessToken(issueToken("ui").getValue()));
+    }
+
+    @Test
+    public void delegatesOtherClients() {
+        OAuth2Authentication authentication = authentication("api");
+        OAuth2AccessToken token = enhancer.enhance(new DefaultOAuth2AccessToken(UUID.randomUUID().toString()), authentication);
+        tokenStore.storeAccessToken(token, authentication);
+        tokenStore.readAccessToken(token.getValue());
+
+        verify(persistentStore).storeAccessToken(token, authentication);
+        verify(persistentStore).readAccessToken(token.getValue());
+    }
+
+    private OAuth2AccessToken issueToken(String client) {
+        DefaultOAuth2AccessToken token = new DefaultOAuth2AccessToken(UUID.randomUUID().toString());
+        token.setExpiration(new Date(System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1)));
+        token.setRefreshToken(new DefaultOAuth2RefreshToken(UUID.randomUUID().toString()));
+        return enhancer.enhance(token, authentication(client));
+    }
+
+    private static OAuth2Authentication authentication(String client) {
+        ReportPortalUser user = new ReportPortalUser("default", "", AuthorityUtils.createAuthorityList("ROLE_USER"),
+                ImmutableMap.of("default_personal", ProjectRole.MEMBER));
+        user.eraseCredentials();
+        OAuth2Request request = new OAuth2Request(Collections.emptyMap(), client, AuthorityUtils.createAuthorityList("ROLE_USER"), true,
+                Collections.singleton(client), null, null, null, null);
+        return new OAuth2Authentication(request, new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2018 EPAM Systems
+ *
+ *
+ * This file is part of EPAM Report Portal.
+ * https://github.com/reportportal/service-authorization
+ *
+ * Report Portal is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Report Portal is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Report Portal.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.epam.reportportal.auth.util;
+
+import org.jasypt.util.text.BasicTextEncryptor;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Andrei Varabyeu
+ */
+public class EncryptorTest {
+
+	@Test
+	public void readsSecretsOfBasicEncryptor() {
+		BasicTextEncryptor basic = new BasicTextEncryptor();
+		basic.setPassword("reportportal");
+
+		Encryptor encryptor = new Encryptor("reportportal", 10);
+		Assert.assertEquals("secret", encryptor.decrypt(basic.encrypt("secret")));
+		Assert.assertEquals("secret", basic.decrypt(encryptor.encrypt("secret")));
+	}
+
+	@Test
+	public void remembersDecryptedSecrets() {
+		Encryptor encryptor = new Encryptor("reportportal", 10);
+		String encrypted = encryptor.encrypt("secret");
+		Assert.assertEquals("secret", encryptor.decrypt(encrypted));
+		Assert.assertEquals(0, encryptor.getHits());
+		Assert.assertEquals(1, encryptor.size());
+
+		Assert.assertEquals("secret", encryptor.decrypt(encrypted));
+		Assert.assertEquals(1, encryptor.getHits());
+		Assert.assertEquals(1, encryptor.size());
+
+		Assert.assertNull(encryptor.decrypt(null));
+		Assert.assertEquals(1, encryptor.getHits());
+	}
+
+	@Test
+	public void cacheIsBounded() {
+		Encryptor encryptor = new Encryptor("reportportal", 2);
+		for (int i = 0; i < 5; i++) {
+			encryptor.decrypt(encryptor.encrypt("secret" + i));
+		}
+		Assert.assertEquals(2, encryptor.size());
+		Assert.assertEquals(0, encryptor.getHits());
+	}
+}